@@ -22,7 +22,11 @@ public class CorsConfig {
         corsConfig.setMaxAge(3600L);
         corsConfig.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         corsConfig.setAllowedHeaders(
-                Arrays.asList("Content-Type", "Authorization", "X-Requested-With", "X-User-Id", "Accept", "Origin"));
+                Arrays.asList("Content-Type", "Authorization", "X-Requested-With", "X-User-Id", "Accept", "Origin",
+                        "Idempotency-Key"));
+        // Cursor-paginated order lists return the next cursor as a header; retried order calls say
+        // whether they replayed an earlier response
+        corsConfig.setExposedHeaders(List.of("X-Next-Cursor", "Idempotent-Replayed"));
         corsConfig.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,154 @@
+package ax.gritlab.buy_01.order.client;
+
+import ax.gritlab.buy_01.order.service.ProductReplica;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches the products of a cart or order from product-service in parallel.
+ *
+ * All lookups of one request run concurrently on a bounded pool, each with
+ * its own timeout, and the result is one immutable snapshot that validation,
+ * item building and pricing share instead of fetching the same products
+ * again one by one. Products that are missing, fail or time out are simply
+ * absent from the snapshot. The HTTP client is bounded by the same timeout,
+ * so a lookup given up on does not hold its pool thread any longer.
+ *
+ * Reads for display and pricing are served from the local {@link ProductReplica}
+ * and only fall back to product-service for products it has not seen; the
+ * {@code Live} variants always ask product-service and are used where stock
+ * has to be authoritative.
+ */
+@Slf4j
+@Component
+public class ProductHydrator {
+
+    private final RestTemplate restTemplate;
+    private final ProductReplica productReplica;
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+
+    @Value("${product.service.url}")
+    private String productServiceUrl;
+
+    public ProductHydrator(@Qualifier("productRestTemplate") RestTemplate restTemplate,
+                           ProductReplica productReplica,
+                           @Value("${order.hydration.parallelism:8}") int parallelism,
+                           @Value("${order.hydration.timeout-ms:2000}") long timeoutMillis) {
+        this.restTemplate = restTemplate;
+        this.productReplica = productReplica;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), daemonThreads());
+    }
+
+    /**
+     * Look up the given products in the replica, fetching only the ones it does not know.
+     *
+     * @param productIds product IDs, duplicates are looked up once
+     * @return immutable map of product ID to product JSON for every product that could be found
+     */
+    public Map<String, JsonNode> hydrate(Collection<String> productIds) {
+        Map<String, JsonNode> products = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String id : productIds) {
+            JsonNode product = productReplica.get(id);
+            if (product != null) {
+                products.put(id, product);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Map.copyOf(products);
+        }
+        products.putAll(hydrateLive(missing));
+        return Map.copyOf(products);
+    }
+
+    /**
+     * Fetch the given products from product-service concurrently.
+     *
+     * @param productIds product IDs, duplicates are fetched once
+     * @return immutable map of product ID to product JSON for every product that could be fetched
+     */
+    public Map<String, JsonNode> hydrateLive(Collection<String> productIds) {
+        Set<String> ids = new LinkedHashSet<>(productIds);
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, CompletableFuture<JsonNode>> futures = new LinkedHashMap<>();
+        for (String id : ids) {
+            futures.put(id, CompletableFuture.supplyAsync(() -> fetch(id), executor)
+                    .completeOnTimeout(null, timeoutMillis, TimeUnit.MILLISECONDS));
+        }
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).join();
+
+        Map<String, JsonNode> products = new HashMap<>();
+        futures.forEach((id, future) -> {
+            JsonNode product = future.join();
+            if (product != null) {
+                products.put(id, product);
+            } else {
+                log.warn("Product {} is unavailable or did not respond within {} ms", id, timeoutMillis);
+            }
+        });
+        return Map.copyOf(products);
+    }
+
+    /**
+     * Look up a single product in the replica, falling back to product-service.
+     *
+     * @return the product JSON, or null if it does not exist or product-service failed
+     */
+    public JsonNode find(String productId) {
+        JsonNode product = productReplica.get(productId);
+        return product != null ? product : fetch(productId);
+    }
+
+    /**
+     * Fetch a single product from product-service.
+     *
+     * @return the product JSON, or null if it does not exist or product-service failed
+     */
+    public JsonNode fetch(String productId) {
+        try {
+            return restTemplate.getForObject(productServiceUrl + "/" + productId, JsonNode.class);
+        } catch (Exception e) {
+            log.warn("Error fetching product {}: {}", productId, e.getMessage());
+            return null;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "product-hydrator-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
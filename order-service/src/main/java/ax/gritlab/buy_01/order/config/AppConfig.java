@@ -1,16 +1,44 @@
 package ax.gritlab.buy_01.order.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class AppConfig {
 
+    @Value("${order.http.connect-timeout-ms:1000}")
+    private long connectTimeoutMillis;
+
+    @Bean
+    @Primary
+    @LoadBalanced
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     @Value("${order.http.read-timeout-ms:5000}") long readTimeoutMillis) {
+        return builder
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .readTimeout(Duration.ofMillis(readTimeoutMillis))
+                .build();
+    }
+
+    /**
+     * Client for product lookups, whose calls must end within the hydration
+     * timeout. A lookup the caller stopped waiting for would otherwise keep
+     * its pool thread until product-service answers.
+     */
     @Bean
     @LoadBalanced
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate productRestTemplate(RestTemplateBuilder builder,
+                                            @Value("${order.hydration.timeout-ms:2000}") long timeoutMillis) {
+        return builder
+                .connectTimeout(Duration.ofMillis(Math.min(connectTimeoutMillis, timeoutMillis)))
+                .readTimeout(Duration.ofMillis(timeoutMillis))
+                .build();
     }
 }
@@ -0,0 +1,44 @@
+package ax.gritlab.buy_01.order.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Looks up the partitions of a topic, for listeners that assign partitions
+ * themselves instead of joining a consumer group. Used from listener
+ * annotations as {@code #{@kafkaPartitionFinder.partitions('topic')}}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KafkaPartitionFinder {
+
+    private static final Duration LOOKUP_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ConsumerFactory<?, ?> consumerFactory;
+
+    /**
+     * @return partition numbers of the topic, or just partition 0 when the
+     *         broker cannot be asked yet (the topics are created with one partition)
+     */
+    public String[] partitions(String topic) {
+        try (Consumer<?, ?> consumer = consumerFactory.createConsumer()) {
+            List<PartitionInfo> partitions = consumer.partitionsFor(topic, LOOKUP_TIMEOUT);
+            if (partitions != null && !partitions.isEmpty()) {
+                return partitions.stream()
+                        .map(partition -> String.valueOf(partition.partition()))
+                        .toArray(String[]::new);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to look up partitions of {}: {}", topic, e.getMessage());
+        }
+        return new String[] { "0" };
+    }
+}
@@ -0,0 +1,22 @@
+package ax.gritlab.buy_01.order.config;
+
+import ax.gritlab.buy_01.order.service.OrderOutbox;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    /**
+     * Orders placed through the asynchronous checkout, keyed by order ID.
+     */
+    @Bean
+    public NewTopic orderPlacedTopic() {
+        return TopicBuilder.name(OrderOutbox.ORDER_PLACED_TOPIC)
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
+}
@@ -3,6 +3,7 @@ package ax.gritlab.buy_01.order.config;
 import ax.gritlab.buy_01.order.model.Cart;
 import ax.gritlab.buy_01.order.model.Order;
 import ax.gritlab.buy_01.order.model.Wishlist;
+import ax.gritlab.buy_01.order.service.OrderArchive;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,7 +12,9 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
 import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
 
 /**
  * MongoDB configuration for Order service.
@@ -37,6 +40,7 @@ public class MongoConfig {
             createOrderIndexes();
             createCartIndexes();
             createWishlistIndexes();
+            createArchiveIndexes();
             log.info("MongoDB indexes initialized successfully");
         } catch (Exception e) {
             // Log but don't fail startup - indexes may already exist with different names
@@ -97,15 +101,22 @@ public class MongoConfig {
         }
 
         try {
-            // Index for soft-deleted orders cleanup
+            // Replaced by removed_orders_partial_idx: the hot collection no longer holds removed orders
+            mongoTemplate.indexOps(Order.class).dropIndex("removed_orders_idx");
+        } catch (Exception e) {
+            log.debug("Index removed_orders_idx: {}", e.getMessage());
+        }
+
+        try {
+            // Soft-deleted orders left over from before they were archived, for OrderArchiver
             mongoTemplate.indexOps(Order.class).ensureIndex(
                 new Index()
-                    .on("isRemoved", Sort.Direction.ASC)
                     .on("removedAt", Sort.Direction.ASC)
-                    .named("removed_orders_idx")
+                    .partial(PartialIndexFilter.of(Criteria.where("isRemoved").is(true)))
+                    .named("removed_orders_partial_idx")
             );
         } catch (Exception e) {
-            log.debug("Index removed_orders_idx: {}", e.getMessage());
+            log.debug("Index removed_orders_partial_idx: {}", e.getMessage());
         }
 
         try {
@@ -179,6 +190,20 @@ public class MongoConfig {
         }
     }
 
+    private void createArchiveIndexes() {
+        try {
+            // Buyer order history
+            mongoTemplate.indexOps(OrderArchive.COLLECTION).ensureIndex(
+                new Index()
+                    .on("buyerId", Sort.Direction.ASC)
+                    .on("createdAt", Sort.Direction.DESC)
+                    .named("archive_buyer_idx")
+            );
+        } catch (Exception e) {
+            log.debug("Index archive_buyer_idx: {}", e.getMessage());
+        }
+    }
+
     private void createWishlistIndexes() {
         try {
             // Primary index on userId (unique - one wishlist per user)
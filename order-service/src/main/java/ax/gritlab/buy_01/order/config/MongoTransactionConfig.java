@@ -0,0 +1,21 @@
+package ax.gritlab.buy_01.order.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+/**
+ * Mongo transactions for writing orders and their outbox events together.
+ * Enable with order.outbox.transactional=true; MongoDB must run as a replica set.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.outbox.transactional", havingValue = "true")
+public class MongoTransactionConfig {
+
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
+}
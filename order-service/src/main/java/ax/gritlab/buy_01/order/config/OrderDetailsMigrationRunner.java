@@ -0,0 +1,40 @@
+package ax.gritlab.buy_01.order.config;
+
+import ax.gritlab.buy_01.order.service.DataMigrations;
+import ax.gritlab.buy_01.order.service.OrderDetailsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves status history, item descriptions and delivery notes of existing
+ * orders from the orders collection into order_details on the first startup
+ * that finds this not done yet, and records that in data_migrations. Until
+ * then the fields of an order are moved one by one whenever it is shown or
+ * written as a whole.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderDetailsMigrationRunner implements ApplicationRunner {
+
+    private final OrderDetailsService orderDetailsService;
+    private final DataMigrations dataMigrations;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (dataMigrations.isDone(DataMigrations.ORDER_DETAILS)) {
+            return;
+        }
+        try {
+            long migrated = orderDetailsService.migrateEmbeddedDetails();
+            dataMigrations.markDone(DataMigrations.ORDER_DETAILS);
+            log.info("Moved cold details of {} orders into order_details", migrated);
+        } catch (Exception e) {
+            // Orders keep being moved one by one until the next startup gets through
+            log.warn("Failed to move order details: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ax.gritlab.buy_01.order.config;
+
+import ax.gritlab.buy_01.order.service.DataMigrations;
+import ax.gritlab.buy_01.order.service.OrderStatsProjection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the buyer_stats and seller_stats read models from all orders on the
+ * first startup that finds them not built yet, and records that in
+ * data_migrations; until then profile statistics are aggregated from the
+ * orders. Set order.stats.rebuild-on-startup=true to rebuild them on every
+ * startup, e.g. to repair drift. Orders are streamed, not loaded at once.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatsRebuildRunner implements ApplicationRunner {
+
+    private final OrderStatsProjection orderStatsProjection;
+    private final DataMigrations dataMigrations;
+
+    @Value("${order.stats.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!rebuildOnStartup && dataMigrations.isDone(DataMigrations.ORDER_STATS)) {
+            return;
+        }
+        try {
+            long projected = orderStatsProjection.rebuild();
+            dataMigrations.markDone(DataMigrations.ORDER_STATS);
+            log.info("Rebuilt buyer and seller stats from {} orders", projected);
+        } catch (Exception e) {
+            // Statistics stay on the aggregation until the next startup gets through
+            log.warn("Failed to rebuild buyer and seller stats: {}", e.getMessage());
+        }
+    }
+}
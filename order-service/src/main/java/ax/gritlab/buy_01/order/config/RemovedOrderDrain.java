@@ -0,0 +1,38 @@
+package ax.gritlab.buy_01.order.config;
+
+import ax.gritlab.buy_01.order.service.DataMigrations;
+import ax.gritlab.buy_01.order.service.OrderArchive;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the orders that earlier versions soft-deleted in orders to
+ * orders_archive before the service starts serving requests, the first time
+ * it starts without the isRemoved filter on buyer and seller queries, and
+ * records that in data_migrations. Until then those orders would show up
+ * again in the lists, so startup fails rather than serve them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RemovedOrderDrain {
+
+    private final OrderArchive orderArchive;
+    private final DataMigrations dataMigrations;
+
+    @Value("${order.archive.batch-size:500}")
+    private int batchSize;
+
+    @PostConstruct
+    public void drain() {
+        if (dataMigrations.isDone(DataMigrations.REMOVED_ORDERS)) {
+            return;
+        }
+        int moved = orderArchive.moveRemoved(batchSize);
+        dataMigrations.markDone(DataMigrations.REMOVED_ORDERS);
+        log.info("Archived {} removed orders", moved);
+    }
+}
@@ -33,7 +33,9 @@ public class SecurityConfig {
                 // Allow health check and verification endpoints without auth (for testing)
                 .requestMatchers("/api/orders/health").permitAll()
                 .requestMatchers("/api/orders/verify/**").permitAll()
-                .requestMatchers("/actuator/**").permitAll()
+                .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()
+                // Metrics describe internals (order volumes, sweeper counts): signed-in callers only
+                .requestMatchers("/actuator/**").authenticated()
                 // All other endpoints require authentication
                 .anyRequest().authenticated()
             )
@@ -0,0 +1,40 @@
+package ax.gritlab.buy_01.order.config;
+
+import ax.gritlab.buy_01.order.service.DataMigrations;
+import ax.gritlab.buy_01.order.service.SellerOrderLineProjection;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the seller_order_lines of all existing orders before the service
+ * starts serving requests, the first time it starts with seller views
+ * reading lines, and records that in data_migrations. Seller listings,
+ * searches and stats read nothing but lines, so startup fails rather than
+ * serve them from an incomplete backfill. Set
+ * order.seller-lines.rebuild-on-startup=true to write them on every startup,
+ * e.g. to repair drift; orders are streamed, not loaded at once.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SellerOrderLineBackfill {
+
+    private final SellerOrderLineProjection sellerOrderLineProjection;
+    private final DataMigrations dataMigrations;
+
+    @Value("${order.seller-lines.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @PostConstruct
+    public void backfill() {
+        if (!rebuildOnStartup && dataMigrations.isDone(DataMigrations.SELLER_ORDER_LINES)) {
+            return;
+        }
+        long projected = sellerOrderLineProjection.rebuild();
+        dataMigrations.markDone(DataMigrations.SELLER_ORDER_LINES);
+        log.info("Wrote seller order lines of {} orders", projected);
+    }
+}
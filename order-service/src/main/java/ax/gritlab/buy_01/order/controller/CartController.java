@@ -1,6 +1,7 @@
 package ax.gritlab.buy_01.order.controller;
 
 import ax.gritlab.buy_01.order.dto.request.AddToCartRequest;
+import ax.gritlab.buy_01.order.dto.request.CartBatchRequest;
 import ax.gritlab.buy_01.order.dto.request.UpdateCartItemRequest;
 import ax.gritlab.buy_01.order.dto.response.CartResponse;
 import ax.gritlab.buy_01.order.model.User;
@@ -65,6 +66,18 @@ public class CartController {
         return ResponseEntity.ok(cart);
     }
 
+    /**
+     * Apply several add/update/remove operations in order as one cart update.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<CartResponse> applyBatch(
+            @Valid @RequestBody CartBatchRequest request,
+            Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        CartResponse cart = cartService.applyBatch(user.getId(), request.getOperations());
+        return ResponseEntity.ok(cart);
+    }
+
     /**
      * Clear cart.
      */
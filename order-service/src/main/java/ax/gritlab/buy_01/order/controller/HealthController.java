@@ -3,6 +3,7 @@ package ax.gritlab.buy_01.order.controller;
 import ax.gritlab.buy_01.order.model.*;
 import ax.gritlab.buy_01.order.repository.CartRepository;
 import ax.gritlab.buy_01.order.repository.OrderRepository;
+import ax.gritlab.buy_01.order.service.OrderNumberGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.ResponseEntity;
@@ -34,6 +35,9 @@ public class HealthController {
     @Autowired
     private CartRepository cartRepository;
 
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+
     private static final String TEST_BUYER_ID = "test-buyer-verification";
     private static final String TEST_SELLER_ID = "test-seller-verification";
 
@@ -107,7 +111,7 @@ public class HealthController {
                     .build();
 
             Order order = Order.builder()
-                    .orderNumber(Order.generateOrderNumber())
+                    .orderNumber(orderNumberGenerator.next())
                     .buyerId(TEST_BUYER_ID)
                     .buyerName("Test Buyer")
                     .buyerEmail("test@verification.com")
@@ -3,8 +3,10 @@ package ax.gritlab.buy_01.order.controller;
 import ax.gritlab.buy_01.order.dto.request.CheckoutRequest;
 import ax.gritlab.buy_01.order.dto.response.CartResponse;
 import ax.gritlab.buy_01.order.dto.response.OrderResponse;
+import ax.gritlab.buy_01.order.dto.response.OrderSliceResponse;
 import ax.gritlab.buy_01.order.model.OrderStatus;
 import ax.gritlab.buy_01.order.model.User;
+import ax.gritlab.buy_01.order.service.OrderIdempotencyService;
 import ax.gritlab.buy_01.order.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -17,51 +19,108 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
+
 @RestController
 @RequestMapping("/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAY_HEADER = "Idempotent-Replayed";
+
+    /**
+     * List endpoints return full orders unless ?view=summary is given.
+     */
+    private static final String VIEW_FULL = "full";
+    private static final String VIEW_SUMMARY = "summary";
+
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
 
     /**
      * Checkout - create order from cart.
+     * Calls carrying an Idempotency-Key header create at most one order;
+     * repeats get the first response back.
      */
     @PostMapping("/checkout")
     public ResponseEntity<OrderResponse> checkout(
             @Valid @RequestBody CheckoutRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        OrderResponse order = orderService.checkout(user.getId(), user.getEmail(), request);
-        return ResponseEntity.ok(order);
+        return toResponse(orderIdempotencyService.execute(user.getId(), "checkout", idempotencyKey, request,
+                () -> orderService.checkout(user.getId(), user.getEmail(), request)));
     }
 
     /**
      * Get user's orders (buyer) - paginated.
+     * With ?view=summary only number, date, status, total and item count are returned.
      */
     @GetMapping
-    public ResponseEntity<Page<OrderResponse>> getUserOrders(
+    public ResponseEntity<Page<?>> getUserOrders(
+            @RequestParam(defaultValue = VIEW_FULL) String view,
             @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
+        if (isSummary(view)) {
+            return ResponseEntity.ok(orderService.getUserOrderSummaries(user.getId(), pageable));
+        }
         Page<OrderResponse> orders = orderService.getUserOrders(user.getId(), pageable);
         return ResponseEntity.ok(orders);
     }
 
+    /**
+     * Get user's orders (buyer) - cursor paginated, no total count.
+     * Pass the returned nextCursor as ?cursor= for the next slice.
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<OrderSliceResponse<OrderResponse>> getUserOrderSlice(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return ResponseEntity.ok(orderService.getUserOrderSlice(user.getId(), cursor, size));
+    }
+
     /**
      * Get user's orders (buyer) - list endpoint for frontend compatibility.
+     * Filters are applied by the database; keyword is an order number prefix.
+     * When more orders match, the cursor for the next call is returned in X-Next-Cursor.
+     * With ?view=summary only number, date, status, total and item count are returned.
      */
     @GetMapping("/my-orders")
-    public ResponseEntity<java.util.List<OrderResponse>> getMyOrders(
+    public ResponseEntity<java.util.List<?>> getMyOrders(
             @RequestParam(required = false) OrderStatus status,
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String dateFrom,
             @RequestParam(required = false) String dateTo,
-            @PageableDefault(size = 100, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = VIEW_FULL) String view,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        Page<OrderResponse> orders = orderService.getUserOrders(user.getId(), pageable);
-        return ResponseEntity.ok(orders.getContent());
+        OrderSliceResponse<?> orders = isSummary(view)
+                ? orderService.getMyOrderSummaries(user.getId(), status, keyword, dateFrom, dateTo, cursor, size)
+                : orderService.getMyOrders(user.getId(), status, keyword, dateFrom, dateTo, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (orders.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, orders.getNextCursor());
+        }
+        return response.body(orders.getContent());
+    }
+
+    /**
+     * Get user's archived orders (buyer) - paginated.
+     * Old finished orders are moved out of the listings above and only show up here.
+     */
+    @GetMapping("/history")
+    public ResponseEntity<Page<OrderResponse>> getUserOrderHistory(
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return ResponseEntity.ok(orderService.getUserOrderHistory(user.getId(), pageable));
     }
 
     /**
@@ -81,56 +140,95 @@ public class OrderController {
      */
     @GetMapping("/seller")
     @PreAuthorize("hasAuthority('SELLER')")
-    public ResponseEntity<Page<OrderResponse>> getSellerOrders(
+    public ResponseEntity<Page<?>> getSellerOrders(
             @RequestParam(required = false) OrderStatus status,
+            @RequestParam(defaultValue = VIEW_FULL) String view,
             @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
+        if (isSummary(view)) {
+            return ResponseEntity.ok(orderService.getSellerOrderSummaries(user.getId(), status, pageable));
+        }
         Page<OrderResponse> orders = orderService.getSellerOrders(user.getId(), status, pageable);
         return ResponseEntity.ok(orders);
     }
 
+    /**
+     * Get seller's orders - cursor paginated, no total count.
+     */
+    @GetMapping("/seller/scroll")
+    @PreAuthorize("hasAuthority('SELLER')")
+    public ResponseEntity<OrderSliceResponse<OrderResponse>> getSellerOrderSlice(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return ResponseEntity.ok(orderService.getSellerOrderSlice(user.getId(), status, cursor, size));
+    }
+
     /**
      * Search orders (for sellers).
      */
     @GetMapping("/search")
     @PreAuthorize("hasAuthority('SELLER')")
-    public ResponseEntity<Page<OrderResponse>> searchOrders(
+    public ResponseEntity<Page<?>> searchOrders(
             @RequestParam String q,
+            @RequestParam(defaultValue = VIEW_FULL) String view,
             @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
+        if (isSummary(view)) {
+            return ResponseEntity.ok(orderService.searchOrderSummaries(user.getId(), q, pageable));
+        }
         Page<OrderResponse> orders = orderService.searchOrders(user.getId(), q, pageable);
         return ResponseEntity.ok(orders);
     }
 
     /**
-     * Cancel order.
+     * Search orders (for sellers) - cursor paginated, no total count.
+     */
+    @GetMapping("/search/scroll")
+    @PreAuthorize("hasAuthority('SELLER')")
+    public ResponseEntity<OrderSliceResponse<OrderResponse>> searchOrderSlice(
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return ResponseEntity.ok(orderService.searchOrderSlice(user.getId(), q, cursor, size));
+    }
+
+    /**
+     * Cancel order. Idempotent with an Idempotency-Key header, like checkout.
      */
     @PatchMapping("/{id}/cancel")
     public ResponseEntity<OrderResponse> cancelOrder(
             @PathVariable String id,
             @RequestParam(required = false) String reason,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        OrderResponse order = orderService.cancelOrder(id, user.getId(), reason);
-        return ResponseEntity.ok(order);
+        return toResponse(orderIdempotencyService.execute(user.getId(), "cancel", idempotencyKey,
+                Arrays.asList(id, reason), () -> orderService.cancelOrder(id, user.getId(), reason)));
     }
 
     /**
      * Redo order - create a new order from a cancelled order.
+     * Idempotent with an Idempotency-Key header, like checkout.
      */
     @PostMapping("/{id}/redo")
     public ResponseEntity<OrderResponse> redoOrder(
             @PathVariable String id,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        OrderResponse newOrder = orderService.redoOrder(id, user.getId());
-        return ResponseEntity.ok(newOrder);
+        return toResponse(orderIdempotencyService.execute(user.getId(), "redo", idempotencyKey, id,
+                () -> orderService.redoOrder(id, user.getId())));
     }
 
     /**
-     * Soft delete order.
+     * Soft delete order - it moves to the buyer's archive.
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteOrder(
@@ -140,4 +238,22 @@ public class OrderController {
         orderService.deleteOrder(id, user.getId());
         return ResponseEntity.noContent().build();
     }
+
+    private static ResponseEntity<OrderResponse> toResponse(OrderIdempotencyService.IdempotentResponse result) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (result.isReplayed()) {
+            builder.header(IDEMPOTENT_REPLAY_HEADER, "true");
+        }
+        return builder.body(result.getResponse());
+    }
+
+    private static boolean isSummary(String view) {
+        if (VIEW_SUMMARY.equalsIgnoreCase(view)) {
+            return true;
+        }
+        if (!VIEW_FULL.equalsIgnoreCase(view)) {
+            throw new IllegalArgumentException("view must be 'full' or 'summary'");
+        }
+        return false;
+    }
 }
@@ -2,16 +2,24 @@ package ax.gritlab.buy_01.order.controller;
 
 import ax.gritlab.buy_01.order.dto.BuyerProfileStatsDto;
 import ax.gritlab.buy_01.order.dto.SellerProfileStatsDto;
+import ax.gritlab.buy_01.order.dto.SellerPublicStatsDto;
+import ax.gritlab.buy_01.order.dto.SellerTimeseriesDto;
 import ax.gritlab.buy_01.order.model.Role;
+import ax.gritlab.buy_01.order.model.RollupGranularity;
 import ax.gritlab.buy_01.order.model.User;
 import ax.gritlab.buy_01.order.service.ProfileStatsService;
+import ax.gritlab.buy_01.order.service.SellerPublicStatsService;
+import ax.gritlab.buy_01.order.service.SellerRollupService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 /**
  * Controller for profile statistics endpoints.
  * Provides stats for both buyers and sellers.
@@ -22,6 +30,8 @@ import org.springframework.web.bind.annotation.*;
 public class ProfileController {
 
     private final ProfileStatsService profileStatsService;
+    private final SellerPublicStatsService sellerPublicStatsService;
+    private final SellerRollupService sellerRollupService;
 
     /**
      * Get current user's buyer statistics.
@@ -65,6 +75,22 @@ public class ProfileController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Get current seller's revenue, units, orders and cancellations over time.
+     * Dates are inclusive ISO days (yyyy-MM-dd); granularity is DAY, WEEK or MONTH.
+     */
+    @GetMapping("/seller/me/timeseries")
+    @PreAuthorize("hasAuthority('SELLER')")
+    public ResponseEntity<SellerTimeseriesDto> getMySellerTimeseries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+            @RequestParam(required = false) String productId,
+            Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return ResponseEntity.ok(sellerRollupService.getTimeseries(user.getId(), from, to, granularity, productId));
+    }
+
     /**
      * Get seller statistics by seller ID.
      * Restricted: Only the seller themselves can view their detailed stats.
@@ -91,29 +117,6 @@ public class ProfileController {
      */
     @GetMapping("/seller/{sellerId}/public")
     public ResponseEntity<SellerPublicStatsDto> getSellerPublicStats(@PathVariable String sellerId) {
-        SellerProfileStatsDto fullStats = profileStatsService.getSellerStats(sellerId);
-        
-        // Return only public-safe stats
-        SellerPublicStatsDto publicStats = SellerPublicStatsDto.builder()
-                .sellerId(sellerId)
-                .totalProductsSold(fullStats.getTotalProductsSold())
-                .totalOrders(fullStats.getTotalOrders())
-                .build();
-        
-        return ResponseEntity.ok(publicStats);
-    }
-
-    /**
-     * Minimal public stats DTO for sellers.
-     * Hides sensitive financial information.
-     */
-    @lombok.Data
-    @lombok.Builder
-    @lombok.NoArgsConstructor
-    @lombok.AllArgsConstructor
-    public static class SellerPublicStatsDto {
-        private String sellerId;
-        private Integer totalProductsSold;
-        private Integer totalOrders;
+        return ResponseEntity.ok(sellerPublicStatsService.getPublicStats(sellerId));
     }
 }
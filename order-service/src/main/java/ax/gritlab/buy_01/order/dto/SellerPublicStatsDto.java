@@ -0,0 +1,32 @@
+package ax.gritlab.buy_01.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Minimal public stats DTO for sellers.
+ * Hides sensitive financial information.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SellerPublicStatsDto {
+
+    /**
+     * User ID of the seller
+     */
+    private String sellerId;
+
+    /**
+     * Total products sold (sum of quantities)
+     */
+    private Integer totalProductsSold;
+
+    /**
+     * Total number of orders containing seller's products
+     */
+    private Integer totalOrders;
+}
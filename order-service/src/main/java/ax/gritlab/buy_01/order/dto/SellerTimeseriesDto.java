@@ -0,0 +1,63 @@
+package ax.gritlab.buy_01.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO for a seller's revenue and units over time.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SellerTimeseriesDto {
+
+    /**
+     * User ID of the seller
+     */
+    private String sellerId;
+
+    /**
+     * Product the series is limited to, or null for all products
+     */
+    private String productId;
+
+    /**
+     * DAY, WEEK or MONTH
+     */
+    private String granularity;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    /**
+     * Buckets with any activity, oldest first
+     */
+    private List<Point> points;
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Point {
+
+        /**
+         * First day of the bucket (Monday for weeks)
+         */
+        private LocalDate bucket;
+
+        private Double revenue;
+
+        private Integer units;
+
+        private Integer orders;
+
+        private Integer cancellations;
+    }
+}
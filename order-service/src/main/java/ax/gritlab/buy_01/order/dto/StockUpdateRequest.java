@@ -16,6 +16,11 @@ import java.util.List;
 @NoArgsConstructor
 public class StockUpdateRequest {
 
+    /**
+     * Order the movement belongs to; lets product-service de-duplicate retries.
+     */
+    private String orderId;
+
     private List<StockUpdateItem> items;
 
     @Data
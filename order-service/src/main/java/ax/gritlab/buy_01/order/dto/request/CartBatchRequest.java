@@ -0,0 +1,50 @@
+package ax.gritlab.buy_01.order.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Ordered list of cart edits that are validated together and applied as one update.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartBatchRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 100, message = "At most 100 operations per batch")
+    private List<@Valid @NotNull Operation> operations;
+
+    public enum OperationType {
+        ADD, UPDATE, REMOVE
+    }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Operation {
+
+        @NotNull(message = "Operation type is required")
+        private OperationType type;
+
+        @NotNull(message = "Product ID is required")
+        private String productId;
+
+        /**
+         * Amount to add for ADD, new quantity for UPDATE, ignored for REMOVE.
+         */
+        @Min(value = 1, message = "Quantity must be at least 1")
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,27 @@
+package ax.gritlab.buy_01.order.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One slice of a cursor-paginated order listing, of {@link OrderResponse}s or
+ * {@link OrderSummaryResponse}s. Pass nextCursor back as ?cursor= to get the
+ * following slice.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderSliceResponse<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    /**
+     * Null on the last slice
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,22 @@
+package ax.gritlab.buy_01.order.dto.response;
+
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderSummaryResponse {
+    private String id;
+    private String orderNumber;
+    private OrderStatus status;
+    private Double totalAmount;
+    private Integer itemCount;
+    private LocalDateTime createdAt;
+}
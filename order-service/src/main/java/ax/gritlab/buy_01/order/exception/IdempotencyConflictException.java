@@ -0,0 +1,10 @@
+package ax.gritlab.buy_01.order.exception;
+
+/**
+ * An idempotency key was reused for a different request, or its first request is still running elsewhere.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
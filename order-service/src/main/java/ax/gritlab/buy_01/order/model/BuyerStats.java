@@ -4,31 +4,60 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Read model of a buyer's profile statistics.
+ *
+ * Maintained by OrderStatsProjection with $inc deltas whenever an order is
+ * placed, changes status or is removed, so the profile page reads one
+ * document instead of the buyer's whole order history.
+ */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Document(collection = "buyer_stats")
 public class BuyerStats {
+
+    /**
+     * Buyer ID.
+     */
+    @Id
+    private String id;
+
+    /**
+     * Total amount of completed (CONFIRMED or DELIVERED) orders.
+     */
     private double totalSpent;
+
+    /**
+     * All orders that are not removed, in any status.
+     */
     private int totalOrders;
-    private List<ProductCount> mostBoughtProducts;
-    private List<CategoryPercentage> topCategories;
-
-    @Data
-    @AllArgsConstructor
-    public static class ProductCount {
-        private String name;
-        private int count;
-    }
-
-    @Data
-    @AllArgsConstructor
-    public static class CategoryPercentage {
-        private String name;
-        private double percentage;
-    }
+
+    /**
+     * Order count per status name.
+     */
+    @Builder.Default
+    private Map<String, Integer> ordersByStatus = new HashMap<>();
+
+    /**
+     * Amount of completed orders per month of order creation (yyyy-MM).
+     */
+    @Builder.Default
+    private Map<String, Double> spentByMonth = new HashMap<>();
+
+    /**
+     * Counters of completed orders per product ID.
+     */
+    @Builder.Default
+    private Map<String, ProductTally> products = new HashMap<>();
+
+    private LocalDateTime updatedAt;
 }
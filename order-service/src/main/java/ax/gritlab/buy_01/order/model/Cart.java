@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -41,6 +42,13 @@ public class Cart {
     @Id
     private String id;
 
+    /**
+     * Incremented by every cart update. Updates that depend on what was read
+     * (quantity deltas, removals) only apply if the version is unchanged.
+     */
+    @Version
+    private Long version;
+
     /**
      * Owner of this cart. One cart per user.
      */
@@ -72,6 +80,8 @@ public class Cart {
 
     /**
      * Cached subtotal for display.
+     * Kept as a running sum with $inc on every cart update; responses
+     * recompute it from the items.
      * Note: Recalculated fresh at checkout with live prices.
      */
     @Builder.Default
@@ -19,7 +19,7 @@ import java.time.LocalDateTime;
  * This is an embedded document within the Cart collection.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class CartItem {
@@ -69,6 +69,17 @@ public class CartItem {
      */
     private Double cachedPrice;
 
+    /**
+     * When cachedPrice and cachedProductName were last taken from the product.
+     * Items older than the configured staleness window are revalidated in the background.
+     */
+    private LocalDateTime priceFetchedAt;
+
+    /**
+     * Product version the cached fields were taken from, if known.
+     */
+    private Long productVersion;
+
     /**
      * Factory method to create a new cart item.
      */
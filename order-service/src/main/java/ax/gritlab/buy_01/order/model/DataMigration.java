@@ -0,0 +1,29 @@
+package ax.gritlab.buy_01.order.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of a one-time data migration or backfill that ran to completion.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "data_migrations")
+public class DataMigration {
+
+    /**
+     * Name of the migration.
+     */
+    @Id
+    private String id;
+
+    private LocalDateTime completedAt;
+}
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
@@ -27,6 +28,9 @@ import java.util.Set;
  * - Embeds OrderItems with snapshotted product data for historical accuracy
  * - Maintains full status history for audit trail
  * - Indexes optimized for both user and seller queries
+ * - Rarely read fields (status history, item descriptions, delivery notes)
+ *   live in a separate order_details document ({@link OrderDetails}) so
+ *   list and stats queries do not page them in
  * 
  * Snapshotted Fields (frozen at checkout):
  * - All OrderItem fields (product name, price, description, seller info)
@@ -35,7 +39,8 @@ import java.util.Set;
  * 
  * Query Patterns Supported:
  * 1. User's orders (by buyerId + status + date range)
- * 2. Seller's orders (by sellerIds contains + status + date range)
+ * 2. Seller's orders (by sellerIds contains + status + date range; seller
+ *    listings read the per-seller {@link SellerOrderLine} instead)
  * 3. Order search by orderNumber
  * 4. Orders by status for management
  */
@@ -45,10 +50,16 @@ import java.util.Set;
 @AllArgsConstructor
 @Document(collection = "orders")
 @CompoundIndexes({
-    // User order listing: find orders by buyer, sorted by date
-    @CompoundIndex(name = "buyer_date_idx", def = "{'buyerId': 1, 'createdAt': -1}"),
+    // User order listing: find orders by buyer, sorted by date (_id breaks ties for cursors)
+    @CompoundIndex(name = "buyer_orders_idx", def = "{'buyerId': 1, 'createdAt': -1, '_id': -1}"),
     
-    // Seller order listing: find orders containing seller's products
+    // User order listing filtered by status (and optionally a date range)
+    @CompoundIndex(name = "buyer_status_date_idx", def = "{'buyerId': 1, 'status': 1, 'createdAt': -1, '_id': -1}"),
+    
+    // Seller order listing: find orders containing seller's products, sorted by date
+    @CompoundIndex(name = "seller_orders_idx", def = "{'sellerIds': 1, 'createdAt': -1, '_id': -1}"),
+    
+    // Seller order listing filtered by status
     @CompoundIndex(name = "seller_status_date_idx", def = "{'sellerIds': 1, 'status': 1, 'createdAt': -1}"),
     
     // Status-based queries for order management
@@ -64,7 +75,9 @@ public class Order {
 
     /**
      * Human-readable order number for customer reference.
-     * Format: ORD-YYYYMMDD-XXXXX (e.g., ORD-20260201-A3F5K)
+     * Format: ORD-YYYYMMDD-XXXXXXXXXXXXX (e.g., ORD-20260201-00340Z5475UDH),
+     * see {@link ax.gritlab.buy_01.order.service.OrderNumberGenerator}.
+     * Older orders have a 5-character random suffix.
      */
     @NotNull
     @Indexed(unique = true)
@@ -168,7 +181,9 @@ public class Order {
 
     /**
      * Optional notes from buyer for delivery.
+     * COLD: stored in order_details, see {@link OrderDetails}.
      */
+    @Transient
     private String deliveryNotes;
 
     // ==================== Status & Tracking ====================
@@ -182,7 +197,9 @@ public class Order {
 
     /**
      * Complete history of status changes for audit.
+     * COLD: stored in order_details and only loaded for the order detail view.
      */
+    @Transient
     @Builder.Default
     private List<OrderStatusHistory> statusHistory = new ArrayList<>();
 
@@ -217,7 +234,8 @@ public class Order {
     private String originalOrderId;
 
     /**
-     * Soft delete flag. Removed orders are hidden, not deleted.
+     * Soft delete flag. Removed orders are moved to orders_archive right
+     * away, so only archived orders have it set.
      */
     @Builder.Default
     private Boolean isRemoved = false;
@@ -232,6 +250,11 @@ public class Order {
      */
     private String removedBy;
 
+    /**
+     * When the order was moved to orders_archive; only set there.
+     */
+    private LocalDateTime archivedAt;
+
     // ==================== Helper Methods ====================
 
     /**
@@ -292,17 +315,6 @@ public class Order {
         return this.status == OrderStatus.CANCELLED;
     }
 
-    /**
-     * Generates order number with format: ORD-YYYYMMDD-XXXXX
-     */
-    public static String generateOrderNumber() {
-        String datePart = java.time.LocalDate.now()
-                .format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String randomPart = java.util.UUID.randomUUID().toString()
-                .substring(0, 5).toUpperCase();
-        return "ORD-" + datePart + "-" + randomPart;
-    }
-
     /**
      * Get total item count in order.
      */
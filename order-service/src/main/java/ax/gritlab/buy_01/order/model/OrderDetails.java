@@ -0,0 +1,90 @@
+package ax.gritlab.buy_01.order.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cold part of an order: data written at checkout and on status changes but
+ * only read by the order detail view.
+ *
+ * Kept out of the orders collection so that buyer and seller listings, stats
+ * and rollups only page in the hot fields. The matching fields on
+ * {@link Order} and {@link OrderItem} are transient and filled from here.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "order_details")
+public class OrderDetails {
+
+    /**
+     * Same as the order ID.
+     */
+    @Id
+    private String id;
+
+    /**
+     * Complete history of status changes for audit, oldest first.
+     */
+    @Builder.Default
+    private List<OrderStatusHistory> statusHistory = new ArrayList<>();
+
+    /**
+     * SNAPSHOTTED: Product description at time of purchase, by product ID.
+     */
+    @Builder.Default
+    private Map<String, String> productDescriptions = new HashMap<>();
+
+    /**
+     * Optional notes from buyer for delivery.
+     */
+    private String deliveryNotes;
+
+    private LocalDateTime createdAt;
+
+    /**
+     * Cold fields of an order that was just built in memory.
+     */
+    public static OrderDetails of(Order order) {
+        Map<String, String> descriptions = new HashMap<>();
+        if (order.getItems() != null) {
+            for (OrderItem item : order.getItems()) {
+                if (item.getProductDescription() != null) {
+                    descriptions.put(item.getProductId(), item.getProductDescription());
+                }
+            }
+        }
+        return OrderDetails.builder()
+                .id(order.getId())
+                .statusHistory(order.getStatusHistory() != null
+                        ? new ArrayList<>(order.getStatusHistory()) : new ArrayList<>())
+                .productDescriptions(descriptions)
+                .deliveryNotes(order.getDeliveryNotes())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Fill the transient cold fields of a loaded order.
+     */
+    public void applyTo(Order order) {
+        order.setStatusHistory(statusHistory != null ? new ArrayList<>(statusHistory) : new ArrayList<>());
+        order.setDeliveryNotes(deliveryNotes);
+        if (order.getItems() != null && productDescriptions != null) {
+            for (OrderItem item : order.getItems()) {
+                item.setProductDescription(productDescriptions.get(item.getProductId()));
+            }
+        }
+    }
+}
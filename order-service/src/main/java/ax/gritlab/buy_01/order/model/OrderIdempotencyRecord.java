@@ -0,0 +1,54 @@
+package ax.gritlab.buy_01.order.model;
+
+import ax.gritlab.buy_01.order.dto.response.OrderResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Result of a checkout, cancel or redo call, stored under its idempotency key.
+ * Records expire through a TTL index, so keys only need to be unique for a day.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "order_idempotency_keys")
+public class OrderIdempotencyRecord {
+
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    /**
+     * userId:operation:key, so clients cannot collide with each other's keys.
+     */
+    @Id
+    private String id;
+
+    private String operation;
+
+    /**
+     * Hash of the request, to detect a key reused for a different request.
+     */
+    private String fingerprint;
+
+    private String status;
+
+    private OrderResponse response;
+
+    /**
+     * Token of the call currently holding the claim; a takeover replaces it.
+     */
+    private String claimToken;
+
+    private LocalDateTime claimedAt;
+
+    @Indexed(name = "idempotency_ttl_idx", expireAfter = "1d")
+    private LocalDateTime createdAt;
+}
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Transient;
 
 /**
  * Represents a single item within an order.
@@ -39,7 +40,9 @@ public class OrderItem {
 
     /**
      * SNAPSHOTTED: Product description at time of purchase.
+     * COLD: stored in order_details, see {@link OrderDetails}.
      */
+    @Transient
     private String productDescription;
 
     /**
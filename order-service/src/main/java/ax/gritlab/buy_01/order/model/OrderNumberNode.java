@@ -0,0 +1,37 @@
+package ax.gritlab.buy_01.order.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease of one order number node id by a running instance.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "order_number_nodes")
+public class OrderNumberNode {
+
+    /**
+     * The node id, 0-1023.
+     */
+    @Id
+    private Integer id;
+
+    /**
+     * Random id of the instance holding the lease.
+     */
+    private String owner;
+
+    /**
+     * Free for another instance from then on, unless renewed.
+     */
+    private LocalDateTime expiresAt;
+}
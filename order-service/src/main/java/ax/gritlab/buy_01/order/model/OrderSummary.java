@@ -0,0 +1,35 @@
+package ax.gritlab.buy_01.order.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The few fields of an order that list screens show, read from the orders
+ * collection with a field projection instead of loading whole documents.
+ * itemCount is computed by MongoDB from the items array.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+
+    private String id;
+
+    private String orderNumber;
+
+    private OrderStatus status;
+
+    private Double totalAmount;
+
+    /**
+     * Number of order lines
+     */
+    private Integer itemCount;
+
+    private LocalDateTime createdAt;
+}
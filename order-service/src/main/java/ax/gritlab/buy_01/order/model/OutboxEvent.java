@@ -0,0 +1,42 @@
+package ax.gritlab.buy_01.order.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Kafka message waiting to be published.
+ *
+ * Written in the same transaction as the order change that produced it and
+ * deleted by the relay once the broker has acknowledged it. The ObjectId
+ * keeps events in the order they were written.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "outbox")
+public class OutboxEvent {
+
+    @Id
+    private String id;
+
+    private String topic;
+
+    /**
+     * Message key; the order ID, so events of one order stay on one partition.
+     */
+    private String key;
+
+    /**
+     * JSON message value.
+     */
+    private String payload;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,42 @@
+package ax.gritlab.buy_01.order.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted copy of a product snapshot from the product.snapshots topic.
+ *
+ * Only written when the replica is configured to persist, so a restarted
+ * instance can serve reads before it has caught up with the topic.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "product_replica")
+public class ProductReplicaEntry {
+
+    /**
+     * Product ID.
+     */
+    @Id
+    private String id;
+
+    /**
+     * Product version the snapshot was taken at.
+     */
+    private Long version;
+
+    /**
+     * Snapshot JSON as published by product-service.
+     */
+    private String payload;
+
+    private LocalDateTime updatedAt;
+}
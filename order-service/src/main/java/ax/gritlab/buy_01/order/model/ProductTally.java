@@ -0,0 +1,22 @@
+package ax.gritlab.buy_01.order.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running per-product counters inside a buyer or seller stats document.
+ * Counters are moved with $inc; name and thumbnail are the latest seen.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductTally {
+    private String name;
+    private String thumbnailMediaId;
+    private int quantity;
+    private double amount;
+    private int orderCount;
+}
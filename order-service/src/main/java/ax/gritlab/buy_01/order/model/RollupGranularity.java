@@ -0,0 +1,11 @@
+package ax.gritlab.buy_01.order.model;
+
+/**
+ * Bucket size of a seller time series.
+ * DAY and MONTH are stored; WEEK is summed from days when read.
+ */
+public enum RollupGranularity {
+    DAY,
+    WEEK,
+    MONTH
+}
@@ -0,0 +1,80 @@
+package ax.gritlab.buy_01.order.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One seller's share of an order: only that seller's items, their subtotal
+ * and the order status.
+ *
+ * Written next to the order at checkout and kept in step on status changes,
+ * so seller listings, searches and stats never read the other sellers' lines
+ * of a multi-seller order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "seller_order_lines")
+@CompoundIndexes({
+    // Seller order listing, sorted by date (_id breaks ties for cursors)
+    @CompoundIndex(name = "seller_lines_idx", def = "{'sellerId': 1, 'createdAt': -1, '_id': -1}"),
+
+    // Seller order listing filtered by status
+    @CompoundIndex(name = "seller_status_lines_idx", def = "{'sellerId': 1, 'status': 1, 'createdAt': -1, '_id': -1}")
+})
+public class SellerOrderLine {
+
+    /**
+     * orderId:sellerId, so each line is written in place.
+     */
+    @Id
+    private String id;
+
+    @Indexed
+    private String orderId;
+
+    private String sellerId;
+
+    private String orderNumber;
+
+    private String buyerId;
+
+    private String buyerName;
+
+    private String buyerEmail;
+
+    /**
+     * The seller's items of the order.
+     */
+    @Builder.Default
+    private List<OrderItem> items = new ArrayList<>();
+
+    /**
+     * Sum of the seller's item subtotals.
+     */
+    private Double subtotal;
+
+    private OrderStatus status;
+
+    private Boolean isRemoved;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    public static String idOf(String orderId, String sellerId) {
+        return orderId + ":" + sellerId;
+    }
+}
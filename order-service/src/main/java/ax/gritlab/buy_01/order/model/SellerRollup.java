@@ -0,0 +1,103 @@
+package ax.gritlab.buy_01.order.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sales of one seller in one time bucket.
+ *
+ * Daily buckets are moved with $inc as orders are placed and cancelled, and
+ * are folded into monthly buckets once they are old enough. Orders count in
+ * the bucket of the day they were placed, so a later cancellation corrects
+ * that day instead of the day it happened.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "seller_rollups")
+@CompoundIndex(name = "seller_bucket_idx", def = "{'sellerId': 1, 'granularity': 1, 'bucket': 1}")
+public class SellerRollup {
+
+    /**
+     * sellerId:granularity:bucket, so each bucket is upserted in place.
+     */
+    @Id
+    private String id;
+
+    private String sellerId;
+
+    /**
+     * DAY or MONTH.
+     */
+    private RollupGranularity granularity;
+
+    /**
+     * First day of the bucket.
+     */
+    private LocalDate bucket;
+
+    /**
+     * Revenue of the seller's items in completed orders, net of cancellations.
+     */
+    private double revenue;
+
+    /**
+     * Units of the seller's items in completed orders, net of cancellations.
+     */
+    private int units;
+
+    /**
+     * Orders placed with at least one of the seller's items.
+     */
+    private int orders;
+
+    /**
+     * Of those orders, how many were cancelled.
+     */
+    private int cancellations;
+
+    /**
+     * The same counters per product ID.
+     */
+    @Builder.Default
+    private Map<String, Tally> products = new HashMap<>();
+
+    /**
+     * Set while a daily bucket is being folded into its month.
+     */
+    private Boolean compacted;
+
+    /**
+     * IDs of the daily buckets already folded into a monthly bucket.
+     */
+    private Set<String> foldedDays;
+
+    private LocalDateTime updatedAt;
+
+    public static String idOf(String sellerId, RollupGranularity granularity, LocalDate bucket) {
+        return sellerId + ":" + granularity.name() + ":" + bucket;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tally {
+        private double revenue;
+        private int units;
+        private int orders;
+        private int cancellations;
+    }
+}
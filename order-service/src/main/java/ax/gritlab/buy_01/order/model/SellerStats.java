@@ -4,31 +4,70 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Read model of a seller's profile statistics.
+ *
+ * Maintained by OrderStatsProjection with $inc deltas whenever an order
+ * containing the seller's products is placed, changes status or is removed.
+ */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Document(collection = "seller_stats")
 public class SellerStats {
+
+    /**
+     * Seller ID.
+     */
+    @Id
+    private String id;
+
+    /**
+     * Revenue of the seller's items in completed orders.
+     */
     private double totalRevenue;
+
+    /**
+     * Units of the seller's items in completed orders.
+     */
     private int totalUnitsSold;
-    private List<ProductRevenue> bestSellingProducts;
-    private List<MonthlyRevenue> revenueByMonth;
-
-    @Data
-    @AllArgsConstructor
-    public static class ProductRevenue {
-        private String name;
-        private double revenue;
-        private int units;
-    }
-
-    @Data
-    @AllArgsConstructor
-    public static class MonthlyRevenue {
-        private String month;
-        private double amount;
-    }
+
+    /**
+     * All orders listing the seller, in any status.
+     */
+    private int totalOrders;
+
+    /**
+     * Count per status of orders listing the seller.
+     */
+    @Builder.Default
+    private Map<String, Integer> ordersByStatus = new HashMap<>();
+
+    /**
+     * Count per status of orders that hold at least one of the seller's items.
+     */
+    @Builder.Default
+    private Map<String, Integer> sellerOrdersByStatus = new HashMap<>();
+
+    /**
+     * Revenue of completed orders per month of order creation (yyyy-MM).
+     */
+    @Builder.Default
+    private Map<String, Double> revenueByMonth = new HashMap<>();
+
+    /**
+     * Counters of the seller's products in completed orders, per product ID.
+     */
+    @Builder.Default
+    private Map<String, ProductTally> products = new HashMap<>();
+
+    private LocalDateTime updatedAt;
 }
@@ -0,0 +1,60 @@
+package ax.gritlab.buy_01.order.repository;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderSummary;
+import ax.gritlab.buy_01.order.model.SellerOrderLine;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in an order history listing: the (createdAt, id) of the last
+ * order returned. Order history is sorted by createdAt desc, id desc, so the
+ * next slice starts strictly after this pair and never has to skip.
+ *
+ * Clients get it as an opaque URL-safe token.
+ */
+public record OrderCursor(LocalDateTime createdAt, String id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static OrderCursor of(Order order) {
+        return new OrderCursor(order.getCreatedAt(), order.getId());
+    }
+
+    public static OrderCursor of(OrderSummary summary) {
+        return new OrderCursor(summary.getCreatedAt(), summary.getId());
+    }
+
+    public static OrderCursor of(SellerOrderLine line) {
+        return new OrderCursor(line.getCreatedAt(), line.getId());
+    }
+
+    /**
+     * @param token value of a previous nextCursor, or null/blank for the first slice
+     * @return the cursor, or null for the first slice
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static OrderCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.indexOf(SEPARATOR);
+            if (split <= 0 || split == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, split)), raw.substring(split + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
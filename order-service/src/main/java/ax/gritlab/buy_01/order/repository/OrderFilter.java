@@ -0,0 +1,20 @@
+package ax.gritlab.buy_01.order.repository;
+
+import ax.gritlab.buy_01.order.model.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional narrowing of an order history listing. Null fields do not filter.
+ *
+ * @param status          only orders currently in this status
+ * @param orderNumberPrefix only orders whose number starts with this (case-sensitive, so the
+ *                        match is an anchored range scan rather than a collection regex)
+ * @param createdFrom     inclusive lower bound on createdAt
+ * @param createdTo       inclusive upper bound on createdAt
+ */
+public record OrderFilter(OrderStatus status, String orderNumberPrefix,
+                          LocalDateTime createdFrom, LocalDateTime createdTo) {
+
+    public static final OrderFilter NONE = new OrderFilter(null, null, null, null);
+}
@@ -20,9 +20,13 @@ import java.util.Optional;
  * - Statistics and analytics
  * 
  * Note: Complex aggregation queries for stats should use MongoTemplate.
+ * Cursor-paginated history lives in {@link OrderRepositoryCustom}.
+ * Removed and old finished orders are moved to orders_archive, and orders
+ * removed before that are drained at startup, so these queries need no
+ * isRemoved filter.
  */
 @Repository
-public interface OrderRepository extends MongoRepository<Order, String> {
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
 
     // ==================== Find by Order Number ====================
     
@@ -40,27 +44,26 @@ public interface OrderRepository extends MongoRepository<Order, String> {
     
     /**
      * Find all orders for a buyer, sorted by date descending.
-     * Excludes soft-deleted orders.
      */
-    @Query("{ 'buyerId': ?0, 'isRemoved': { $ne: true } }")
+    @Query("{ 'buyerId': ?0 }")
     Page<Order> findByBuyerIdAndNotRemoved(String buyerId, Pageable pageable);
 
     /**
      * Find buyer's orders with specific status.
      */
-    @Query("{ 'buyerId': ?0, 'status': ?1, 'isRemoved': { $ne: true } }")
+    @Query("{ 'buyerId': ?0, 'status': ?1 }")
     Page<Order> findByBuyerIdAndStatus(String buyerId, OrderStatus status, Pageable pageable);
 
     /**
      * Find buyer's orders within date range.
      */
-    @Query("{ 'buyerId': ?0, 'createdAt': { $gte: ?1, $lte: ?2 }, 'isRemoved': { $ne: true } }")
+    @Query("{ 'buyerId': ?0, 'createdAt': { $gte: ?1, $lte: ?2 } }")
     List<Order> findByBuyerIdAndDateRange(String buyerId, LocalDateTime startDate, LocalDateTime endDate);
 
     /**
      * Search buyer's orders by order number (partial match).
      */
-    @Query("{ 'buyerId': ?0, 'orderNumber': { $regex: ?1, $options: 'i' }, 'isRemoved': { $ne: true } }")
+    @Query("{ 'buyerId': ?0, 'orderNumber': { $regex: ?1, $options: 'i' } }")
     Page<Order> searchByBuyerIdAndOrderNumber(String buyerId, String orderNumberPattern, Pageable pageable);
 
     /**
@@ -74,19 +77,19 @@ public interface OrderRepository extends MongoRepository<Order, String> {
      * Find all orders containing products from a specific seller.
      * Uses the denormalized sellerIds field for efficiency.
      */
-    @Query("{ 'sellerIds': ?0, 'isRemoved': { $ne: true } }")
+    @Query("{ 'sellerIds': ?0 }")
     Page<Order> findBySellerIdInSellerIds(String sellerId, Pageable pageable);
 
     /**
      * Find seller's orders with specific status.
      */
-    @Query("{ 'sellerIds': ?0, 'status': ?1, 'isRemoved': { $ne: true } }")
+    @Query("{ 'sellerIds': ?0, 'status': ?1 }")
     Page<Order> findBySellerIdAndStatus(String sellerId, OrderStatus status, Pageable pageable);
 
     /**
      * Find seller's orders within date range.
      */
-    @Query("{ 'sellerIds': ?0, 'createdAt': { $gte: ?1, $lte: ?2 }, 'isRemoved': { $ne: true } }")
+    @Query("{ 'sellerIds': ?0, 'createdAt': { $gte: ?1, $lte: ?2 } }")
     List<Order> findBySellerIdAndDateRange(String sellerId, LocalDateTime startDate, LocalDateTime endDate);
 
     /**
@@ -95,7 +98,7 @@ public interface OrderRepository extends MongoRepository<Order, String> {
     @Query("{ 'sellerIds': ?0, '$or': [ " +
            "{ 'orderNumber': { $regex: ?1, $options: 'i' } }, " +
            "{ 'buyerEmail': { $regex: ?1, $options: 'i' } } " +
-           "], 'isRemoved': { $ne: true } }")
+           "] }")
     Page<Order> searchBySellerIdAndKeyword(String sellerId, String keyword, Pageable pageable);
 
     /**
@@ -109,12 +112,12 @@ public interface OrderRepository extends MongoRepository<Order, String> {
     /**
      * Find all orders with specific status.
      */
-    Page<Order> findByStatusAndIsRemovedFalse(OrderStatus status, Pageable pageable);
+    Page<Order> findByStatus(OrderStatus status, Pageable pageable);
 
     /**
      * Find all orders with status in list.
      */
-    Page<Order> findByStatusInAndIsRemovedFalse(List<OrderStatus> statuses, Pageable pageable);
+    Page<Order> findByStatusIn(List<OrderStatus> statuses, Pageable pageable);
 
     /**
      * Count orders by status.
@@ -126,13 +129,13 @@ public interface OrderRepository extends MongoRepository<Order, String> {
     /**
      * Find orders created between dates.
      */
-    @Query("{ 'createdAt': { $gte: ?0, $lte: ?1 }, 'isRemoved': { $ne: true } }")
+    @Query("{ 'createdAt': { $gte: ?0, $lte: ?1 } }")
     List<Order> findByDateRange(LocalDateTime startDate, LocalDateTime endDate);
 
     /**
      * Find recent orders (last N days).
      */
-    @Query("{ 'createdAt': { $gte: ?0 }, 'isRemoved': { $ne: true } }")
+    @Query("{ 'createdAt': { $gte: ?0 } }")
     List<Order> findOrdersAfter(LocalDateTime since);
 
     // ==================== Original Order (Redo) Queries ====================
@@ -0,0 +1,80 @@
+package ax.gritlab.buy_01.order.repository;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import ax.gritlab.buy_01.order.model.OrderSummary;
+import ax.gritlab.buy_01.order.model.SellerOrderLine;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keyset (cursor) variants of the order history queries.
+ *
+ * Each call reads at most {@code size + 1} orders from the index, starting
+ * right after {@code after}, and never counts the total: deep pages cost the
+ * same as the first one.
+ *
+ * The summary variants read only the fields list screens show (see
+ * {@link OrderSummary}) instead of whole order documents. Seller queries
+ * read the seller's own {@link SellerOrderLine}s instead of whole orders.
+ *
+ * {@link #transitionStatus} is the one write: a compare-and-set on the
+ * status for transitions that can race, such as the stock outcome of an
+ * asynchronous checkout against the buyer cancelling.
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * Buyer's orders, newest first. Excludes soft-deleted orders.
+     *
+     * @param after position of the last order already returned, or null for the first slice
+     */
+    default Slice<Order> findBuyerOrderSlice(String buyerId, OrderCursor after, int size) {
+        return findBuyerOrderSlice(buyerId, OrderFilter.NONE, after, size);
+    }
+
+    /**
+     * Buyer's orders matching the filter, newest first. Excludes soft-deleted orders.
+     */
+    Slice<Order> findBuyerOrderSlice(String buyerId, OrderFilter filter, OrderCursor after, int size);
+
+    /**
+     * Seller's lines of orders, newest first, optionally limited to one status.
+     */
+    Slice<SellerOrderLine> findSellerOrderSlice(String sellerId, OrderStatus status, OrderCursor after, int size);
+
+    /**
+     * Seller's lines of orders whose order number or buyer email matches the keyword, newest first.
+     */
+    Slice<SellerOrderLine> searchSellerOrderSlice(String sellerId, String keyword, OrderCursor after, int size);
+
+    /**
+     * Seller's lines of orders, paged, optionally limited to one status.
+     */
+    Page<SellerOrderLine> findSellerOrderLines(String sellerId, OrderStatus status, Pageable pageable);
+
+    /**
+     * Seller's lines of orders whose order number or buyer email matches the keyword, paged.
+     */
+    Page<SellerOrderLine> searchSellerOrderLines(String sellerId, String keyword, Pageable pageable);
+
+    /**
+     * Summary variant of {@link #findBuyerOrderSlice(String, OrderFilter, OrderCursor, int)}.
+     */
+    Slice<OrderSummary> findBuyerOrderSummarySlice(String buyerId, OrderFilter filter, OrderCursor after, int size);
+
+    /**
+     * Buyer's order summaries, paged. Excludes soft-deleted orders.
+     */
+    Page<OrderSummary> findBuyerOrderSummaries(String buyerId, Pageable pageable);
+
+    /**
+     * Move an order to a new status only if it still has the expected one.
+     *
+     * @return the updated order, or null when the order is missing or no longer in {@code from}
+     */
+    Order transitionStatus(String orderId, OrderStatus from, OrderStatus to, LocalDateTime at);
+}
@@ -0,0 +1,156 @@
+package ax.gritlab.buy_01.order.repository;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import ax.gritlab.buy_01.order.model.OrderSummary;
+import ax.gritlab.buy_01.order.model.SellerOrderLine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "_id");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Slice<Order> findBuyerOrderSlice(String buyerId, OrderFilter filter, OrderCursor after, int size) {
+        return slice(Order.class, buyerCriteria(buyerId, filter), after, size, Order.class);
+    }
+
+    @Override
+    public Slice<SellerOrderLine> findSellerOrderSlice(String sellerId, OrderStatus status,
+                                                       OrderCursor after, int size) {
+        return slice(SellerOrderLine.class, sellerCriteria(sellerId, status), after, size, SellerOrderLine.class);
+    }
+
+    @Override
+    public Slice<SellerOrderLine> searchSellerOrderSlice(String sellerId, String keyword,
+                                                         OrderCursor after, int size) {
+        return slice(SellerOrderLine.class, searchCriteria(sellerId, keyword), after, size, SellerOrderLine.class);
+    }
+
+    @Override
+    public Page<SellerOrderLine> findSellerOrderLines(String sellerId, OrderStatus status, Pageable pageable) {
+        return page(SellerOrderLine.class, sellerCriteria(sellerId, status), pageable, SellerOrderLine.class);
+    }
+
+    @Override
+    public Page<SellerOrderLine> searchSellerOrderLines(String sellerId, String keyword, Pageable pageable) {
+        return page(SellerOrderLine.class, searchCriteria(sellerId, keyword), pageable, SellerOrderLine.class);
+    }
+
+    @Override
+    public Slice<OrderSummary> findBuyerOrderSummarySlice(String buyerId, OrderFilter filter,
+                                                          OrderCursor after, int size) {
+        return slice(Order.class, buyerCriteria(buyerId, filter), after, size, OrderSummary.class);
+    }
+
+    @Override
+    public Page<OrderSummary> findBuyerOrderSummaries(String buyerId, Pageable pageable) {
+        return page(Order.class, buyerCriteria(buyerId, OrderFilter.NONE), pageable, OrderSummary.class);
+    }
+
+    @Override
+    public Order transitionStatus(String orderId, OrderStatus from, OrderStatus to, LocalDateTime at) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(orderId).and("status").is(from)),
+                new Update().set("status", to).set("updatedAt", at),
+                FindAndModifyOptions.options().returnNew(true),
+                Order.class);
+    }
+
+    private static Criteria buyerCriteria(String buyerId, OrderFilter filter) {
+        // Served by buyer_status_date_idx when filtered by status, buyer_orders_idx otherwise
+        Criteria criteria = Criteria.where("buyerId").is(buyerId);
+        if (filter.status() != null) {
+            criteria.and("status").is(filter.status());
+        }
+        if (filter.createdFrom() != null || filter.createdTo() != null) {
+            Criteria createdAt = criteria.and("createdAt");
+            if (filter.createdFrom() != null) {
+                createdAt.gte(filter.createdFrom());
+            }
+            if (filter.createdTo() != null) {
+                createdAt.lte(filter.createdTo());
+            }
+        }
+        if (filter.orderNumberPrefix() != null) {
+            criteria.and("orderNumber").regex("^" + escapeRegex(filter.orderNumberPrefix()));
+        }
+        return criteria;
+    }
+
+    private static Criteria sellerCriteria(String sellerId, OrderStatus status) {
+        // Served by seller_lines_idx, or seller_status_lines_idx when filtered by status
+        Criteria criteria = Criteria.where("sellerId").is(sellerId).and("isRemoved").ne(true);
+        if (status != null) {
+            criteria.and("status").is(status);
+        }
+        return criteria;
+    }
+
+    private static Criteria searchCriteria(String sellerId, String keyword) {
+        // Keywords are literal text; order numbers match as a prefix, buyer emails anywhere
+        String literal = escapeRegex(keyword);
+        return Criteria.where("sellerId").is(sellerId).and("isRemoved").ne(true)
+                .orOperator(
+                        Criteria.where("orderNumber").regex("^" + literal, "i"),
+                        Criteria.where("buyerEmail").regex(literal, "i"));
+    }
+
+    private static String escapeRegex(String literal) {
+        return literal.replaceAll("[^A-Za-z0-9]", "\\\\$0");
+    }
+
+    private <T> Slice<T> slice(Class<?> source, Criteria filter, OrderCursor after, int size, Class<T> type) {
+        Criteria criteria = filter;
+        if (after != null) {
+            // Strictly after (createdAt, _id) in createdAt desc, _id desc order
+            criteria = new Criteria().andOperator(filter, new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(after.createdAt()),
+                    Criteria.where("createdAt").is(after.createdAt()).and("_id").lt(after.id())));
+        }
+        // One extra row tells whether there is a next slice without counting
+        Query query = Query.query(criteria).with(NEWEST_FIRST).limit(size + 1);
+        List<T> rows = find(source, query, type);
+
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size, NEWEST_FIRST), hasNext);
+    }
+
+    private <T> Page<T> page(Class<?> source, Criteria criteria, Pageable pageable, Class<T> type) {
+        Query query = Query.query(criteria).with(pageable);
+        List<T> content = find(source, query, type);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(Query.query(criteria), source));
+    }
+
+    private <T> List<T> find(Class<?> source, Query query, Class<T> type) {
+        if (type == OrderSummary.class) {
+            // Only the list fields leave the server; items are reduced to their count
+            query.fields()
+                    .include("orderNumber", "status", "totalAmount", "createdAt")
+                    .project(MongoExpression.create("{ $size: { $ifNull: ['$items', []] } }"))
+                    .as("itemCount");
+        }
+        return mongoTemplate.query(source).as(type).matching(query).all();
+    }
+}
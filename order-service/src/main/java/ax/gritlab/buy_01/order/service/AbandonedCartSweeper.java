@@ -0,0 +1,212 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Cart;
+import ax.gritlab.buy_01.order.model.CartStatus;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sweeps carts nobody touched for cart.cleanup.abandoned-days.
+ *
+ * Walks the idle carts in _id order, one batch per query, and handles each
+ * batch with one bulk write: active carts that still hold items are marked
+ * ABANDONED, empty carts and carts idle past cart.cleanup.purge-days are
+ * deleted - a user gets a fresh cart on the next visit. Every write repeats
+ * the idle condition, so a cart the user touched in the meantime is left
+ * alone. The sweep pauses between batches to stay out of the way of
+ * foreground traffic.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "cart.cleanup.enabled", havingValue = "true")
+public class AbandonedCartSweeper {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Counter scanned;
+    private final Counter abandoned;
+    private final Counter removed;
+    private final Counter reclaimedBytes;
+
+    @Value("${cart.cleanup.abandoned-days:30}")
+    private int abandonedDays;
+
+    /**
+     * Carts idle this long are deleted even when they still hold items.
+     */
+    @Value("${cart.cleanup.purge-days:90}")
+    private int purgeDays;
+
+    @Value("${cart.cleanup.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Pause between batches, so a large backlog is worked off gradually.
+     */
+    @Value("${cart.cleanup.batch-pause-ms:100}")
+    private long batchPauseMillis;
+
+    public AbandonedCartSweeper(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.scanned = Counter.builder("cart.cleanup.scanned")
+                .description("Idle carts looked at by the sweeper")
+                .register(meterRegistry);
+        this.abandoned = Counter.builder("cart.cleanup.abandoned")
+                .description("Carts marked ABANDONED")
+                .register(meterRegistry);
+        this.removed = Counter.builder("cart.cleanup.removed")
+                .description("Carts deleted")
+                .register(meterRegistry);
+        this.reclaimedBytes = Counter.builder("cart.cleanup.reclaimed")
+                .description("BSON size of the deleted carts")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Idle cart as seen by the sweeper: just what it needs to decide, plus
+     * the document size.
+     */
+    @Data
+    static class IdleCart {
+        private String id;
+        private CartStatus status;
+        private Integer totalItems;
+        private LocalDateTime updatedAt;
+        private Long size;
+    }
+
+    /**
+     * Outcome of one sweep.
+     */
+    record SweepResult(long scanned, long abandoned, long removed, long reclaimedBytes) {
+    }
+
+    @Scheduled(fixedDelayString = "${cart.cleanup.interval-ms:3600000}",
+            initialDelayString = "${cart.cleanup.interval-ms:3600000}")
+    public void sweepScheduled() {
+        try {
+            SweepResult result = sweep(LocalDateTime.now());
+            if (result.scanned() > 0) {
+                log.info("Swept {} idle carts: {} abandoned, {} removed, {} bytes reclaimed",
+                        result.scanned(), result.abandoned(), result.removed(), result.reclaimedBytes());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to sweep abandoned carts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param now reference time for the idle windows
+     */
+    SweepResult sweep(LocalDateTime now) throws InterruptedException {
+        LocalDateTime abandonedCutoff = now.minusDays(abandonedDays);
+        LocalDateTime purgeCutoff = now.minusDays(purgeDays);
+
+        long scannedTotal = 0;
+        long abandonedTotal = 0;
+        long removedTotal = 0;
+        long bytesTotal = 0;
+        String lastId = null;
+        while (true) {
+            List<IdleCart> batch = nextBatch(abandonedCutoff, lastId);
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+            scannedTotal += batch.size();
+            scanned.increment(batch.size());
+
+            List<String> toAbandon = new ArrayList<>();
+            List<String> toRemove = new ArrayList<>();
+            long bytesToRemove = 0;
+            for (IdleCart cart : batch) {
+                if (isEmpty(cart) || cart.getUpdatedAt().isBefore(purgeCutoff)) {
+                    toRemove.add(cart.getId());
+                    bytesToRemove += cart.getSize() == null ? 0 : cart.getSize();
+                } else if (cart.getStatus() == CartStatus.ACTIVE) {
+                    toAbandon.add(cart.getId());
+                }
+            }
+
+            if (!toAbandon.isEmpty() || !toRemove.isEmpty()) {
+                BulkWriteResult written = write(toAbandon, toRemove, abandonedCutoff, purgeCutoff);
+                abandonedTotal += written.getModifiedCount();
+                abandoned.increment(written.getModifiedCount());
+                removedTotal += written.getDeletedCount();
+                removed.increment(written.getDeletedCount());
+                // Carts touched since they were read are skipped; assume they were of average size
+                long bytes = written.getDeletedCount() == toRemove.size()
+                        ? bytesToRemove
+                        : bytesToRemove * written.getDeletedCount() / toRemove.size();
+                bytesTotal += bytes;
+                reclaimedBytes.increment(bytes);
+            }
+
+            if (batch.size() < batchSize) {
+                break;
+            }
+            Thread.sleep(batchPauseMillis);
+        }
+        return new SweepResult(scannedTotal, abandonedTotal, removedTotal, bytesTotal);
+    }
+
+    /**
+     * Next idle carts after the given _id, with their BSON size computed on the server.
+     */
+    private List<IdleCart> nextBatch(LocalDateTime abandonedCutoff, String lastId) {
+        Criteria idle = Criteria.where("updatedAt").lt(abandonedCutoff);
+        if (lastId != null) {
+            idle = idle.and("_id").gt(lastId);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(idle),
+                Aggregation.sort(Sort.Direction.ASC, "_id"),
+                Aggregation.limit(batchSize),
+                Aggregation.project("status", "totalItems", "updatedAt")
+                        .and(context -> new Document("$bsonSize", "$$ROOT")).as("size"));
+        return mongoTemplate.aggregate(aggregation, Cart.class, IdleCart.class).getMappedResults();
+    }
+
+    private BulkWriteResult write(List<String> toAbandon, List<String> toRemove,
+            LocalDateTime abandonedCutoff, LocalDateTime purgeCutoff) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class);
+        if (!toAbandon.isEmpty()) {
+            bulk.updateMulti(Query.query(Criteria.where("_id").in(toAbandon)
+                            .and("status").is(CartStatus.ACTIVE)
+                            .and("updatedAt").lt(abandonedCutoff)),
+                    new Update().set("status", CartStatus.ABANDONED).inc("version", 1));
+        }
+        if (!toRemove.isEmpty()) {
+            bulk.remove(Query.query(new Criteria().andOperator(
+                    Criteria.where("_id").in(toRemove),
+                    new Criteria().orOperator(
+                            Criteria.where("updatedAt").lt(purgeCutoff),
+                            Criteria.where("updatedAt").lt(abandonedCutoff).and("totalItems").is(0)))));
+        }
+        return bulk.execute();
+    }
+
+    private static boolean isEmpty(IdleCart cart) {
+        return cart.getTotalItems() != null && cart.getTotalItems() == 0;
+    }
+}
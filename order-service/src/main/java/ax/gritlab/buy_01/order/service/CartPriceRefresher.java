@@ -0,0 +1,175 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.client.ProductHydrator;
+import ax.gritlab.buy_01.order.model.Cart;
+import ax.gritlab.buy_01.order.model.CartItem;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Stale-while-revalidate for cached cart prices.
+ *
+ * Viewing a cart returns the cached name and price of each item right away.
+ * Items whose cache is older than the staleness window are refreshed here
+ * in the background, and only items whose price, name or product version
+ * actually changed are written back, each with a targeted positional update
+ * so a concurrent cart change is never overwritten.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CartPriceRefresher {
+
+    private static final int REFRESH_THREADS = 2;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductHydrator productHydrator;
+
+    /**
+     * Carts with a refresh queued or running, so repeated views do not pile up work.
+     */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * When each cart was last revalidated without changes; unchanged items are not
+     * re-stamped in the database, so this keeps them from being rechecked on every view.
+     */
+    private final Map<String, LocalDateTime> revalidatedAt = new ConcurrentHashMap<>();
+
+    /**
+     * Small pool with a bounded queue; when it is full the refresh is skipped and
+     * simply happens on a later view.
+     */
+    private final ThreadPoolExecutor executor = newExecutor();
+
+    @Value("${order.cart.price-staleness-ms:300000}")
+    private long stalenessMillis;
+
+    /**
+     * Whether the cached fields of an item are older than the staleness window.
+     */
+    public boolean isStale(CartItem item, LocalDateTime now) {
+        return item.getPriceFetchedAt() == null
+                || item.getPriceFetchedAt().isBefore(now.minusNanos(stalenessMillis * 1_000_000));
+    }
+
+    /**
+     * Queue a background refresh of the stale items of a cart. Returns immediately.
+     */
+    public void refreshAsync(Cart cart) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lastCheck = revalidatedAt.get(cart.getUserId());
+        if (lastCheck != null && lastCheck.isAfter(now.minusNanos(stalenessMillis * 1_000_000))) {
+            return;
+        }
+        List<CartItem> stale = cart.getItems().stream()
+                .filter(item -> isStale(item, now))
+                .collect(Collectors.toList());
+        if (stale.isEmpty() || !inFlight.add(cart.getUserId())) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh(cart.getUserId(), stale);
+                } catch (Exception e) {
+                    log.warn("Failed to refresh cart prices for user {}: {}", cart.getUserId(), e.getMessage());
+                } finally {
+                    inFlight.remove(cart.getUserId());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(cart.getUserId());
+            log.debug("Cart price refresh queue full, skipping user {}", cart.getUserId());
+        }
+    }
+
+    /**
+     * Revalidate the given items and write back the ones that changed.
+     *
+     * @return number of items updated
+     */
+    int refresh(String userId, List<CartItem> items) {
+        Map<String, JsonNode> products = productHydrator.hydrate(items.stream()
+                .map(CartItem::getProductId)
+                .collect(Collectors.toList()));
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+
+        for (CartItem item : items) {
+            JsonNode product = products.get(item.getProductId());
+            if (product == null) {
+                continue;
+            }
+            Double price = product.get("price").asDouble();
+            String name = product.get("name").asText();
+            Long version = product.has("version") ? product.get("version").asLong() : null;
+            if (Objects.equals(price, item.getCachedPrice())
+                    && Objects.equals(name, item.getCachedProductName())
+                    && (version == null || version.equals(item.getProductVersion()))) {
+                continue;
+            }
+            long modified = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("userId").is(userId).and("items.productId").is(item.getProductId())),
+                    new Update()
+                            .set("items.$.cachedPrice", price)
+                            .set("items.$.cachedProductName", name)
+                            .set("items.$.productVersion", version)
+                            .set("items.$.priceFetchedAt", now),
+                    Cart.class).getModifiedCount();
+            updated += (int) modified;
+        }
+
+        revalidatedAt.put(userId, now);
+        pruneRevalidated(now);
+        if (updated > 0) {
+            log.debug("Refreshed {} cart prices for user {}", updated, userId);
+        }
+        return updated;
+    }
+
+    private void pruneRevalidated(LocalDateTime now) {
+        LocalDateTime cutoff = now.minusNanos(stalenessMillis * 1_000_000);
+        revalidatedAt.values().removeIf(checked -> checked.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Two refresh threads. A pool only grows past its core size once the queue
+     * is full, so the core size is the parallelism; idle threads still time out.
+     */
+    private static ThreadPoolExecutor newExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(500), runnable -> {
+                    Thread thread = new Thread(runnable, "cart-price-refresher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -1,6 +1,8 @@
 package ax.gritlab.buy_01.order.service;
 
+import ax.gritlab.buy_01.order.client.ProductHydrator;
 import ax.gritlab.buy_01.order.dto.request.AddToCartRequest;
+import ax.gritlab.buy_01.order.dto.request.CartBatchRequest;
 import ax.gritlab.buy_01.order.dto.response.CartItemResponse;
 import ax.gritlab.buy_01.order.dto.response.CartResponse;
 import ax.gritlab.buy_01.order.exception.CartNotFoundException;
@@ -11,13 +13,21 @@ import ax.gritlab.buy_01.order.model.CartStatus;
 import ax.gritlab.buy_01.order.repository.CartRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -27,38 +37,35 @@ public class CartService {
 
     private static final String QUANTITY_FIELD = "quantity";
     private static final String STOCK_FIELD = "stock";
+    private static final int MAX_UPDATE_ATTEMPTS = 5;
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
 
     private final CartRepository cartRepository;
-    private final RestTemplate restTemplate;
-
-    @Value("${product.service.url}")
-    private String productServiceUrl;
+    private final MongoTemplate mongoTemplate;
+    private final ProductHydrator productHydrator;
+    private final CartPriceRefresher cartPriceRefresher;
 
     /**
      * Get user's cart. Creates one if it doesn't exist.
+     * Cached prices are returned as they are; stale ones are refreshed in the background.
      */
     public CartResponse getCart(String userId) {
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseGet(() -> createNewCart(userId));
         
-        // Refresh cached prices
-        refreshCartPrices(cart);
+        cartPriceRefresher.refreshAsync(cart);
         
-        return toCartResponse(cart);
+        return respond(cart);
     }
 
     /**
      * Add item to cart or update quantity if already exists.
+     * Applied as a single atomic update, so concurrent adds are never lost.
      */
     public CartResponse addItem(String userId, AddToCartRequest request) {
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseGet(() -> createNewCart(userId));
 
-        // Reset cart to ACTIVE if it was PURCHASED (user is starting a new shopping session)
-        if (cart.getStatus() == CartStatus.PURCHASED) {
-            cart.setStatus(CartStatus.ACTIVE);
-        }
-
         // Fetch product details
         JsonNode product = fetchProductDetails(request.getProductId());
         
@@ -69,82 +76,94 @@ public class CartService {
         String sellerId = product.get("sellerId").asText();
         String productName = product.get("name").asText();
         Double price = product.get("price").asDouble();
-        int availableStock;
-        if (product.has(QUANTITY_FIELD)) {
-            availableStock = product.get(QUANTITY_FIELD).asInt();
-        } else if (product.has(STOCK_FIELD)) {
-            availableStock = product.get(STOCK_FIELD).asInt();
-        } else {
-            availableStock = Integer.MAX_VALUE;
-        }
+        Long productVersion = product.has("version") ? product.get("version").asLong() : null;
+        int availableStock = availableStock(product);
 
-        // Check if item already in cart
-        Optional<CartItem> existingItem = cart.getItems().stream()
-                .filter(item -> item.getProductId().equals(request.getProductId()))
-                .findFirst();
+        for (int attempt = 1; ; attempt++) {
+            // Calculate total quantity (existing + new)
+            int currentQtyInCart = quantityInCart(cart, request.getProductId());
+            int totalRequestedQty = currentQtyInCart + request.getQuantity();
 
-        // Calculate total quantity (existing + new)
-        int currentQtyInCart = existingItem.map(CartItem::getQuantity).orElse(0);
-        int totalRequestedQty = currentQtyInCart + request.getQuantity();
-        
-        // Validate against available stock
-        if (totalRequestedQty > availableStock) {
-            throw new CheckoutValidationException(
-                String.format("Cannot add %d of '%s' to cart. Available stock: %d, Already in cart: %d",
-                    request.getQuantity(), productName, availableStock, currentQtyInCart));
-        }
+            // Validate against available stock
+            if (totalRequestedQty > availableStock) {
+                throw new CheckoutValidationException(
+                    String.format("Cannot add %d of '%s' to cart. Available stock: %d, Already in cart: %d",
+                        request.getQuantity(), productName, availableStock, currentQtyInCart));
+            }
 
-        if (existingItem.isPresent()) {
-            // Update existing item quantity
-            CartItem item = existingItem.get();
-            item.setQuantity(item.getQuantity() + request.getQuantity());
-            item.setUpdatedAt(LocalDateTime.now());
-            item.setCachedPrice(price);
-        } else {
-            // Add new item
-            CartItem newItem = CartItem.builder()
-                    .productId(request.getProductId())
-                    .quantity(request.getQuantity())
-                    .sellerId(sellerId)
-                    .addedAt(LocalDateTime.now())
-                    .updatedAt(LocalDateTime.now())
-                    .cachedProductName(productName)
-                    .cachedPrice(price)
-                    .build();
-            cart.getItems().add(newItem);
-        }
+            LocalDateTime now = LocalDateTime.now();
+            // Reset cart to ACTIVE if it was PURCHASED (user is starting a new shopping session)
+            Update update = new Update()
+                    .set("status", CartStatus.ACTIVE)
+                    .set("updatedAt", now)
+                    .set("lastAccessedAt", now)
+                    .inc("totalItems", request.getQuantity())
+                    .inc("cachedSubtotal", price * request.getQuantity())
+                    .inc("version", 1);
+
+            // Existing line: bump its quantity in place, never past available stock
+            Cart updated = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("userId").is(userId).and("items").elemMatch(
+                            Criteria.where("productId").is(request.getProductId())
+                                    .and("quantity").lte(availableStock - request.getQuantity()))),
+                    update.inc("items.$.quantity", request.getQuantity())
+                            .set("items.$.updatedAt", now)
+                            .set("items.$.cachedPrice", price)
+                            .set("items.$.cachedProductName", productName)
+                            .set("items.$.priceFetchedAt", now)
+                            .set("items.$.productVersion", productVersion),
+                    RETURN_NEW, Cart.class);
+
+            if (updated == null) {
+                // New line: push it only while the product is still missing from the cart
+                CartItem newItem = CartItem.builder()
+                        .productId(request.getProductId())
+                        .quantity(request.getQuantity())
+                        .sellerId(sellerId)
+                        .addedAt(now)
+                        .updatedAt(now)
+                        .cachedProductName(productName)
+                        .cachedPrice(price)
+                        .priceFetchedAt(now)
+                        .productVersion(productVersion)
+                        .build();
+                updated = mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("userId").is(userId)
+                                .and("items.productId").ne(request.getProductId())),
+                        new Update()
+                                .push("items", newItem)
+                                .set("status", CartStatus.ACTIVE)
+                                .set("updatedAt", now)
+                                .set("lastAccessedAt", now)
+                                .inc("totalItems", request.getQuantity())
+                                .inc("cachedSubtotal", price * request.getQuantity())
+                                .inc("version", 1),
+                        RETURN_NEW, Cart.class);
+            }
 
-        cart.setUpdatedAt(LocalDateTime.now());
-        cart.setLastAccessedAt(LocalDateTime.now());
-        recalculateCartTotals(cart);
-        
-        Cart saved = cartRepository.save(cart);
-        return toCartResponse(saved);
+            if (updated != null) {
+                return respond(updated);
+            }
+            if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                throw new OptimisticLockingFailureException("Cart of user " + userId + " is changing too fast");
+            }
+            // Another request changed this line in between; re-check stock against the current cart
+            cart = getCartEntity(userId);
+        }
     }
 
     /**
      * Update item quantity in cart.
      */
     public CartResponse updateItem(String userId, String productId, Integer quantity) {
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new CartNotFoundException("Cart not found for user"));
-
-        CartItem item = cart.getItems().stream()
-                .filter(i -> i.getProductId().equals(productId))
-                .findFirst()
+        Cart cart = getCartEntity(userId);
+        CartItem item = findItem(cart, productId)
                 .orElseThrow(() -> new CheckoutValidationException("Product not in cart"));
 
         // Validate against available stock
         JsonNode product = fetchProductDetails(productId);
         if (product != null) {
-            int availableStock;
-            if (product.has(QUANTITY_FIELD)) {
-                availableStock = product.get(QUANTITY_FIELD).asInt();
-            } else if (product.has(STOCK_FIELD)) {
-                availableStock = product.get(STOCK_FIELD).asInt();
-            } else {
-                availableStock = Integer.MAX_VALUE;
-            }
+            int availableStock = availableStock(product);
             String productName = product.has("name") ? product.get("name").asText() : productId;
             
             if (quantity > availableStock) {
@@ -154,45 +173,115 @@ public class CartService {
             }
         }
 
-        item.setQuantity(quantity);
-        item.setUpdatedAt(LocalDateTime.now());
-        
-        cart.setUpdatedAt(LocalDateTime.now());
-        recalculateCartTotals(cart);
-        
-        Cart saved = cartRepository.save(cart);
-        return toCartResponse(saved);
+        for (int attempt = 1; ; attempt++) {
+            int delta = quantity - item.getQuantity();
+            LocalDateTime now = LocalDateTime.now();
+            Cart updated = mongoTemplate.findAndModify(
+                    versionedQuery(cart).addCriteria(Criteria.where("items.productId").is(productId)),
+                    new Update()
+                            .set("items.$.quantity", quantity)
+                            .set("items.$.updatedAt", now)
+                            .set("updatedAt", now)
+                            .inc("totalItems", delta)
+                            .inc("cachedSubtotal", priceOf(item) * delta)
+                            .inc("version", 1),
+                    RETURN_NEW, Cart.class);
+            if (updated != null) {
+                return respond(updated);
+            }
+            if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                throw new OptimisticLockingFailureException("Cart of user " + userId + " is changing too fast");
+            }
+            // Stale read: the deltas above were computed from an old version
+            cart = getCartEntity(userId);
+            item = findItem(cart, productId)
+                    .orElseThrow(() -> new CheckoutValidationException("Product not in cart"));
+        }
     }
 
     /**
      * Remove item from cart.
      */
     public CartResponse removeItem(String userId, String productId) {
+        Cart cart = getCartEntity(userId);
+
+        for (int attempt = 1; ; attempt++) {
+            Optional<CartItem> item = findItem(cart, productId);
+            if (item.isEmpty()) {
+                // Nothing to remove, nothing to write
+                return respond(cart);
+            }
+
+            int quantity = item.get().getQuantity();
+            Cart updated = mongoTemplate.findAndModify(
+                    versionedQuery(cart),
+                    new Update()
+                            .pull("items", new Document("productId", productId))
+                            .set("updatedAt", LocalDateTime.now())
+                            .inc("totalItems", -quantity)
+                            .inc("cachedSubtotal", -priceOf(item.get()) * quantity)
+                            .inc("version", 1),
+                    RETURN_NEW, Cart.class);
+            if (updated != null) {
+                return respond(updated);
+            }
+            if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                throw new OptimisticLockingFailureException("Cart of user " + userId + " is changing too fast");
+            }
+            cart = getCartEntity(userId);
+        }
+    }
+
+    /**
+     * Apply an ordered list of add/update/remove operations as one cart update.
+     * All products involved are looked up in one batch, every operation is
+     * validated against the cart as left by the operations before it, and the
+     * resulting items are written in a single versioned update. If any operation
+     * is invalid nothing is written.
+     */
+    public CartResponse applyBatch(String userId, List<CartBatchRequest.Operation> operations) {
         Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new CartNotFoundException("Cart not found for user"));
+                .orElseGet(() -> createNewCart(userId));
 
-        cart.getItems().removeIf(item -> item.getProductId().equals(productId));
-        
-        cart.setUpdatedAt(LocalDateTime.now());
-        recalculateCartTotals(cart);
-        
-        Cart saved = cartRepository.save(cart);
-        return toCartResponse(saved);
+        Map<String, JsonNode> products = productHydrator.hydrate(operations.stream()
+                .filter(op -> op.getType() != CartBatchRequest.OperationType.REMOVE)
+                .map(CartBatchRequest.Operation::getProductId)
+                .collect(Collectors.toList()));
+        boolean reactivate = operations.stream()
+                .anyMatch(op -> op.getType() == CartBatchRequest.OperationType.ADD);
+
+        for (int attempt = 1; ; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            List<CartItem> items = applyOperations(cart, operations, products, now);
+
+            Update update = new Update()
+                    .set("items", items)
+                    .set("updatedAt", now)
+                    .set("lastAccessedAt", now)
+                    .set("totalItems", items.stream().mapToInt(CartItem::getQuantity).sum())
+                    .set("cachedSubtotal", items.stream().mapToDouble(i -> priceOf(i) * i.getQuantity()).sum())
+                    .inc("version", 1);
+            if (reactivate) {
+                update.set("status", CartStatus.ACTIVE);
+            }
+
+            Cart updated = mongoTemplate.findAndModify(versionedQuery(cart), update, RETURN_NEW, Cart.class);
+            if (updated != null) {
+                return respond(updated);
+            }
+            if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                throw new OptimisticLockingFailureException("Cart of user " + userId + " is changing too fast");
+            }
+            // Someone else changed the cart; replay the operations on top of their change
+            cart = getCartEntity(userId);
+        }
     }
 
     /**
      * Clear all items from cart.
      */
     public void clearCart(String userId) {
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new CartNotFoundException("Cart not found for user"));
-
-        cart.getItems().clear();
-        cart.setTotalItems(0);
-        cart.setCachedSubtotal(0.0);
-        cart.setUpdatedAt(LocalDateTime.now());
-        
-        cartRepository.save(cart);
+        emptyCart(userId, new Update());
     }
 
     /**
@@ -202,9 +291,22 @@ public class CartService {
         if (cart.getItems().isEmpty()) {
             throw new CheckoutValidationException("Cart is empty");
         }
+        // Stock must be current here, so bypass the replica
+        validateCartForCheckout(cart, productHydrator.hydrateLive(productIds(cart)));
+    }
+
+    /**
+     * Validate cart before checkout against products that were already fetched.
+     *
+     * @param products product snapshot keyed by product ID, see {@link ProductHydrator#hydrate}
+     */
+    public void validateCartForCheckout(Cart cart, Map<String, JsonNode> products) {
+        if (cart.getItems().isEmpty()) {
+            throw new CheckoutValidationException("Cart is empty");
+        }
 
         for (CartItem item : cart.getItems()) {
-            JsonNode product = fetchProductDetails(item.getProductId());
+            JsonNode product = products.get(item.getProductId());
             
             if (product == null) {
                 throw new CheckoutValidationException(
@@ -226,32 +328,152 @@ public class CartService {
      * Mark cart as purchased and clear items.
      */
     public void markCartAsPurchased(String userId) {
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new CartNotFoundException("Cart not found for user"));
-
-        cart.setStatus(CartStatus.PURCHASED);
-        cart.getItems().clear();
-        cart.setTotalItems(0);
-        cart.setCachedSubtotal(0.0);
-        cart.setUpdatedAt(LocalDateTime.now());
-        
-        cartRepository.save(cart);
+        emptyCart(userId, new Update().set("status", CartStatus.PURCHASED));
     }
 
     // ==================== Helper Methods ====================
 
+    /**
+     * Create the user's cart, or return the one a concurrent request just created.
+     */
     private Cart createNewCart(String userId) {
-        Cart cart = Cart.builder()
-                .userId(userId)
-                .status(CartStatus.ACTIVE)
-                .items(new ArrayList<>())
-                .totalItems(0)
-                .cachedSubtotal(0.0)
-                .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
-                .lastAccessedAt(LocalDateTime.now())
-                .build();
-        return cartRepository.save(cart);
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            return mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("userId").is(userId)),
+                    new Update()
+                            .setOnInsert("status", CartStatus.ACTIVE)
+                            .setOnInsert("items", new ArrayList<>())
+                            .setOnInsert("totalItems", 0)
+                            .setOnInsert("cachedSubtotal", 0.0)
+                            .setOnInsert("createdAt", now)
+                            .setOnInsert("updatedAt", now)
+                            .setOnInsert("lastAccessedAt", now)
+                            .setOnInsert("version", 0L),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    Cart.class);
+        } catch (DuplicateKeyException e) {
+            // Lost the race on the unique userId index
+            return getCartEntity(userId);
+        }
+    }
+
+    /**
+     * Drop all items of a cart in one update, plus any extra changes.
+     */
+    private void emptyCart(String userId, Update update) {
+        long matched = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("userId").is(userId)),
+                update.set("items", new ArrayList<>())
+                        .set("totalItems", 0)
+                        .set("cachedSubtotal", 0.0)
+                        .set("updatedAt", LocalDateTime.now())
+                        .inc("version", 1),
+                Cart.class).getMatchedCount();
+        if (matched == 0) {
+            throw new CartNotFoundException("Cart not found for user");
+        }
+    }
+
+    /**
+     * Replay batch operations on a copy of the cart's items, in order.
+     */
+    private List<CartItem> applyOperations(Cart cart, List<CartBatchRequest.Operation> operations,
+                                           Map<String, JsonNode> products, LocalDateTime now) {
+        Map<String, CartItem> items = new LinkedHashMap<>();
+        cart.getItems().forEach(item -> items.put(item.getProductId(), item.toBuilder().build()));
+
+        for (CartBatchRequest.Operation op : operations) {
+            String productId = op.getProductId();
+            JsonNode product = products.get(productId);
+            CartItem item = items.get(productId);
+
+            switch (op.getType()) {
+                case ADD -> {
+                    if (product == null) {
+                        throw new CheckoutValidationException("Product not found with id: " + productId);
+                    }
+                    int requested = requireQuantity(op);
+                    int inCart = item != null ? item.getQuantity() : 0;
+                    int availableStock = availableStock(product);
+                    String productName = product.get("name").asText();
+                    if (inCart + requested > availableStock) {
+                        throw new CheckoutValidationException(
+                            String.format("Cannot add %d of '%s' to cart. Available stock: %d, Already in cart: %d",
+                                requested, productName, availableStock, inCart));
+                    }
+                    if (item == null) {
+                        item = CartItem.builder()
+                                .productId(productId)
+                                .quantity(0)
+                                .sellerId(product.get("sellerId").asText())
+                                .addedAt(now)
+                                .build();
+                        items.put(productId, item);
+                    }
+                    item.setQuantity(inCart + requested);
+                    item.setUpdatedAt(now);
+                    item.setCachedProductName(productName);
+                    item.setCachedPrice(product.get("price").asDouble());
+                    item.setPriceFetchedAt(now);
+                    item.setProductVersion(product.has("version") ? product.get("version").asLong() : null);
+                }
+                case UPDATE -> {
+                    if (item == null) {
+                        throw new CheckoutValidationException("Product not in cart: " + productId);
+                    }
+                    int quantity = requireQuantity(op);
+                    if (product != null && quantity > availableStock(product)) {
+                        String productName = product.has("name") ? product.get("name").asText() : productId;
+                        throw new CheckoutValidationException(
+                            String.format("Cannot set quantity to %d for '%s'. Available stock: %d",
+                                quantity, productName, availableStock(product)));
+                    }
+                    item.setQuantity(quantity);
+                    item.setUpdatedAt(now);
+                }
+                case REMOVE -> items.remove(productId);
+            }
+        }
+        return new ArrayList<>(items.values());
+    }
+
+    private int requireQuantity(CartBatchRequest.Operation op) {
+        if (op.getQuantity() == null) {
+            throw new CheckoutValidationException(op.getType() + " of " + op.getProductId() + " needs a quantity");
+        }
+        return op.getQuantity();
+    }
+
+    /**
+     * Match the cart only at the version it was read at.
+     */
+    private Query versionedQuery(Cart cart) {
+        return Query.query(Criteria.where("_id").is(cart.getId()).and("version").is(cart.getVersion()));
+    }
+
+    private Optional<CartItem> findItem(Cart cart, String productId) {
+        return cart.getItems().stream()
+                .filter(item -> item.getProductId().equals(productId))
+                .findFirst();
+    }
+
+    private int quantityInCart(Cart cart, String productId) {
+        return findItem(cart, productId).map(CartItem::getQuantity).orElse(0);
+    }
+
+    private double priceOf(CartItem item) {
+        return item.getCachedPrice() != null ? item.getCachedPrice() : 0.0;
+    }
+
+    private int availableStock(JsonNode product) {
+        if (product.has(QUANTITY_FIELD)) {
+            return product.get(QUANTITY_FIELD).asInt();
+        }
+        if (product.has(STOCK_FIELD)) {
+            return product.get(STOCK_FIELD).asInt();
+        }
+        return Integer.MAX_VALUE;
     }
 
     private void recalculateCartTotals(Cart cart) {
@@ -260,37 +482,30 @@ public class CartService {
                 .sum();
         
         double subtotal = cart.getItems().stream()
-                .mapToDouble(item -> item.getCachedPrice() * item.getQuantity())
+                .mapToDouble(item -> priceOf(item) * item.getQuantity())
                 .sum();
 
         cart.setTotalItems(totalItems);
         cart.setCachedSubtotal(subtotal);
     }
 
-    private void refreshCartPrices(Cart cart) {
-        for (CartItem item : cart.getItems()) {
-            JsonNode product = fetchProductDetails(item.getProductId());
-            if (product != null) {
-                item.setCachedPrice(product.get("price").asDouble());
-                item.setCachedProductName(product.get("name").asText());
-            }
-        }
-        recalculateCartTotals(cart);
-        cartRepository.save(cart);
+    private List<String> productIds(Cart cart) {
+        return cart.getItems().stream()
+                .map(CartItem::getProductId)
+                .collect(Collectors.toList());
     }
 
     private JsonNode fetchProductDetails(String productId) {
-        try {
-            String url = productServiceUrl + "/" + productId;
-            System.out.println("Fetching product from: " + url);
-            JsonNode result = restTemplate.getForObject(url, JsonNode.class);
-            System.out.println("Product result: " + result);
-            return result;
-        } catch (Exception e) {
-            System.err.println("Error fetching product: " + e.getMessage());
-            e.printStackTrace();
-            return null;
-        }
+        return productHydrator.find(productId);
+    }
+
+    /**
+     * Response with totals derived from the items; the stored totals are running
+     * sums that can drift when a cached price changes.
+     */
+    private CartResponse respond(Cart cart) {
+        recalculateCartTotals(cart);
+        return toCartResponse(cart);
     }
 
     private CartResponse toCartResponse(Cart cart) {
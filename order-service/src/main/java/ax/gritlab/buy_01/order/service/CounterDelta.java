@@ -0,0 +1,56 @@
+package ax.gritlab.buy_01.order.service;
+
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Net change for one counter document. Opposite contributions to the same
+ * field cancel out before anything is sent, which a plain {@link Update}
+ * would not do: a second $inc of the same field replaces the first.
+ */
+class CounterDelta {
+
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+    private final Map<String, Double> amounts = new LinkedHashMap<>();
+    private final Map<String, Object> sets = new LinkedHashMap<>();
+
+    void count(String path, int value) {
+        counts.merge(path, value, Integer::sum);
+    }
+
+    void amount(String path, double value) {
+        amounts.merge(path, value, Double::sum);
+    }
+
+    void set(String path, Object value) {
+        sets.put(path, value);
+    }
+
+    boolean isEmpty() {
+        return sets.isEmpty()
+                && counts.values().stream().allMatch(v -> v == 0)
+                && amounts.values().stream().allMatch(v -> v == 0.0);
+    }
+
+    /**
+     * $inc of every non-zero change plus the $set fields, stamped with updatedAt.
+     */
+    Update toUpdate() {
+        Update update = new Update();
+        counts.forEach((path, value) -> {
+            if (value != 0) {
+                update.inc(path, value);
+            }
+        });
+        amounts.forEach((path, value) -> {
+            if (value != 0.0) {
+                update.inc(path, value);
+            }
+        });
+        sets.forEach(update::set);
+        return update.set("updatedAt", LocalDateTime.now());
+    }
+}
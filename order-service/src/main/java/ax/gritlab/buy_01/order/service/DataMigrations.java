@@ -0,0 +1,61 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.DataMigration;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One-time migrations and backfills of existing data, recorded in
+ * data_migrations once they completed.
+ *
+ * Startup runners perform a migration whose record is missing; readers ask
+ * {@link #isDone} before they rely on the migrated data and keep using the
+ * old source until then. A completed migration is never undone, so a
+ * positive answer is cached.
+ */
+@Service
+@RequiredArgsConstructor
+public class DataMigrations {
+
+    /** buyer_stats and seller_stats built from all orders. */
+    public static final String ORDER_STATS = "order-stats";
+
+    /** Cold fields of all orders moved from orders into order_details. */
+    public static final String ORDER_DETAILS = "order-details";
+
+    /** seller_order_lines written for all orders. */
+    public static final String SELLER_ORDER_LINES = "seller-order-lines";
+
+    /** Orders soft-deleted by earlier versions moved from orders to orders_archive. */
+    public static final String REMOVED_ORDERS = "removed-orders";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+
+    public boolean isDone(String migration) {
+        if (completed.contains(migration)) {
+            return true;
+        }
+        if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(migration)), DataMigration.class)) {
+            completed.add(migration);
+            return true;
+        }
+        return false;
+    }
+
+    public void markDone(String migration) {
+        mongoTemplate.save(DataMigration.builder()
+                .id(migration)
+                .completedAt(LocalDateTime.now())
+                .build());
+        completed.add(migration);
+    }
+}
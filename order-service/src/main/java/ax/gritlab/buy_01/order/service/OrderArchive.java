@@ -0,0 +1,159 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The orders_archive collection: removed orders and old finished orders,
+ * under their original ids.
+ *
+ * Orders are copied here first and then deleted from orders, but only if
+ * they did not change in between, so the orders collection holds live orders
+ * only and needs no isRemoved filter. An order that changed keeps its hot
+ * copy and loses the archived one. Archived orders are read only when asked
+ * for by id or through the buyer's order history.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderArchive {
+
+    public static final String COLLECTION = "orders_archive";
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderDetailsService orderDetailsService;
+
+    /**
+     * Move one order to the archive now.
+     *
+     * @param order    the order as it should be archived
+     * @param lastSeen updatedAt of the order when it was read
+     * @return false when the order changed since it was read and was left in orders
+     */
+    public boolean move(Order order, LocalDateTime lastSeen) {
+        orderDetailsService.moveEmbeddedDetails(List.of(order.getId()));
+        order.setArchivedAt(LocalDateTime.now());
+        mongoTemplate.save(order, COLLECTION);
+        if (mongoTemplate.remove(unchanged(order.getId(), lastSeen), Order.class).getDeletedCount() > 0) {
+            return true;
+        }
+        dropStaleCopies(List.of(order.getId()));
+        return false;
+    }
+
+    /**
+     * Move a batch of orders read from orders with one bulk write per collection.
+     *
+     * @return number of orders moved
+     */
+    public int moveAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        orderDetailsService.moveEmbeddedDetails(orders.stream().map(Order::getId).collect(Collectors.toList()));
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations copies = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class, COLLECTION);
+        BulkOperations removals = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        for (Order order : orders) {
+            LocalDateTime lastSeen = order.getUpdatedAt();
+            order.setArchivedAt(now);
+            copies.replaceOne(Query.query(Criteria.where("_id").is(order.getId())), order,
+                    FindAndReplaceOptions.options().upsert());
+            removals.remove(unchanged(order.getId(), lastSeen));
+        }
+        copies.execute();
+        int moved = removals.execute().getDeletedCount();
+
+        if (moved < orders.size()) {
+            dropStaleCopies(orders.stream().map(Order::getId).collect(Collectors.toList()));
+        }
+        return moved;
+    }
+
+    /**
+     * Move every order that earlier versions soft-deleted in orders, in
+     * batches, until none is left.
+     *
+     * @return number of orders moved
+     */
+    public int moveRemoved(int batchSize) {
+        // removed_orders_partial_idx
+        Query removed = Query.query(Criteria.where("isRemoved").is(true)).limit(batchSize);
+        int moved = 0;
+        while (true) {
+            List<Order> batch = mongoTemplate.find(removed, Order.class);
+            if (batch.isEmpty()) {
+                return moved;
+            }
+            int batchMoved = moveAll(batch);
+            if (batchMoved == 0) {
+                // Orders that changed while being moved are read again; a whole batch changing means writes keep racing
+                throw new IllegalStateException("Removed orders keep changing while being archived");
+            }
+            moved += batchMoved;
+        }
+    }
+
+    /**
+     * Mark an archived order as removed by its buyer.
+     *
+     * @return false when it was already removed
+     */
+    public boolean markRemoved(String orderId, String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(orderId).and("isRemoved").ne(true)),
+                new Update()
+                        .set("isRemoved", true)
+                        .set("removedAt", now)
+                        .set("removedBy", userId)
+                        .set("updatedAt", now),
+                Order.class, COLLECTION).getModifiedCount() > 0;
+    }
+
+    public Optional<Order> findById(String orderId) {
+        return Optional.ofNullable(mongoTemplate.findById(orderId, Order.class, COLLECTION));
+    }
+
+    /**
+     * A buyer's archived orders that they did not remove, served by archive_buyer_idx.
+     */
+    public Page<Order> findBuyerOrders(String buyerId, Pageable pageable) {
+        Criteria criteria = Criteria.where("buyerId").is(buyerId).and("isRemoved").ne(true);
+        List<Order> content = mongoTemplate.find(Query.query(criteria).with(pageable), Order.class, COLLECTION);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(Query.query(criteria), Order.class, COLLECTION));
+    }
+
+    private static Query unchanged(String orderId, LocalDateTime lastSeen) {
+        return Query.query(Criteria.where("_id").is(orderId).and("updatedAt").is(lastSeen));
+    }
+
+    /**
+     * Delete the archived copies of orders that are still in orders.
+     */
+    private void dropStaleCopies(List<String> orderIds) {
+        Query stillHot = Query.query(Criteria.where("_id").in(orderIds));
+        stillHot.fields().include("_id");
+        List<String> stale = mongoTemplate.find(stillHot, Order.class).stream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+        if (!stale.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(stale)), Order.class, COLLECTION);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves finished orders older than order.archive.after-months to
+ * {@link OrderArchive}, along with soft-deleted orders that instances still
+ * running an earlier version leave in orders during a rollout (those from
+ * before are drained at startup by RemovedOrderDrain). Works in batches with
+ * a pause in between, and keeps the orders collection and its indexes at the
+ * size of the recent orders.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "order.archive.enabled", havingValue = "true")
+public class OrderArchiver {
+
+    private static final List<OrderStatus> FINISHED = List.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderArchive orderArchive;
+
+    @Value("${order.archive.after-months:12}")
+    private int afterMonths;
+
+    @Value("${order.archive.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Pause between batches, so a large backlog is worked off gradually.
+     */
+    @Value("${order.archive.batch-pause-ms:100}")
+    private long batchPauseMillis;
+
+    @Scheduled(fixedDelayString = "${order.archive.interval-ms:3600000}",
+            initialDelayString = "${order.archive.initial-delay-ms:60000}")
+    public void archiveScheduled() {
+        try {
+            int moved = archive(LocalDateTime.now());
+            if (moved > 0) {
+                log.info("Archived {} orders", moved);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to archive orders: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param now reference time for the age limit
+     * @return number of orders moved
+     */
+    int archive(LocalDateTime now) throws InterruptedException {
+        LocalDateTime cutoff = now.minusMonths(afterMonths);
+        Criteria due = new Criteria().orOperator(
+                // removed_orders_partial_idx, status_orders_idx
+                Criteria.where("isRemoved").is(true),
+                Criteria.where("status").in(FINISHED).and("createdAt").lt(cutoff));
+
+        int moved = 0;
+        String lastId = null;
+        while (true) {
+            // Orders that changed while being moved stay behind; the _id cursor steps past them
+            Criteria batchCriteria = lastId == null
+                    ? due
+                    : new Criteria().andOperator(due, Criteria.where("_id").gt(lastId));
+            List<Order> batch = mongoTemplate.find(
+                    Query.query(batchCriteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize),
+                    Order.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+            moved += orderArchive.moveAll(batch);
+
+            if (batch.size() < batchSize) {
+                break;
+            }
+            Thread.sleep(batchPauseMillis);
+        }
+        return moved;
+    }
+}
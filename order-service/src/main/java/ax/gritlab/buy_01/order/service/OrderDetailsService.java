@@ -0,0 +1,140 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderDetails;
+import ax.gritlab.buy_01.order.model.OrderStatusHistory;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads and writes the cold order_details side of orders.
+ *
+ * Orders are saved without their status history, item descriptions and
+ * delivery notes; this service stores those next to them and loads them back
+ * only when a single order is shown in full.
+ *
+ * Orders written before order_details existed still carry those fields in
+ * the orders collection until {@link #migrateEmbeddedDetails} has run to
+ * completion. Until then every path that reads the details or writes a whole
+ * order moves the fields of that order first, since the now unmapped fields
+ * would otherwise be hidden or dropped by the write.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderDetailsService {
+
+    private static final String ORDERS = "orders";
+
+    private final MongoTemplate mongoTemplate;
+    private final DataMigrations dataMigrations;
+
+    /**
+     * Store the cold fields of a newly saved order.
+     */
+    public void save(Order order) {
+        mongoTemplate.save(OrderDetails.of(order));
+    }
+
+    /**
+     * Append one status change to an order's history without reading it.
+     */
+    public void appendStatusHistory(String orderId, OrderStatusHistory entry) {
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("_id").is(orderId)),
+                new Update().push("statusHistory", entry).setOnInsert("createdAt", LocalDateTime.now()),
+                OrderDetails.class);
+    }
+
+    /**
+     * Fill the transient cold fields of a loaded order.
+     *
+     * @return the same order
+     */
+    public Order withDetails(Order order) {
+        moveEmbeddedDetails(List.of(order.getId()));
+        OrderDetails details = mongoTemplate.findById(order.getId(), OrderDetails.class);
+        if (details != null) {
+            details.applyTo(order);
+        }
+        return order;
+    }
+
+    /**
+     * Move cold fields still embedded in orders written before order_details
+     * existed into order_details, and remove them from the orders.
+     * History appended since is kept after the moved entries. An order
+     * interrupted between the two writes may get its old entries twice when
+     * this runs again.
+     *
+     * @return number of orders migrated
+     */
+    public long migrateEmbeddedDetails() {
+        return moveDetails(legacy(new Criteria()));
+    }
+
+    /**
+     * Move the embedded cold fields of the given orders, if they still have
+     * any, before they are read or replaced as a whole. A no-op once
+     * {@link #migrateEmbeddedDetails} has completed.
+     */
+    public void moveEmbeddedDetails(Collection<String> orderIds) {
+        if (orderIds.isEmpty() || dataMigrations.isDone(DataMigrations.ORDER_DETAILS)) {
+            return;
+        }
+        moveDetails(legacy(Criteria.where("_id").in(orderIds)));
+    }
+
+    private static Query legacy(Criteria orders) {
+        Query legacy = Query.query(orders.orOperator(
+                Criteria.where("statusHistory").exists(true),
+                Criteria.where("deliveryNotes").exists(true),
+                Criteria.where("items.productDescription").exists(true)));
+        legacy.fields().include("statusHistory", "deliveryNotes", "items.productId", "items.productDescription");
+        return legacy;
+    }
+
+    private long moveDetails(Query legacy) {
+        long migrated = 0;
+        try (Stream<Document> orders = mongoTemplate.stream(legacy, Document.class, ORDERS)) {
+            for (Document order : (Iterable<Document>) orders::iterator) {
+                moveDetails(order);
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    private void moveDetails(Document order) {
+        Object orderId = order.get("_id");
+        Update details = new Update().setOnInsert("createdAt", LocalDateTime.now());
+
+        List<Document> history = order.getList("statusHistory", Document.class, List.of());
+        if (!history.isEmpty()) {
+            details.push("statusHistory").atPosition(Update.Position.FIRST).each(history.toArray());
+        }
+        if (order.getString("deliveryNotes") != null) {
+            details.set("deliveryNotes", order.getString("deliveryNotes"));
+        }
+        for (Document item : order.getList("items", Document.class, List.of())) {
+            if (item.getString("productId") != null && item.getString("productDescription") != null) {
+                details.set("productDescriptions." + item.getString("productId"), item.getString("productDescription"));
+            }
+        }
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(orderId)), details, OrderDetails.class);
+
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(orderId)),
+                new Update().unset("statusHistory").unset("deliveryNotes").unset("items.$[].productDescription"),
+                ORDERS);
+    }
+}
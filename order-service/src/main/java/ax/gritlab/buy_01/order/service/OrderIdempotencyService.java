@@ -0,0 +1,235 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.dto.response.OrderResponse;
+import ax.gritlab.buy_01.order.exception.IdempotencyConflictException;
+import ax.gritlab.buy_01.order.model.OrderIdempotencyRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency for checkout, cancel and redo.
+ *
+ * Duplicates arriving while the first call is still running on this
+ * instance wait for its result instead of doing any work. Across instances
+ * the first call claims the key in order_idempotency_keys and stores its
+ * response there; later calls get that response back. Only successful
+ * responses are stored - a failed call releases its key so the client can
+ * retry. Every claim carries a fresh token, and the response and the release
+ * only apply while the record still holds it: a call that outlived its claim
+ * cannot overwrite the call that took the key over.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderIdempotencyService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Calls running on this instance, by scoped key.
+     */
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * A claim older than this is assumed to belong to a crashed request and
+     * may be taken over; also how long a duplicate waits for the first call.
+     */
+    @Value("${order.idempotency.claim-timeout-ms:30000}")
+    private long claimTimeoutMillis;
+
+    /**
+     * Response of an idempotent call and whether it came from an earlier call.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class IdempotentResponse {
+        private final OrderResponse response;
+        private final boolean replayed;
+    }
+
+    @RequiredArgsConstructor
+    private static class InFlight {
+        private final String fingerprint;
+        private final CompletableFuture<OrderResponse> result = new CompletableFuture<>();
+    }
+
+    /**
+     * Run an order operation at most once per key.
+     *
+     * @param userId    caller; keys are scoped per user
+     * @param operation operation name, e.g. checkout
+     * @param key       Idempotency-Key header, or null/blank to run unconditionally
+     * @param request   request data, fingerprinted to detect key reuse
+     * @param action    the actual operation
+     */
+    public IdempotentResponse execute(String userId, String operation, String key, Object request,
+            Supplier<OrderResponse> action) {
+        if (key == null || key.isBlank()) {
+            return new IdempotentResponse(action.get(), false);
+        }
+
+        String scopedKey = userId + ":" + operation + ":" + key.trim();
+        String fingerprint = fingerprint(operation, request);
+        InFlight mine = new InFlight(fingerprint);
+        InFlight running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            return new IdempotentResponse(awaitRunning(scopedKey, running, fingerprint), true);
+        }
+
+        try {
+            IdempotentResponse result = claimAndRun(scopedKey, operation, fingerprint, action);
+            mine.result.complete(result.getResponse());
+            return result;
+        } catch (RuntimeException e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, mine);
+        }
+    }
+
+    private OrderResponse awaitRunning(String scopedKey, InFlight running, String fingerprint) {
+        if (!running.fingerprint.equals(fingerprint)) {
+            throw conflict(scopedKey, "was used for a different request");
+        }
+        try {
+            return running.result.get(claimTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Same outcome as the call we waited for
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw conflict(scopedKey, "is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict(scopedKey, "is still in progress");
+        }
+    }
+
+    private IdempotentResponse claimAndRun(String scopedKey, String operation, String fingerprint,
+            Supplier<OrderResponse> action) {
+        String claimToken = UUID.randomUUID().toString();
+        OrderIdempotencyRecord existing = claim(scopedKey, operation, fingerprint, claimToken);
+        if (existing != null) {
+            return new IdempotentResponse(existing.getResponse(), true);
+        }
+
+        OrderResponse response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(scopedKey, claimToken);
+            throw e;
+        }
+        long stored = mongoTemplate.updateFirst(heldBy(scopedKey, claimToken),
+                new Update().set("status", OrderIdempotencyRecord.COMPLETED).set("response", response),
+                OrderIdempotencyRecord.class).getModifiedCount();
+        if (stored == 0) {
+            // Ran past the claim timeout; the call that took the key over stores its own response
+            log.warn("Idempotency key {} was taken over before its response was stored", scopedKey);
+        }
+        return new IdempotentResponse(response, false);
+    }
+
+    /**
+     * Claim a key for this call.
+     *
+     * @return the stored record when the key was already completed, null when the claim succeeded
+     */
+    private OrderIdempotencyRecord claim(String scopedKey, String operation, String fingerprint,
+            String claimToken) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            mongoTemplate.insert(OrderIdempotencyRecord.builder()
+                    .id(scopedKey)
+                    .operation(operation)
+                    .fingerprint(fingerprint)
+                    .status(OrderIdempotencyRecord.IN_PROGRESS)
+                    .claimToken(claimToken)
+                    .claimedAt(now)
+                    .createdAt(now)
+                    .build());
+            return null;
+        } catch (DuplicateKeyException e) {
+            // Key already known - fall through
+        }
+
+        OrderIdempotencyRecord existing = mongoTemplate.findById(scopedKey, OrderIdempotencyRecord.class);
+        if (existing == null) {
+            // Released or expired in the meantime
+            return claim(scopedKey, operation, fingerprint, claimToken);
+        }
+        if (!fingerprint.equals(existing.getFingerprint())) {
+            throw conflict(scopedKey, "was used for a different request");
+        }
+        if (OrderIdempotencyRecord.COMPLETED.equals(existing.getStatus())) {
+            return existing;
+        }
+
+        // Take over a claim left behind by a crashed request
+        long taken = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(scopedKey)
+                        .and("status").is(OrderIdempotencyRecord.IN_PROGRESS)
+                        .and("claimedAt").lt(now.minusNanos(claimTimeoutMillis * 1_000_000))),
+                new Update().set("claimedAt", now).set("claimToken", claimToken),
+                OrderIdempotencyRecord.class).getModifiedCount();
+        if (taken == 0) {
+            throw conflict(scopedKey, "is still in progress");
+        }
+        return null;
+    }
+
+    private void release(String scopedKey, String claimToken) {
+        mongoTemplate.remove(heldBy(scopedKey, claimToken), OrderIdempotencyRecord.class);
+    }
+
+    /**
+     * The key's record while it is still claimed with the given token.
+     */
+    private static Query heldBy(String scopedKey, String claimToken) {
+        return Query.query(Criteria.where("_id").is(scopedKey)
+                .and("status").is(OrderIdempotencyRecord.IN_PROGRESS)
+                .and("claimToken").is(claimToken));
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(json));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to fingerprint " + operation + " request", e);
+        }
+    }
+
+    private static IdempotencyConflictException conflict(String scopedKey, String problem) {
+        String key = scopedKey.substring(scopedKey.indexOf(':', scopedKey.indexOf(':') + 1) + 1);
+        return new IdempotencyConflictException("Idempotency key " + key + " " + problem);
+    }
+}
@@ -0,0 +1,117 @@
+package ax.gritlab.buy_01.order.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates order numbers that are unique across nodes without asking the
+ * database: ORD-yyyyMMdd-XXXXXXXXXXXXX.
+ *
+ * The suffix is a 63-bit id written as 13 base-36 digits: milliseconds since
+ * {@link #EPOCH}, then this node's id, then a per-millisecond sequence. The
+ * time and sequence advance together in one atomic compare-and-set, so ids
+ * of a node are strictly increasing without locks. When a millisecond runs
+ * out of sequence numbers, or the clock steps back, the node borrows the
+ * next millisecond instead of waiting. Numbers sort by creation time as
+ * plain strings, so new orders append to the end of the orderNumber index.
+ *
+ * Unless order.number.node-id is set, the node id is leased from MongoDB
+ * by {@link OrderNumberNodeLease}, so no two running instances share one.
+ */
+@Component
+public class OrderNumberGenerator {
+
+    /**
+     * 2026-01-01T00:00:00Z; 41 bits of milliseconds last until 2095.
+     */
+    static final long EPOCH = 1767225600000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int SUFFIX_LENGTH = 13;
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final LongSupplier nodeId;
+    private final Clock clock;
+
+    /**
+     * Last (milliseconds since EPOCH) << SEQUENCE_BITS | sequence handed out.
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * @param nodeId 0-1023 and different on every instance, or negative to lease one from MongoDB
+     */
+    @Autowired
+    public OrderNumberGenerator(@Value("${order.number.node-id:-1}") int nodeId, OrderNumberNodeLease lease) {
+        this(nodeId < 0 ? lease::nodeId : fixed(nodeId), Clock.systemDefaultZone());
+        if (nodeId < 0) {
+            // Claim it now rather than on the first checkout
+            lease.nodeId();
+        }
+    }
+
+    /**
+     * Generator for a fixed node id that needs no lease, e.g. in tests.
+     */
+    public OrderNumberGenerator(long nodeId, Clock clock) {
+        this(fixed(nodeId), clock);
+    }
+
+    private OrderNumberGenerator(LongSupplier nodeId, Clock clock) {
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    private static LongSupplier fixed(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        return () -> nodeId;
+    }
+
+    /**
+     * Next order number, e.g. ORD-20261019-00SW4UXBE5ATH.
+     */
+    public String next() {
+        long id = nextId();
+        String day = Instant.ofEpochMilli(EPOCH + timeOf(id)).atZone(clock.getZone()).format(DAY);
+        String suffix = Long.toString(id, 36).toUpperCase();
+        return "ORD-" + day + "-" + "0".repeat(SUFFIX_LENGTH - suffix.length()) + suffix;
+    }
+
+    /**
+     * Next raw id of this node; strictly greater than any id it returned before.
+     */
+    long nextId() {
+        long now = clock.millis() - EPOCH;
+        long prev;
+        long next;
+        do {
+            prev = last.get();
+            // A full sequence carries into the time bits, i.e. borrows the next millisecond
+            next = now > prev >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : prev + 1;
+        } while (!last.compareAndSet(prev, next));
+
+        long time = next >>> SEQUENCE_BITS;
+        return time << (NODE_BITS + SEQUENCE_BITS) | nodeId.getAsLong() << SEQUENCE_BITS | (next & SEQUENCE_MASK);
+    }
+
+    static long timeOf(long id) {
+        return id >>> (NODE_BITS + SEQUENCE_BITS);
+    }
+
+    static long nodeOf(long id) {
+        return id >>> SEQUENCE_BITS & MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,105 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.OrderNumberNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hands this instance an order number node id no other running instance
+ * holds, leased from the order_number_nodes collection.
+ *
+ * An id is claimed with an upsert that only matches a free or expired
+ * lease, so two instances never hold the same id at once; the lease is
+ * renewed well before it expires. An instance that could not renew for a
+ * whole lease period (e.g. cut off from MongoDB) claims a new id as soon as
+ * it finds its old one taken.
+ */
+@Slf4j
+@Component
+public class OrderNumberNodeLease {
+
+    private final MongoTemplate mongoTemplate;
+    private final long leaseMillis;
+    private final String owner = UUID.randomUUID().toString();
+
+    private volatile long nodeId = -1;
+
+    public OrderNumberNodeLease(MongoTemplate mongoTemplate,
+                                @Value("${order.number.node-lease-ms:600000}") long leaseMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * The leased node id, claimed on first use.
+     */
+    public long nodeId() {
+        if (nodeId < 0) {
+            synchronized (this) {
+                if (nodeId < 0) {
+                    nodeId = acquire();
+                }
+            }
+        }
+        return nodeId;
+    }
+
+    /**
+     * Extend the lease, or claim a new id if it was lost.
+     */
+    @Scheduled(fixedDelayString = "${order.number.node-lease-renew-ms:60000}",
+            initialDelayString = "${order.number.node-lease-renew-ms:60000}")
+    public void renew() {
+        long current = nodeId;
+        if (current < 0) {
+            return;
+        }
+        try {
+            long renewed = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(current).and("owner").is(owner)),
+                    new Update().set("expiresAt", LocalDateTime.now().plusNanos(leaseMillis * 1_000_000)),
+                    OrderNumberNode.class).getMatchedCount();
+            if (renewed == 0) {
+                log.warn("Order number node id {} was taken over by another instance, claiming a new one", current);
+                nodeId = acquire();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to renew order number node id {}: {}", current, e.getMessage());
+        }
+    }
+
+    private long acquire() {
+        LocalDateTime now = LocalDateTime.now();
+        int size = (int) OrderNumberGenerator.MAX_NODE_ID + 1;
+        // Start anywhere, so instances starting together rarely try the same ids
+        int start = ThreadLocalRandom.current().nextInt(size);
+        for (int i = 0; i < size; i++) {
+            int candidate = (start + i) % size;
+            try {
+                // Matches a free or expired lease; a held one makes the upsert collide on _id
+                mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("_id").is(candidate).and("expiresAt").lt(now)),
+                        new Update().set("owner", owner).set("expiresAt", now.plusNanos(leaseMillis * 1_000_000)),
+                        FindAndModifyOptions.options().upsert(true).returnNew(true),
+                        OrderNumberNode.class);
+                log.info("Leased order number node id {}", candidate);
+                return candidate;
+            } catch (DuplicateKeyException e) {
+                // Held by a live instance
+            }
+        }
+        throw new IllegalStateException("All " + size + " order number node ids are leased");
+    }
+}
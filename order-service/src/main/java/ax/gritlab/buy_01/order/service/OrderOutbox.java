@@ -0,0 +1,104 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderItem;
+import ax.gritlab.buy_01.order.model.OutboxEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Records the events of order changes in the outbox collection.
+ *
+ * An order write and its events are committed together, so an event exists
+ * exactly when its order change does; {@link OutboxRelay} publishes them to
+ * Kafka afterwards. The transaction needs a replica set and is enabled with
+ * order.outbox.transactional=true. Without it the event is inserted right
+ * after the order, which leaves only a crash between the two writes uncovered.
+ */
+@Service
+public class OrderOutbox {
+
+    public static final String ORDER_PLACED_TOPIC = "order.placed";
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderOutbox(MongoTemplate mongoTemplate,
+                       ObjectMapper objectMapper,
+                       ObjectProvider<MongoTransactionManager> transactionManager) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        MongoTransactionManager manager = transactionManager.getIfAvailable();
+        this.transactionTemplate = manager != null ? new TransactionTemplate(manager) : null;
+    }
+
+    /**
+     * Save an order together with the event it produces.
+     *
+     * @param save  the order write
+     * @param event builds the event from the saved order
+     * @return the saved order
+     */
+    public Order save(Supplier<Order> save, Function<Order, OutboxEvent> event) {
+        if (transactionTemplate == null) {
+            return write(save, event);
+        }
+        return transactionTemplate.execute(status -> write(save, event));
+    }
+
+    /**
+     * Record an event on its own, for a change that is already stored.
+     */
+    public void append(OutboxEvent event) {
+        mongoTemplate.insert(event);
+    }
+
+    /**
+     * order.placed event asking product-service to reserve the order's stock.
+     * The order number tags the stock movements.
+     */
+    public OutboxEvent orderPlaced(Order order) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("orderId", order.getId());
+        node.put("orderNumber", order.getOrderNumber());
+        node.put("buyerId", order.getBuyerId());
+        ArrayNode items = node.putArray("items");
+        for (OrderItem item : order.getItems()) {
+            items.addObject()
+                    .put("productId", item.getProductId())
+                    .put("quantity", item.getQuantity());
+        }
+        return event(ORDER_PLACED_TOPIC, order.getId(), node);
+    }
+
+    private Order write(Supplier<Order> save, Function<Order, OutboxEvent> event) {
+        Order saved = save.get();
+        mongoTemplate.insert(event.apply(saved));
+        return saved;
+    }
+
+    private OutboxEvent event(String topic, String key, ObjectNode payload) {
+        try {
+            return OutboxEvent.builder()
+                    .topic(topic)
+                    .key(key)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + topic + " event for " + key, e);
+        }
+    }
+}
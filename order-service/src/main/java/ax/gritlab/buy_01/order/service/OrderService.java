@@ -1,15 +1,20 @@
 package ax.gritlab.buy_01.order.service;
 
+import ax.gritlab.buy_01.order.client.ProductHydrator;
 import ax.gritlab.buy_01.order.dto.request.CheckoutRequest;
 import ax.gritlab.buy_01.order.dto.response.CartResponse;
 import ax.gritlab.buy_01.order.dto.response.OrderItemResponse;
 import ax.gritlab.buy_01.order.dto.response.OrderResponse;
+import ax.gritlab.buy_01.order.dto.response.OrderSliceResponse;
+import ax.gritlab.buy_01.order.dto.response.OrderSummaryResponse;
 import ax.gritlab.buy_01.order.dto.StockUpdateRequest;
 import ax.gritlab.buy_01.order.dto.StockUpdateResponse;
 import ax.gritlab.buy_01.order.exception.InvalidStatusTransitionException;
 import ax.gritlab.buy_01.order.exception.OrderNotFoundException;
 import ax.gritlab.buy_01.order.exception.UnauthorizedException;
 import ax.gritlab.buy_01.order.model.*;
+import ax.gritlab.buy_01.order.repository.OrderCursor;
+import ax.gritlab.buy_01.order.repository.OrderFilter;
 import ax.gritlab.buy_01.order.repository.OrderRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
@@ -17,12 +22,24 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -30,9 +47,28 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OrderService {
 
+    /**
+     * Largest slice a cursor listing returns.
+     */
+    private static final int MAX_SLICE_SIZE = 100;
+
+    /**
+     * Recorded in the status history for changes made by the service itself.
+     */
+    private static final String SYSTEM_USER = "order-service";
+    private static final String SYSTEM_ROLE = "SYSTEM";
+
     private final OrderRepository orderRepository;
     private final CartService cartService;
     private final RestTemplate restTemplate;
+    private final ProductHydrator productHydrator;
+    private final OrderStatsProjection orderStatsProjection;
+    private final SellerRollupService sellerRollupService;
+    private final OrderDetailsService orderDetailsService;
+    private final SellerOrderLineProjection sellerOrderLineProjection;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final OrderOutbox orderOutbox;
+    private final OrderArchive orderArchive;
 
     @Value("${product.service.url}")
     private String productServiceUrl;
@@ -40,17 +76,43 @@ public class OrderService {
     @Value("${order.estimated-delivery-days:7}")
     private int estimatedDeliveryDays;
 
+    @Value("${order.stock.max-attempts:3}")
+    private int stockMaxAttempts;
+
+    @Value("${order.stock.retry-backoff-ms:200}")
+    private long stockRetryBackoffMs;
+
+    /**
+     * Place orders as PENDING and reserve their stock through order.placed
+     * instead of decrementing it on the request thread.
+     */
+    @Value("${order.checkout.async:false}")
+    private boolean asyncCheckout;
+
     /**
      * Checkout - convert cart to order.
+     *
+     * With order.checkout.async the order is saved as PENDING together with
+     * an order.placed outbox event; product-service reserves the stock and
+     * {@link #applyStockOutcome} confirms or cancels the order later.
      */
     public OrderResponse checkout(String userId, String userEmail, CheckoutRequest request) {
         // Get and validate cart
         Cart cart = cartService.getCartEntity(userId);
-        cartService.validateCartForCheckout(cart);
+        // Fetch every product once, in parallel, and reuse the snapshot below.
+        // Synchronous checkout needs current stock, so it bypasses the local replica;
+        // asynchronous checkout leaves the authoritative stock check to the reservation.
+        List<String> productIds = cart.getItems().stream()
+                .map(CartItem::getProductId)
+                .collect(Collectors.toList());
+        Map<String, JsonNode> products = asyncCheckout
+                ? productHydrator.hydrate(productIds)
+                : productHydrator.hydrateLive(productIds);
+        cartService.validateCartForCheckout(cart, products);
 
         // Create order
         Order order = new Order();
-        order.setOrderNumber(generateOrderNumber());
+        order.setOrderNumber(orderNumberGenerator.next());
         order.setBuyerId(userId);
         order.setBuyerName(userEmail); // In real scenario, fetch from user service
         order.setBuyerEmail(userEmail);
@@ -60,7 +122,7 @@ public class OrderService {
         Set<String> sellerIds = new HashSet<>();
         
         for (CartItem cartItem : cart.getItems()) {
-            JsonNode product = fetchProductDetails(cartItem.getProductId());
+            JsonNode product = products.get(cartItem.getProductId());
             
             OrderItem orderItem = OrderItem.builder()
                     .productId(cartItem.getProductId())
@@ -96,10 +158,12 @@ public class OrderService {
         order.setShippingAddress(request.getShippingAddress());
         order.setDeliveryNotes(request.getDeliveryNotes());
         
-        // Status - MVP: Set directly to CONFIRMED for simplicity
-        order.setStatus(OrderStatus.CONFIRMED);
+        // Status - CONFIRMED right away, or PENDING until stock is reserved
+        OrderStatus initialStatus = asyncCheckout ? OrderStatus.PENDING : OrderStatus.CONFIRMED;
+        order.setStatus(initialStatus);
         order.setStatusHistory(new ArrayList<>());
-        addStatusHistoryEntry(order, null, OrderStatus.CONFIRMED, userId, Role.CLIENT, "Order placed and confirmed");
+        addStatusHistoryEntry(order, null, initialStatus, userId, Role.CLIENT,
+                asyncCheckout ? "Order placed, awaiting stock reservation" : "Order placed and confirmed");
         
         // Dates
         order.setEstimatedDeliveryDate(LocalDateTime.now().plusDays(estimatedDeliveryDays));
@@ -108,10 +172,19 @@ public class OrderService {
         order.setIsRemoved(false);
         
         // Decrement stock for all items in the order
-        decrementStockForOrder(orderItems);
+        if (!asyncCheckout) {
+            decrementStockForOrder(order);
+        }
         
-        // Save order
-        Order savedOrder = orderRepository.save(order);
+        // Save order (with its order.placed event when stock is reserved asynchronously),
+        // then its cold details under the same ID
+        Order savedOrder = asyncCheckout
+                ? orderOutbox.save(() -> orderRepository.save(order), orderOutbox::orderPlaced)
+                : orderRepository.save(order);
+        orderDetailsService.save(savedOrder);
+        orderStatsProjection.onOrderPlaced(savedOrder);
+        sellerRollupService.onOrderPlaced(savedOrder);
+        sellerOrderLineProjection.onOrderPlaced(savedOrder);
         
         // Mark cart as purchased
         cartService.markCartAsPurchased(userId);
@@ -123,8 +196,8 @@ public class OrderService {
      * Decrement stock for all items in an order.
      * Called after checkout to update inventory.
      */
-    private void decrementStockForOrder(List<OrderItem> orderItems) {
-        callStockEndpoint(orderItems, "/internal/decrement-stock",
+    private void decrementStockForOrder(Order order) {
+        callStockEndpoint(order, "/internal/decrement-stock",
                 "Decrementing stock", "Stock decremented successfully",
                 "Failed to decrement stock: {}. Order will still be placed.");
     }
@@ -133,19 +206,21 @@ public class OrderService {
      * Increment stock for all items in an order.
      * Called after order cancellation to restore inventory.
      */
-    private void incrementStockForOrder(List<OrderItem> orderItems) {
-        callStockEndpoint(orderItems, "/internal/increment-stock",
+    private void incrementStockForOrder(Order order) {
+        callStockEndpoint(order, "/internal/increment-stock",
                 "Restoring stock", "Stock restored successfully",
                 "Failed to restore stock: {}. Order cancellation will still proceed.");
     }
 
     /**
      * Shared helper to call product-service stock update endpoints.
+     * The order number tags the movement and, together with the operation,
+     * forms the idempotency key, so timed-out calls can be retried safely.
      */
-    private void callStockEndpoint(List<OrderItem> orderItems, String endpoint,
+    private void callStockEndpoint(Order order, String endpoint,
                                    String actionLabel, String successMsg, String errorMsg) {
         try {
-            List<StockUpdateRequest.StockUpdateItem> items = orderItems.stream()
+            List<StockUpdateRequest.StockUpdateItem> items = order.getItems().stream()
                     .map(item -> StockUpdateRequest.StockUpdateItem.builder()
                             .productId(item.getProductId())
                             .quantity(item.getQuantity())
@@ -153,13 +228,17 @@ public class OrderService {
                     .collect(Collectors.toList());
 
             StockUpdateRequest stockRequest = StockUpdateRequest.builder()
+                    .orderId(order.getOrderNumber())
                     .items(items)
                     .build();
 
             String url = productServiceUrl + endpoint;
             log.info("{} for {} items via: {}", actionLabel, items.size(), url);
 
-            StockUpdateResponse response = restTemplate.postForObject(url, stockRequest, StockUpdateResponse.class);
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Idempotency-Key",
+                    order.getOrderNumber() + ":" + endpoint.substring(endpoint.lastIndexOf('/') + 1));
+            StockUpdateResponse response = postStockWithRetry(url, new HttpEntity<>(stockRequest, headers));
 
             if (response != null && !response.isSuccess()) {
                 log.warn("Some stock operations failed: {}", response.getMessage());
@@ -175,11 +254,95 @@ public class OrderService {
         }
     }
 
+    /**
+     * POST a stock update, retrying transient failures with exponential backoff.
+     * Safe because every attempt carries the same idempotency key.
+     */
+    private StockUpdateResponse postStockWithRetry(String url, HttpEntity<StockUpdateRequest> request) {
+        int attempts = Math.max(1, stockMaxAttempts);
+        long backoff = stockRetryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return restTemplate.postForObject(url, request, StockUpdateResponse.class);
+            } catch (ResourceAccessException | HttpServerErrorException | HttpClientErrorException.Conflict e) {
+                // Timeouts, 5xx and "still in progress" are worth another try
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                log.warn("Stock call attempt {}/{} failed: {}. Retrying in {} ms",
+                        attempt, attempts, e.getMessage(), backoff);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff *= 2;
+            }
+        }
+    }
+
+    /**
+     * Apply product-service's stock outcome to an order placed asynchronously:
+     * PENDING becomes CONFIRMED when the stock was reserved, CANCELLED when it
+     * was not. Repeated outcomes are ignored. If the buyer cancelled while the
+     * reservation was in flight, the reserved stock is put back.
+     */
+    public void applyStockOutcome(String orderId, boolean reserved, String reason) {
+        OrderStatus target = reserved ? OrderStatus.CONFIRMED : OrderStatus.CANCELLED;
+        String note = reserved ? "Stock reserved, order confirmed"
+                : "Order cancelled: " + (reason != null ? reason : "stock not available");
+        if (transitionPendingOrder(orderId, target, SYSTEM_USER, SYSTEM_ROLE, note) != null) {
+            return;
+        }
+
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            log.warn("Stock outcome for unknown order {}", orderId);
+        } else if (reserved && order.getStatus() == OrderStatus.CANCELLED) {
+            // Cancelled before the reservation landed; the restore is idempotent per order
+            incrementStockForOrder(order);
+        }
+    }
+
+    /**
+     * Give up on a PENDING order whose stock outcome never came. order.placed
+     * is sent once more before the order is cancelled: if product-service did
+     * take the stock, its reply then finds the order cancelled and puts the
+     * stock back, and if it did not, the reservation is made and released.
+     *
+     * @return whether the order was cancelled; false when it moved on meanwhile
+     */
+    public boolean expirePendingOrder(Order order) {
+        orderOutbox.append(orderOutbox.orderPlaced(order));
+        return transitionPendingOrder(order.getId(), OrderStatus.CANCELLED, SYSTEM_USER, SYSTEM_ROLE,
+                "Order cancelled: stock reservation timed out") != null;
+    }
+
+    /**
+     * Move a PENDING order on, unless something else already did.
+     *
+     * @return the updated order, or null when it was no longer PENDING
+     */
+    private Order transitionPendingOrder(String orderId, OrderStatus target, String userId, String role,
+                                         String reason) {
+        Order order = orderRepository.transitionStatus(orderId, OrderStatus.PENDING, target, LocalDateTime.now());
+        if (order == null) {
+            return null;
+        }
+        OrderStatusHistory history = addStatusHistoryEntry(order, OrderStatus.PENDING, target, userId, role, reason);
+        orderDetailsService.appendStatusHistory(order.getId(), history);
+        orderStatsProjection.onStatusChanged(order, OrderStatus.PENDING);
+        sellerRollupService.onStatusChanged(order, OrderStatus.PENDING);
+        sellerOrderLineProjection.onStatusChanged(order);
+        return order;
+    }
+
     /**
      * Get order by ID.
      */
     public OrderResponse getOrderById(String orderId, String userId) {
-        Order order = orderRepository.findById(orderId)
+        Order order = findLiveOrArchived(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + orderId));
         
         // Check authorization
@@ -187,7 +350,8 @@ public class OrderService {
             throw new UnauthorizedException("You don't have permission to view this order");
         }
         
-        return toOrderResponse(order);
+        // The detail view is the only reader of the cold fields
+        return toOrderResponse(orderDetailsService.withDetails(order));
     }
 
     /**
@@ -199,24 +363,97 @@ public class OrderService {
     }
 
     /**
-     * Get seller's orders.
+     * Get user's archived orders (buyer): finished orders moved out of the
+     * regular listings, see {@link OrderArchive}.
+     */
+    public Page<OrderResponse> getUserOrderHistory(String userId, Pageable pageable) {
+        return orderArchive.findBuyerOrders(userId, pageable).map(this::toOrderResponse);
+    }
+
+    /**
+     * Get seller's orders, each with only the seller's own items.
      */
     public Page<OrderResponse> getSellerOrders(String sellerId, OrderStatus status, Pageable pageable) {
-        Page<Order> orders;
-        if (status != null) {
-            orders = orderRepository.findBySellerIdAndStatus(sellerId, status, pageable);
-        } else {
-            orders = orderRepository.findBySellerIdInSellerIds(sellerId, pageable);
-        }
-        return orders.map(this::toOrderResponse);
+        return orderRepository.findSellerOrderLines(sellerId, status, pageable).map(this::toOrderResponse);
     }
 
     /**
      * Search orders by keyword (order number or buyer email).
      */
     public Page<OrderResponse> searchOrders(String sellerId, String keyword, Pageable pageable) {
-        Page<Order> orders = orderRepository.searchBySellerIdAndKeyword(sellerId, keyword, pageable);
-        return orders.map(this::toOrderResponse);
+        return orderRepository.searchSellerOrderLines(sellerId, keyword, pageable).map(this::toOrderResponse);
+    }
+
+    /**
+     * Get user's orders (buyer), one cursor slice at a time.
+     *
+     * @param cursor nextCursor of the previous slice, or null for the newest orders
+     */
+    public OrderSliceResponse<OrderResponse> getUserOrderSlice(String userId, String cursor, int size) {
+        return toSliceResponse(orderRepository.findBuyerOrderSlice(userId, OrderCursor.decode(cursor), sliceSize(size)));
+    }
+
+    /**
+     * Get user's orders (buyer) filtered on the server, one cursor slice at a time.
+     *
+     * @param keyword  prefix of the order number, e.g. "ORD-202602"
+     * @param dateFrom earliest creation day (yyyy-MM-dd) or instant (ISO-8601), inclusive
+     * @param dateTo   latest creation day or instant, inclusive
+     */
+    public OrderSliceResponse<OrderResponse> getMyOrders(String userId, OrderStatus status, String keyword,
+                                                         String dateFrom, String dateTo, String cursor, int size) {
+        return toSliceResponse(orderRepository.findBuyerOrderSlice(
+                userId, myOrdersFilter(status, keyword, dateFrom, dateTo), OrderCursor.decode(cursor), sliceSize(size)));
+    }
+
+    /**
+     * Summary variant of {@link #getMyOrders}.
+     */
+    public OrderSliceResponse<OrderSummaryResponse> getMyOrderSummaries(String userId, OrderStatus status,
+                                                                        String keyword, String dateFrom, String dateTo,
+                                                                        String cursor, int size) {
+        Slice<OrderSummary> slice = orderRepository.findBuyerOrderSummarySlice(
+                userId, myOrdersFilter(status, keyword, dateFrom, dateTo), OrderCursor.decode(cursor), sliceSize(size));
+        List<OrderSummary> summaries = slice.getContent();
+        return toSliceResponse(slice, this::toOrderSummaryResponse,
+                () -> OrderCursor.of(summaries.get(summaries.size() - 1)));
+    }
+
+    /**
+     * Get user's order summaries (buyer).
+     */
+    public Page<OrderSummaryResponse> getUserOrderSummaries(String userId, Pageable pageable) {
+        return orderRepository.findBuyerOrderSummaries(userId, pageable).map(this::toOrderSummaryResponse);
+    }
+
+    /**
+     * Get seller's order summaries.
+     */
+    public Page<OrderSummaryResponse> getSellerOrderSummaries(String sellerId, OrderStatus status, Pageable pageable) {
+        return orderRepository.findSellerOrderLines(sellerId, status, pageable).map(this::toOrderSummaryResponse);
+    }
+
+    /**
+     * Search order summaries by keyword (order number or buyer email).
+     */
+    public Page<OrderSummaryResponse> searchOrderSummaries(String sellerId, String keyword, Pageable pageable) {
+        return orderRepository.searchSellerOrderLines(sellerId, keyword, pageable).map(this::toOrderSummaryResponse);
+    }
+
+    /**
+     * Get seller's orders, one cursor slice at a time.
+     */
+    public OrderSliceResponse<OrderResponse> getSellerOrderSlice(String sellerId, OrderStatus status, String cursor, int size) {
+        return toLineSliceResponse(orderRepository.findSellerOrderSlice(
+                sellerId, status, OrderCursor.decode(cursor), sliceSize(size)));
+    }
+
+    /**
+     * Search orders by keyword, one cursor slice at a time.
+     */
+    public OrderSliceResponse<OrderResponse> searchOrderSlice(String sellerId, String keyword, String cursor, int size) {
+        return toLineSliceResponse(orderRepository.searchSellerOrderSlice(
+                sellerId, keyword, OrderCursor.decode(cursor), sliceSize(size)));
     }
 
     /**
@@ -240,15 +477,33 @@ public class OrderService {
             );
         }
         
+        if (order.getStatus() == OrderStatus.PENDING) {
+            // Stock may still be on its way to being reserved: cancel only if the outcome
+            // has not landed yet, and let it put the stock back when it does
+            Order cancelled = transitionPendingOrder(orderId, OrderStatus.CANCELLED, userId, Role.CLIENT.name(),
+                    reason);
+            if (cancelled != null) {
+                return toOrderResponse(cancelled);
+            }
+            return cancelOrder(orderId, userId, reason);
+        }
+        
         OrderStatus oldStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         order.setUpdatedAt(LocalDateTime.now());
-        addStatusHistoryEntry(order, oldStatus, OrderStatus.CANCELLED, userId, Role.CLIENT, reason);
+        OrderStatusHistory history =
+                addStatusHistoryEntry(order, oldStatus, OrderStatus.CANCELLED, userId, Role.CLIENT, reason);
         
         // Restore stock for all items in the cancelled order
-        incrementStockForOrder(order.getItems());
+        incrementStockForOrder(order);
         
+        // The save replaces the whole document
+        orderDetailsService.moveEmbeddedDetails(List.of(order.getId()));
         Order saved = orderRepository.save(order);
+        orderDetailsService.appendStatusHistory(saved.getId(), history);
+        orderStatsProjection.onStatusChanged(saved, oldStatus);
+        sellerRollupService.onStatusChanged(saved, oldStatus);
+        sellerOrderLineProjection.onStatusChanged(saved);
         return toOrderResponse(saved);
     }
 
@@ -256,7 +511,7 @@ public class OrderService {
      * Redo order - create a new order from a cancelled order.
      */
     public OrderResponse redoOrder(String orderId, String userId) {
-        Order originalOrder = orderRepository.findById(orderId)
+        Order originalOrder = findLiveOrArchived(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + orderId));
         
         // Only buyer can redo their order
@@ -268,21 +523,25 @@ public class OrderService {
         if (originalOrder.getStatus() != OrderStatus.CANCELLED) {
             throw new InvalidStatusTransitionException("Can only redo cancelled orders");
         }
+        orderDetailsService.withDetails(originalOrder);
         
         // Create new order
         Order newOrder = new Order();
         newOrder.setBuyerId(userId);
         newOrder.setBuyerName(originalOrder.getBuyerName());
         newOrder.setBuyerEmail(originalOrder.getBuyerEmail());
-        newOrder.setOrderNumber(generateOrderNumber());
+        newOrder.setOrderNumber(orderNumberGenerator.next());
         newOrder.setOriginalOrderId(orderId); // Link to original cancelled order
         
         // Process items - update prices from current product data
         List<OrderItem> newItems = new ArrayList<>();
         Set<String> sellerIds = new HashSet<>();
+        Map<String, JsonNode> products = productHydrator.hydrateLive(originalOrder.getItems().stream()
+                .map(OrderItem::getProductId)
+                .collect(Collectors.toList()));
         
         for (OrderItem originalItem : originalOrder.getItems()) {
-            JsonNode product = fetchProductDetails(originalItem.getProductId());
+            JsonNode product = products.get(originalItem.getProductId());
             
             if (product == null || product.get("stock").asInt() < originalItem.getQuantity()) {
                 throw new InvalidStatusTransitionException(
@@ -337,67 +596,88 @@ public class OrderService {
         
         // Save and return
         Order savedOrder = orderRepository.save(newOrder);
+        orderDetailsService.save(savedOrder);
+        orderStatsProjection.onOrderPlaced(savedOrder);
+        sellerRollupService.onOrderPlaced(savedOrder);
+        sellerOrderLineProjection.onOrderPlaced(savedOrder);
         return toOrderResponse(savedOrder);
     }
 
     /**
-     * Soft delete order.
+     * Soft delete order: it is moved to the archive, see {@link OrderArchive}.
      */
     public void deleteOrder(String orderId, String userId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + orderId));
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            deleteArchivedOrder(orderId, userId);
+            return;
+        }
         
         // Only buyer can delete
         if (!order.getBuyerId().equals(userId)) {
             throw new UnauthorizedException("You can only delete your own orders");
         }
         
+        LocalDateTime lastSeen = order.getUpdatedAt();
+        boolean wasRemoved = Boolean.TRUE.equals(order.getIsRemoved());
         order.setIsRemoved(true);
         order.setRemovedAt(LocalDateTime.now());
         order.setRemovedBy(userId);
         order.setUpdatedAt(LocalDateTime.now());
         
-        orderRepository.save(order);
+        if (!orderArchive.move(order, lastSeen)) {
+            // Changed or moved meanwhile; start over from its current state
+            deleteOrder(orderId, userId);
+            return;
+        }
+        if (!wasRemoved) {
+            orderStatsProjection.onOrderRemoved(order);
+            sellerOrderLineProjection.onOrderRemoved(order);
+        }
+    }
+
+    private void deleteArchivedOrder(String orderId, String userId) {
+        Order order = orderArchive.findById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + orderId));
+        if (!order.getBuyerId().equals(userId)) {
+            throw new UnauthorizedException("You can only delete your own orders");
+        }
+        if (orderArchive.markRemoved(orderId, userId)) {
+            orderStatsProjection.onOrderRemoved(order);
+            sellerOrderLineProjection.onOrderRemoved(order);
+        }
     }
 
     // ==================== Helper Methods ====================
 
-    private String generateOrderNumber() {
-        String datePart = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String randomPart = generateRandomString(5);
-        return "ORD-" + datePart + "-" + randomPart;
+    /**
+     * Order listings never show archived orders, but a single order is
+     * still found by id after it was archived.
+     */
+    private Optional<Order> findLiveOrArchived(String orderId) {
+        return orderRepository.findById(orderId).or(() -> orderArchive.findById(orderId));
     }
 
-    private String generateRandomString(int length) {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        Random random = new Random();
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < length; i++) {
-            result.append(chars.charAt(random.nextInt(chars.length())));
-        }
-        return result.toString();
+    private OrderStatusHistory addStatusHistoryEntry(Order order, OrderStatus oldStatus, OrderStatus newStatus,
+                                                     String userId, Role role, String reason) {
+        return addStatusHistoryEntry(order, oldStatus, newStatus, userId, role.name(), reason);
     }
 
-    private void addStatusHistoryEntry(Order order, OrderStatus oldStatus, OrderStatus newStatus, 
-                                      String userId, Role role, String reason) {
+    private OrderStatusHistory addStatusHistoryEntry(Order order, OrderStatus oldStatus, OrderStatus newStatus,
+                                                     String userId, String role, String reason) {
         OrderStatusHistory history = OrderStatusHistory.builder()
                 .previousStatus(oldStatus)
                 .newStatus(newStatus)
                 .changedAt(LocalDateTime.now())
                 .changedBy(userId)
-                .changedByRole(role.name())
+                .changedByRole(role)
                 .reason(reason)
                 .build();
-        order.getStatusHistory().add(history);
-    }
-
-    private JsonNode fetchProductDetails(String productId) {
-        try {
-            String url = productServiceUrl + "/" + productId;
-            return restTemplate.getForObject(url, JsonNode.class);
-        } catch (Exception e) {
-            return null;
+        if (order.getStatusHistory() == null) {
+            order.setStatusHistory(new ArrayList<>());
         }
+        order.getStatusHistory().add(history);
+        return history;
     }
 
     private OrderResponse toOrderResponse(Order order) {
@@ -429,6 +709,104 @@ public class OrderService {
                 .build();
     }
 
+    /**
+     * A seller's view of an order: only their items, totalled. The full order
+     * stays available from {@link #getOrderById}.
+     */
+    private OrderResponse toOrderResponse(SellerOrderLine line) {
+        return OrderResponse.builder()
+                .id(line.getOrderId())
+                .orderNumber(line.getOrderNumber())
+                .buyerId(line.getBuyerId())
+                .buyerName(line.getBuyerName())
+                .buyerEmail(line.getBuyerEmail())
+                .items(line.getItems().stream().map(this::toOrderItemResponse).collect(Collectors.toList()))
+                .subtotal(line.getSubtotal())
+                .totalAmount(line.getSubtotal())
+                .status(line.getStatus())
+                .createdAt(line.getCreatedAt())
+                .updatedAt(line.getUpdatedAt())
+                .build();
+    }
+
+    private OrderSummaryResponse toOrderSummaryResponse(SellerOrderLine line) {
+        return OrderSummaryResponse.builder()
+                .id(line.getOrderId())
+                .orderNumber(line.getOrderNumber())
+                .status(line.getStatus())
+                .totalAmount(line.getSubtotal())
+                .itemCount(line.getItems().size())
+                .createdAt(line.getCreatedAt())
+                .build();
+    }
+
+    private OrderSummaryResponse toOrderSummaryResponse(OrderSummary summary) {
+        return OrderSummaryResponse.builder()
+                .id(summary.getId())
+                .orderNumber(summary.getOrderNumber())
+                .status(summary.getStatus())
+                .totalAmount(summary.getTotalAmount())
+                .itemCount(summary.getItemCount())
+                .createdAt(summary.getCreatedAt())
+                .build();
+    }
+
+    private OrderSliceResponse<OrderResponse> toSliceResponse(Slice<Order> slice) {
+        List<Order> orders = slice.getContent();
+        return toSliceResponse(slice, this::toOrderResponse, () -> OrderCursor.of(orders.get(orders.size() - 1)));
+    }
+
+    private OrderSliceResponse<OrderResponse> toLineSliceResponse(Slice<SellerOrderLine> slice) {
+        List<SellerOrderLine> lines = slice.getContent();
+        return toSliceResponse(slice, this::toOrderResponse, () -> OrderCursor.of(lines.get(lines.size() - 1)));
+    }
+
+    private <T, R> OrderSliceResponse<R> toSliceResponse(Slice<T> slice, Function<T, R> mapper,
+                                                         Supplier<OrderCursor> lastPosition) {
+        String nextCursor = slice.hasNext() && slice.hasContent() ? lastPosition.get().encode() : null;
+        return OrderSliceResponse.<R>builder()
+                .content(slice.getContent().stream().map(mapper).collect(Collectors.toList()))
+                .size(slice.getSize())
+                .hasNext(slice.hasNext())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private static OrderFilter myOrdersFilter(OrderStatus status, String keyword, String dateFrom, String dateTo) {
+        return new OrderFilter(
+                status,
+                keyword == null || keyword.isBlank() ? null : keyword.trim().toUpperCase(Locale.ROOT),
+                parseDateBound(dateFrom, false),
+                parseDateBound(dateTo, true));
+    }
+
+    /**
+     * A plain day covers the whole day; anything else must be an ISO-8601 date-time,
+     * with an offset (as sent by browsers) or without one (server local time).
+     */
+    private static LocalDateTime parseDateBound(String value, boolean endOfDay) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            if (value.length() == 10) {
+                LocalDate day = LocalDate.parse(value);
+                return endOfDay ? day.atTime(LocalTime.MAX) : day.atStartOfDay();
+            }
+            try {
+                return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            } catch (DateTimeParseException e) {
+                return LocalDateTime.parse(value);
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+
+    private static int sliceSize(int requested) {
+        return Math.max(1, Math.min(requested, MAX_SLICE_SIZE));
+    }
+
     private OrderItemResponse toOrderItemResponse(OrderItem item) {
         return OrderItemResponse.builder()
                 .productId(item.getProductId())
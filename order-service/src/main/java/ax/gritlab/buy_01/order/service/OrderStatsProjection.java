@@ -0,0 +1,241 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.BuyerStats;
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderItem;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import ax.gritlab.buy_01.order.model.SellerStats;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.RenameCollectionOptions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the buyer_stats and seller_stats read models in step with orders.
+ *
+ * Every order change is turned into the difference between what the order
+ * contributed before and what it contributes now, and that difference is
+ * applied as one $inc upsert per affected buyer and seller. Failures are
+ * logged and never fail the order operation; {@link #rebuild()} recomputes
+ * everything from the orders collection.
+ *
+ * The documents are only complete once they were built from all existing
+ * orders, which {@link DataMigrations#ORDER_STATS} records; readers fall back
+ * to aggregating the orders until then.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderStatsProjection {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * A new order was saved.
+     */
+    public void onOrderPlaced(Order order) {
+        project(order, null, order.getStatus());
+    }
+
+    /**
+     * An existing order moved from {@code previousStatus} to its current status.
+     */
+    public void onStatusChanged(Order order, OrderStatus previousStatus) {
+        if (previousStatus == order.getStatus() || Boolean.TRUE.equals(order.getIsRemoved())) {
+            return;
+        }
+        project(order, previousStatus, order.getStatus());
+    }
+
+    /**
+     * An order was soft-deleted and no longer counts towards any stats.
+     */
+    public void onOrderRemoved(Order order) {
+        project(order, order.getStatus(), null);
+    }
+
+    /**
+     * Recompute both read models from all orders that are not removed,
+     * archived ones included.
+     *
+     * The new documents are built in collections of their own and then renamed
+     * over buyer_stats and seller_stats, so readers keep seeing the previous
+     * statistics until the rebuild is complete. Order changes applied to the
+     * live collections while this runs are lost with them; run it while
+     * checkout is quiet, or run it again afterwards.
+     *
+     * @return number of orders projected
+     */
+    public long rebuild() {
+        String buyers = mongoTemplate.getCollectionName(BuyerStats.class);
+        String sellers = mongoTemplate.getCollectionName(SellerStats.class);
+        // Unique per run, so two instances rebuilding at once do not add to each other's counters
+        String suffix = "_rebuild_" + new ObjectId().toHexString();
+        mongoTemplate.createCollection(buyers + suffix);
+        mongoTemplate.createCollection(sellers + suffix);
+        try {
+            // Full scans either way; the filter only matters for the archive and
+            // for soft-deleted orders not archived yet
+            Query live = Query.query(Criteria.where("isRemoved").ne(true));
+            long projected = rebuild(mongoTemplate.stream(live, Order.class), buyers + suffix, sellers + suffix)
+                    + rebuild(mongoTemplate.stream(live, Order.class, OrderArchive.COLLECTION),
+                            buyers + suffix, sellers + suffix);
+
+            replace(buyers + suffix, buyers);
+            replace(sellers + suffix, sellers);
+            return projected;
+        } finally {
+            // Only still there when the rebuild failed
+            mongoTemplate.dropCollection(buyers + suffix);
+            mongoTemplate.dropCollection(sellers + suffix);
+        }
+    }
+
+    private long rebuild(Stream<Order> source, String buyers, String sellers) {
+        long projected = 0;
+        try (Stream<Order> orders = source) {
+            // A failed write fails the rebuild, before incomplete stats replace the live ones
+            for (Order order : (Iterable<Order>) orders::iterator) {
+                apply(order, null, order.getStatus(), buyers, sellers);
+                projected++;
+            }
+        }
+        return projected;
+    }
+
+    private void replace(String source, String target) {
+        mongoTemplate.getCollection(source).renameCollection(
+                new MongoNamespace(mongoTemplate.getDb().getName(), target),
+                new RenameCollectionOptions().dropTarget(true));
+    }
+
+    private void project(Order order, OrderStatus from, OrderStatus to) {
+        try {
+            apply(order, from, to, null, null);
+        } catch (Exception e) {
+            log.warn("Failed to update stats for order {}: {}", order.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * @param buyers  collection to write buyer stats to, or null for buyer_stats
+     * @param sellers collection to write seller stats to, or null for seller_stats
+     */
+    private void apply(Order order, OrderStatus from, OrderStatus to, String buyers, String sellers) {
+        if (order.getBuyerId() != null) {
+            CounterDelta buyer = new CounterDelta();
+            contributeBuyer(buyer, order, from, -1);
+            contributeBuyer(buyer, order, to, 1);
+            write(buyer, order.getBuyerId(), BuyerStats.class, buyers);
+        }
+        for (String sellerId : sellerIds(order)) {
+            CounterDelta seller = new CounterDelta();
+            contributeSeller(seller, order, sellerId, from, -1);
+            contributeSeller(seller, order, sellerId, to, 1);
+            write(seller, sellerId, SellerStats.class, sellers);
+        }
+    }
+
+    private void contributeBuyer(CounterDelta delta, Order order, OrderStatus status, int sign) {
+        if (status == null) {
+            return;
+        }
+        delta.count("totalOrders", sign);
+        delta.count("ordersByStatus." + status.name(), sign);
+        if (!isCompleted(status)) {
+            return;
+        }
+        double amount = order.getTotalAmount() != null ? order.getTotalAmount() : 0.0;
+        delta.amount("totalSpent", sign * amount);
+        month(order).ifPresent(month -> delta.amount("spentByMonth." + month, sign * amount));
+        contributeProducts(delta, items(order), sign);
+    }
+
+    private void contributeSeller(CounterDelta delta, Order order, String sellerId, OrderStatus status, int sign) {
+        if (status == null) {
+            return;
+        }
+        delta.count("totalOrders", sign);
+        delta.count("ordersByStatus." + status.name(), sign);
+
+        List<OrderItem> items = items(order).stream()
+                .filter(item -> sellerId.equals(item.getSellerId()))
+                .collect(Collectors.toList());
+        if (items.isEmpty()) {
+            return;
+        }
+        delta.count("sellerOrdersByStatus." + status.name(), sign);
+        if (!isCompleted(status)) {
+            return;
+        }
+        double revenue = items.stream().mapToDouble(this::subtotal).sum();
+        delta.amount("totalRevenue", sign * revenue);
+        delta.count("totalUnitsSold", sign * items.stream().mapToInt(this::quantity).sum());
+        month(order).ifPresent(month -> delta.amount("revenueByMonth." + month, sign * revenue));
+        contributeProducts(delta, items, sign);
+    }
+
+    private void contributeProducts(CounterDelta delta, List<OrderItem> items, int sign) {
+        for (OrderItem item : items) {
+            String path = "products." + item.getProductId();
+            delta.count(path + ".quantity", sign * quantity(item));
+            delta.amount(path + ".amount", sign * subtotal(item));
+            delta.count(path + ".orderCount", sign);
+            if (sign > 0) {
+                delta.set(path + ".name", item.getProductName());
+                delta.set(path + ".thumbnailMediaId", item.getThumbnailMediaId());
+            }
+        }
+    }
+
+    private void write(CounterDelta delta, String id, Class<?> statsType, String collection) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").is(id));
+        if (collection == null) {
+            mongoTemplate.upsert(query, delta.toUpdate(), statsType);
+        } else {
+            mongoTemplate.upsert(query, delta.toUpdate(), statsType, collection);
+        }
+    }
+
+    private static boolean isCompleted(OrderStatus status) {
+        // MVP: CONFIRMED counts as delivered
+        return status == OrderStatus.DELIVERED || status == OrderStatus.CONFIRMED;
+    }
+
+    private static Set<String> sellerIds(Order order) {
+        return order.getSellerIds() != null ? order.getSellerIds() : Set.of();
+    }
+
+    private static List<OrderItem> items(Order order) {
+        return order.getItems() != null ? order.getItems() : List.of();
+    }
+
+    private static Optional<String> month(Order order) {
+        return Optional.ofNullable(order.getCreatedAt()).map(MONTH::format);
+    }
+
+    private int quantity(OrderItem item) {
+        return item.getQuantity() != null ? item.getQuantity() : 0;
+    }
+
+    private double subtotal(OrderItem item) {
+        return item.getSubtotal() != null ? item.getSubtotal() : 0.0;
+    }
+}
@@ -0,0 +1,36 @@
+package ax.gritlab.buy_01.order.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the stock outcomes product-service publishes for orders placed
+ * through the asynchronous checkout. Instances share one consumer group, so
+ * each outcome is applied once; a failure is rethrown so it is redelivered.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStockKafkaConsumer {
+
+    public static final String ORDER_STOCK_TOPIC = "order.stock";
+
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(topics = ORDER_STOCK_TOPIC, groupId = "order-service-stock")
+    public void consumeStockOutcome(String payload) throws Exception {
+        JsonNode outcome = objectMapper.readTree(payload);
+        String orderId = outcome.path("orderId").asText(null);
+        if (orderId == null || !outcome.has("reserved")) {
+            log.warn("Ignoring malformed {} event: {}", ORDER_STOCK_TOPIC, payload);
+            return;
+        }
+        orderService.applyStockOutcome(orderId, outcome.get("reserved").asBoolean(),
+                outcome.path("reason").asText(null));
+    }
+}
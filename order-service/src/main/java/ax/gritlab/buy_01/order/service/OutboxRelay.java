@@ -0,0 +1,98 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes outbox events to Kafka.
+ *
+ * Polls the oldest events, hands a whole batch to the producer before
+ * waiting on any of them, so the producer can group and compress them, and
+ * then deletes the acknowledged ones with one query. A batch stops at its
+ * first failed send and the rest is sent again on the next poll. Delivery
+ * is at least once, also when several instances relay at the same time, so
+ * consumers de-duplicate.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private final MongoTemplate mongoTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${order.outbox.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * How long a batch waits for the broker's acknowledgements.
+     */
+    @Value("${order.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMillis;
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:200}")
+    public void relayScheduled() {
+        try {
+            int published;
+            do {
+                published = relay();
+            } while (published == batchSize);
+        } catch (Exception e) {
+            log.warn("Failed to relay outbox events: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publish one batch of the oldest events.
+     *
+     * @return number of events published and deleted
+     */
+    int relay() {
+        Query oldest = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+        List<OutboxEvent> events = mongoTemplate.find(oldest, OutboxEvent.class);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            sends.add(kafkaTemplate.send(event.getTopic(), event.getKey(), event.getPayload()));
+        }
+        kafkaTemplate.flush();
+
+        List<String> published = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            try {
+                sends.get(i).get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("Failed to publish outbox event {} to {}: {}",
+                        events.get(i).getId(), events.get(i).getTopic(), e.getMessage());
+                break;
+            }
+            published.add(events.get(i).getId());
+        }
+
+        if (!published.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(published)), OutboxEvent.class);
+        }
+        return published.size();
+    }
+}
@@ -0,0 +1,113 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Sweeps orders of the asynchronous checkout that are still PENDING.
+ *
+ * An order stays PENDING when its order.placed event was never written
+ * (a crash between the order and the outbox insert without
+ * order.outbox.transactional), or when product-service dropped the event or
+ * its reply. Orders pending for order.pending-sweep.republish-after-ms get
+ * order.placed again: product-service reserves at most once per order number
+ * and answers repeats with the outcome it already decided. Orders pending
+ * for order.pending-sweep.cancel-after-ms are cancelled through
+ * {@link OrderService#expirePendingOrder}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "order.checkout.async", havingValue = "true")
+public class PendingOrderSweeper {
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderOutbox orderOutbox;
+    private final OrderService orderService;
+
+    @Value("${order.pending-sweep.republish-after-ms:120000}")
+    private long republishAfterMillis;
+
+    @Value("${order.pending-sweep.cancel-after-ms:1800000}")
+    private long cancelAfterMillis;
+
+    @Value("${order.pending-sweep.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * Outcome of one sweep.
+     */
+    record SweepResult(int republished, int cancelled) {
+    }
+
+    @Scheduled(fixedDelayString = "${order.pending-sweep.interval-ms:300000}",
+            initialDelayString = "${order.pending-sweep.interval-ms:300000}")
+    public void sweepScheduled() {
+        try {
+            SweepResult result = sweep(LocalDateTime.now());
+            if (result.republished() > 0 || result.cancelled() > 0) {
+                log.info("Swept pending orders: {} republished, {} cancelled",
+                        result.republished(), result.cancelled());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to sweep pending orders: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param now reference time for the pending windows
+     */
+    SweepResult sweep(LocalDateTime now) {
+        LocalDateTime republishCutoff = now.minus(Duration.ofMillis(republishAfterMillis));
+        LocalDateTime cancelCutoff = now.minus(Duration.ofMillis(cancelAfterMillis));
+
+        int republished = 0;
+        int cancelled = 0;
+        String lastId = null;
+        while (true) {
+            List<Order> batch = nextBatch(republishCutoff, lastId);
+            for (Order order : batch) {
+                if (order.getCreatedAt().isBefore(cancelCutoff)) {
+                    if (orderService.expirePendingOrder(order)) {
+                        cancelled++;
+                    }
+                } else {
+                    orderOutbox.append(orderOutbox.orderPlaced(order));
+                    republished++;
+                }
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        return new SweepResult(republished, cancelled);
+    }
+
+    /**
+     * Next orders pending since before the cutoff, after the given _id.
+     */
+    private List<Order> nextBatch(LocalDateTime republishCutoff, String lastId) {
+        Criteria pending = Criteria.where("status").is(OrderStatus.PENDING).and("createdAt").lt(republishCutoff);
+        if (lastId != null) {
+            pending = pending.and("_id").gt(lastId);
+        }
+        Query query = Query.query(pending).with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+        query.fields().include("orderNumber", "buyerId", "items", "status", "createdAt");
+        return mongoTemplate.find(query, Order.class);
+    }
+}
@@ -0,0 +1,148 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.ProductReplicaEntry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Local read replica of the product catalogue.
+ *
+ * Fed from the log-compacted product.snapshots topic, so cart display and
+ * pricing keep working while product-service is slow or down. Snapshots
+ * carry the product version and older ones never overwrite newer ones;
+ * tombstones remove the product. Stock in the replica is informational
+ * only - stock reservation at checkout still goes to product-service.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductReplica {
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Snapshot> products = new ConcurrentHashMap<>();
+
+    /**
+     * Also keep snapshots in the product_replica collection for warm restarts.
+     */
+    @Value("${order.product-replica.persist:false}")
+    private boolean persist;
+
+    private record Snapshot(long version, JsonNode product) {
+    }
+
+    /**
+     * Load persisted snapshots so reads are served before the topic is replayed.
+     */
+    @PostConstruct
+    void warmStart() {
+        if (!persist) {
+            return;
+        }
+        try (Stream<ProductReplicaEntry> entries = mongoTemplate.stream(new Query(), ProductReplicaEntry.class)) {
+            entries.forEach(entry -> {
+                JsonNode product = parse(entry.getId(), entry.getPayload());
+                if (product != null) {
+                    products.merge(entry.getId(), new Snapshot(versionOf(entry.getVersion()), product), ProductReplica::newer);
+                }
+            });
+            log.info("Product replica warm-started with {} products", products.size());
+        } catch (Exception e) {
+            log.warn("Could not warm-start product replica: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Apply a message from the snapshot stream.
+     *
+     * @param productId message key
+     * @param payload   snapshot JSON, or null for a tombstone
+     */
+    public void apply(String productId, String payload) {
+        if (productId == null) {
+            return;
+        }
+        if (payload == null) {
+            products.remove(productId);
+            if (persist) {
+                mongoTemplate.remove(Query.query(Criteria.where("_id").is(productId)), ProductReplicaEntry.class);
+            }
+            return;
+        }
+
+        JsonNode product = parse(productId, payload);
+        if (product == null) {
+            return;
+        }
+        long version = product.path("version").asLong(0);
+        Snapshot incoming = new Snapshot(version, product);
+        if (products.merge(productId, incoming, ProductReplica::newer) != incoming) {
+            // Out-of-order or replayed snapshot
+            return;
+        }
+        if (persist) {
+            persist(productId, version, payload);
+        }
+    }
+
+    /**
+     * Latest known snapshot of a product.
+     *
+     * @return the product JSON, or null if the replica has not seen it
+     */
+    public JsonNode get(String productId) {
+        Snapshot snapshot = products.get(productId);
+        return snapshot != null ? snapshot.product() : null;
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    private void persist(String productId, long version, String payload) {
+        try {
+            // Only move forward; an older snapshot fails the filter and hits the unique _id
+            mongoTemplate.upsert(
+                    Query.query(Criteria.where("_id").is(productId).and("version").lte(version)),
+                    new Update().set("version", version).set("payload", payload).set("updatedAt", LocalDateTime.now()),
+                    ProductReplicaEntry.class);
+        } catch (DuplicateKeyException e) {
+            log.debug("Stored snapshot of product {} is newer than version {}", productId, version);
+        } catch (Exception e) {
+            log.warn("Failed to persist snapshot of product {}: {}", productId, e.getMessage());
+        }
+    }
+
+    private JsonNode parse(String productId, String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed snapshot of product {}: {}", productId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Snapshot newer(Snapshot current, Snapshot incoming) {
+        return incoming.version() >= current.version() ? incoming : current;
+    }
+
+    private static long versionOf(Long version) {
+        return version != null ? version : 0L;
+    }
+}
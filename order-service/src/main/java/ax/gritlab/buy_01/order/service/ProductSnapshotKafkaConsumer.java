@@ -0,0 +1,35 @@
+package ax.gritlab.buy_01.order.service;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds the product replica from the compacted product.snapshots topic.
+ *
+ * Every instance needs the whole catalogue, so instead of joining a consumer
+ * group each one assigns itself all partitions and reads them from offset 0
+ * on every start; compaction keeps that replay to one message per product.
+ * Offsets are never read back, and the ones committed all go to the fixed
+ * order-service-replica group, so instances that went away leave no groups
+ * behind.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "order.product-replica.enabled", havingValue = "true", matchIfMissing = true)
+public class ProductSnapshotKafkaConsumer {
+
+    private final ProductReplica productReplica;
+
+    @KafkaListener(id = "order-service-replica",
+            topicPartitions = @TopicPartition(topic = "product.snapshots",
+                    partitions = "#{@kafkaPartitionFinder.partitions('product.snapshots')}",
+                    partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")))
+    public void consumeSnapshot(ConsumerRecord<String, String> record) {
+        productReplica.apply(record.key(), record.value());
+    }
+}
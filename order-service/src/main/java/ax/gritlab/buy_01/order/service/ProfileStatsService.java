@@ -3,93 +3,81 @@ package ax.gritlab.buy_01.order.service;
 import ax.gritlab.buy_01.order.dto.BuyerProfileStatsDto;
 import ax.gritlab.buy_01.order.dto.ProductStatDto;
 import ax.gritlab.buy_01.order.dto.SellerProfileStatsDto;
+import ax.gritlab.buy_01.order.model.BuyerStats;
 import ax.gritlab.buy_01.order.model.Order;
-import ax.gritlab.buy_01.order.model.OrderItem;
 import ax.gritlab.buy_01.order.model.OrderStatus;
-import ax.gritlab.buy_01.order.repository.OrderRepository;
+import ax.gritlab.buy_01.order.model.ProductTally;
+import ax.gritlab.buy_01.order.model.SellerOrderLine;
+import ax.gritlab.buy_01.order.model.SellerStats;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.facet;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.limit;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+
 /**
  * Service for computing profile statistics for buyers and sellers.
+ *
+ * Statistics are read from the buyer_stats / seller_stats documents kept by
+ * {@link OrderStatsProjection} once they were built from all existing orders.
+ * Until then, and for users without such a document, they are computed by a
+ * single aggregation in MongoDB: the buyer's orders or the seller's order lines
+ * are matched on their index, reduced to status, amount and items, and then
+ * counted per status and grouped per product in one $facet.
  */
 @Service
 @RequiredArgsConstructor
 public class ProfileStatsService {
 
-    private final OrderRepository orderRepository;
+    private final MongoTemplate mongoTemplate;
+    private final DataMigrations dataMigrations;
 
     private static final int TOP_PRODUCTS_LIMIT = 5;
 
+    // MVP: CONFIRMED counts as delivered
+    private static final List<String> COMPLETED_STATUSES = statusNames(OrderStatus.DELIVERED, OrderStatus.CONFIRMED);
+    private static final List<String> PENDING_STATUSES =
+            statusNames(OrderStatus.PENDING, OrderStatus.PROCESSING, OrderStatus.SHIPPED);
+
     /**
      * Get buyer profile statistics.
      * Computes total spent, order counts, and product preferences.
      */
     public BuyerProfileStatsDto getBuyerStats(String buyerId) {
-        // Get all orders for the buyer (not removed)
-        List<Order> allOrders = orderRepository.findByBuyerIdAndNotRemoved(buyerId, 
-                PageRequest.of(0, Integer.MAX_VALUE)).getContent();
-
-        // Calculate order counts by status
-        Map<OrderStatus, Long> ordersByStatus = allOrders.stream()
-                .collect(Collectors.groupingBy(Order::getStatus, Collectors.counting()));
-
-        // MVP: Get completed orders (CONFIRMED or DELIVERED) for financial calculations
-        List<Order> completedOrders = allOrders.stream()
-                .filter(o -> o.getStatus() == OrderStatus.DELIVERED || o.getStatus() == OrderStatus.CONFIRMED)
-                .collect(Collectors.toList());
-
-        // Calculate total spent (from completed orders)
-        double totalSpent = completedOrders.stream()
-                .mapToDouble(Order::getTotalAmount)
-                .sum();
-
-        // Calculate average order value
-        double avgOrderValue = completedOrders.isEmpty() ? 0 : totalSpent / completedOrders.size();
-
-        // Aggregate product statistics from completed orders
-        Map<String, ProductStatAggregator> productStats = new HashMap<>();
-        for (Order order : completedOrders) {
-            for (OrderItem item : order.getItems()) {
-                productStats.computeIfAbsent(item.getProductId(), k -> new ProductStatAggregator())
-                        .addItem(item);
-            }
+        BuyerStats stats = dataMigrations.isDone(DataMigrations.ORDER_STATS)
+                ? mongoTemplate.findById(buyerId, BuyerStats.class)
+                : null;
+        if (stats == null) {
+            return aggregateBuyerStats(buyerId);
         }
 
-        // Get top products by amount spent
-        List<ProductStatDto> topByAmount = productStats.values().stream()
-                .sorted(Comparator.comparing(ProductStatAggregator::getTotalAmount).reversed())
-                .limit(TOP_PRODUCTS_LIMIT)
-                .map(ProductStatAggregator::toDto)
-                .collect(Collectors.toList());
-
-        // Get most bought products by quantity
-        List<ProductStatDto> mostBought = productStats.values().stream()
-                .sorted(Comparator.comparing(ProductStatAggregator::getTotalQuantity).reversed())
-                .limit(TOP_PRODUCTS_LIMIT)
-                .map(ProductStatAggregator::toDto)
-                .collect(Collectors.toList());
-
-        // MVP: Count CONFIRMED as delivered for display
-        int deliveredCount = ordersByStatus.getOrDefault(OrderStatus.DELIVERED, 0L).intValue() +
-                             ordersByStatus.getOrDefault(OrderStatus.CONFIRMED, 0L).intValue();
-
+        int completedOrders = sum(stats.getOrdersByStatus(), COMPLETED_STATUSES);
         return BuyerProfileStatsDto.builder()
                 .userId(buyerId)
-                .totalSpent(totalSpent)
-                .totalOrders(allOrders.size())
-                .pendingOrders(ordersByStatus.getOrDefault(OrderStatus.PENDING, 0L).intValue() +
-                               ordersByStatus.getOrDefault(OrderStatus.PROCESSING, 0L).intValue() +
-                               ordersByStatus.getOrDefault(OrderStatus.SHIPPED, 0L).intValue())
-                .deliveredOrders(deliveredCount)
-                .cancelledOrders(ordersByStatus.getOrDefault(OrderStatus.CANCELLED, 0L).intValue())
-                .topProductsByAmount(topByAmount)
-                .mostBoughtProducts(mostBought)
-                .averageOrderValue(avgOrderValue)
+                .totalSpent(stats.getTotalSpent())
+                .totalOrders(stats.getTotalOrders())
+                .pendingOrders(sum(stats.getOrdersByStatus(), PENDING_STATUSES))
+                .deliveredOrders(completedOrders)
+                .cancelledOrders(sum(stats.getOrdersByStatus(), List.of(OrderStatus.CANCELLED.name())))
+                .topProductsByAmount(topProducts(stats.getProducts(), ProductTally::getAmount))
+                .mostBoughtProducts(topProducts(stats.getProducts(), ProductTally::getQuantity))
+                .averageOrderValue(completedOrders == 0 ? 0 : stats.getTotalSpent() / completedOrders)
                 .build();
     }
 
@@ -98,121 +86,212 @@ public class ProfileStatsService {
      * Computes total earnings, sales counts, and best-selling products.
      */
     public SellerProfileStatsDto getSellerStats(String sellerId) {
-        // Get all orders containing seller's products (not removed)
-        List<Order> allOrders = orderRepository.findBySellerIdInSellerIds(sellerId, 
-                PageRequest.of(0, Integer.MAX_VALUE)).getContent();
-
-        // Filter to only include items belonging to this seller
-        // and calculate stats per order status
-        int pendingOrders = 0;
-        int deliveredOrders = 0;
-        int cancelledOrders = 0;
-        
-        double totalEarned = 0;
-        int totalProductsSold = 0;
-        Map<String, ProductStatAggregator> productStats = new HashMap<>();
-
-        for (Order order : allOrders) {
-            // Get only this seller's items from the order
-            List<OrderItem> sellerItems = order.getItems().stream()
-                    .filter(item -> sellerId.equals(item.getSellerId()))
-                    .collect(Collectors.toList());
-
-            if (sellerItems.isEmpty()) continue;
-
-            // Count orders by status
-            switch (order.getStatus()) {
-                case PENDING, PROCESSING, SHIPPED:
-                    pendingOrders++;
-                    break;
-                case CONFIRMED, DELIVERED:
-                    // MVP: Count confirmed and delivered orders as completed
-                    deliveredOrders++;
-                    for (OrderItem item : sellerItems) {
-                        totalEarned += item.getSubtotal();
-                        totalProductsSold += item.getQuantity();
-                        productStats.computeIfAbsent(item.getProductId(), k -> new ProductStatAggregator())
-                                .addItem(item);
-                    }
-                    break;
-                case CANCELLED:
-                    cancelledOrders++;
-                    break;
-                default:
-                    break;
-            }
+        SellerStats stats = dataMigrations.isDone(DataMigrations.ORDER_STATS)
+                ? mongoTemplate.findById(sellerId, SellerStats.class)
+                : null;
+        if (stats == null) {
+            return aggregateSellerStats(sellerId);
         }
 
-        // Get best-selling by amount
-        List<ProductStatDto> bestByAmount = productStats.values().stream()
-                .sorted(Comparator.comparing(ProductStatAggregator::getTotalAmount).reversed())
-                .limit(TOP_PRODUCTS_LIMIT)
-                .map(ProductStatAggregator::toDto)
-                .collect(Collectors.toList());
+        int deliveredOrders = sum(stats.getSellerOrdersByStatus(), COMPLETED_STATUSES);
+        return SellerProfileStatsDto.builder()
+                .sellerId(sellerId)
+                .totalEarned(stats.getTotalRevenue())
+                .totalOrders(stats.getTotalOrders())
+                .pendingOrders(sum(stats.getSellerOrdersByStatus(), PENDING_STATUSES))
+                .deliveredOrders(deliveredOrders)
+                .cancelledOrders(sum(stats.getSellerOrdersByStatus(), List.of(OrderStatus.CANCELLED.name())))
+                .totalProductsSold(stats.getTotalUnitsSold())
+                .bestSellingByAmount(topProducts(stats.getProducts(), ProductTally::getAmount))
+                .bestSellingByQuantity(topProducts(stats.getProducts(), ProductTally::getQuantity))
+                .averageOrderValue(deliveredOrders > 0 ? stats.getTotalRevenue() / deliveredOrders : 0)
+                .build();
+    }
 
-        // Get best-selling by quantity
-        List<ProductStatDto> bestByQuantity = productStats.values().stream()
-                .sorted(Comparator.comparing(ProductStatAggregator::getTotalQuantity).reversed())
-                .limit(TOP_PRODUCTS_LIMIT)
-                .map(ProductStatAggregator::toDto)
-                .collect(Collectors.toList());
+    /**
+     * Buyer statistics computed from the orders and orders_archive collections.
+     */
+    BuyerProfileStatsDto aggregateBuyerStats(String buyerId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                // Served by buyer_orders_idx and archive_buyer_idx
+                match(Criteria.where("buyerId").is(buyerId)),
+                UnionWithOperation.unionWith(OrderArchive.COLLECTION)
+                        .pipeline(match(Criteria.where("buyerId").is(buyerId).and("isRemoved").ne(true))),
+                project("status", "totalAmount", "items"),
+                facet(group("status").count().as("orders").sum("totalAmount").as("amount")).as("byStatus")
+                        .and(topProducts("totalAmount")).as("topByAmount")
+                        .and(topProducts("totalQuantity")).as("topByQuantity"));
+        Document result = aggregate(aggregation, Order.class);
 
-        // Calculate average order value (for seller's items in delivered orders)
-        double avgOrderValue = deliveredOrders > 0 ? totalEarned / deliveredOrders : 0;
+        StatusCounts counts = new StatusCounts(result.getList("byStatus", Document.class, List.of()));
+        int completedOrders = counts.sum(COMPLETED_STATUSES);
+        double totalSpent = counts.amount(COMPLETED_STATUSES);
+
+        return BuyerProfileStatsDto.builder()
+                .userId(buyerId)
+                .totalSpent(totalSpent)
+                .totalOrders(counts.total())
+                .pendingOrders(counts.sum(PENDING_STATUSES))
+                .deliveredOrders(completedOrders)
+                .cancelledOrders(counts.sum(List.of(OrderStatus.CANCELLED.name())))
+                .topProductsByAmount(toProductStats(result.getList("topByAmount", Document.class, List.of())))
+                .mostBoughtProducts(toProductStats(result.getList("topByQuantity", Document.class, List.of())))
+                .averageOrderValue(completedOrders == 0 ? 0 : totalSpent / completedOrders)
+                .build();
+    }
+
+    /**
+     * Seller statistics computed from the seller's order lines, which only
+     * hold the seller's own items.
+     */
+    SellerProfileStatsDto aggregateSellerStats(String sellerId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                // Served by seller_lines_idx
+                match(Criteria.where("sellerId").is(sellerId).and("isRemoved").ne(true)),
+                project("status", "items"),
+                facet(group("status").count().as("orders")).as("byStatus")
+                        .and(match(Criteria.where("status").in(COMPLETED_STATUSES)),
+                                unwind("items"),
+                                group().sum("items.subtotal").as("earned").sum("items.quantity").as("sold"))
+                        .as("totals")
+                        .and(topProducts("totalAmount")).as("bestByAmount")
+                        .and(topProducts("totalQuantity")).as("bestByQuantity"));
+        Document result = aggregate(aggregation, SellerOrderLine.class);
+
+        StatusCounts counts = new StatusCounts(result.getList("byStatus", Document.class, List.of()));
+        List<Document> totals = result.getList("totals", Document.class, List.of());
+        Document sellerTotals = totals.isEmpty() ? new Document() : totals.get(0);
+        double totalEarned = number(sellerTotals.get("earned")).doubleValue();
+        int deliveredOrders = counts.sum(COMPLETED_STATUSES);
 
         return SellerProfileStatsDto.builder()
                 .sellerId(sellerId)
                 .totalEarned(totalEarned)
-                .totalOrders(allOrders.size())
-                .pendingOrders(pendingOrders)
+                .totalOrders(counts.total())
+                .pendingOrders(counts.sum(PENDING_STATUSES))
                 .deliveredOrders(deliveredOrders)
-                .cancelledOrders(cancelledOrders)
-                .totalProductsSold(totalProductsSold)
-                .bestSellingByAmount(bestByAmount)
-                .bestSellingByQuantity(bestByQuantity)
-                .averageOrderValue(avgOrderValue)
+                .cancelledOrders(counts.sum(List.of(OrderStatus.CANCELLED.name())))
+                .totalProductsSold(number(sellerTotals.get("sold")).intValue())
+                .bestSellingByAmount(toProductStats(result.getList("bestByAmount", Document.class, List.of())))
+                .bestSellingByQuantity(toProductStats(result.getList("bestByQuantity", Document.class, List.of())))
+                // Average order value for seller's items in delivered orders
+                .averageOrderValue(deliveredOrders > 0 ? totalEarned / deliveredOrders : 0)
                 .build();
     }
 
     /**
-     * Helper class to aggregate product statistics.
+     * Stages that rank the products of completed orders or order lines.
+     */
+    private AggregationOperation[] topProducts(String rankBy) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(match(Criteria.where("status").in(COMPLETED_STATUSES)));
+        stages.add(unwind("items"));
+        stages.add(group("items.productId")
+                .first("items.productName").as("productName")
+                .first("items.thumbnailMediaId").as("thumbnailMediaId")
+                .sum("items.quantity").as("totalQuantity")
+                .sum("items.subtotal").as("totalAmount")
+                .count().as("orderCount"));
+        // Product ID as tie-breaker keeps the top list stable between calls
+        stages.add(sort(Sort.by(Sort.Direction.DESC, rankBy).and(Sort.by(Sort.Direction.ASC, "_id"))));
+        stages.add(limit(TOP_PRODUCTS_LIMIT));
+        return stages.toArray(new AggregationOperation[0]);
+    }
+
+    /**
+     * Top products of a stats document, ranked like the aggregation ranks them.
      */
-    private static class ProductStatAggregator {
-        private String productId;
-        private String productName;
-        private String thumbnailMediaId;
-        private int totalQuantity = 0;
-        private double totalAmount = 0;
-        private int orderCount = 0;
-
-        void addItem(OrderItem item) {
-            if (productId == null) {
-                this.productId = item.getProductId();
-                this.productName = item.getProductName();
-                this.thumbnailMediaId = item.getThumbnailMediaId();
+    private List<ProductStatDto> topProducts(Map<String, ProductTally> products, ToDoubleFunction<ProductTally> rankBy) {
+        if (products == null) {
+            return new ArrayList<>();
+        }
+        return products.entrySet().stream()
+                // Products whose orders were all cancelled or removed are left at zero
+                .filter(e -> e.getValue().getOrderCount() > 0)
+                .sorted(Comparator.comparingDouble((Map.Entry<String, ProductTally> e) -> rankBy.applyAsDouble(e.getValue()))
+                        .reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .limit(TOP_PRODUCTS_LIMIT)
+                .map(e -> ProductStatDto.builder()
+                        .productId(e.getKey())
+                        .productName(e.getValue().getName())
+                        .totalQuantity(e.getValue().getQuantity())
+                        .totalAmount(e.getValue().getAmount())
+                        .orderCount(e.getValue().getOrderCount())
+                        .thumbnailMediaId(e.getValue().getThumbnailMediaId())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static int sum(Map<String, Integer> countsByStatus, List<String> statuses) {
+        if (countsByStatus == null) {
+            return 0;
+        }
+        return statuses.stream().mapToInt(status -> countsByStatus.getOrDefault(status, 0)).sum();
+    }
+
+    private Document aggregate(Aggregation aggregation, Class<?> source) {
+        Document result = mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(source),
+                Document.class).getUniqueMappedResult();
+        return result != null ? result : new Document();
+    }
+
+    private List<ProductStatDto> toProductStats(List<Document> products) {
+        return products.stream()
+                .map(product -> ProductStatDto.builder()
+                        .productId(product.getString("_id"))
+                        .productName(product.getString("productName"))
+                        .totalQuantity(number(product.get("totalQuantity")).intValue())
+                        .totalAmount(number(product.get("totalAmount")).doubleValue())
+                        .orderCount(number(product.get("orderCount")).intValue())
+                        .thumbnailMediaId(product.getString("thumbnailMediaId"))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static Number number(Object value) {
+        return value instanceof Number n ? n : 0;
+    }
+
+    private static List<String> statusNames(OrderStatus... statuses) {
+        return Arrays.stream(statuses).map(OrderStatus::name).collect(Collectors.toList());
+    }
+
+    /**
+     * Per-status rows of the byStatus facet.
+     */
+    private static class StatusCounts {
+        private final Map<String, Document> byStatus = new HashMap<>();
+        private int total;
+
+        StatusCounts(List<Document> rows) {
+            for (Document row : rows) {
+                byStatus.put(String.valueOf(row.get("_id")), row);
+                total += number(row.get("orders")).intValue();
             }
-            this.totalQuantity += item.getQuantity();
-            this.totalAmount += item.getSubtotal();
-            this.orderCount++;
         }
 
-        int getTotalQuantity() {
-            return totalQuantity;
+        /**
+         * All matched orders, regardless of status.
+         */
+        int total() {
+            return total;
         }
 
-        double getTotalAmount() {
-            return totalAmount;
+        int sum(List<String> statuses) {
+            return statuses.stream()
+                    .map(byStatus::get)
+                    .filter(Objects::nonNull)
+                    .mapToInt(row -> number(row.get("orders")).intValue())
+                    .sum();
         }
 
-        ProductStatDto toDto() {
-            return ProductStatDto.builder()
-                    .productId(productId)
-                    .productName(productName)
-                    .totalQuantity(totalQuantity)
-                    .totalAmount(totalAmount)
-                    .orderCount(orderCount)
-                    .thumbnailMediaId(thumbnailMediaId)
-                    .build();
+        double amount(List<String> statuses) {
+            return statuses.stream()
+                    .map(byStatus::get)
+                    .filter(Objects::nonNull)
+                    .mapToDouble(row -> number(row.get("amount")).doubleValue())
+                    .sum();
         }
     }
 }
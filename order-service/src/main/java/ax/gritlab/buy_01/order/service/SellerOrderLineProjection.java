@@ -0,0 +1,157 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderItem;
+import ax.gritlab.buy_01.order.model.SellerOrderLine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the seller_order_lines read model in step with orders.
+ *
+ * Lines are written whole when an order is placed and only their status is
+ * updated afterwards. Failures are logged and never fail the order
+ * operation; {@link #rebuild()} writes every line from the orders and
+ * orders_archive collections.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SellerOrderLineProjection {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * A new order was saved.
+     */
+    public void onOrderPlaced(Order order) {
+        try {
+            write(order);
+        } catch (Exception e) {
+            log.warn("Failed to write seller order lines for order {}: {}", order.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * An existing order moved to its current status.
+     */
+    public void onStatusChanged(Order order) {
+        update(order, new Update().set("status", order.getStatus()).set("updatedAt", order.getUpdatedAt()));
+    }
+
+    /**
+     * An order was soft-deleted and no longer shows up for its sellers.
+     */
+    public void onOrderRemoved(Order order) {
+        update(order, new Update().set("isRemoved", true).set("updatedAt", order.getUpdatedAt()));
+    }
+
+    /**
+     * Write the lines of every order, archived ones included. Safe to run
+     * while checkout is live: a line is only replaced if it is not newer than
+     * the order as it was read, so a status change that lands meanwhile is
+     * never reverted.
+     *
+     * @return number of orders projected
+     */
+    public long rebuild() {
+        return rebuild(mongoTemplate.stream(new Query(), Order.class))
+                + rebuild(mongoTemplate.stream(new Query(), Order.class, OrderArchive.COLLECTION));
+    }
+
+    private long rebuild(Stream<Order> source) {
+        long projected = 0;
+        try (Stream<Order> orders = source) {
+            for (Order order : (Iterable<Order>) orders::iterator) {
+                backfill(order);
+                projected++;
+            }
+        }
+        return projected;
+    }
+
+    private void write(Order order) {
+        for (Map.Entry<String, List<OrderItem>> seller : itemsBySeller(order).entrySet()) {
+            mongoTemplate.save(line(order, seller.getKey(), seller.getValue()));
+        }
+    }
+
+    private void backfill(Order order) {
+        for (Map.Entry<String, List<OrderItem>> seller : itemsBySeller(order).entrySet()) {
+            SellerOrderLine line = line(order, seller.getKey(), seller.getValue());
+            Criteria unchanged = Criteria.where("_id").is(line.getId());
+            if (order.getUpdatedAt() != null) {
+                unchanged.and("updatedAt").not().gt(order.getUpdatedAt());
+            } else {
+                // Lines get an updatedAt with their first status change
+                unchanged.and("updatedAt").exists(false);
+            }
+            try {
+                mongoTemplate.upsert(Query.query(unchanged), new Update()
+                        .set("orderId", line.getOrderId())
+                        .set("sellerId", line.getSellerId())
+                        .set("orderNumber", line.getOrderNumber())
+                        .set("buyerId", line.getBuyerId())
+                        .set("buyerName", line.getBuyerName())
+                        .set("buyerEmail", line.getBuyerEmail())
+                        .set("items", line.getItems())
+                        .set("subtotal", line.getSubtotal())
+                        .set("status", line.getStatus())
+                        .set("isRemoved", line.getIsRemoved())
+                        .set("createdAt", line.getCreatedAt())
+                        .set("updatedAt", line.getUpdatedAt()),
+                        SellerOrderLine.class);
+            } catch (DuplicateKeyException e) {
+                // The line changed after the order was read and is newer than this copy
+            }
+        }
+    }
+
+    private static SellerOrderLine line(Order order, String sellerId, List<OrderItem> items) {
+        return SellerOrderLine.builder()
+                .id(SellerOrderLine.idOf(order.getId(), sellerId))
+                .orderId(order.getId())
+                .sellerId(sellerId)
+                .orderNumber(order.getOrderNumber())
+                .buyerId(order.getBuyerId())
+                .buyerName(order.getBuyerName())
+                .buyerEmail(order.getBuyerEmail())
+                .items(items)
+                .subtotal(items.stream().mapToDouble(item -> item.getSubtotal() != null ? item.getSubtotal() : 0.0).sum())
+                .status(order.getStatus())
+                .isRemoved(order.getIsRemoved())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build();
+    }
+
+    private void update(Order order, Update update) {
+        try {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("orderId").is(order.getId())), update,
+                    SellerOrderLine.class);
+        } catch (Exception e) {
+            log.warn("Failed to update seller order lines for order {}: {}", order.getId(), e.getMessage());
+        }
+    }
+
+    private static Map<String, List<OrderItem>> itemsBySeller(Order order) {
+        if (order.getItems() == null) {
+            return Map.of();
+        }
+        return order.getItems().stream()
+                .filter(item -> item.getSellerId() != null)
+                .collect(Collectors.groupingBy(OrderItem::getSellerId, LinkedHashMap::new, Collectors.toList()));
+    }
+}
@@ -0,0 +1,86 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.dto.SellerProfileStatsDto;
+import ax.gritlab.buy_01.order.dto.SellerPublicStatsDto;
+import ax.gritlab.buy_01.order.model.SellerStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Public seller counters shown on product pages.
+ *
+ * Reads only the two counters of the seller's stats document, which
+ * {@link OrderStatsProjection} moves atomically at checkout and cancel, and
+ * keeps them in a short-lived in-memory cache. Until the stats documents were
+ * built from all existing orders (see {@link DataMigrations#ORDER_STATS}) the
+ * counters are aggregated from the seller's order lines instead; afterwards
+ * the orders are never touched and sellers without a stats document show
+ * zeros.
+ */
+@Service
+@RequiredArgsConstructor
+public class SellerPublicStatsService {
+
+    private static final int MAX_CACHED_SELLERS = 10_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final DataMigrations dataMigrations;
+    private final ProfileStatsService profileStatsService;
+
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+
+    /**
+     * How long counters are served from memory before they are read again.
+     */
+    @Value("${order.stats.public-cache-ttl-ms:30000}")
+    private long ttlMillis;
+
+    private record Cached(SellerPublicStatsDto stats, long loadedAt) {
+    }
+
+    public SellerPublicStatsDto getPublicStats(String sellerId) {
+        long now = System.currentTimeMillis();
+        Cached cached = cache.get(sellerId);
+        if (cached != null && now - cached.loadedAt() < ttlMillis) {
+            return cached.stats();
+        }
+
+        SellerPublicStatsDto stats = load(sellerId);
+        if (cache.size() >= MAX_CACHED_SELLERS) {
+            cache.values().removeIf(entry -> now - entry.loadedAt() >= ttlMillis);
+            if (cache.size() >= MAX_CACHED_SELLERS) {
+                cache.clear();
+            }
+        }
+        cache.put(sellerId, new Cached(stats, now));
+        return stats;
+    }
+
+    private SellerPublicStatsDto load(String sellerId) {
+        if (!dataMigrations.isDone(DataMigrations.ORDER_STATS)) {
+            SellerProfileStatsDto aggregated = profileStatsService.aggregateSellerStats(sellerId);
+            return SellerPublicStatsDto.builder()
+                    .sellerId(sellerId)
+                    .totalProductsSold(aggregated.getTotalProductsSold())
+                    .totalOrders(aggregated.getTotalOrders())
+                    .build();
+        }
+
+        Query query = Query.query(Criteria.where("_id").is(sellerId));
+        query.fields().include("totalOrders", "totalUnitsSold");
+        SellerStats counters = mongoTemplate.findOne(query, SellerStats.class);
+
+        return SellerPublicStatsDto.builder()
+                .sellerId(sellerId)
+                .totalProductsSold(counters != null ? counters.getTotalUnitsSold() : 0)
+                .totalOrders(counters != null ? counters.getTotalOrders() : 0)
+                .build();
+    }
+}
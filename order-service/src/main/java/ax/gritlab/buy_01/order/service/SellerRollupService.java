@@ -0,0 +1,310 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.dto.SellerTimeseriesDto;
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderItem;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import ax.gritlab.buy_01.order.model.RollupGranularity;
+import ax.gritlab.buy_01.order.model.SellerRollup;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Time-bucketed sales per seller for revenue charts.
+ *
+ * Order events move daily buckets in seller_rollups with $inc. Daily buckets
+ * of months older than the retention window are folded into one monthly
+ * bucket, so any range reads at most the retained days plus one document
+ * per older month. Events for orders placed in such a month go straight to
+ * its monthly bucket, so a day never changes once it can be folded.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SellerRollupService {
+
+    /**
+     * Longest range one time series request may cover.
+     */
+    private static final long MAX_RANGE_DAYS = 3660;
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Days kept at daily resolution before their month is compacted.
+     */
+    @Value("${order.rollups.daily-retention-days:90}")
+    private int dailyRetentionDays;
+
+    /**
+     * A new order was saved.
+     */
+    public void onOrderPlaced(Order order) {
+        record(order, null, order.getStatus());
+    }
+
+    /**
+     * An existing order moved from {@code previousStatus} to its current status.
+     */
+    public void onStatusChanged(Order order, OrderStatus previousStatus) {
+        if (previousStatus == order.getStatus()) {
+            return;
+        }
+        record(order, previousStatus, order.getStatus());
+    }
+
+    /**
+     * Sales of a seller between two days (inclusive), summed per bucket.
+     * Months that were already compacted only exist as a whole and are reported
+     * at their first day, whatever granularity is asked for.
+     *
+     * @param productId limit the series to one product, or null for all
+     */
+    public SellerTimeseriesDto getTimeseries(String sellerId, LocalDate from, LocalDate to,
+                                             RollupGranularity granularity, String productId) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+
+        // Served by seller_bucket_idx
+        // Days being folded are left out; their counters are moving to the month
+        Query query = Query.query(Criteria.where("sellerId").is(sellerId).orOperator(
+                        Criteria.where("granularity").is(RollupGranularity.DAY).and("bucket").gte(from).lte(to)
+                                .and("compacted").ne(true),
+                        Criteria.where("granularity").is(RollupGranularity.MONTH)
+                                .and("bucket").gte(from.withDayOfMonth(1)).lte(to)))
+                .with(Sort.by(Sort.Direction.ASC, "bucket"));
+        if (productId == null) {
+            query.fields().exclude("products", "foldedDays");
+        } else {
+            query.fields().include("granularity", "bucket", "products." + productId);
+        }
+
+        Map<LocalDate, SellerRollup.Tally> points = new TreeMap<>();
+        for (SellerRollup rollup : mongoTemplate.find(query, SellerRollup.class)) {
+            SellerRollup.Tally counters = productId == null ? totals(rollup) : rollup.getProducts().get(productId);
+            if (counters == null) {
+                continue;
+            }
+            SellerRollup.Tally point = points.computeIfAbsent(pointOf(rollup.getBucket(), granularity),
+                    day -> new SellerRollup.Tally());
+            point.setRevenue(point.getRevenue() + counters.getRevenue());
+            point.setUnits(point.getUnits() + counters.getUnits());
+            point.setOrders(point.getOrders() + counters.getOrders());
+            point.setCancellations(point.getCancellations() + counters.getCancellations());
+        }
+
+        return SellerTimeseriesDto.builder()
+                .sellerId(sellerId)
+                .productId(productId)
+                .granularity(granularity.name())
+                .from(from)
+                .to(to)
+                .points(points.entrySet().stream()
+                        .map(e -> SellerTimeseriesDto.Point.builder()
+                                .bucket(e.getKey())
+                                .revenue(e.getValue().getRevenue())
+                                .units(e.getValue().getUnits())
+                                .orders(e.getValue().getOrders())
+                                .cancellations(e.getValue().getCancellations())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    /**
+     * Fold the daily buckets of months past the retention window into monthly buckets.
+     */
+    @Scheduled(fixedDelayString = "${order.rollups.compact-interval-ms:3600000}",
+            initialDelayString = "${order.rollups.compact-interval-ms:3600000}")
+    public void compactScheduled() {
+        try {
+            int folded = compact(LocalDate.now());
+            if (folded > 0) {
+                log.info("Compacted {} daily seller rollups into months", folded);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to compact seller rollups: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param today reference day for the retention window
+     * @return number of daily buckets folded
+     */
+    int compact(LocalDate today) {
+        LocalDate cutoff = compactedBefore(today);
+        Query old = Query.query(Criteria.where("granularity").is(RollupGranularity.DAY).and("bucket").lt(cutoff));
+        old.fields().include("_id");
+
+        int folded = 0;
+        try (Stream<SellerRollup> days = mongoTemplate.stream(old, SellerRollup.class)) {
+            for (SellerRollup stub : (Iterable<SellerRollup>) days::iterator) {
+                if (fold(stub.getId())) {
+                    folded++;
+                }
+            }
+        }
+        return folded;
+    }
+
+    private boolean fold(String dailyId) {
+        // Hide the day from reads before its counters show up in the month
+        SellerRollup day = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(dailyId)),
+                new Update().set("compacted", true),
+                FindAndModifyOptions.options().returnNew(true),
+                SellerRollup.class);
+        if (day == null) {
+            return false;
+        }
+
+        CounterDelta delta = new CounterDelta();
+        add(delta, "", totals(day));
+        day.getProducts().forEach((productId, tally) -> add(delta, "products." + productId + ".", tally));
+        String monthId = SellerRollup.idOf(day.getSellerId(), RollupGranularity.MONTH, day.getBucket().withDayOfMonth(1));
+        boolean added;
+        try {
+            // The month remembers the days it holds, so a day whose removal failed is never added twice
+            mongoTemplate.upsert(
+                    Query.query(Criteria.where("_id").is(monthId).and("foldedDays").ne(dailyId)),
+                    delta.toUpdate()
+                            .addToSet("foldedDays", dailyId)
+                            .setOnInsert("sellerId", day.getSellerId())
+                            .setOnInsert("granularity", RollupGranularity.MONTH)
+                            .setOnInsert("bucket", day.getBucket().withDayOfMonth(1)),
+                    SellerRollup.class);
+            added = true;
+        } catch (DuplicateKeyException e) {
+            // The month exists and already holds this day: the upsert tried to create it again
+            added = false;
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(dailyId)), SellerRollup.class);
+        return added;
+    }
+
+    /**
+     * First day kept at daily resolution; earlier days belong to monthly buckets.
+     * Only whole months, so a month is never split between both resolutions for long.
+     */
+    private LocalDate compactedBefore(LocalDate today) {
+        return today.minusDays(dailyRetentionDays).withDayOfMonth(1);
+    }
+
+    private void record(Order order, OrderStatus from, OrderStatus to) {
+        try {
+            LocalDate day = (order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now()).toLocalDate();
+            int placed = from == null ? 1 : 0;
+            int cancelled = to == OrderStatus.CANCELLED && from != OrderStatus.CANCELLED ? 1 : 0;
+            int completed = (isCompleted(to) ? 1 : 0) - (isCompleted(from) ? 1 : 0);
+            // A late change to an order of a compacted month must not recreate its day
+            boolean compacted = day.isBefore(compactedBefore(LocalDate.now()));
+
+            for (Map.Entry<String, List<OrderItem>> seller : itemsBySeller(order).entrySet()) {
+                CounterDelta delta = new CounterDelta();
+                delta.count("orders", placed);
+                delta.count("cancellations", cancelled);
+                for (OrderItem item : seller.getValue()) {
+                    delta.amount("revenue", completed * subtotal(item));
+                    delta.count("units", completed * quantity(item));
+                    add(delta, "products." + item.getProductId() + ".", SellerRollup.Tally.builder()
+                            .revenue(completed * subtotal(item))
+                            .units(completed * quantity(item))
+                            .orders(placed)
+                            .cancellations(cancelled)
+                            .build());
+                }
+                if (!delta.isEmpty()) {
+                    if (compacted) {
+                        upsert(seller.getKey(), RollupGranularity.MONTH, day.withDayOfMonth(1), delta);
+                    } else {
+                        upsert(seller.getKey(), RollupGranularity.DAY, day, delta);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to update seller rollups for order {}: {}", order.getId(), e.getMessage());
+        }
+    }
+
+    private void upsert(String sellerId, RollupGranularity granularity, LocalDate bucket, CounterDelta delta) {
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("_id").is(SellerRollup.idOf(sellerId, granularity, bucket))),
+                delta.toUpdate()
+                        .setOnInsert("sellerId", sellerId)
+                        .setOnInsert("granularity", granularity)
+                        .setOnInsert("bucket", bucket),
+                SellerRollup.class);
+    }
+
+    private static void add(CounterDelta delta, String prefix, SellerRollup.Tally tally) {
+        delta.amount(prefix + "revenue", tally.getRevenue());
+        delta.count(prefix + "units", tally.getUnits());
+        delta.count(prefix + "orders", tally.getOrders());
+        delta.count(prefix + "cancellations", tally.getCancellations());
+    }
+
+    private static SellerRollup.Tally totals(SellerRollup rollup) {
+        return SellerRollup.Tally.builder()
+                .revenue(rollup.getRevenue())
+                .units(rollup.getUnits())
+                .orders(rollup.getOrders())
+                .cancellations(rollup.getCancellations())
+                .build();
+    }
+
+    private static LocalDate pointOf(LocalDate bucket, RollupGranularity granularity) {
+        return switch (granularity) {
+            case DAY -> bucket;
+            case WEEK -> bucket.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> bucket.withDayOfMonth(1);
+        };
+    }
+
+    private static Map<String, List<OrderItem>> itemsBySeller(Order order) {
+        if (order.getItems() == null) {
+            return Map.of();
+        }
+        return order.getItems().stream()
+                .filter(item -> item.getSellerId() != null)
+                .collect(Collectors.groupingBy(OrderItem::getSellerId, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    private static boolean isCompleted(OrderStatus status) {
+        // MVP: CONFIRMED counts as delivered
+        return status == OrderStatus.DELIVERED || status == OrderStatus.CONFIRMED;
+    }
+
+    private static int quantity(OrderItem item) {
+        return item.getQuantity() != null ? item.getQuantity() : 0;
+    }
+
+    private static double subtotal(OrderItem item) {
+        return item.getSubtotal() != null ? item.getSubtotal() : 0.0;
+    }
+}
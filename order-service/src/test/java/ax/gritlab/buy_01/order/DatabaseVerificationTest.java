@@ -9,6 +9,7 @@ import ax.gritlab.buy_01.order.model.OrderStatusHistory;
 import ax.gritlab.buy_01.order.model.ShippingAddress;
 import ax.gritlab.buy_01.order.repository.CartRepository;
 import ax.gritlab.buy_01.order.repository.OrderRepository;
+import ax.gritlab.buy_01.order.service.OrderNumberGenerator;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -27,6 +28,7 @@ import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -64,6 +66,8 @@ class DatabaseVerificationTest {
     @Autowired
     private CartRepository cartRepository;
 
+    private final OrderNumberGenerator orderNumberGenerator = new OrderNumberGenerator(0L, Clock.systemDefaultZone());
+
     private static final String BUYER_ID = "buyer-123";
     private static final String SELLER_ID_1 = "seller-456";
     private static final String SELLER_ID_2 = "seller-789";
@@ -117,7 +121,7 @@ class DatabaseVerificationTest {
 
         // Create order
         Order order = Order.builder()
-                .orderNumber(Order.generateOrderNumber())
+                .orderNumber(orderNumberGenerator.next())
                 .buyerId(BUYER_ID)
                 .buyerName("John Doe")
                 .buyerEmail("john@example.com")
@@ -0,0 +1,122 @@
+package ax.gritlab.buy_01.order.client;
+
+import ax.gritlab.buy_01.order.service.ProductReplica;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductHydratorTest {
+
+    private static final String PRODUCT_SERVICE_URL = "http://product-service/products";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private ProductReplica productReplica;
+
+    private ProductHydrator productHydrator;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        productHydrator = new ProductHydrator(restTemplate, productReplica, 4, 500);
+        ReflectionTestUtils.setField(productHydrator, "productServiceUrl", PRODUCT_SERVICE_URL);
+    }
+
+    private ObjectNode product(String id) {
+        ObjectNode product = objectMapper.createObjectNode();
+        product.put("id", id);
+        product.put("name", "Product " + id);
+        return product;
+    }
+
+    @Test
+    @DisplayName("fetches all products concurrently, each once")
+    void hydrate_fetchesInParallel() {
+        // Both calls must be in flight at the same time to get past the latch
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        for (String id : List.of("p1", "p2")) {
+            when(restTemplate.getForObject(eq(PRODUCT_SERVICE_URL + "/" + id), eq(JsonNode.class)))
+                    .thenAnswer(invocation -> {
+                        bothStarted.countDown();
+                        bothStarted.await(400, TimeUnit.MILLISECONDS);
+                        return product(id);
+                    });
+        }
+
+        Map<String, JsonNode> products = productHydrator.hydrate(List.of("p1", "p2", "p1"));
+
+        assertThat(bothStarted.getCount()).isZero();
+        assertThat(products).containsOnlyKeys("p1", "p2");
+        verify(restTemplate, times(1)).getForObject(PRODUCT_SERVICE_URL + "/p1", JsonNode.class);
+    }
+
+    @Test
+    @DisplayName("leaves out products that fail or time out")
+    void hydrate_failedAndSlowProductsAreAbsent() {
+        when(restTemplate.getForObject(eq(PRODUCT_SERVICE_URL + "/ok"), eq(JsonNode.class)))
+                .thenReturn(product("ok"));
+        when(restTemplate.getForObject(eq(PRODUCT_SERVICE_URL + "/down"), eq(JsonNode.class)))
+                .thenThrow(new ResourceAccessException("connection refused"));
+        when(restTemplate.getForObject(eq(PRODUCT_SERVICE_URL + "/slow"), eq(JsonNode.class)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(2000);
+                    return product("slow");
+                });
+
+        Map<String, JsonNode> products = productHydrator.hydrate(List.of("ok", "down", "slow"));
+
+        assertThat(products).containsOnlyKeys("ok");
+        assertThatThrownBy(() -> products.put("x", product("x")))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("serves known products from the replica and fetches only the rest")
+    void hydrate_usesReplicaFirst() {
+        when(productReplica.get("cached")).thenReturn(product("cached"));
+        when(restTemplate.getForObject(PRODUCT_SERVICE_URL + "/new", JsonNode.class)).thenReturn(product("new"));
+
+        Map<String, JsonNode> products = productHydrator.hydrate(List.of("cached", "new"));
+
+        assertThat(products).containsOnlyKeys("cached", "new");
+        verify(restTemplate, never()).getForObject(PRODUCT_SERVICE_URL + "/cached", JsonNode.class);
+    }
+
+    @Test
+    @DisplayName("live hydration bypasses the replica")
+    void hydrateLive_ignoresReplica() {
+        when(restTemplate.getForObject(PRODUCT_SERVICE_URL + "/p1", JsonNode.class)).thenReturn(product("p1"));
+
+        Map<String, JsonNode> products = productHydrator.hydrateLive(List.of("p1"));
+
+        assertThat(products).containsOnlyKeys("p1");
+        verifyNoInteractions(productReplica);
+    }
+}
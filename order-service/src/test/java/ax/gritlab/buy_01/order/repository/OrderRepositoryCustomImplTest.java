@@ -0,0 +1,215 @@
+package ax.gritlab.buy_01.order.repository;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderItem;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import ax.gritlab.buy_01.order.model.OrderSummary;
+import ax.gritlab.buy_01.order.model.SellerOrderLine;
+import ax.gritlab.buy_01.order.service.SellerOrderLineProjection;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keyset pagination depends on how MongoDB compares dates and ObjectIds,
+ * so these cases run against a real database.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class OrderRepositoryCustomImplTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 2, 9, 12, 0);
+
+    @Container
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0");
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private OrderRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        mongoClient = MongoClients.create(mongoDBContainer.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(mongoClient, "order-slice-test");
+        mongoTemplate.dropCollection(Order.class);
+        mongoTemplate.dropCollection(SellerOrderLine.class);
+        repository = new OrderRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoClient.close();
+    }
+
+    private Order givenOrder(String buyerId, LocalDateTime createdAt, OrderStatus status) {
+        return mongoTemplate.insert(Order.builder()
+                .id(new ObjectId().toHexString())
+                .orderNumber("ORD-" + createdAt.toLocalDate().format(DateTimeFormatter.BASIC_ISO_DATE)
+                        + "-" + new ObjectId().toHexString().substring(19))
+                .buyerId(buyerId)
+                .buyerEmail(buyerId + "@example.com")
+                .sellerIds(Set.of("seller-1"))
+                .status(status)
+                .createdAt(createdAt)
+                .build());
+    }
+
+    private List<String> readAll(Function<OrderCursor, Slice<Order>> next) {
+        List<String> ids = new ArrayList<>();
+        OrderCursor cursor = null;
+        Slice<Order> slice;
+        do {
+            slice = next.apply(cursor);
+            slice.getContent().forEach(order -> ids.add(order.getId()));
+            if (!slice.getContent().isEmpty()) {
+                cursor = OrderCursor.of(slice.getContent().get(slice.getContent().size() - 1));
+            }
+        } while (slice.hasNext());
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Walking the slices returns every order once, newest first, ties broken by id")
+    void findBuyerOrderSlice_walksAllOrders() {
+        Order oldest = givenOrder("buyer-1", NOON.minusDays(1), OrderStatus.DELIVERED);
+        Order tieA = givenOrder("buyer-1", NOON, OrderStatus.PENDING);
+        Order tieB = givenOrder("buyer-1", NOON, OrderStatus.PENDING);
+        Order newest = givenOrder("buyer-1", NOON.plusHours(1), OrderStatus.CONFIRMED);
+        givenOrder("buyer-2", NOON, OrderStatus.CONFIRMED);
+
+        List<String> ids = readAll(cursor -> repository.findBuyerOrderSlice("buyer-1", cursor, 2));
+
+        // ObjectIds created later compare greater, so tieB comes first in _id desc order
+        assertThat(ids).containsExactly(newest.getId(), tieB.getId(), tieA.getId(), oldest.getId());
+    }
+
+    @Test
+    @DisplayName("A full last slice reports no next slice")
+    void findBuyerOrderSlice_exactFit_hasNoNext() {
+        givenOrder("buyer-1", NOON, OrderStatus.PENDING);
+        givenOrder("buyer-1", NOON.minusHours(1), OrderStatus.PENDING);
+
+        Slice<Order> slice = repository.findBuyerOrderSlice("buyer-1", null, 2);
+
+        assertThat(slice.getContent()).hasSize(2);
+        assertThat(slice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Buyer filters combine status, date range and an anchored order number prefix")
+    void findBuyerOrderSlice_filters() {
+        Order match = givenOrder("buyer-1", NOON, OrderStatus.CONFIRMED);
+        givenOrder("buyer-1", NOON, OrderStatus.PENDING);
+        Order older = givenOrder("buyer-1", NOON.minusDays(3), OrderStatus.CONFIRMED);
+
+        OrderFilter filter = new OrderFilter(OrderStatus.CONFIRMED, null, NOON.minusDays(1), NOON.plusDays(1));
+        assertThat(repository.findBuyerOrderSlice("buyer-1", filter, null, 10).getContent())
+                .extracting(Order::getId).containsExactly(match.getId());
+
+        assertThat(repository.findBuyerOrderSlice("buyer-1", new OrderFilter(null, "ORD-20260206", null, null),
+                null, 10).getContent()).extracting(Order::getId).containsExactly(older.getId());
+        assertThat(repository.findBuyerOrderSlice("buyer-1", new OrderFilter(null, "20260206", null, null),
+                null, 10).getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Summaries carry the list fields and the item count, not the items")
+    void findBuyerOrderSummaries_projects() {
+        Order order = givenOrder("buyer-1", NOON, OrderStatus.CONFIRMED);
+        order.setTotalAmount(42.0);
+        order.setItems(List.of(OrderItem.builder().productId("p1").quantity(2).build(),
+                OrderItem.builder().productId("p2").quantity(1).build()));
+        mongoTemplate.save(order);
+
+        Page<OrderSummary> page = repository.findBuyerOrderSummaries("buyer-1", PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        OrderSummary summary = page.getContent().get(0);
+        assertThat(summary.getId()).isEqualTo(order.getId());
+        assertThat(summary.getOrderNumber()).isEqualTo(order.getOrderNumber());
+        assertThat(summary.getTotalAmount()).isEqualTo(42.0);
+        assertThat(summary.getItemCount()).isEqualTo(2);
+    }
+
+    /**
+     * Give an order one item of each seller and write its seller lines.
+     */
+    private Order withSellerLines(Order order, String... sellerIds) {
+        List<OrderItem> items = new ArrayList<>();
+        for (String sellerId : sellerIds) {
+            items.add(OrderItem.builder().productId("prod-" + sellerId).quantity(1).subtotal(10.0)
+                    .sellerId(sellerId).build());
+        }
+        order.setItems(items);
+        new SellerOrderLineProjection(mongoTemplate).onOrderPlaced(order);
+        return order;
+    }
+
+    @Test
+    @DisplayName("Seller slices honour the status filter and keyword search")
+    void sellerSlices_filter() {
+        Order confirmed = withSellerLines(givenOrder("buyer-1", NOON, OrderStatus.CONFIRMED), "seller-1");
+        withSellerLines(givenOrder("buyer-2", NOON.minusHours(1), OrderStatus.PENDING), "seller-1");
+
+        assertThat(repository.findSellerOrderSlice("seller-1", OrderStatus.CONFIRMED, null, 10).getContent())
+                .extracting(SellerOrderLine::getOrderId).containsExactly(confirmed.getId());
+        assertThat(repository.findSellerOrderSlice("seller-1", null, null, 10).getContent()).hasSize(2);
+        assertThat(repository.searchSellerOrderSlice("seller-1", "BUYER-1@", null, 10).getContent())
+                .extracting(SellerOrderLine::getOrderId).containsExactly(confirmed.getId());
+        // Keywords are matched literally, not as patterns
+        assertThat(repository.searchSellerOrderSlice("seller-1", "(", null, 10).getContent()).isEmpty();
+        assertThat(repository.searchSellerOrderSlice("seller-1", "buyer.1", null, 10).getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Seller lines of a multi-seller order only hold that seller's items")
+    void sellerLines_onlyOwnItems() {
+        Order shared = withSellerLines(givenOrder("buyer-1", NOON, OrderStatus.CONFIRMED),
+                "seller-1", "seller-2");
+        withSellerLines(givenOrder("buyer-1", NOON.minusHours(1), OrderStatus.CONFIRMED), "seller-2");
+
+        Page<SellerOrderLine> page = repository.findSellerOrderLines("seller-1", null, PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        SellerOrderLine line = page.getContent().get(0);
+        assertThat(line.getOrderId()).isEqualTo(shared.getId());
+        assertThat(line.getItems()).extracting(OrderItem::getSellerId).containsExactly("seller-1");
+        assertThat(line.getSubtotal()).isEqualTo(10.0);
+    }
+
+    @Test
+    @DisplayName("A status transition applies only while the order still has the expected status")
+    void transitionStatus_comparesAndSets() {
+        Order pending = givenOrder("buyer-1", NOON, OrderStatus.PENDING);
+
+        Order confirmed = repository.transitionStatus(pending.getId(), OrderStatus.PENDING, OrderStatus.CONFIRMED,
+                NOON.plusMinutes(1));
+        Order lost = repository.transitionStatus(pending.getId(), OrderStatus.PENDING, OrderStatus.CANCELLED,
+                NOON.plusMinutes(2));
+
+        assertThat(confirmed.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(confirmed.getUpdatedAt()).isEqualTo(NOON.plusMinutes(1));
+        assertThat(lost).isNull();
+        assertThat(mongoTemplate.findById(pending.getId(), Order.class).getStatus())
+                .isEqualTo(OrderStatus.CONFIRMED);
+    }
+}
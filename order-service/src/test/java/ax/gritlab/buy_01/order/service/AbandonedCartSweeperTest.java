@@ -0,0 +1,146 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Cart;
+import ax.gritlab.buy_01.order.model.CartStatus;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AbandonedCartSweeperTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 6, 1, 12, 0);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AbandonedCartSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        sweeper = new AbandonedCartSweeper(mongoTemplate, meterRegistry);
+        ReflectionTestUtils.setField(sweeper, "abandonedDays", 30);
+        ReflectionTestUtils.setField(sweeper, "purgeDays", 90);
+        ReflectionTestUtils.setField(sweeper, "batchSize", 3);
+        ReflectionTestUtils.setField(sweeper, "batchPauseMillis", 0L);
+    }
+
+    @Test
+    @DisplayName("Idle carts with items are marked abandoned, empty and long idle ones deleted, in one bulk write")
+    void sweep_MarksAndDeletes() throws Exception {
+        givenBatches(List.of(
+                idle("c1", CartStatus.ACTIVE, 2, 40, 300L),
+                idle("c2", CartStatus.PURCHASED, 0, 40, 100L),
+                idle("c3", CartStatus.ABANDONED, 1, 100, 500L)),
+                List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(written(1, 2));
+
+        AbandonedCartSweeper.SweepResult result = sweeper.sweep(NOW);
+
+        assertThat(result).isEqualTo(new AbandonedCartSweeper.SweepResult(3, 1, 2, 600));
+        ArgumentCaptor<Query> abandoned = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateMulti(abandoned.capture(), update.capture());
+        assertThat(abandoned.getValue().getQueryObject().toString()).contains("c1").doesNotContain("c2", "c3");
+        assertThat(update.getValue().getUpdateObject().get("$set", Document.class).get("status"))
+                .isEqualTo(CartStatus.ABANDONED);
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations).remove(removed.capture());
+        assertThat(removed.getValue().getQueryObject().toString()).contains("c2", "c3").doesNotContain("c1");
+        verify(bulkOperations, times(1)).execute();
+        verify(mongoTemplate, times(2)).aggregate(any(Aggregation.class), eq(Cart.class),
+                eq(AbandonedCartSweeper.IdleCart.class));
+        assertThat(meterRegistry.counter("cart.cleanup.scanned").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("cart.cleanup.removed").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("cart.cleanup.reclaimed").count()).isEqualTo(600);
+    }
+
+    @Test
+    @DisplayName("A full batch is followed by the next one until a short batch")
+    void sweep_PagesUntilShortBatch() throws Exception {
+        givenBatches(
+                List.of(idle("c1", CartStatus.ABANDONED, 1, 40, 10L),
+                        idle("c2", CartStatus.ABANDONED, 1, 40, 10L),
+                        idle("c3", CartStatus.ABANDONED, 1, 40, 10L)),
+                List.of(idle("c4", CartStatus.ABANDONED, 1, 40, 10L)));
+
+        AbandonedCartSweeper.SweepResult result = sweeper.sweep(NOW);
+
+        // Already abandoned and still inside the purge window: nothing to write
+        assertThat(result.scanned()).isEqualTo(4);
+        verify(mongoTemplate, times(2)).aggregate(any(Aggregation.class), eq(Cart.class),
+                eq(AbandonedCartSweeper.IdleCart.class));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Cart.class));
+    }
+
+    @Test
+    @DisplayName("Carts touched since they were read are not counted as reclaimed")
+    void sweep_RaceWithUser_CountsOnlyDeleted() throws Exception {
+        givenBatches(List.of(
+                idle("c1", CartStatus.ACTIVE, 0, 40, 200L),
+                idle("c2", CartStatus.ACTIVE, 0, 40, 400L)));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(written(0, 1));
+
+        AbandonedCartSweeper.SweepResult result = sweeper.sweep(NOW);
+
+        assertThat(result.removed()).isEqualTo(1);
+        assertThat(result.reclaimedBytes()).isEqualTo(300);
+        verify(bulkOperations, never()).updateMulti(any(Query.class), any(Update.class));
+    }
+
+    @SafeVarargs
+    private void givenBatches(List<AbandonedCartSweeper.IdleCart>... batches) {
+        var stubbing = when(mongoTemplate.aggregate(any(Aggregation.class), eq(Cart.class),
+                eq(AbandonedCartSweeper.IdleCart.class)));
+        for (List<AbandonedCartSweeper.IdleCart> batch : batches) {
+            stubbing = stubbing.thenReturn(new AggregationResults<>(batch, new Document()));
+        }
+    }
+
+    private static AbandonedCartSweeper.IdleCart idle(String id, CartStatus status, int totalItems, int idleDays,
+            long size) {
+        AbandonedCartSweeper.IdleCart cart = new AbandonedCartSweeper.IdleCart();
+        cart.setId(id);
+        cart.setStatus(status);
+        cart.setTotalItems(totalItems);
+        cart.setUpdatedAt(NOW.minusDays(idleDays));
+        cart.setSize(size);
+        return cart;
+    }
+
+    private static BulkWriteResult written(int modified, int deleted) {
+        return BulkWriteResult.acknowledged(0, modified, deleted, modified, List.of(), List.of());
+    }
+}
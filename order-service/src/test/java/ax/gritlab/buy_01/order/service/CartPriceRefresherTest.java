@@ -0,0 +1,140 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.client.ProductHydrator;
+import ax.gritlab.buy_01.order.model.Cart;
+import ax.gritlab.buy_01.order.model.CartItem;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CartPriceRefresherTest {
+
+    private static final String USER_ID = "user-123";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ProductHydrator productHydrator;
+
+    @InjectMocks
+    private CartPriceRefresher cartPriceRefresher;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cartPriceRefresher, "stalenessMillis", 60_000L);
+    }
+
+    private CartItem item(String productId, double price, LocalDateTime fetchedAt) {
+        return CartItem.builder()
+                .productId(productId)
+                .quantity(1)
+                .sellerId("seller-1")
+                .cachedProductName("Product " + productId)
+                .cachedPrice(price)
+                .priceFetchedAt(fetchedAt)
+                .productVersion(1L)
+                .build();
+    }
+
+    private ObjectNode product(String productId, double price, long version) {
+        ObjectNode product = objectMapper.createObjectNode();
+        product.put("id", productId);
+        product.put("name", "Product " + productId);
+        product.put("price", price);
+        product.put("version", version);
+        return product;
+    }
+
+    @Test
+    @DisplayName("treats items without or with an old fetch time as stale")
+    void isStale_usesWindow() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(cartPriceRefresher.isStale(item("p1", 1.0, null), now)).isTrue();
+        assertThat(cartPriceRefresher.isStale(item("p1", 1.0, now.minusMinutes(5)), now)).isTrue();
+        assertThat(cartPriceRefresher.isStale(item("p1", 1.0, now.minusSeconds(5)), now)).isFalse();
+    }
+
+    @Test
+    @DisplayName("does nothing for a cart whose prices are fresh")
+    void refreshAsync_freshCart_noWork() {
+        Cart cart = Cart.builder()
+                .userId(USER_ID)
+                .items(new ArrayList<>(List.of(item("p1", 10.0, LocalDateTime.now()))))
+                .build();
+
+        cartPriceRefresher.refreshAsync(cart);
+
+        verifyNoInteractions(productHydrator, mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("writes back only the items that changed")
+    void refresh_updatesChangedItemsOnly() {
+        CartItem unchanged = item("p1", 10.0, null);
+        CartItem repriced = item("p2", 20.0, null);
+        Map<String, JsonNode> products = Map.of(
+                "p1", product("p1", 10.0, 1L),
+                "p2", product("p2", 18.0, 2L));
+        when(productHydrator.hydrate(List.of("p1", "p2"))).thenReturn(products);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Cart.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        int updated = cartPriceRefresher.refresh(USER_ID, List.of(unchanged, repriced));
+
+        assertThat(updated).isEqualTo(1);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).updateFirst(query.capture(), update.capture(), eq(Cart.class));
+        assertThat(query.getValue().getQueryObject().get("items.productId")).isEqualTo("p2");
+        assertThat(update.getValue().getUpdateObject().get("$set", Document.class).get("items.$.cachedPrice"))
+                .isEqualTo(18.0);
+    }
+
+    @Test
+    @DisplayName("does not revalidate a cart again within the window")
+    void refreshAsync_recentlyRevalidated_skipped() {
+        when(productHydrator.hydrate(List.of("p1"))).thenReturn(Map.of("p1", product("p1", 10.0, 1L)));
+        cartPriceRefresher.refresh(USER_ID, List.of(item("p1", 10.0, null)));
+
+        Cart cart = Cart.builder()
+                .userId(USER_ID)
+                .items(new ArrayList<>(List.of(item("p1", 10.0, null))))
+                .build();
+        cartPriceRefresher.refreshAsync(cart);
+
+        verify(productHydrator, times(1)).hydrate(any());
+        verifyNoInteractions(mongoTemplate);
+    }
+}
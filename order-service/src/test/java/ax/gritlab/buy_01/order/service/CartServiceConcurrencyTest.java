@@ -0,0 +1,214 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.client.ProductHydrator;
+import ax.gritlab.buy_01.order.dto.request.AddToCartRequest;
+import ax.gritlab.buy_01.order.dto.response.CartResponse;
+import ax.gritlab.buy_01.order.exception.CheckoutValidationException;
+import ax.gritlab.buy_01.order.model.Cart;
+import ax.gritlab.buy_01.order.model.CartItem;
+import ax.gritlab.buy_01.order.model.CartStatus;
+import ax.gritlab.buy_01.order.repository.CartRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cart updates against a real MongoDB: concurrent requests on one cart must
+ * never lose an update or push the quantity past stock.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CartServiceConcurrencyTest {
+
+    private static final String USER_ID = "user-123";
+    private static final double PRICE = 2.5;
+    private static final int THREADS = 100;
+
+    @Container
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private ProductHydrator productHydrator;
+    private CartService cartService;
+
+    @BeforeEach
+    void setUp() {
+        mongoClient = MongoClients.create(mongoDBContainer.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(mongoClient, "cart-concurrency-test");
+        mongoTemplate.dropCollection(Cart.class);
+        mongoTemplate.indexOps(Cart.class).ensureIndex(new Index().on("userId", Sort.Direction.ASC).unique());
+
+        CartRepository cartRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(CartRepository.class);
+        productHydrator = mock(ProductHydrator.class);
+        cartService = new CartService(cartRepository, mongoTemplate, productHydrator, mock(CartPriceRefresher.class));
+        stock(1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoClient.close();
+    }
+
+    private void stock(int quantity) {
+        when(productHydrator.find(anyString())).thenAnswer(invocation -> {
+            ObjectNode product = objectMapper.createObjectNode();
+            product.put("sellerId", "seller-1");
+            product.put("name", "Product " + invocation.getArgument(0));
+            product.put("price", PRICE);
+            product.put("quantity", quantity);
+            return product;
+        });
+    }
+
+    private AddToCartRequest add(String productId, int quantity) {
+        return AddToCartRequest.builder().productId(productId).quantity(quantity).build();
+    }
+
+    /**
+     * Run the task on 100 threads released at the same moment.
+     *
+     * @return number of tasks that completed without an exception
+     */
+    private int runConcurrently(IntConsumer task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int n = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    task.accept(n);
+                    succeeded.incrementAndGet();
+                } catch (CheckoutValidationException e) {
+                    // Expected when stock runs out
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return succeeded.get();
+    }
+
+    @Test
+    @DisplayName("100 parallel adds of the same product are all counted")
+    void addItem_parallelSameProduct_noLostUpdates() throws Exception {
+        int succeeded = runConcurrently(n -> cartService.addItem(USER_ID, add("prod-1", 1)));
+
+        Cart cart = cartService.getCartEntity(USER_ID);
+        assertThat(succeeded).isEqualTo(THREADS);
+        assertThat(cart.getItems()).hasSize(1);
+        assertThat(cart.getItems().get(0).getQuantity()).isEqualTo(THREADS);
+        assertThat(cart.getTotalItems()).isEqualTo(THREADS);
+        assertThat(cart.getCachedSubtotal()).isCloseTo(THREADS * PRICE, within(0.001));
+        assertThat(cart.getVersion()).isGreaterThanOrEqualTo((long) THREADS);
+    }
+
+    @Test
+    @DisplayName("100 parallel adds of different products each get their own line")
+    void addItem_parallelDistinctProducts_allPushed() throws Exception {
+        runConcurrently(n -> cartService.addItem(USER_ID, add("prod-" + n, 2)));
+
+        Cart cart = cartService.getCartEntity(USER_ID);
+        assertThat(cart.getItems()).hasSize(THREADS);
+        assertThat(cart.getItems()).extracting(CartItem::getProductId).doesNotHaveDuplicates();
+        assertThat(cart.getTotalItems()).isEqualTo(THREADS * 2);
+    }
+
+    @Test
+    @DisplayName("parallel adds never put more in the cart than is in stock")
+    void addItem_parallelAdds_neverExceedStock() throws Exception {
+        stock(40);
+
+        int succeeded = runConcurrently(n -> cartService.addItem(USER_ID, add("prod-1", 1)));
+
+        Cart cart = cartService.getCartEntity(USER_ID);
+        assertThat(succeeded).isEqualTo(40);
+        assertThat(cart.getItems().get(0).getQuantity()).isEqualTo(40);
+        assertThat(cart.getTotalItems()).isEqualTo(40);
+    }
+
+    @Test
+    @DisplayName("update, remove and clear keep the running totals in step with the items")
+    void updateRemoveClear_keepTotals() {
+        cartService.addItem(USER_ID, add("prod-1", 2));
+        cartService.addItem(USER_ID, add("prod-2", 3));
+
+        CartResponse updated = cartService.updateItem(USER_ID, "prod-1", 5);
+        Cart stored = cartService.getCartEntity(USER_ID);
+        assertThat(updated.getTotalItems()).isEqualTo(8);
+        assertThat(stored.getTotalItems()).isEqualTo(8);
+        assertThat(stored.getCachedSubtotal()).isCloseTo(8 * PRICE, within(0.001));
+
+        cartService.removeItem(USER_ID, "prod-2");
+        stored = cartService.getCartEntity(USER_ID);
+        assertThat(stored.getItems()).extracting(CartItem::getProductId).containsExactly("prod-1");
+        assertThat(stored.getTotalItems()).isEqualTo(5);
+        assertThat(stored.getCachedSubtotal()).isCloseTo(5 * PRICE, within(0.001));
+
+        cartService.markCartAsPurchased(USER_ID);
+        stored = cartService.getCartEntity(USER_ID);
+        assertThat(stored.getStatus()).isEqualTo(CartStatus.PURCHASED);
+        assertThat(stored.getItems()).isEmpty();
+        assertThat(stored.getTotalItems()).isZero();
+
+        cartService.addItem(USER_ID, add("prod-3", 1));
+        assertThat(cartService.getCartEntity(USER_ID).getStatus()).isEqualTo(CartStatus.ACTIVE);
+    }
+
+    @Test
+    @DisplayName("parallel quantity updates on one line settle on one of the requested values")
+    void updateItem_parallel_versionGuarded() throws Exception {
+        cartService.addItem(USER_ID, add("prod-1", 1));
+        cartService.addItem(USER_ID, add("prod-2", 1));
+
+        runConcurrently(n -> {
+            try {
+                cartService.updateItem(USER_ID, n % 2 == 0 ? "prod-1" : "prod-2", 1 + n % 7);
+            } catch (OptimisticLockingFailureException e) {
+                // Acceptable under this much contention; the cart must still be consistent
+            }
+        });
+
+        Cart cart = cartService.getCartEntity(USER_ID);
+        int sum = cart.getItems().stream().mapToInt(CartItem::getQuantity).sum();
+        assertThat(cart.getTotalItems()).isEqualTo(sum);
+        assertThat(cart.getCachedSubtotal()).isCloseTo(sum * PRICE, within(0.001));
+    }
+}
@@ -1,6 +1,8 @@
 package ax.gritlab.buy_01.order.service;
 
+import ax.gritlab.buy_01.order.client.ProductHydrator;
 import ax.gritlab.buy_01.order.dto.request.AddToCartRequest;
+import ax.gritlab.buy_01.order.dto.request.CartBatchRequest;
 import ax.gritlab.buy_01.order.dto.response.CartResponse;
 import ax.gritlab.buy_01.order.exception.CartNotFoundException;
 import ax.gritlab.buy_01.order.exception.CheckoutValidationException;
@@ -11,14 +13,20 @@ import ax.gritlab.buy_01.order.repository.CartRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
@@ -29,10 +37,15 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,10 +54,18 @@ class CartServiceTest {
     @Mock
     private CartRepository cartRepository;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
+    @Mock
+    private ProductReplica productReplica;
+
+    @Mock
+    private CartPriceRefresher cartPriceRefresher;
+
     private CartService cartService;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -61,7 +82,9 @@ class CartServiceTest {
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(cartService, "productServiceUrl", PRODUCT_SERVICE_URL);
+        ProductHydrator productHydrator = new ProductHydrator(restTemplate, productReplica, 4, 2000);
+        ReflectionTestUtils.setField(productHydrator, "productServiceUrl", PRODUCT_SERVICE_URL);
+        cartService = new CartService(cartRepository, mongoTemplate, productHydrator, cartPriceRefresher);
 
         existingItem = CartItem.builder()
                 .productId(PRODUCT_ID)
@@ -104,6 +127,29 @@ class CartServiceTest {
         return product;
     }
 
+    private void stubFindAndModify(Cart first, Cart... rest) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Cart.class))).thenReturn(first, rest);
+    }
+
+    private Document lastUpdate() {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).findAndModify(any(Query.class), captor.capture(),
+                any(FindAndModifyOptions.class), eq(Cart.class));
+        return captor.getValue().getUpdateObject();
+    }
+
+    private Cart withItem(Cart cart, String productId, int quantity) {
+        cart.getItems().add(CartItem.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .sellerId(SELLER_ID)
+                .cachedProductName(PRODUCT_NAME)
+                .cachedPrice(PRODUCT_PRICE)
+                .build());
+        return cart;
+    }
+
     // ==================== getCart Tests ====================
 
     @Nested
@@ -111,12 +157,9 @@ class CartServiceTest {
     class GetCartTests {
 
         @Test
-        @DisplayName("returns existing cart with refreshed prices")
-        void getCart_existingCart_returnsCaerWithRefreshedPrices() {
+        @DisplayName("returns existing cart from cached prices and revalidates in the background")
+        void getCart_existingCart_returnsCachedPricesWithoutRemoteCalls() {
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
-            when(restTemplate.getForObject(anyString(), eq(JsonNode.class)))
-                    .thenReturn(createProductJson(10));
-            when(cartRepository.save(any(Cart.class))).thenReturn(activeCart);
 
             CartResponse response = cartService.getCart(USER_ID);
 
@@ -124,7 +167,11 @@ class CartServiceTest {
             assertThat(response.getUserId()).isEqualTo(USER_ID);
             assertThat(response.getStatus()).isEqualTo("ACTIVE");
             assertThat(response.getItems()).hasSize(1);
+            assertThat(response.getItems().get(0).getCachedPrice()).isEqualTo(PRODUCT_PRICE);
             verify(cartRepository).findByUserId(USER_ID);
+            verify(cartPriceRefresher).refreshAsync(activeCart);
+            verify(cartRepository, never()).save(any(Cart.class));
+            verifyNoInteractions(restTemplate);
         }
 
         @Test
@@ -142,7 +189,7 @@ class CartServiceTest {
                     .build();
 
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.empty());
-            when(cartRepository.save(any(Cart.class))).thenReturn(newCart);
+            stubFindAndModify(newCart);
 
             CartResponse response = cartService.getCart(USER_ID);
 
@@ -187,7 +234,8 @@ class CartServiceTest {
 
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(emptyCart));
             when(restTemplate.getForObject(anyString(), eq(JsonNode.class))).thenReturn(product);
-            when(cartRepository.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
+            // Not in the cart yet, so the in-place increment misses and the push applies
+            stubFindAndModify(null, withItem(emptyCart, newProductId, 3));
 
             CartResponse response = cartService.addItem(USER_ID, request);
 
@@ -195,6 +243,9 @@ class CartServiceTest {
             assertThat(response.getItems()).hasSize(1);
             assertThat(response.getItems().get(0).getProductId()).isEqualTo(newProductId);
             assertThat(response.getItems().get(0).getQuantity()).isEqualTo(3);
+            Document update = lastUpdate();
+            assertThat(update).containsKey("$push");
+            assertThat(update.get("$inc", Document.class)).containsEntry("totalItems", 3);
         }
 
         @Test
@@ -208,13 +259,22 @@ class CartServiceTest {
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
             when(restTemplate.getForObject(anyString(), eq(JsonNode.class)))
                     .thenReturn(createProductJson(100));
-            when(cartRepository.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Cart.class))).thenAnswer(inv -> {
+                        existingItem.setQuantity(existingItem.getQuantity() + 3);
+                        return activeCart;
+                    });
 
             CartResponse response = cartService.addItem(USER_ID, request);
 
             assertThat(response).isNotNull();
             // existing qty (2) + new qty (3) = 5
             assertThat(response.getItems().get(0).getQuantity()).isEqualTo(5);
+            assertThat(response.getTotalItems()).isEqualTo(5);
+            Document update = lastUpdate();
+            assertThat(update.get("$inc", Document.class))
+                    .containsEntry("items.$.quantity", 3)
+                    .containsEntry("totalItems", 3);
         }
 
         @Test
@@ -262,11 +322,16 @@ class CartServiceTest {
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
             when(restTemplate.getForObject(anyString(), eq(JsonNode.class)))
                     .thenReturn(createProductJson(100));
-            when(cartRepository.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Cart.class))).thenAnswer(inv -> {
+                        activeCart.setStatus(CartStatus.ACTIVE);
+                        return activeCart;
+                    });
 
             CartResponse response = cartService.addItem(USER_ID, request);
 
             assertThat(response.getStatus()).isEqualTo("ACTIVE");
+            assertThat(lastUpdate().get("$set", Document.class)).containsEntry("status", CartStatus.ACTIVE);
         }
 
         @Test
@@ -289,7 +354,7 @@ class CartServiceTest {
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(emptyCart));
             when(restTemplate.getForObject(anyString(), eq(JsonNode.class)))
                     .thenReturn(createProductJsonWithQuantityField(10));
-            when(cartRepository.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
+            stubFindAndModify(null, withItem(emptyCart, PRODUCT_ID, 2));
 
             CartResponse response = cartService.addItem(USER_ID, request);
 
@@ -322,7 +387,7 @@ class CartServiceTest {
 
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(emptyCart));
             when(restTemplate.getForObject(anyString(), eq(JsonNode.class))).thenReturn(product);
-            when(cartRepository.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
+            stubFindAndModify(null, withItem(emptyCart, PRODUCT_ID, 999));
 
             CartResponse response = cartService.addItem(USER_ID, request);
 
@@ -348,14 +413,15 @@ class CartServiceTest {
                     .build();
 
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.empty());
-            when(cartRepository.save(any(Cart.class))).thenReturn(newCart)
-                    .thenAnswer(inv -> inv.getArgument(0));
+            // Upsert of the new cart, missed increment, then the push
+            stubFindAndModify(newCart, null, withItem(newCart, PRODUCT_ID, 1));
             when(restTemplate.getForObject(anyString(), eq(JsonNode.class)))
                     .thenReturn(createProductJson(10));
 
             CartResponse response = cartService.addItem(USER_ID, request);
 
             assertThat(response).isNotNull();
+            assertThat(response.getItems()).hasSize(1);
         }
     }
 
@@ -371,12 +437,19 @@ class CartServiceTest {
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
             when(restTemplate.getForObject(anyString(), eq(JsonNode.class)))
                     .thenReturn(createProductJson(50));
-            when(cartRepository.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Cart.class))).thenAnswer(inv -> {
+                        existingItem.setQuantity(5);
+                        return activeCart;
+                    });
 
             CartResponse response = cartService.updateItem(USER_ID, PRODUCT_ID, 5);
 
             assertThat(response).isNotNull();
             assertThat(response.getItems().get(0).getQuantity()).isEqualTo(5);
+            Document update = lastUpdate();
+            assertThat(update.get("$set", Document.class)).containsEntry("items.$.quantity", 5);
+            assertThat(update.get("$inc", Document.class)).containsEntry("totalItems", 3);
         }
 
         @Test
@@ -416,7 +489,11 @@ class CartServiceTest {
         void updateItem_productServiceReturnsNull_updatesAnyway() {
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
             when(restTemplate.getForObject(anyString(), eq(JsonNode.class))).thenReturn(null);
-            when(cartRepository.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Cart.class))).thenAnswer(inv -> {
+                        existingItem.setQuantity(5);
+                        return activeCart;
+                    });
 
             CartResponse response = cartService.updateItem(USER_ID, PRODUCT_ID, 5);
 
@@ -429,7 +506,11 @@ class CartServiceTest {
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
             when(restTemplate.getForObject(anyString(), eq(JsonNode.class)))
                     .thenReturn(createProductJsonWithQuantityField(50));
-            when(cartRepository.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Cart.class))).thenAnswer(inv -> {
+                        existingItem.setQuantity(5);
+                        return activeCart;
+                    });
 
             CartResponse response = cartService.updateItem(USER_ID, PRODUCT_ID, 5);
 
@@ -447,12 +528,19 @@ class CartServiceTest {
         @DisplayName("removes item from cart")
         void removeItem_existingItem_removesSuccessfully() {
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
-            when(cartRepository.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Cart.class))).thenAnswer(inv -> {
+                        activeCart.getItems().clear();
+                        return activeCart;
+                    });
 
             CartResponse response = cartService.removeItem(USER_ID, PRODUCT_ID);
 
             assertThat(response.getItems()).isEmpty();
             assertThat(response.getTotalItems()).isZero();
+            Document update = lastUpdate();
+            assertThat(update).containsKey("$pull");
+            assertThat(update.get("$inc", Document.class)).containsEntry("totalItems", -2);
         }
 
         @Test
@@ -465,6 +553,100 @@ class CartServiceTest {
         }
     }
 
+    // ==================== applyBatch Tests ====================
+
+    @Nested
+    @DisplayName("applyBatch")
+    class ApplyBatchTests {
+
+        private CartBatchRequest.Operation op(CartBatchRequest.OperationType type, String productId, Integer quantity) {
+            return CartBatchRequest.Operation.builder().type(type).productId(productId).quantity(quantity).build();
+        }
+
+        private void stubWriteBack() {
+            when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(Cart.class))).thenAnswer(inv -> {
+                        Document set = inv.getArgument(1, Update.class).getUpdateObject().get("$set", Document.class);
+                        @SuppressWarnings("unchecked")
+                        List<CartItem> items = (List<CartItem>) set.get("items");
+                        activeCart.setItems(new ArrayList<>(items));
+                        return activeCart;
+                    });
+        }
+
+        @Test
+        @DisplayName("applies operations in order with one lookup per product and one write")
+        void applyBatch_mixedOperations_singleWrite() {
+            when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
+            when(restTemplate.getForObject(anyString(), eq(JsonNode.class))).thenReturn(createProductJson(10));
+            stubWriteBack();
+
+            CartResponse response = cartService.applyBatch(USER_ID, List.of(
+                    op(CartBatchRequest.OperationType.ADD, "prod-002", 3),
+                    op(CartBatchRequest.OperationType.UPDATE, PRODUCT_ID, 4),
+                    op(CartBatchRequest.OperationType.ADD, "prod-002", 1)));
+
+            assertThat(response.getItems()).extracting("productId", "quantity")
+                    .containsExactly(
+                            tuple(PRODUCT_ID, 4),
+                            tuple("prod-002", 4));
+            assertThat(response.getTotalItems()).isEqualTo(8);
+            verify(restTemplate, times(1)).getForObject(PRODUCT_SERVICE_URL + "/" + PRODUCT_ID, JsonNode.class);
+            verify(restTemplate, times(1)).getForObject(PRODUCT_SERVICE_URL + "/prod-002", JsonNode.class);
+            Document update = lastUpdate();
+            assertThat(update.get("$set", Document.class)).containsEntry("totalItems", 8);
+            // The caller's cart entity is never mutated before the write succeeds
+            assertThat(existingItem.getQuantity()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("validates stock against the cart as changed by earlier operations")
+        void applyBatch_cumulativeQuantityExceedsStock_throwsWithoutWriting() {
+            when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
+            when(restTemplate.getForObject(anyString(), eq(JsonNode.class))).thenReturn(createProductJson(5));
+
+            assertThatThrownBy(() -> cartService.applyBatch(USER_ID, List.of(
+                    op(CartBatchRequest.OperationType.ADD, PRODUCT_ID, 2),
+                    op(CartBatchRequest.OperationType.ADD, PRODUCT_ID, 2))))
+                    .isInstanceOf(CheckoutValidationException.class)
+                    .hasMessageContaining("Already in cart: 4");
+
+            verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                    any(FindAndModifyOptions.class), eq(Cart.class));
+        }
+
+        @Test
+        @DisplayName("rejects updating a product that an earlier operation removed")
+        void applyBatch_updateAfterRemove_throwsWithoutWriting() {
+            when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
+            when(restTemplate.getForObject(anyString(), eq(JsonNode.class))).thenReturn(createProductJson(5));
+
+            assertThatThrownBy(() -> cartService.applyBatch(USER_ID, List.of(
+                    op(CartBatchRequest.OperationType.REMOVE, PRODUCT_ID, null),
+                    op(CartBatchRequest.OperationType.UPDATE, PRODUCT_ID, 1))))
+                    .isInstanceOf(CheckoutValidationException.class)
+                    .hasMessageContaining("Product not in cart");
+
+            verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                    any(FindAndModifyOptions.class), eq(Cart.class));
+        }
+
+        @Test
+        @DisplayName("removals alone need no product lookup")
+        void applyBatch_removeOnly_noProductLookup() {
+            when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
+            stubWriteBack();
+
+            CartResponse response = cartService.applyBatch(USER_ID, List.of(
+                    op(CartBatchRequest.OperationType.REMOVE, PRODUCT_ID, null),
+                    op(CartBatchRequest.OperationType.REMOVE, "not-in-cart", null)));
+
+            assertThat(response.getItems()).isEmpty();
+            assertThat(response.getTotalItems()).isZero();
+            verifyNoInteractions(restTemplate);
+        }
+    }
+
     // ==================== clearCart Tests ====================
 
     @Nested
@@ -474,20 +656,24 @@ class CartServiceTest {
         @Test
         @DisplayName("clears all items from cart")
         void clearCart_clearsSuccessfully() {
-            when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Cart.class)))
+                    .thenReturn(UpdateResult.acknowledged(1, 1L, null));
 
             cartService.clearCart(USER_ID);
 
-            assertThat(activeCart.getItems()).isEmpty();
-            assertThat(activeCart.getTotalItems()).isZero();
-            assertThat(activeCart.getCachedSubtotal()).isZero();
-            verify(cartRepository).save(activeCart);
+            ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+            verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Cart.class));
+            Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+            assertThat((List<?>) set.get("items")).isEmpty();
+            assertThat(set).containsEntry("totalItems", 0).containsEntry("cachedSubtotal", 0.0);
+            verify(cartRepository, never()).save(any(Cart.class));
         }
 
         @Test
         @DisplayName("throws when cart not found")
         void clearCart_cartNotFound_throwsException() {
-            when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.empty());
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Cart.class)))
+                    .thenReturn(UpdateResult.acknowledged(0, 0L, null));
 
             assertThatThrownBy(() -> cartService.clearCart(USER_ID))
                     .isInstanceOf(CartNotFoundException.class);
@@ -554,21 +740,24 @@ class CartServiceTest {
         @Test
         @DisplayName("marks cart as purchased and clears items")
         void markCartAsPurchased_success() {
-            when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Cart.class)))
+                    .thenReturn(UpdateResult.acknowledged(1, 1L, null));
 
             cartService.markCartAsPurchased(USER_ID);
 
-            assertThat(activeCart.getStatus()).isEqualTo(CartStatus.PURCHASED);
-            assertThat(activeCart.getItems()).isEmpty();
-            assertThat(activeCart.getTotalItems()).isZero();
-            assertThat(activeCart.getCachedSubtotal()).isZero();
-            verify(cartRepository).save(activeCart);
+            ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+            verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Cart.class));
+            Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+            assertThat(set).containsEntry("status", CartStatus.PURCHASED);
+            assertThat((List<?>) set.get("items")).isEmpty();
+            assertThat(set).containsEntry("totalItems", 0).containsEntry("cachedSubtotal", 0.0);
         }
 
         @Test
         @DisplayName("throws when cart not found")
         void markCartAsPurchased_cartNotFound_throwsException() {
-            when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.empty());
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Cart.class)))
+                    .thenReturn(UpdateResult.acknowledged(0, 0L, null));
 
             assertThatThrownBy(() -> cartService.markCartAsPurchased(USER_ID))
                     .isInstanceOf(CartNotFoundException.class);
@@ -611,9 +800,6 @@ class CartServiceTest {
         @DisplayName("maps cart to response with correct item details")
         void toCartResponse_mapsCorrectly() {
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
-            when(restTemplate.getForObject(anyString(), eq(JsonNode.class)))
-                    .thenReturn(createProductJson(10));
-            when(cartRepository.save(any(Cart.class))).thenReturn(activeCart);
 
             CartResponse response = cartService.getCart(USER_ID);
 
@@ -642,7 +828,6 @@ class CartServiceTest {
             activeCart.getItems().add(item2);
 
             when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.of(activeCart));
-            when(cartRepository.save(any(Cart.class))).thenAnswer(inv -> inv.getArgument(0));
 
             cartService.removeItem(USER_ID, "non-existent-doesnt-matter");
 
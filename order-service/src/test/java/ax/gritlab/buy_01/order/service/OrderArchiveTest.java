@@ -0,0 +1,139 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderArchiveTest {
+
+    private static final LocalDateTime LAST_SEEN = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private OrderDetailsService orderDetailsService;
+
+    @Mock
+    private BulkOperations copies;
+
+    @Mock
+    private BulkOperations removals;
+
+    private OrderArchive orderArchive;
+
+    @BeforeEach
+    void setUp() {
+        orderArchive = new OrderArchive(mongoTemplate, orderDetailsService);
+    }
+
+    private static Order order(String id) {
+        return Order.builder().id(id).buyerId("buyer-1").status(OrderStatus.DELIVERED).updatedAt(LAST_SEEN).build();
+    }
+
+    @Test
+    @DisplayName("An order is copied to the archive and then deleted from orders if unchanged")
+    void move_unchanged_movesOrder() {
+        Order order = order("order-1");
+        when(mongoTemplate.remove(any(Query.class), eq(Order.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        assertThat(orderArchive.move(order, LAST_SEEN)).isTrue();
+
+        // Fields only the old document still carries are moved out before it is deleted
+        verify(orderDetailsService).moveEmbeddedDetails(List.of("order-1"));
+        verify(mongoTemplate).save(order, OrderArchive.COLLECTION);
+        assertThat(order.getArchivedAt()).isNotNull();
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(Order.class));
+        assertThat(removed.getValue().getQueryObject().get("updatedAt")).isEqualTo(LAST_SEEN);
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(Order.class), eq(OrderArchive.COLLECTION));
+    }
+
+    @Test
+    @DisplayName("An order that changed meanwhile stays in orders and loses its archived copy")
+    void move_changed_dropsCopy() {
+        Order order = order("order-1");
+        when(mongoTemplate.remove(any(Query.class), eq(Order.class))).thenReturn(DeleteResult.acknowledged(0));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order("order-1")));
+
+        assertThat(orderArchive.move(order, LAST_SEEN)).isFalse();
+
+        verify(mongoTemplate).remove(any(Query.class), eq(Order.class), eq(OrderArchive.COLLECTION));
+    }
+
+    @Test
+    @DisplayName("A batch is written with one bulk upsert into the archive and one bulk delete from orders")
+    void moveAll_bulkWrites() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class, OrderArchive.COLLECTION))
+                .thenReturn(copies);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(removals);
+        when(removals.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 2, 0, List.of(), List.of()));
+
+        assertThat(orderArchive.moveAll(List.of(order("order-1"), order("order-2")))).isEqualTo(2);
+
+        verify(copies, times(2)).replaceOne(any(Query.class), any(Order.class), any(FindAndReplaceOptions.class));
+        verify(copies).execute();
+        verify(orderDetailsService).moveEmbeddedDetails(List.of("order-1", "order-2"));
+        verify(removals, times(2)).remove(any(Query.class));
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Order.class));
+    }
+
+    @Test
+    @DisplayName("Orders of a batch left in orders lose their archived copies")
+    void moveAll_partlyChanged_dropsStaleCopies() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class, OrderArchive.COLLECTION))
+                .thenReturn(copies);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(removals);
+        when(removals.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 1, 0, List.of(), List.of()));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order("order-2")));
+
+        assertThat(orderArchive.moveAll(List.of(order("order-1"), order("order-2")))).isEqualTo(1);
+
+        ArgumentCaptor<Query> dropped = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(dropped.capture(), eq(Order.class), eq(OrderArchive.COLLECTION));
+        assertThat(dropped.getValue().getQueryObject().toString()).contains("order-2").doesNotContain("order-1");
+    }
+
+    @Test
+    @DisplayName("Removed orders are moved batch by batch until none is left in orders")
+    void moveRemoved_drainsAll() {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class)))
+                .thenReturn(List.of(order("order-1"), order("order-2")))
+                .thenReturn(List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class, OrderArchive.COLLECTION))
+                .thenReturn(copies);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(removals);
+        when(removals.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 2, 0, List.of(), List.of()));
+
+        assertThat(orderArchive.moveRemoved(2)).isEqualTo(2);
+
+        ArgumentCaptor<Query> batches = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(batches.capture(), eq(Order.class));
+        assertThat(batches.getValue().getQueryObject().get("isRemoved")).isEqualTo(true);
+        assertThat(batches.getValue().getLimit()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,66 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderArchiverTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private OrderArchive orderArchive;
+
+    private OrderArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        archiver = new OrderArchiver(mongoTemplate, orderArchive);
+        ReflectionTestUtils.setField(archiver, "afterMonths", 12);
+        ReflectionTestUtils.setField(archiver, "batchSize", 2);
+        ReflectionTestUtils.setField(archiver, "batchPauseMillis", 0L);
+    }
+
+    private static Order order(String id) {
+        return Order.builder().id(id).build();
+    }
+
+    @Test
+    @DisplayName("Due orders are moved batch by batch until a short batch, continuing after the last id")
+    void archive_movesBatches() throws Exception {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class)))
+                .thenReturn(List.of(order("a"), order("b")))
+                .thenReturn(List.of(order("c")));
+        // One order of the first batch changed meanwhile and stays behind
+        when(orderArchive.moveAll(anyList())).thenReturn(1);
+
+        assertThat(archiver.archive(LocalDateTime.of(2026, 6, 1, 0, 0))).isEqualTo(2);
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queries.capture(), eq(Order.class));
+        assertThat(queries.getAllValues().get(0).getQueryObject().toString()).contains("isRemoved", "createdAt");
+        assertThat(queries.getAllValues().get(1).getQueryObject().toString()).contains("$gt=b");
+        verify(orderArchive, times(2)).moveAll(anyList());
+    }
+}
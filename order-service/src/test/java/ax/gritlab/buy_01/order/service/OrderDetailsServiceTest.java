@@ -0,0 +1,172 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderDetails;
+import ax.gritlab.buy_01.order.model.OrderItem;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import ax.gritlab.buy_01.order.model.OrderStatusHistory;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderDetailsServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private DataMigrations dataMigrations;
+
+    private OrderDetailsService service;
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        service = new OrderDetailsService(mongoTemplate, dataMigrations);
+
+        order = Order.builder()
+                .id("order-1")
+                .buyerId("buyer-1")
+                .status(OrderStatus.CONFIRMED)
+                .deliveryNotes("Leave at door")
+                .items(List.of(
+                        OrderItem.builder().productId("prod-1").productDescription("Blue mug").build(),
+                        OrderItem.builder().productId("prod-2").build()))
+                .statusHistory(new ArrayList<>(List.of(history(OrderStatus.CONFIRMED))))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Saving an order stores its cold fields under the order ID")
+    void save_storesColdFields() {
+        service.save(order);
+
+        ArgumentCaptor<OrderDetails> details = ArgumentCaptor.forClass(OrderDetails.class);
+        verify(mongoTemplate).save(details.capture());
+        assertThat(details.getValue().getId()).isEqualTo("order-1");
+        assertThat(details.getValue().getDeliveryNotes()).isEqualTo("Leave at door");
+        assertThat(details.getValue().getProductDescriptions()).containsExactly(Map.entry("prod-1", "Blue mug"));
+        assertThat(details.getValue().getStatusHistory()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("A status change is pushed onto the stored history")
+    void appendStatusHistory_pushes() {
+        service.appendStatusHistory("order-1", history(OrderStatus.CANCELLED));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(OrderDetails.class));
+        assertThat(update.getValue().getUpdateObject().get("$push", Document.class)).containsKey("statusHistory");
+    }
+
+    @Test
+    @DisplayName("Loading details fills the transient fields of the order")
+    void withDetails_appliesColdFields() {
+        Order loaded = Order.builder()
+                .id("order-1")
+                .items(List.of(OrderItem.builder().productId("prod-1").build()))
+                .build();
+        when(dataMigrations.isDone(DataMigrations.ORDER_DETAILS)).thenReturn(true);
+        when(mongoTemplate.findById("order-1", OrderDetails.class)).thenReturn(OrderDetails.of(order));
+
+        Order result = service.withDetails(loaded);
+
+        assertThat(result.getDeliveryNotes()).isEqualTo("Leave at door");
+        assertThat(result.getItems().get(0).getProductDescription()).isEqualTo("Blue mug");
+        assertThat(result.getStatusHistory()).extracting(OrderStatusHistory::getNewStatus)
+                .containsExactly(OrderStatus.CONFIRMED);
+    }
+
+    @Test
+    @DisplayName("Orders without details are returned unchanged")
+    void withDetails_missing_keepsOrder() {
+        when(dataMigrations.isDone(DataMigrations.ORDER_DETAILS)).thenReturn(true);
+
+        Order result = service.withDetails(order);
+
+        assertThat(result).isSameAs(order);
+        assertThat(result.getDeliveryNotes()).isEqualTo("Leave at door");
+    }
+
+    @Test
+    @DisplayName("Migration moves embedded fields to order_details and unsets them on the order")
+    void migrateEmbeddedDetails_movesAndUnsets() {
+        Document legacy = new Document("_id", "order-1")
+                .append("deliveryNotes", "Ring twice")
+                .append("statusHistory", List.of(new Document("status", "PENDING")))
+                .append("items", List.of(new Document("productId", "prod-1").append("productDescription", "Blue mug")));
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("orders"))).thenReturn(Stream.of(legacy));
+
+        long migrated = service.migrateEmbeddedDetails();
+
+        assertThat(migrated).isEqualTo(1);
+        ArgumentCaptor<Update> details = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), details.capture(), eq(OrderDetails.class));
+        Document set = details.getValue().getUpdateObject().get("$set", Document.class);
+        assertThat(set).containsEntry("deliveryNotes", "Ring twice")
+                .containsEntry("productDescriptions.prod-1", "Blue mug");
+        assertThat(details.getValue().getUpdateObject().get("$push", Document.class)).containsKey("statusHistory");
+
+        ArgumentCaptor<Update> unset = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), unset.capture(), eq("orders"));
+        assertThat(unset.getValue().getUpdateObject().get("$unset", Document.class))
+                .containsKeys("statusHistory", "deliveryNotes", "items.$[].productDescription");
+    }
+
+    @Test
+    @DisplayName("Before the migration completed, an order's embedded fields are moved before they are read")
+    void withDetails_beforeMigration_movesOrderFirst() {
+        Document legacy = new Document("_id", "order-1").append("deliveryNotes", "Ring twice");
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("orders"))).thenReturn(Stream.of(legacy));
+        when(mongoTemplate.findById("order-1", OrderDetails.class))
+                .thenReturn(OrderDetails.builder().id("order-1").deliveryNotes("Ring twice").build());
+
+        Order result = service.withDetails(Order.builder().id("order-1").items(List.of()).build());
+
+        assertThat(result.getDeliveryNotes()).isEqualTo("Ring twice");
+        ArgumentCaptor<Query> moved = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(moved.capture(), eq(Document.class), eq("orders"));
+        assertThat(moved.getValue().getQueryObject().toString()).contains("order-1");
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq("orders"));
+    }
+
+    @Test
+    @DisplayName("Once the migration completed, orders are no longer checked for embedded fields")
+    void moveEmbeddedDetails_afterMigration_noop() {
+        when(dataMigrations.isDone(DataMigrations.ORDER_DETAILS)).thenReturn(true);
+
+        service.moveEmbeddedDetails(List.of("order-1"));
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private static OrderStatusHistory history(OrderStatus status) {
+        return OrderStatusHistory.builder()
+                .newStatus(status)
+                .changedAt(LocalDateTime.now())
+                .build();
+    }
+}
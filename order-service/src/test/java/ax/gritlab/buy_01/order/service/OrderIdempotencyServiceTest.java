@@ -0,0 +1,240 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.dto.response.OrderResponse;
+import ax.gritlab.buy_01.order.exception.IdempotencyConflictException;
+import ax.gritlab.buy_01.order.model.OrderIdempotencyRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIdempotencyServiceTest {
+
+    private static final String USER_ID = "user-1";
+    private static final String KEY = "checkout-attempt-1";
+    private static final String SCOPED_KEY = USER_ID + ":checkout:" + KEY;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private OrderIdempotencyService idempotencyService;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new OrderIdempotencyService(mongoTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(idempotencyService, "claimTimeoutMillis", 30000L);
+    }
+
+    private OrderResponse placeOrder() {
+        return OrderResponse.builder().id("order-" + executions.incrementAndGet()).build();
+    }
+
+    private OrderIdempotencyService.IdempotentResponse checkout(Object request) {
+        return idempotencyService.execute(USER_ID, "checkout", KEY, request, this::placeOrder);
+    }
+
+    private void givenCompletion() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(OrderIdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    @Test
+    @DisplayName("Without a key the operation just runs")
+    void execute_NoKey_Runs() {
+        OrderIdempotencyService.IdempotentResponse result =
+                idempotencyService.execute(USER_ID, "checkout", " ", List.of("cart"), this::placeOrder);
+
+        assertThat(result.isReplayed()).isFalse();
+        assertThat(executions.get()).isEqualTo(1);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("The first call claims the key per user, runs and stores its response")
+    void execute_FirstCall_RunsAndStores() {
+        givenCompletion();
+
+        OrderIdempotencyService.IdempotentResponse result = checkout(List.of("cart"));
+
+        assertThat(result.isReplayed()).isFalse();
+        assertThat(result.getResponse().getId()).isEqualTo("order-1");
+        ArgumentCaptor<OrderIdempotencyRecord> claim = ArgumentCaptor.forClass(OrderIdempotencyRecord.class);
+        verify(mongoTemplate).insert(claim.capture());
+        assertThat(claim.getValue().getId()).isEqualTo(SCOPED_KEY);
+        assertThat(claim.getValue().getStatus()).isEqualTo(OrderIdempotencyRecord.IN_PROGRESS);
+        ArgumentCaptor<Query> completion = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(completion.capture(), any(Update.class), eq(OrderIdempotencyRecord.class));
+        assertThat(completion.getValue().getQueryObject().get("claimToken"))
+                .isNotNull()
+                .isEqualTo(claim.getValue().getClaimToken());
+    }
+
+    @Test
+    @DisplayName("A stale claim is taken over with a new token, which the response is then stored under")
+    void execute_StaleClaim_TakenOverWithNewToken() {
+        givenCompletion();
+        checkout(List.of("cart"));
+        ArgumentCaptor<OrderIdempotencyRecord> claim = ArgumentCaptor.forClass(OrderIdempotencyRecord.class);
+        verify(mongoTemplate).insert(claim.capture());
+
+        when(mongoTemplate.insert(any(OrderIdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById(SCOPED_KEY, OrderIdempotencyRecord.class)).thenReturn(
+                OrderIdempotencyRecord.builder()
+                        .id(SCOPED_KEY)
+                        .fingerprint(claim.getValue().getFingerprint())
+                        .status(OrderIdempotencyRecord.IN_PROGRESS)
+                        .claimToken(claim.getValue().getClaimToken())
+                        .build());
+
+        OrderIdempotencyService.IdempotentResponse retry = checkout(List.of("cart"));
+
+        assertThat(retry.isReplayed()).isFalse();
+        assertThat(executions.get()).isEqualTo(2);
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(3)).updateFirst(queries.capture(), updates.capture(),
+                eq(OrderIdempotencyRecord.class));
+        String newToken = (String) updates.getAllValues().get(1).getUpdateObject()
+                .get("$set", Document.class).get("claimToken");
+        assertThat(newToken).isNotNull().isNotEqualTo(claim.getValue().getClaimToken());
+        assertThat(queries.getAllValues().get(2).getQueryObject().get("claimToken")).isEqualTo(newToken);
+    }
+
+    @Test
+    @DisplayName("A call whose claim was taken over still answers but leaves the record to the new holder")
+    void execute_ClaimLost_ResponseNotStored() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(OrderIdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        OrderIdempotencyService.IdempotentResponse result = checkout(List.of("cart"));
+
+        assertThat(result.isReplayed()).isFalse();
+        assertThat(result.getResponse().getId()).isEqualTo("order-1");
+    }
+
+    @Test
+    @DisplayName("A completed key replays the stored response without running again")
+    void execute_Completed_Replays() {
+        givenCompletion();
+        checkout(List.of("cart"));
+        ArgumentCaptor<OrderIdempotencyRecord> claim = ArgumentCaptor.forClass(OrderIdempotencyRecord.class);
+        verify(mongoTemplate).insert(claim.capture());
+
+        when(mongoTemplate.insert(any(OrderIdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById(SCOPED_KEY, OrderIdempotencyRecord.class)).thenReturn(
+                OrderIdempotencyRecord.builder()
+                        .id(SCOPED_KEY)
+                        .fingerprint(claim.getValue().getFingerprint())
+                        .status(OrderIdempotencyRecord.COMPLETED)
+                        .response(OrderResponse.builder().id("order-1").build())
+                        .build());
+
+        OrderIdempotencyService.IdempotentResponse replay = checkout(List.of("cart"));
+
+        assertThat(replay.isReplayed()).isTrue();
+        assertThat(replay.getResponse().getId()).isEqualTo("order-1");
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A key reused for a different request is rejected")
+    void execute_DifferentRequest_Conflict() {
+        when(mongoTemplate.insert(any(OrderIdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById(SCOPED_KEY, OrderIdempotencyRecord.class)).thenReturn(
+                OrderIdempotencyRecord.builder()
+                        .id(SCOPED_KEY)
+                        .fingerprint("other")
+                        .status(OrderIdempotencyRecord.COMPLETED)
+                        .build());
+
+        assertThatThrownBy(() -> checkout(List.of("cart")))
+                .isInstanceOf(IdempotencyConflictException.class)
+                .hasMessageContaining(KEY);
+        assertThat(executions.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("A failed call releases its key so the client can retry")
+    void execute_Failure_ReleasesKey() {
+        assertThatThrownBy(() -> idempotencyService.execute(USER_ID, "checkout", KEY, List.of("cart"), () -> {
+            throw new IllegalStateException("cart is empty");
+        })).isInstanceOf(IllegalStateException.class);
+
+        verify(mongoTemplate).remove(any(Query.class), eq(OrderIdempotencyRecord.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class),
+                eq(OrderIdempotencyRecord.class));
+    }
+
+    @Test
+    @DisplayName("A duplicate arriving while the first call runs waits for its result instead of running")
+    void execute_ConcurrentDuplicate_Collapsed() throws Exception {
+        givenCompletion();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<OrderIdempotencyService.IdempotentResponse> first = pool.submit(() ->
+                    idempotencyService.execute(USER_ID, "checkout", KEY, List.of("cart"), () -> {
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return placeOrder();
+                    }));
+            started.await();
+
+            AtomicReference<Thread> waiter = new AtomicReference<>();
+            Future<OrderIdempotencyService.IdempotentResponse> second = pool.submit(() -> {
+                waiter.set(Thread.currentThread());
+                return checkout(List.of("cart"));
+            });
+            // Let the duplicate block on the running call before the first one finishes
+            while (waiter.get() == null || waiter.get().getState() != Thread.State.TIMED_WAITING) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(first.get().isReplayed()).isFalse();
+            assertThat(second.get().isReplayed()).isTrue();
+            assertThat(second.get().getResponse().getId()).isEqualTo("order-1");
+            assertThat(executions.get()).isEqualTo(1);
+            verify(mongoTemplate, times(1)).insert(any(OrderIdempotencyRecord.class));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ax.gritlab.buy_01.order.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderNumberGeneratorTest {
+
+    private static final long START = LocalDateTime.of(2026, 2, 14, 10, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+
+    @Test
+    @DisplayName("Ids drawn by many threads at 1M ids/sec are unique and increasing per thread")
+    void nextId_concurrent_isUnique() throws Exception {
+        int threads = 8;
+        int perThread = 250_000;
+        // The clock advances one millisecond every 1000 calls: one million ids per second
+        AtomicLong calls = new AtomicLong();
+        OrderNumberGenerator generator = new OrderNumberGenerator(7,
+                clock(() -> START + calls.getAndIncrement() / 1000));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        long[] all = new long[threads * perThread];
+        int offset = 0;
+        int outOfOrder = 0;
+        for (Future<long[]> result : results) {
+            long[] ids = result.get();
+            for (int i = 1; i < ids.length; i++) {
+                if (ids[i] <= ids[i - 1]) {
+                    outOfOrder++;
+                }
+            }
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+        pool.shutdown();
+
+        Arrays.sort(all);
+        int duplicates = 0;
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) {
+                duplicates++;
+            }
+        }
+        assertThat(outOfOrder).isZero();
+        assertThat(duplicates).isZero();
+    }
+
+    @Test
+    @DisplayName("A stopped clock borrows later milliseconds instead of repeating ids")
+    void next_stoppedClock_staysIncreasing() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, clock(() -> START));
+
+        String previous = generator.next();
+        for (int i = 0; i < 10_000; i++) {
+            String next = generator.next();
+            // Plain string order is creation order
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("A clock stepping back does not produce smaller ids")
+    void nextId_clockStepsBack_staysIncreasing() {
+        AtomicLong now = new AtomicLong(START);
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, clock(now::get));
+
+        long before = generator.nextId();
+        now.addAndGet(-5_000);
+
+        assertThat(generator.nextId()).isGreaterThan(before);
+    }
+
+    @Test
+    @DisplayName("Nodes drawing in the same millisecond get different ids")
+    void nextId_differentNodes_differ() {
+        long first = new OrderNumberGenerator(1, clock(() -> START)).nextId();
+        long second = new OrderNumberGenerator(2, clock(() -> START)).nextId();
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(OrderNumberGenerator.nodeOf(first)).isEqualTo(1);
+        assertThat(OrderNumberGenerator.nodeOf(second)).isEqualTo(2);
+        assertThat(OrderNumberGenerator.timeOf(first)).isEqualTo(START - OrderNumberGenerator.EPOCH);
+    }
+
+    @Test
+    @DisplayName("Order numbers keep the readable day prefix and a fixed-width suffix")
+    void next_format() {
+        String number = new OrderNumberGenerator(3, clock(() -> START)).next();
+
+        assertThat(number).startsWith("ORD-20260214-").hasSize(26).matches("ORD-\\d{8}-[0-9A-Z]{13}");
+    }
+
+    @Test
+    @DisplayName("Node ids outside 0-1023 are rejected")
+    void constructor_invalidNode_throws() {
+        assertThatThrownBy(() -> new OrderNumberGenerator(1024, Clock.systemUTC()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Clock clock(LongSupplier millis) {
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public long millis() {
+                return millis.getAsLong();
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(millis());
+            }
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.OrderNumberNode;
+import com.mongodb.client.result.UpdateResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.OngoingStubbing;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderNumberNodeLeaseTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private OrderNumberNodeLease lease;
+
+    @BeforeEach
+    void setUp() {
+        lease = new OrderNumberNodeLease(mongoTemplate, 600_000L);
+    }
+
+    /**
+     * The first {@code held} ids tried are held by live instances.
+     */
+    private void givenLeased(int held) {
+        OngoingStubbing<OrderNumberNode> claim = when(mongoTemplate.findAndModify(any(Query.class),
+                any(Update.class), any(FindAndModifyOptions.class), eq(OrderNumberNode.class)));
+        for (int i = 0; i < held; i++) {
+            claim = claim.thenThrow(new DuplicateKeyException("dup"));
+        }
+        claim.thenReturn(new OrderNumberNode());
+    }
+
+    private long triedId(int attempt) {
+        ArgumentCaptor<Query> claims = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, atLeast(attempt + 1)).findAndModify(claims.capture(),
+                any(Update.class), any(FindAndModifyOptions.class), eq(OrderNumberNode.class));
+        return ((Number) claims.getAllValues().get(attempt).getQueryObject().get("_id")).longValue();
+    }
+
+    @Test
+    @DisplayName("Ids held by other instances are skipped and the next free one is leased")
+    void nodeId_skipsHeldIds() {
+        givenLeased(2);
+
+        long nodeId = lease.nodeId();
+
+        assertThat(nodeId).isEqualTo((triedId(0) + 2) % 1024);
+        // Claimed once, then served from memory
+        assertThat(lease.nodeId()).isEqualTo(nodeId);
+        verify(mongoTemplate, times(3)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(OrderNumberNode.class));
+    }
+
+    @Test
+    @DisplayName("Startup fails when every id is leased")
+    void nodeId_allHeld_throws() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(OrderNumberNode.class))).thenThrow(new DuplicateKeyException("dup"));
+
+        assertThatThrownBy(() -> lease.nodeId()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Renewing extends the lease of the held id")
+    void renew_extendsLease() {
+        givenLeased(0);
+        long nodeId = lease.nodeId();
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(OrderNumberNode.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        lease.renew();
+
+        assertThat(lease.nodeId()).isEqualTo(nodeId);
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(OrderNumberNode.class));
+    }
+
+    @Test
+    @DisplayName("A lease taken over after it expired is replaced by a new id")
+    void renew_lostLease_claimsNewId() {
+        givenLeased(0);
+        lease.nodeId();
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(OrderNumberNode.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        lease.renew();
+
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(OrderNumberNode.class));
+        assertThat(lease.nodeId()).isEqualTo(triedId(1));
+    }
+
+    @Test
+    @DisplayName("Nothing is renewed before an id was leased")
+    void renew_beforeLease_noop() {
+        lease.renew();
+
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(OrderNumberNode.class));
+    }
+}
@@ -0,0 +1,77 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderItem;
+import ax.gritlab.buy_01.order.model.OutboxEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ObjectProvider<MongoTransactionManager> transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private OrderOutbox outbox;
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        outbox = new OrderOutbox(mongoTemplate, objectMapper, transactionManager);
+        order = Order.builder()
+                .id("order-1")
+                .orderNumber("ORD-20260214-00340Z5475UDH")
+                .buyerId("buyer-1")
+                .items(List.of(OrderItem.builder().productId("prod-1").quantity(2).build()))
+                .build();
+    }
+
+    @Test
+    @DisplayName("The event is written after the order, built from the saved order")
+    void save_writesOrderThenEvent() throws Exception {
+        Order saved = outbox.save(() -> order, outbox::orderPlaced);
+
+        assertThat(saved).isSameAs(order);
+        ArgumentCaptor<OutboxEvent> event = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(mongoTemplate).insert(event.capture());
+        assertThat(event.getValue().getTopic()).isEqualTo(OrderOutbox.ORDER_PLACED_TOPIC);
+        assertThat(event.getValue().getKey()).isEqualTo("order-1");
+        JsonNode payload = objectMapper.readTree(event.getValue().getPayload());
+        assertThat(payload.get("orderNumber").asText()).isEqualTo("ORD-20260214-00340Z5475UDH");
+        assertThat(payload.get("items").get(0).get("quantity").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("No event is written when the order write fails")
+    void save_orderFails_noEvent() {
+        assertThatThrownBy(() -> outbox.save(() -> {
+            throw new IllegalStateException("write failed");
+        }, outbox::orderPlaced)).isInstanceOf(IllegalStateException.class);
+
+        verify(mongoTemplate, never()).insert(any(OutboxEvent.class));
+    }
+}
@@ -1,11 +1,18 @@
 package ax.gritlab.buy_01.order.service;
 
+import ax.gritlab.buy_01.order.client.ProductHydrator;
+import ax.gritlab.buy_01.order.dto.StockUpdateRequest;
+import ax.gritlab.buy_01.order.dto.StockUpdateResponse;
 import ax.gritlab.buy_01.order.dto.request.CheckoutRequest;
 import ax.gritlab.buy_01.order.dto.response.OrderResponse;
+import ax.gritlab.buy_01.order.dto.response.OrderSliceResponse;
+import ax.gritlab.buy_01.order.dto.response.OrderSummaryResponse;
 import ax.gritlab.buy_01.order.exception.InvalidStatusTransitionException;
 import ax.gritlab.buy_01.order.exception.OrderNotFoundException;
 import ax.gritlab.buy_01.order.exception.UnauthorizedException;
 import ax.gritlab.buy_01.order.model.*;
+import ax.gritlab.buy_01.order.repository.OrderCursor;
+import ax.gritlab.buy_01.order.repository.OrderFilter;
 import ax.gritlab.buy_01.order.repository.OrderRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -16,25 +23,35 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpEntity;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -49,7 +66,29 @@ class OrderServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
+    @Mock
+    private ProductReplica productReplica;
+
+    @Mock
+    private OrderStatsProjection orderStatsProjection;
+
+    @Mock
+    private SellerRollupService sellerRollupService;
+
+    @Mock
+    private OrderDetailsService orderDetailsService;
+
+    @Mock
+    private SellerOrderLineProjection sellerOrderLineProjection;
+
+    @Mock
+    private OrderOutbox orderOutbox;
+
+    @Mock
+    private OrderArchive orderArchive;
+
+    private final OrderNumberGenerator orderNumberGenerator = new OrderNumberGenerator(0L, Clock.systemDefaultZone());
+
     private OrderService orderService;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -65,10 +104,16 @@ class OrderServiceTest {
 
     private Cart activeCart;
     private Order existingOrder;
+    private SellerOrderLine sellerLine;
     private ShippingAddress shippingAddress;
 
     @BeforeEach
     void setUp() {
+        ProductHydrator productHydrator = new ProductHydrator(restTemplate, productReplica, 4, 2000);
+        ReflectionTestUtils.setField(productHydrator, "productServiceUrl", PRODUCT_SERVICE_URL);
+        orderService = new OrderService(orderRepository, cartService, restTemplate, productHydrator,
+                orderStatsProjection, sellerRollupService, orderDetailsService, sellerOrderLineProjection,
+                orderNumberGenerator, orderOutbox, orderArchive);
         ReflectionTestUtils.setField(orderService, "productServiceUrl", PRODUCT_SERVICE_URL);
         ReflectionTestUtils.setField(orderService, "estimatedDeliveryDays", 7);
 
@@ -133,6 +178,19 @@ class OrderServiceTest {
                 .updatedAt(LocalDateTime.now())
                 .isRemoved(false)
                 .build();
+
+        sellerLine = SellerOrderLine.builder()
+                .id(SellerOrderLine.idOf(ORDER_ID, SELLER_ID))
+                .orderId(ORDER_ID)
+                .sellerId(SELLER_ID)
+                .orderNumber(existingOrder.getOrderNumber())
+                .buyerId(USER_ID)
+                .buyerEmail(USER_EMAIL)
+                .items(new ArrayList<>(List.of(orderItem)))
+                .subtotal(59.98)
+                .status(OrderStatus.CONFIRMED)
+                .createdAt(existingOrder.getCreatedAt())
+                .build();
     }
 
     private ObjectNode createProductJson() {
@@ -179,6 +237,7 @@ class OrderServiceTest {
             assertThat(response.getId()).isEqualTo(ORDER_ID);
             assertThat(response.getBuyerId()).isEqualTo(USER_ID);
             assertThat(response.getBuyerEmail()).isEqualTo(USER_EMAIL);
+            assertThat(response.getOrderNumber()).matches("ORD-\\d{8}-[0-9A-Z]{13}");
             assertThat(response.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
             assertThat(response.getPaymentMethod()).isEqualTo("PAY_ON_DELIVERY");
             assertThat(response.getDeliveryNotes()).isEqualTo("Leave at door");
@@ -186,9 +245,14 @@ class OrderServiceTest {
             assertThat(response.getTotalAmount()).isEqualTo(59.98);
 
             verify(cartService).getCartEntity(USER_ID);
-            verify(cartService).validateCartForCheckout(activeCart);
+            verify(cartService).validateCartForCheckout(eq(activeCart), anyMap());
             verify(cartService).markCartAsPurchased(USER_ID);
             verify(orderRepository).save(any(Order.class));
+            verify(orderStatsProjection).onOrderPlaced(any(Order.class));
+            verify(sellerRollupService).onOrderPlaced(any(Order.class));
+            verify(orderDetailsService).save(any(Order.class));
+            verify(sellerOrderLineProjection).onOrderPlaced(any(Order.class));
+            verifyNoInteractions(orderOutbox);
         }
 
         @Test
@@ -228,6 +292,161 @@ class OrderServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Async Checkout Tests")
+    class AsyncCheckoutTests {
+
+        @BeforeEach
+        void enableAsyncCheckout() {
+            ReflectionTestUtils.setField(orderService, "asyncCheckout", true);
+        }
+
+        @Test
+        @DisplayName("Should save the order as PENDING with its order.placed event instead of calling product-service")
+        @SuppressWarnings("unchecked")
+        void checkout_Async_SavesPendingWithEvent() {
+            // Arrange
+            when(cartService.getCartEntity(USER_ID)).thenReturn(activeCart);
+            when(productReplica.get(PRODUCT_ID)).thenReturn(createProductJson());
+            when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+                Order order = invocation.getArgument(0);
+                order.setId(ORDER_ID);
+                return order;
+            });
+            when(orderOutbox.save(any(), any())).thenAnswer(invocation ->
+                    ((Supplier<Order>) invocation.getArgument(0)).get());
+
+            // Act
+            OrderResponse response = orderService.checkout(USER_ID, USER_EMAIL, CheckoutRequest.builder()
+                    .shippingAddress(shippingAddress)
+                    .paymentMethod("PAY_ON_DELIVERY")
+                    .build());
+
+            // Assert
+            assertThat(response.getStatus()).isEqualTo(OrderStatus.PENDING);
+            verify(orderOutbox).save(any(), any());
+            verify(cartService).markCartAsPurchased(USER_ID);
+            verifyNoInteractions(restTemplate);
+        }
+
+        @Test
+        @DisplayName("Should confirm a PENDING order when its stock was reserved")
+        void applyStockOutcome_Reserved_Confirms() {
+            // Arrange
+            existingOrder.setStatus(OrderStatus.CONFIRMED);
+            when(orderRepository.transitionStatus(eq(ORDER_ID), eq(OrderStatus.PENDING), eq(OrderStatus.CONFIRMED),
+                    any(LocalDateTime.class))).thenReturn(existingOrder);
+
+            // Act
+            orderService.applyStockOutcome(ORDER_ID, true, null);
+
+            // Assert
+            ArgumentCaptor<OrderStatusHistory> history = ArgumentCaptor.forClass(OrderStatusHistory.class);
+            verify(orderDetailsService).appendStatusHistory(eq(ORDER_ID), history.capture());
+            assertThat(history.getValue().getPreviousStatus()).isEqualTo(OrderStatus.PENDING);
+            assertThat(history.getValue().getChangedByRole()).isEqualTo("SYSTEM");
+            verify(orderStatsProjection).onStatusChanged(existingOrder, OrderStatus.PENDING);
+            verify(sellerRollupService).onStatusChanged(existingOrder, OrderStatus.PENDING);
+            verify(sellerOrderLineProjection).onStatusChanged(existingOrder);
+        }
+
+        @Test
+        @DisplayName("Should cancel a PENDING order with the rejection reason when stock was short")
+        void applyStockOutcome_Rejected_CancelsWithReason() {
+            // Arrange
+            existingOrder.setStatus(OrderStatus.CANCELLED);
+            when(orderRepository.transitionStatus(eq(ORDER_ID), eq(OrderStatus.PENDING), eq(OrderStatus.CANCELLED),
+                    any(LocalDateTime.class))).thenReturn(existingOrder);
+
+            // Act
+            orderService.applyStockOutcome(ORDER_ID, false, "Test Product: Insufficient stock");
+
+            // Assert
+            ArgumentCaptor<OrderStatusHistory> history = ArgumentCaptor.forClass(OrderStatusHistory.class);
+            verify(orderDetailsService).appendStatusHistory(eq(ORDER_ID), history.capture());
+            assertThat(history.getValue().getReason()).contains("Insufficient stock");
+            verifyNoInteractions(restTemplate);
+        }
+
+        @Test
+        @DisplayName("Should put reserved stock back when the buyer cancelled while it was being reserved")
+        void applyStockOutcome_ReservedAfterCancel_RestoresStock() {
+            // Arrange
+            existingOrder.setStatus(OrderStatus.CANCELLED);
+            when(orderRepository.transitionStatus(eq(ORDER_ID), eq(OrderStatus.PENDING), eq(OrderStatus.CONFIRMED),
+                    any(LocalDateTime.class))).thenReturn(null);
+            when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
+            when(restTemplate.postForObject(anyString(), any(HttpEntity.class), eq(StockUpdateResponse.class)))
+                    .thenReturn(StockUpdateResponse.builder().success(true).build());
+
+            // Act
+            orderService.applyStockOutcome(ORDER_ID, true, null);
+
+            // Assert
+            verify(restTemplate).postForObject(eq(PRODUCT_SERVICE_URL + "/internal/increment-stock"),
+                    any(HttpEntity.class), eq(StockUpdateResponse.class));
+            verify(orderDetailsService, never()).appendStatusHistory(anyString(), any());
+        }
+
+        @Test
+        @DisplayName("Should resend order.placed before cancelling an order whose outcome never came")
+        void expirePendingOrder_RepublishesThenCancels() {
+            // Arrange
+            existingOrder.setStatus(OrderStatus.CANCELLED);
+            OutboxEvent placed = OutboxEvent.builder().topic(OrderOutbox.ORDER_PLACED_TOPIC).key(ORDER_ID).build();
+            when(orderOutbox.orderPlaced(existingOrder)).thenReturn(placed);
+            when(orderRepository.transitionStatus(eq(ORDER_ID), eq(OrderStatus.PENDING), eq(OrderStatus.CANCELLED),
+                    any(LocalDateTime.class))).thenReturn(existingOrder);
+
+            // Act
+            boolean expired = orderService.expirePendingOrder(existingOrder);
+
+            // Assert
+            assertThat(expired).isTrue();
+            InOrder inOrder = inOrder(orderOutbox, orderRepository);
+            inOrder.verify(orderOutbox).append(placed);
+            inOrder.verify(orderRepository).transitionStatus(eq(ORDER_ID), eq(OrderStatus.PENDING),
+                    eq(OrderStatus.CANCELLED), any(LocalDateTime.class));
+            verifyNoInteractions(restTemplate);
+        }
+
+        @Test
+        @DisplayName("Should ignore a repeated outcome for an order that was already confirmed")
+        void applyStockOutcome_Duplicate_Ignored() {
+            // Arrange
+            when(orderRepository.transitionStatus(eq(ORDER_ID), eq(OrderStatus.PENDING), eq(OrderStatus.CONFIRMED),
+                    any(LocalDateTime.class))).thenReturn(null);
+            when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
+
+            // Act
+            orderService.applyStockOutcome(ORDER_ID, true, null);
+
+            // Assert
+            verifyNoInteractions(restTemplate, orderStatsProjection, sellerOrderLineProjection);
+        }
+
+        @Test
+        @DisplayName("Should cancel a PENDING order without touching stock")
+        void cancelOrder_Pending_LeavesStockToOutcome() {
+            // Arrange
+            existingOrder.setStatus(OrderStatus.PENDING);
+            Order cancelled = Order.builder().id(ORDER_ID).orderNumber(existingOrder.getOrderNumber())
+                    .buyerId(USER_ID).items(existingOrder.getItems()).status(OrderStatus.CANCELLED)
+                    .statusHistory(new ArrayList<>()).build();
+            when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
+            when(orderRepository.transitionStatus(eq(ORDER_ID), eq(OrderStatus.PENDING), eq(OrderStatus.CANCELLED),
+                    any(LocalDateTime.class))).thenReturn(cancelled);
+
+            // Act
+            OrderResponse response = orderService.cancelOrder(ORDER_ID, USER_ID, "Changed my mind");
+
+            // Assert
+            assertThat(response.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+            verify(orderRepository, never()).save(any(Order.class));
+            verifyNoInteractions(restTemplate);
+        }
+    }
+
     @Nested
     @DisplayName("Get Order Tests")
     class GetOrderTests {
@@ -237,6 +456,7 @@ class OrderServiceTest {
         void getOrderById_AsBuyer_Success() {
             // Arrange
             when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
+            when(orderDetailsService.withDetails(existingOrder)).thenReturn(existingOrder);
 
             // Act
             OrderResponse response = orderService.getOrderById(ORDER_ID, USER_ID);
@@ -245,6 +465,22 @@ class OrderServiceTest {
             assertThat(response).isNotNull();
             assertThat(response.getId()).isEqualTo(ORDER_ID);
             assertThat(response.getOrderNumber()).isEqualTo("ORD-20260209-ABC12");
+            verify(orderDetailsService).withDetails(existingOrder);
+        }
+
+        @Test
+        @DisplayName("Should find an archived order by ID")
+        void getOrderById_Archived_FoundInArchive() {
+            // Arrange
+            when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.empty());
+            when(orderArchive.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
+            when(orderDetailsService.withDetails(existingOrder)).thenReturn(existingOrder);
+
+            // Act
+            OrderResponse response = orderService.getOrderById(ORDER_ID, USER_ID);
+
+            // Assert
+            assertThat(response.getId()).isEqualTo(ORDER_ID);
         }
 
         @Test
@@ -252,6 +488,7 @@ class OrderServiceTest {
         void getOrderById_AsSeller_Success() {
             // Arrange
             when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
+            when(orderDetailsService.withDetails(existingOrder)).thenReturn(existingOrder);
 
             // Act
             OrderResponse response = orderService.getOrderById(ORDER_ID, SELLER_ID);
@@ -316,14 +553,16 @@ class OrderServiceTest {
         void getSellerOrders_WithoutStatusFilter_Success() {
             // Arrange
             Pageable pageable = PageRequest.of(0, 10);
-            Page<Order> orderPage = new PageImpl<>(List.of(existingOrder), pageable, 1);
-            when(orderRepository.findBySellerIdInSellerIds(SELLER_ID, pageable)).thenReturn(orderPage);
+            Page<SellerOrderLine> linePage = new PageImpl<>(List.of(sellerLine), pageable, 1);
+            when(orderRepository.findSellerOrderLines(SELLER_ID, null, pageable)).thenReturn(linePage);
 
             // Act
             Page<OrderResponse> response = orderService.getSellerOrders(SELLER_ID, null, pageable);
 
             // Assert
             assertThat(response.getContent()).hasSize(1);
+            assertThat(response.getContent().get(0).getId()).isEqualTo(ORDER_ID);
+            assertThat(response.getContent().get(0).getTotalAmount()).isEqualTo(59.98);
         }
 
         @Test
@@ -331,9 +570,9 @@ class OrderServiceTest {
         void getSellerOrders_WithStatusFilter_Success() {
             // Arrange
             Pageable pageable = PageRequest.of(0, 10);
-            Page<Order> orderPage = new PageImpl<>(List.of(existingOrder), pageable, 1);
-            when(orderRepository.findBySellerIdAndStatus(SELLER_ID, OrderStatus.CONFIRMED, pageable))
-                    .thenReturn(orderPage);
+            Page<SellerOrderLine> linePage = new PageImpl<>(List.of(sellerLine), pageable, 1);
+            when(orderRepository.findSellerOrderLines(SELLER_ID, OrderStatus.CONFIRMED, pageable))
+                    .thenReturn(linePage);
 
             // Act
             Page<OrderResponse> response = orderService.getSellerOrders(SELLER_ID, OrderStatus.CONFIRMED, pageable);
@@ -344,6 +583,27 @@ class OrderServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Order Summary Tests")
+    class OrderSummaryTests {
+
+        @Test
+        @DisplayName("Should page seller summaries from the seller's order lines")
+        void getSellerOrderSummaries_Success() {
+            Pageable pageable = PageRequest.of(0, 10);
+            when(orderRepository.findSellerOrderLines(SELLER_ID, OrderStatus.CONFIRMED, pageable))
+                    .thenReturn(new PageImpl<>(List.of(sellerLine), pageable, 1));
+
+            Page<OrderSummaryResponse> response = orderService.getSellerOrderSummaries(
+                    SELLER_ID, OrderStatus.CONFIRMED, pageable);
+
+            assertThat(response.getTotalElements()).isEqualTo(1);
+            assertThat(response.getContent().get(0).getId()).isEqualTo(ORDER_ID);
+            assertThat(response.getContent().get(0).getItemCount()).isEqualTo(1);
+            verify(orderRepository, never()).findBySellerIdAndStatus(any(), any(), any());
+        }
+    }
+
     @Nested
     @DisplayName("Search Orders Tests")
     class SearchOrdersTests {
@@ -353,9 +613,9 @@ class OrderServiceTest {
         void searchOrders_Success() {
             // Arrange
             Pageable pageable = PageRequest.of(0, 10);
-            Page<Order> orderPage = new PageImpl<>(List.of(existingOrder), pageable, 1);
-            when(orderRepository.searchBySellerIdAndKeyword(SELLER_ID, "ORD-", pageable))
-                    .thenReturn(orderPage);
+            Page<SellerOrderLine> linePage = new PageImpl<>(List.of(sellerLine), pageable, 1);
+            when(orderRepository.searchSellerOrderLines(SELLER_ID, "ORD-", pageable))
+                    .thenReturn(linePage);
 
             // Act
             Page<OrderResponse> response = orderService.searchOrders(SELLER_ID, "ORD-", pageable);
@@ -365,6 +625,99 @@ class OrderServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Order Slice Tests")
+    class OrderSliceTests {
+
+        @Test
+        @DisplayName("Should return a cursor pointing at the last order when there are more")
+        void getUserOrderSlice_HasNext_ReturnsCursor() {
+            when(orderRepository.findBuyerOrderSlice(USER_ID, null, 1))
+                    .thenReturn(new SliceImpl<>(List.of(existingOrder), PageRequest.of(0, 1), true));
+
+            OrderSliceResponse<OrderResponse> response = orderService.getUserOrderSlice(USER_ID, null, 1);
+
+            assertThat(response.getContent()).hasSize(1);
+            assertThat(response.isHasNext()).isTrue();
+            assertThat(OrderCursor.decode(response.getNextCursor()))
+                    .isEqualTo(new OrderCursor(existingOrder.getCreatedAt(), ORDER_ID));
+        }
+
+        @Test
+        @DisplayName("Should pass the decoded cursor on and end without a cursor")
+        void getSellerOrderSlice_LastSlice_NoCursor() {
+            OrderCursor after = new OrderCursor(LocalDateTime.of(2026, 2, 9, 12, 0), "order-000");
+            when(orderRepository.findSellerOrderSlice(SELLER_ID, OrderStatus.CONFIRMED, after, 100))
+                    .thenReturn(new SliceImpl<>(List.of(sellerLine), PageRequest.of(0, 100), false));
+
+            OrderSliceResponse<OrderResponse> response = orderService.getSellerOrderSlice(
+                    SELLER_ID, OrderStatus.CONFIRMED, after.encode(), 500);
+
+            assertThat(response.isHasNext()).isFalse();
+            assertThat(response.getNextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should turn my-orders parameters into a database filter")
+        void getMyOrders_BuildsFilter() {
+            ArgumentCaptor<OrderFilter> filter = ArgumentCaptor.forClass(OrderFilter.class);
+            when(orderRepository.findBuyerOrderSlice(eq(USER_ID), filter.capture(), eq(null), eq(100)))
+                    .thenReturn(new SliceImpl<>(List.of(existingOrder), PageRequest.of(0, 100), false));
+
+            OrderSliceResponse<OrderResponse> response = orderService.getMyOrders(
+                    USER_ID, OrderStatus.CONFIRMED, " ord-2026 ", "2026-02-01", "2026-02-09", null, 100);
+
+            assertThat(response.getContent()).hasSize(1);
+            assertThat(filter.getValue().status()).isEqualTo(OrderStatus.CONFIRMED);
+            assertThat(filter.getValue().orderNumberPrefix()).isEqualTo("ORD-2026");
+            assertThat(filter.getValue().createdFrom()).isEqualTo(LocalDateTime.of(2026, 2, 1, 0, 0));
+            assertThat(filter.getValue().createdTo()).isAfter(LocalDateTime.of(2026, 2, 9, 23, 59));
+        }
+
+        @Test
+        @DisplayName("Should reject an unparseable date")
+        void getMyOrders_InvalidDate_Throws() {
+            assertThatThrownBy(() -> orderService.getMyOrders(
+                    USER_ID, null, null, "yesterday", null, null, 100))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("yesterday");
+        }
+
+        @Test
+        @DisplayName("Should map summaries and take the next cursor from the last one")
+        void getMyOrderSummaries_MapsSummaries() {
+            OrderSummary summary = OrderSummary.builder()
+                    .id(ORDER_ID)
+                    .orderNumber("ORD-20260209-ABC12")
+                    .status(OrderStatus.CONFIRMED)
+                    .totalAmount(59.98)
+                    .itemCount(1)
+                    .createdAt(LocalDateTime.of(2026, 2, 9, 12, 0))
+                    .build();
+            when(orderRepository.findBuyerOrderSummarySlice(eq(USER_ID), any(OrderFilter.class), eq(null), eq(1)))
+                    .thenReturn(new SliceImpl<>(List.of(summary), PageRequest.of(0, 1), true));
+
+            OrderSliceResponse<OrderSummaryResponse> response = orderService.getMyOrderSummaries(
+                    USER_ID, null, null, null, null, null, 1);
+
+            assertThat(response.getContent()).singleElement()
+                    .satisfies(s -> {
+                        assertThat(s.getOrderNumber()).isEqualTo("ORD-20260209-ABC12");
+                        assertThat(s.getItemCount()).isEqualTo(1);
+                        assertThat(s.getTotalAmount()).isEqualTo(59.98);
+                    });
+            assertThat(OrderCursor.decode(response.getNextCursor()))
+                    .isEqualTo(new OrderCursor(summary.getCreatedAt(), ORDER_ID));
+        }
+
+        @Test
+        @DisplayName("Should reject a cursor it did not issue")
+        void searchOrderSlice_InvalidCursor_Throws() {
+            assertThatThrownBy(() -> orderService.searchOrderSlice(SELLER_ID, "ORD-", "not-a-cursor", 20))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
     @Nested
     @DisplayName("Cancel Order Tests")
     class CancelOrderTests {
@@ -375,13 +728,46 @@ class OrderServiceTest {
             // Arrange
             when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
             when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            OrderStatus previousStatus = existingOrder.getStatus();
 
             // Act
             OrderResponse response = orderService.cancelOrder(ORDER_ID, USER_ID, "Changed my mind");
 
             // Assert
             assertThat(response.getStatus()).isEqualTo(OrderStatus.CANCELLED);
-            verify(orderRepository).save(any(Order.class));
+            InOrder inOrder = inOrder(orderDetailsService, orderRepository);
+            inOrder.verify(orderDetailsService).moveEmbeddedDetails(List.of(ORDER_ID));
+            inOrder.verify(orderRepository).save(any(Order.class));
+            verify(orderStatsProjection).onStatusChanged(existingOrder, previousStatus);
+            verify(sellerRollupService).onStatusChanged(existingOrder, previousStatus);
+            verify(orderDetailsService).appendStatusHistory(eq(ORDER_ID), any(OrderStatusHistory.class));
+            verify(sellerOrderLineProjection).onStatusChanged(existingOrder);
+        }
+
+        @Test
+        @DisplayName("Should retry a timed-out stock restore with the same idempotency key")
+        @SuppressWarnings("unchecked")
+        void cancelOrder_StockCallTimesOut_RetriesWithIdempotencyKey() {
+            // Arrange
+            ReflectionTestUtils.setField(orderService, "stockMaxAttempts", 3);
+            ReflectionTestUtils.setField(orderService, "stockRetryBackoffMs", 1L);
+            when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
+            when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(restTemplate.postForObject(anyString(), any(HttpEntity.class), eq(StockUpdateResponse.class)))
+                    .thenThrow(new ResourceAccessException("Read timed out"))
+                    .thenReturn(StockUpdateResponse.builder().success(true).build());
+
+            // Act
+            orderService.cancelOrder(ORDER_ID, USER_ID, "Changed my mind");
+
+            // Assert
+            ArgumentCaptor<HttpEntity<StockUpdateRequest>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+            verify(restTemplate, times(2)).postForObject(eq(PRODUCT_SERVICE_URL + "/internal/increment-stock"),
+                    captor.capture(), eq(StockUpdateResponse.class));
+            assertThat(captor.getAllValues())
+                    .extracting(entity -> entity.getHeaders().getFirst("Idempotency-Key"))
+                    .containsOnly("ORD-20260209-ABC12:increment-stock");
+            assertThat(captor.getValue().getBody().getOrderId()).isEqualTo("ORD-20260209-ABC12");
         }
 
         @Test
@@ -472,6 +858,8 @@ class OrderServiceTest {
             assertThat(response).isNotNull();
             assertThat(response.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
             assertThat(response.getId()).isEqualTo("new-order-id");
+            verify(orderDetailsService).withDetails(existingOrder);
+            verify(orderDetailsService).save(any(Order.class));
         }
 
         @Test
@@ -550,23 +938,62 @@ class OrderServiceTest {
     class DeleteOrderTests {
 
         @Test
-        @DisplayName("Should soft delete order successfully")
+        @DisplayName("Should soft delete order by moving it to the archive")
         void deleteOrder_Success() {
             // Arrange
+            LocalDateTime lastSeen = existingOrder.getUpdatedAt();
             when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
-            when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(orderArchive.move(any(Order.class), eq(lastSeen))).thenReturn(true);
 
             // Act
             orderService.deleteOrder(ORDER_ID, USER_ID);
 
             // Assert
             ArgumentCaptor<Order> orderCaptor = ArgumentCaptor.forClass(Order.class);
-            verify(orderRepository).save(orderCaptor.capture());
+            verify(orderArchive).move(orderCaptor.capture(), eq(lastSeen));
+            verify(orderRepository, never()).save(any(Order.class));
             
             Order savedOrder = orderCaptor.getValue();
             assertThat(savedOrder.getIsRemoved()).isTrue();
             assertThat(savedOrder.getRemovedBy()).isEqualTo(USER_ID);
             assertThat(savedOrder.getRemovedAt()).isNotNull();
+            verify(orderStatsProjection).onOrderRemoved(savedOrder);
+            verify(sellerOrderLineProjection).onOrderRemoved(savedOrder);
+        }
+
+        @Test
+        @DisplayName("Should start over when the order changed while being moved")
+        void deleteOrder_ChangedMeanwhile_Retries() {
+            // Arrange
+            when(orderRepository.findById(ORDER_ID)).thenAnswer(invocation -> {
+                // Every read sees the order as stored, not yet removed
+                existingOrder.setIsRemoved(false);
+                return Optional.of(existingOrder);
+            });
+            when(orderArchive.move(any(Order.class), any())).thenReturn(false, true);
+
+            // Act
+            orderService.deleteOrder(ORDER_ID, USER_ID);
+
+            // Assert
+            verify(orderRepository, times(2)).findById(ORDER_ID);
+            verify(orderStatsProjection, times(1)).onOrderRemoved(any(Order.class));
+        }
+
+        @Test
+        @DisplayName("Should mark an archived order removed")
+        void deleteOrder_Archived_MarksRemoved() {
+            // Arrange
+            when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.empty());
+            when(orderArchive.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
+            when(orderArchive.markRemoved(ORDER_ID, USER_ID)).thenReturn(true);
+
+            // Act
+            orderService.deleteOrder(ORDER_ID, USER_ID);
+
+            // Assert
+            verify(orderStatsProjection).onOrderRemoved(existingOrder);
+            verify(sellerOrderLineProjection).onOrderRemoved(existingOrder);
         }
 
         @Test
@@ -602,6 +1029,7 @@ class OrderServiceTest {
         void toOrderResponse_MapsAllFields() {
             // Arrange
             when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
+            when(orderDetailsService.withDetails(existingOrder)).thenReturn(existingOrder);
 
             // Act
             OrderResponse response = orderService.getOrderById(ORDER_ID, USER_ID);
@@ -628,6 +1056,7 @@ class OrderServiceTest {
         void toOrderResponse_MapsItemsCorrectly() {
             // Arrange
             when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(existingOrder));
+            when(orderDetailsService.withDetails(existingOrder)).thenReturn(existingOrder);
 
             // Act
             OrderResponse response = orderService.getOrderById(ORDER_ID, USER_ID);
@@ -0,0 +1,234 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.BuyerStats;
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderItem;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import ax.gritlab.buy_01.order.model.SellerStats;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.RenameCollectionOptions;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatsProjectionTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    @Mock
+    private MongoDatabase database;
+
+    private OrderStatsProjection projection;
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        projection = new OrderStatsProjection(mongoTemplate);
+
+        OrderItem widget = OrderItem.builder()
+                .productId("prod-1")
+                .productName("Widget A")
+                .quantity(2)
+                .subtotal(50.0)
+                .sellerId("seller-1")
+                .thumbnailMediaId("media-1")
+                .build();
+        OrderItem gadget = OrderItem.builder()
+                .productId("prod-2")
+                .productName("Gadget B")
+                .quantity(1)
+                .subtotal(100.0)
+                .sellerId("seller-2")
+                .build();
+
+        order = Order.builder()
+                .id("order-1")
+                .buyerId("buyer-1")
+                .status(OrderStatus.CONFIRMED)
+                .totalAmount(150.0)
+                .items(List.of(widget, gadget))
+                .sellerIds(Set.of("seller-1", "seller-2"))
+                .createdAt(LocalDateTime.of(2026, 2, 14, 10, 0))
+                .build();
+    }
+
+    private Document buyerUpdate() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(BuyerStats.class));
+        return update.getValue().getUpdateObject();
+    }
+
+    private Document sellerUpdate(String sellerId) {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2))
+                .upsert(query.capture(), update.capture(), eq(SellerStats.class));
+        for (int i = 0; i < query.getAllValues().size(); i++) {
+            if (sellerId.equals(query.getAllValues().get(i).getQueryObject().get("_id"))) {
+                return update.getAllValues().get(i).getUpdateObject();
+            }
+        }
+        throw new AssertionError("No update for " + sellerId);
+    }
+
+    @Test
+    @DisplayName("placed order adds to the buyer's totals, month bucket and product counters")
+    void onOrderPlaced_incrementsBuyerStats() {
+        projection.onOrderPlaced(order);
+
+        Document update = buyerUpdate();
+        assertThat(update.get("$inc", Document.class))
+                .containsEntry("totalOrders", 1)
+                .containsEntry("ordersByStatus.CONFIRMED", 1)
+                .containsEntry("totalSpent", 150.0)
+                .containsEntry("spentByMonth.2026-02", 150.0)
+                .containsEntry("products.prod-1.quantity", 2)
+                .containsEntry("products.prod-1.amount", 50.0)
+                .containsEntry("products.prod-1.orderCount", 1);
+        assertThat(update.get("$set", Document.class))
+                .containsEntry("products.prod-1.name", "Widget A")
+                .containsEntry("products.prod-1.thumbnailMediaId", "media-1");
+    }
+
+    @Test
+    @DisplayName("placed order only credits each seller with their own items")
+    void onOrderPlaced_incrementsEachSellerWithOwnItems() {
+        projection.onOrderPlaced(order);
+
+        Document inc = sellerUpdate("seller-1").get("$inc", Document.class);
+        assertThat(inc)
+                .containsEntry("totalOrders", 1)
+                .containsEntry("sellerOrdersByStatus.CONFIRMED", 1)
+                .containsEntry("totalRevenue", 50.0)
+                .containsEntry("totalUnitsSold", 2)
+                .containsEntry("revenueByMonth.2026-02", 50.0)
+                .containsKey("products.prod-1.quantity")
+                .doesNotContainKey("products.prod-2.quantity");
+    }
+
+    @Test
+    @DisplayName("cancelling moves the order between status counters and takes back completed amounts")
+    void onStatusChanged_cancelled_movesCountersAndReversesAmounts() {
+        order.setStatus(OrderStatus.CANCELLED);
+
+        projection.onStatusChanged(order, OrderStatus.CONFIRMED);
+
+        Document update = buyerUpdate();
+        assertThat(update.get("$inc", Document.class))
+                // Still one order, just in another status
+                .doesNotContainKey("totalOrders")
+                .containsEntry("ordersByStatus.CONFIRMED", -1)
+                .containsEntry("ordersByStatus.CANCELLED", 1)
+                .containsEntry("totalSpent", -150.0)
+                .containsEntry("spentByMonth.2026-02", -150.0)
+                .containsEntry("products.prod-1.quantity", -2)
+                .containsEntry("products.prod-1.orderCount", -1);
+        assertThat(update.get("$set", Document.class)).doesNotContainKey("products.prod-1.name");
+    }
+
+    @Test
+    @DisplayName("removing an order takes away everything it contributed")
+    void onOrderRemoved_reversesContribution() {
+        projection.onOrderRemoved(order);
+
+        assertThat(buyerUpdate().get("$inc", Document.class))
+                .containsEntry("totalOrders", -1)
+                .containsEntry("ordersByStatus.CONFIRMED", -1)
+                .containsEntry("totalSpent", -150.0);
+    }
+
+    @Test
+    @DisplayName("status changes of removed orders are ignored")
+    void onStatusChanged_removedOrder_noWrite() {
+        order.setIsRemoved(true);
+        order.setStatus(OrderStatus.CANCELLED);
+
+        projection.onStatusChanged(order, OrderStatus.CONFIRMED);
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("a failing stats write does not fail the order operation")
+    void onOrderPlaced_writeFails_swallowed() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(BuyerStats.class)))
+                .thenThrow(new RuntimeException("connection reset"));
+
+        assertThatCode(() -> projection.onOrderPlaced(order)).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("a rebuild writes into fresh collections and only then renames them over the live ones")
+    void rebuild_buildsOutOfPlaceThenRenames() {
+        when(mongoTemplate.getCollectionName(BuyerStats.class)).thenReturn("buyer_stats");
+        when(mongoTemplate.getCollectionName(SellerStats.class)).thenReturn("seller_stats");
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(order));
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class), eq(OrderArchive.COLLECTION)))
+                .thenReturn(Stream.empty());
+        when(mongoTemplate.getCollection(anyString())).thenReturn(collection);
+        when(mongoTemplate.getDb()).thenReturn(database);
+        when(database.getName()).thenReturn("buy01");
+
+        assertThat(projection.rebuild()).isEqualTo(1);
+
+        ArgumentCaptor<String> built = ArgumentCaptor.forClass(String.class);
+        verify(mongoTemplate).upsert(any(Query.class), any(Update.class), eq(BuyerStats.class), built.capture());
+        assertThat(built.getValue()).startsWith("buyer_stats_rebuild_");
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(BuyerStats.class));
+        ArgumentCaptor<MongoNamespace> renamed = ArgumentCaptor.forClass(MongoNamespace.class);
+        verify(collection, times(2)).renameCollection(renamed.capture(), any(RenameCollectionOptions.class));
+        assertThat(renamed.getAllValues()).extracting(MongoNamespace::getCollectionName)
+                .containsExactly("buyer_stats", "seller_stats");
+        verify(mongoTemplate, never()).dropCollection(BuyerStats.class);
+    }
+
+    @Test
+    @DisplayName("a failing write fails the rebuild and leaves the live stats in place")
+    void rebuild_writeFails_keepsLiveStats() {
+        when(mongoTemplate.getCollectionName(BuyerStats.class)).thenReturn("buyer_stats");
+        when(mongoTemplate.getCollectionName(SellerStats.class)).thenReturn("seller_stats");
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(order));
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(BuyerStats.class), anyString()))
+                .thenThrow(new RuntimeException("connection reset"));
+
+        assertThatThrownBy(() -> projection.rebuild()).hasMessage("connection reset");
+
+        verify(mongoTemplate, never()).getCollection(anyString());
+        verify(mongoTemplate).dropCollection(startsWith("buyer_stats_rebuild_"));
+        verify(mongoTemplate).dropCollection(startsWith("seller_stats_rebuild_"));
+    }
+}
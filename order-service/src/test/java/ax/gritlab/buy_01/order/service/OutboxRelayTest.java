@@ -0,0 +1,95 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.OutboxEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(mongoTemplate, kafkaTemplate);
+        ReflectionTestUtils.setField(relay, "batchSize", 3);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMillis", 1000L);
+    }
+
+    @Test
+    @DisplayName("A batch is sent as a whole, flushed once and deleted with one query")
+    void relay_sendsBatchThenDeletes() {
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(List.of(event("e1"), event("e2")));
+        when(kafkaTemplate.send(eq("order.placed"), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(relay.relay()).isEqualTo(2);
+
+        InOrder order = inOrder(kafkaTemplate, mongoTemplate);
+        order.verify(kafkaTemplate, times(2)).send(eq("order.placed"), any(), any());
+        order.verify(kafkaTemplate).flush();
+        ArgumentCaptor<Query> deleted = ArgumentCaptor.forClass(Query.class);
+        order.verify(mongoTemplate).remove(deleted.capture(), eq(OutboxEvent.class));
+        assertThat(deleted.getValue().getQueryObject().toJson()).contains("e1", "e2");
+    }
+
+    @Test
+    @DisplayName("A failed send keeps it and every later event for the next poll")
+    void relay_failure_deletesOnlyPrefix() {
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class)))
+                .thenReturn(List.of(event("e1"), event("e2"), event("e3")));
+        when(kafkaTemplate.send(eq("order.placed"), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(relay.relay()).isEqualTo(1);
+
+        ArgumentCaptor<Query> deleted = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(deleted.capture(), eq(OutboxEvent.class));
+        assertThat(deleted.getValue().getQueryObject().toJson()).contains("e1").doesNotContain("e2", "e3");
+    }
+
+    @Test
+    @DisplayName("An empty outbox sends nothing")
+    void relay_empty_noop() {
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(List.of());
+
+        assertThat(relay.relay()).isZero();
+
+        verifyNoInteractions(kafkaTemplate);
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(OutboxEvent.class));
+    }
+
+    private static OutboxEvent event(String id) {
+        return OutboxEvent.builder().id(id).topic("order.placed").key("order-" + id).payload("{}").build();
+    }
+}
@@ -0,0 +1,103 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import ax.gritlab.buy_01.order.model.OutboxEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PendingOrderSweeperTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 6, 1, 12, 0);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private OrderOutbox orderOutbox;
+
+    @Mock
+    private OrderService orderService;
+
+    private PendingOrderSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        sweeper = new PendingOrderSweeper(mongoTemplate, orderOutbox, orderService);
+        ReflectionTestUtils.setField(sweeper, "republishAfterMillis", 120_000L);
+        ReflectionTestUtils.setField(sweeper, "cancelAfterMillis", 1_800_000L);
+        ReflectionTestUtils.setField(sweeper, "batchSize", 2);
+    }
+
+    @Test
+    @DisplayName("Orders pending for a while get order.placed again, orders pending too long are expired")
+    void sweep_republishesAndExpires() {
+        Order stale = order("a", NOW.minusMinutes(5));
+        Order expired = order("b", NOW.minusHours(1));
+        Order alsoStale = order("c", NOW.minusMinutes(10));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class)))
+                .thenReturn(List.of(stale, expired))
+                .thenReturn(List.of(alsoStale));
+        OutboxEvent placed = OutboxEvent.builder().topic(OrderOutbox.ORDER_PLACED_TOPIC).build();
+        when(orderOutbox.orderPlaced(any(Order.class))).thenReturn(placed);
+        when(orderService.expirePendingOrder(expired)).thenReturn(true);
+
+        PendingOrderSweeper.SweepResult result = sweeper.sweep(NOW);
+
+        assertThat(result.republished()).isEqualTo(2);
+        assertThat(result.cancelled()).isEqualTo(1);
+        verify(orderOutbox, times(2)).append(placed);
+        verify(orderOutbox, never()).orderPlaced(expired);
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queries.capture(), eq(Order.class));
+        Document first = queries.getAllValues().get(0).getQueryObject();
+        assertThat(first.get("status")).isEqualTo(OrderStatus.PENDING);
+        assertThat(first.get("createdAt", Document.class)).containsEntry("$lt", NOW.minusMinutes(2));
+        assertThat(queries.getAllValues().get(1).getQueryObject().get("_id", Document.class))
+                .containsEntry("$gt", "b");
+    }
+
+    @Test
+    @DisplayName("An order that moved on before it could be expired is not counted")
+    void sweep_orderMovedOn_notCounted() {
+        Order expired = order("a", NOW.minusHours(1));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(expired));
+        when(orderService.expirePendingOrder(expired)).thenReturn(false);
+
+        PendingOrderSweeper.SweepResult result = sweeper.sweep(NOW);
+
+        assertThat(result.cancelled()).isZero();
+        assertThat(result.republished()).isZero();
+    }
+
+    private static Order order(String id, LocalDateTime createdAt) {
+        return Order.builder()
+                .id(id)
+                .orderNumber("ORD-" + id)
+                .status(OrderStatus.PENDING)
+                .createdAt(createdAt)
+                .build();
+    }
+}
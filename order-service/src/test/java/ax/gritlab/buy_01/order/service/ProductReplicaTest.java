@@ -0,0 +1,84 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.ProductReplicaEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ProductReplicaTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private ProductReplica productReplica;
+
+    @BeforeEach
+    void setUp() {
+        productReplica = new ProductReplica(mongoTemplate, new ObjectMapper());
+    }
+
+    private String snapshot(long version, double price) {
+        return "{\"type\":\"UPSERT\",\"id\":\"p1\",\"version\":" + version + ",\"name\":\"Lamp\",\"price\":" + price + "}";
+    }
+
+    @Test
+    @DisplayName("keeps the newest snapshot when messages arrive out of order")
+    void apply_ignoresOlderVersions() {
+        productReplica.apply("p1", snapshot(3, 20.0));
+        productReplica.apply("p1", snapshot(2, 10.0));
+
+        assertThat(productReplica.get("p1").get("price").asDouble()).isEqualTo(20.0);
+
+        productReplica.apply("p1", snapshot(4, 25.0));
+
+        assertThat(productReplica.get("p1").get("price").asDouble()).isEqualTo(25.0);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("removes the product on a tombstone")
+    void apply_tombstoneRemovesProduct() {
+        productReplica.apply("p1", snapshot(1, 10.0));
+        productReplica.apply("p1", null);
+
+        assertThat(productReplica.get("p1")).isNull();
+        assertThat(productReplica.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("ignores malformed snapshots")
+    void apply_malformedPayloadIgnored() {
+        productReplica.apply("p1", "not json{");
+
+        assertThat(productReplica.get("p1")).isNull();
+    }
+
+    @Test
+    @DisplayName("persists accepted snapshots when persistence is enabled")
+    void apply_persistsWhenEnabled() {
+        ReflectionTestUtils.setField(productReplica, "persist", true);
+
+        productReplica.apply("p1", snapshot(2, 10.0));
+        productReplica.apply("p1", snapshot(1, 5.0));
+        productReplica.apply("p1", null);
+
+        verify(mongoTemplate, times(1)).upsert(any(Query.class), any(Update.class), eq(ProductReplicaEntry.class));
+        verify(mongoTemplate).remove(any(Query.class), eq(ProductReplicaEntry.class));
+    }
+}
@@ -0,0 +1,517 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.dto.BuyerProfileStatsDto;
+import ax.gritlab.buy_01.order.dto.SellerProfileStatsDto;
+import ax.gritlab.buy_01.order.model.BuyerStats;
+import ax.gritlab.buy_01.order.model.DataMigration;
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderItem;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import ax.gritlab.buy_01.order.model.SellerOrderLine;
+import ax.gritlab.buy_01.order.model.SellerStats;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The aggregations behind the statistics run inside MongoDB, so these cases
+ * run them against a real database: each test stores the orders (and seller
+ * order lines) the buyer or seller query would find. ProfileStatsServiceTest
+ * covers the mapping of results with a mocked MongoTemplate.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ProfileStatsServiceMongoTest {
+
+    @Container
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0");
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private DataMigrations dataMigrations;
+    private ProfileStatsService profileStatsService;
+
+    private Order deliveredOrder;
+    private Order confirmedOrder;
+    private Order pendingOrder;
+    private Order cancelledOrder;
+
+    @BeforeEach
+    void setUp() {
+        mongoClient = MongoClients.create(mongoDBContainer.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(mongoClient, "profile-stats-test");
+        mongoTemplate.dropCollection(Order.class);
+        mongoTemplate.dropCollection(OrderArchive.COLLECTION);
+        mongoTemplate.dropCollection(BuyerStats.class);
+        mongoTemplate.dropCollection(SellerStats.class);
+        mongoTemplate.dropCollection(SellerOrderLine.class);
+        mongoTemplate.dropCollection(DataMigration.class);
+        dataMigrations = new DataMigrations(mongoTemplate);
+        profileStatsService = new ProfileStatsService(mongoTemplate, dataMigrations);
+
+        OrderItem item1 = OrderItem.builder()
+                .productId("prod-1")
+                .productName("Widget A")
+                .priceAtPurchase(25.0)
+                .quantity(2)
+                .subtotal(50.0)
+                .sellerId("seller-1")
+                .sellerName("Seller One")
+                .thumbnailMediaId("media-1")
+                .build();
+
+        OrderItem item2 = OrderItem.builder()
+                .productId("prod-2")
+                .productName("Widget B")
+                .priceAtPurchase(10.0)
+                .quantity(3)
+                .subtotal(30.0)
+                .sellerId("seller-1")
+                .sellerName("Seller One")
+                .thumbnailMediaId("media-2")
+                .build();
+
+        OrderItem item3 = OrderItem.builder()
+                .productId("prod-3")
+                .productName("Gadget C")
+                .priceAtPurchase(100.0)
+                .quantity(1)
+                .subtotal(100.0)
+                .sellerId("seller-2")
+                .sellerName("Seller Two")
+                .thumbnailMediaId("media-3")
+                .build();
+
+        deliveredOrder = Order.builder()
+                .id("order-1")
+                .buyerId("buyer-1")
+                .status(OrderStatus.DELIVERED)
+                .totalAmount(50.0)
+                .items(List.of(item1))
+                .build();
+
+        confirmedOrder = Order.builder()
+                .id("order-2")
+                .buyerId("buyer-1")
+                .status(OrderStatus.CONFIRMED)
+                .totalAmount(30.0)
+                .items(List.of(item2))
+                .build();
+
+        pendingOrder = Order.builder()
+                .id("order-3")
+                .buyerId("buyer-1")
+                .status(OrderStatus.PENDING)
+                .totalAmount(100.0)
+                .items(List.of(item3))
+                .build();
+
+        cancelledOrder = Order.builder()
+                .id("order-4")
+                .buyerId("buyer-1")
+                .status(OrderStatus.CANCELLED)
+                .totalAmount(25.0)
+                .items(List.of(item1))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoClient.close();
+    }
+
+    /**
+     * Store orders as the buyer's orders.
+     */
+    private void givenBuyerOrders(String buyerId, List<Order> orders) {
+        orders.forEach(order -> order.setBuyerId(buyerId));
+        mongoTemplate.insertAll(orders);
+    }
+
+    /**
+     * Store orders and their seller order lines, as checkout would.
+     */
+    private void givenSellerOrders(List<Order> orders) {
+        SellerOrderLineProjection lines = new SellerOrderLineProjection(mongoTemplate);
+        for (Order order : orders) {
+            order.setSellerIds(new HashSet<>());
+            order.getItems().forEach(item -> order.getSellerIds().add(item.getSellerId()));
+        }
+        mongoTemplate.insertAll(orders);
+        orders.forEach(lines::onOrderPlaced);
+    }
+
+    // ==================== Buyer Stats Tests ====================
+
+    @Test
+    @DisplayName("getBuyerStats returns correct totals for delivered and confirmed orders")
+    void getBuyerStats_withMixedOrders_returnsCorrectTotals() {
+        List<Order> orders = List.of(deliveredOrder, confirmedOrder, pendingOrder, cancelledOrder);
+        givenBuyerOrders("buyer-1", orders);
+
+        BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-1");
+
+        assertThat(stats.getUserId()).isEqualTo("buyer-1");
+        assertThat(stats.getTotalOrders()).isEqualTo(4);
+        // Only DELIVERED + CONFIRMED count towards totalSpent
+        assertThat(stats.getTotalSpent()).isEqualTo(80.0);
+        // PENDING counts as pending
+        assertThat(stats.getPendingOrders()).isEqualTo(1);
+        // DELIVERED + CONFIRMED
+        assertThat(stats.getDeliveredOrders()).isEqualTo(2);
+        assertThat(stats.getCancelledOrders()).isEqualTo(1);
+        // Average = 80 / 2 = 40
+        assertThat(stats.getAverageOrderValue()).isEqualTo(40.0);
+    }
+
+    @Test
+    @DisplayName("getBuyerStats with no orders returns zero stats")
+    void getBuyerStats_withNoOrders_returnsZeroStats() {
+        givenBuyerOrders("buyer-empty", Collections.emptyList());
+
+        BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-empty");
+
+        assertThat(stats.getUserId()).isEqualTo("buyer-empty");
+        assertThat(stats.getTotalOrders()).isZero();
+        assertThat(stats.getTotalSpent()).isZero();
+        assertThat(stats.getPendingOrders()).isZero();
+        assertThat(stats.getDeliveredOrders()).isZero();
+        assertThat(stats.getCancelledOrders()).isZero();
+        assertThat(stats.getAverageOrderValue()).isZero();
+        assertThat(stats.getTopProductsByAmount()).isEmpty();
+        assertThat(stats.getMostBoughtProducts()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("getBuyerStats computes product statistics correctly")
+    void getBuyerStats_computesProductStats() {
+        List<Order> orders = List.of(deliveredOrder, confirmedOrder);
+        givenBuyerOrders("buyer-1", orders);
+
+        BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-1");
+
+        assertThat(stats.getTopProductsByAmount()).hasSize(2);
+        assertThat(stats.getMostBoughtProducts()).hasSize(2);
+        // prod-1 has 50.0 total, prod-2 has 30.0 total - top by amount should be prod-1 first
+        assertThat(stats.getTopProductsByAmount().get(0).getProductId()).isEqualTo("prod-1");
+        // prod-2 has quantity 3, prod-1 has quantity 2 - most bought should be prod-2 first
+        assertThat(stats.getMostBoughtProducts().get(0).getProductId()).isEqualTo("prod-2");
+    }
+
+    @Test
+    @DisplayName("getBuyerStats counts PROCESSING and SHIPPED as pending")
+    void getBuyerStats_countsProcessingAndShippedAsPending() {
+        Order processingOrder = Order.builder()
+                .id("order-p")
+                .buyerId("buyer-1")
+                .status(OrderStatus.PROCESSING)
+                .totalAmount(10.0)
+                .items(Collections.emptyList())
+                .build();
+
+        Order shippedOrder = Order.builder()
+                .id("order-s")
+                .buyerId("buyer-1")
+                .status(OrderStatus.SHIPPED)
+                .totalAmount(20.0)
+                .items(Collections.emptyList())
+                .build();
+
+        givenBuyerOrders("buyer-1", List.of(pendingOrder, processingOrder, shippedOrder));
+
+        BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-1");
+
+        // PENDING + PROCESSING + SHIPPED = 3 pending
+        assertThat(stats.getPendingOrders()).isEqualTo(3);
+        assertThat(stats.getDeliveredOrders()).isZero();
+    }
+
+    @Test
+    @DisplayName("getBuyerStats keeps only the top 5 products, highest first")
+    void getBuyerStats_limitsTopProducts() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            OrderItem item = OrderItem.builder()
+                    .productId("prod-" + i)
+                    .productName("Product " + i)
+                    .priceAtPurchase(10.0 * i)
+                    .quantity(8 - i)
+                    .subtotal(10.0 * i * (8 - i))
+                    .sellerId("seller-1")
+                    .build();
+            orders.add(Order.builder()
+                    .id("order-top-" + i)
+                    .status(OrderStatus.DELIVERED)
+                    .totalAmount(item.getSubtotal())
+                    .items(List.of(item))
+                    .build());
+        }
+        givenBuyerOrders("buyer-1", orders);
+
+        BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-1");
+
+        // Subtotals are 70, 120, 150, 160, 150, 120, 70; ties fall back to product ID
+        assertThat(stats.getTopProductsByAmount()).extracting("productId")
+                .containsExactly("prod-4", "prod-3", "prod-5", "prod-2", "prod-6");
+        assertThat(stats.getMostBoughtProducts()).extracting("productId")
+                .containsExactly("prod-1", "prod-2", "prod-3", "prod-4", "prod-5");
+        assertThat(stats.getMostBoughtProducts().get(0).getOrderCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("buyer stats read model matches the aggregation after placing and cancelling orders")
+    void getBuyerStats_readModel_matchesAggregation() {
+        OrderStatsProjection projection = new OrderStatsProjection(mongoTemplate);
+        List<Order> orders = List.of(deliveredOrder, confirmedOrder, pendingOrder, cancelledOrder);
+        givenBuyerOrders("buyer-1", orders);
+        orders.forEach(projection::onOrderPlaced);
+        confirmedOrder.setStatus(OrderStatus.CANCELLED);
+        mongoTemplate.save(confirmedOrder);
+        projection.onStatusChanged(confirmedOrder, OrderStatus.CONFIRMED);
+        dataMigrations.markDone(DataMigrations.ORDER_STATS);
+
+        BuyerProfileStatsDto fromReadModel = profileStatsService.getBuyerStats("buyer-1");
+
+        assertThat(fromReadModel).isEqualTo(profileStatsService.aggregateBuyerStats("buyer-1"));
+        assertThat(fromReadModel.getTotalSpent()).isEqualTo(50.0);
+        assertThat(fromReadModel.getCancelledOrders()).isEqualTo(2);
+    }
+
+    // ==================== Seller Stats Tests ====================
+
+    @Test
+    @DisplayName("getSellerStats returns correct totals for seller items")
+    void getSellerStats_withMixedOrders_returnsCorrectTotals() {
+        List<Order> orders = List.of(deliveredOrder, confirmedOrder, pendingOrder, cancelledOrder);
+        givenSellerOrders(orders);
+
+        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-1");
+
+        assertThat(stats.getSellerId()).isEqualTo("seller-1");
+        // pendingOrder only has seller-2 items
+        assertThat(stats.getTotalOrders()).isEqualTo(3);
+        // DELIVERED item1: 50.0 + CONFIRMED item2: 30.0 = 80.0
+        assertThat(stats.getTotalEarned()).isEqualTo(80.0);
+        // Total products sold: 2 + 3 = 5
+        assertThat(stats.getTotalProductsSold()).isEqualTo(5);
+        // pendingOrder has seller-2 items, so it's skipped for seller-1
+        assertThat(stats.getPendingOrders()).isZero();
+        // DELIVERED + CONFIRMED
+        assertThat(stats.getDeliveredOrders()).isEqualTo(2);
+        assertThat(stats.getCancelledOrders()).isEqualTo(1);
+        // Average = 80 / 2 = 40
+        assertThat(stats.getAverageOrderValue()).isEqualTo(40.0);
+    }
+
+    @Test
+    @DisplayName("getSellerStats with no orders returns zero stats")
+    void getSellerStats_withNoOrders_returnsZeroStats() {
+        givenSellerOrders(Collections.emptyList());
+
+        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-empty");
+
+        assertThat(stats.getSellerId()).isEqualTo("seller-empty");
+        assertThat(stats.getTotalOrders()).isZero();
+        assertThat(stats.getTotalEarned()).isZero();
+        assertThat(stats.getTotalProductsSold()).isZero();
+        assertThat(stats.getPendingOrders()).isZero();
+        assertThat(stats.getDeliveredOrders()).isZero();
+        assertThat(stats.getCancelledOrders()).isZero();
+        assertThat(stats.getAverageOrderValue()).isZero();
+        assertThat(stats.getBestSellingByAmount()).isEmpty();
+        assertThat(stats.getBestSellingByQuantity()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("getSellerStats filters items to only seller's items")
+    void getSellerStats_filtersToSellerItems() {
+        // Order has items from both seller-1 and seller-2
+        OrderItem sellerOneItem = OrderItem.builder()
+                .productId("prod-1")
+                .productName("Widget A")
+                .priceAtPurchase(25.0)
+                .quantity(2)
+                .subtotal(50.0)
+                .sellerId("seller-1")
+                .build();
+
+        OrderItem sellerTwoItem = OrderItem.builder()
+                .productId("prod-3")
+                .productName("Gadget C")
+                .priceAtPurchase(100.0)
+                .quantity(1)
+                .subtotal(100.0)
+                .sellerId("seller-2")
+                .build();
+
+        Order mixedOrder = Order.builder()
+                .id("order-mixed")
+                .status(OrderStatus.DELIVERED)
+                .totalAmount(150.0)
+                .items(List.of(sellerOneItem, sellerTwoItem))
+                .build();
+
+        givenSellerOrders(List.of(mixedOrder));
+
+        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-1");
+
+        // Only seller-1's item should count
+        assertThat(stats.getTotalEarned()).isEqualTo(50.0);
+        assertThat(stats.getTotalProductsSold()).isEqualTo(2);
+        assertThat(stats.getBestSellingByAmount()).hasSize(1);
+        assertThat(stats.getBestSellingByAmount().get(0).getProductId()).isEqualTo("prod-1");
+    }
+
+    @Test
+    @DisplayName("getSellerStats skips orders where seller has no items")
+    void getSellerStats_skipsOrdersWithNoSellerItems() {
+        // An order where all items belong to a different seller
+        OrderItem otherSellerItem = OrderItem.builder()
+                .productId("prod-other")
+                .productName("Other Product")
+                .priceAtPurchase(50.0)
+                .quantity(1)
+                .subtotal(50.0)
+                .sellerId("seller-other")
+                .build();
+
+        Order otherSellerOrder = Order.builder()
+                .id("order-other")
+                .status(OrderStatus.DELIVERED)
+                .totalAmount(50.0)
+                .items(List.of(otherSellerItem))
+                .build();
+
+        givenSellerOrders(List.of(otherSellerOrder));
+
+        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-1");
+
+        assertThat(stats.getTotalEarned()).isZero();
+        assertThat(stats.getTotalProductsSold()).isZero();
+        assertThat(stats.getDeliveredOrders()).isZero();
+        assertThat(stats.getPendingOrders()).isZero();
+    }
+
+    @Test
+    @DisplayName("getSellerStats counts PENDING, PROCESSING, SHIPPED as pending")
+    void getSellerStats_countsPendingStatuses() {
+        OrderItem sellerItem = OrderItem.builder()
+                .productId("prod-1")
+                .productName("Widget")
+                .priceAtPurchase(10.0)
+                .quantity(1)
+                .subtotal(10.0)
+                .sellerId("seller-1")
+                .build();
+
+        Order processing = Order.builder()
+                .id("o-proc")
+                .status(OrderStatus.PROCESSING)
+                .totalAmount(10.0)
+                .items(List.of(sellerItem))
+                .build();
+
+        Order shipped = Order.builder()
+                .id("o-ship")
+                .status(OrderStatus.SHIPPED)
+                .totalAmount(10.0)
+                .items(List.of(sellerItem))
+                .build();
+
+        Order pending = Order.builder()
+                .id("o-pend")
+                .status(OrderStatus.PENDING)
+                .totalAmount(10.0)
+                .items(List.of(sellerItem))
+                .build();
+
+        givenSellerOrders(List.of(processing, shipped, pending));
+
+        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-1");
+
+        assertThat(stats.getPendingOrders()).isEqualTo(3);
+        assertThat(stats.getDeliveredOrders()).isZero();
+        assertThat(stats.getTotalEarned()).isZero();
+    }
+
+    @Test
+    @DisplayName("getSellerStats handles CONFIRMED same as DELIVERED (merged case)")
+    void getSellerStats_confirmedAndDeliveredMerged() {
+        OrderItem sellerItem = OrderItem.builder()
+                .productId("prod-1")
+                .productName("Widget")
+                .priceAtPurchase(20.0)
+                .quantity(1)
+                .subtotal(20.0)
+                .sellerId("seller-1")
+                .build();
+
+        Order confirmed = Order.builder()
+                .id("o-conf")
+                .status(OrderStatus.CONFIRMED)
+                .totalAmount(20.0)
+                .items(List.of(sellerItem))
+                .build();
+
+        Order delivered = Order.builder()
+                .id("o-del")
+                .status(OrderStatus.DELIVERED)
+                .totalAmount(20.0)
+                .items(List.of(sellerItem))
+                .build();
+
+        givenSellerOrders(List.of(confirmed, delivered));
+
+        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-1");
+
+        assertThat(stats.getDeliveredOrders()).isEqualTo(2);
+        assertThat(stats.getTotalEarned()).isEqualTo(40.0);
+        assertThat(stats.getTotalProductsSold()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("seller stats read model matches the aggregation, also after a rebuild")
+    void getSellerStats_readModel_matchesAggregation() {
+        OrderStatsProjection projection = new OrderStatsProjection(mongoTemplate);
+        List<Order> orders = List.of(deliveredOrder, confirmedOrder, pendingOrder, cancelledOrder);
+        givenSellerOrders(orders);
+        orders.forEach(projection::onOrderPlaced);
+        dataMigrations.markDone(DataMigrations.ORDER_STATS);
+
+        SellerProfileStatsDto fromReadModel = profileStatsService.getSellerStats("seller-1");
+        assertThat(fromReadModel).isEqualTo(profileStatsService.aggregateSellerStats("seller-1"));
+
+        assertThat(projection.rebuild()).isEqualTo(4);
+        assertThat(profileStatsService.getSellerStats("seller-1")).isEqualTo(fromReadModel);
+    }
+
+    @Test
+    @DisplayName("a rebuild counts orders placed before the read model existed and keeps it readable throughout")
+    void rebuild_backfillsExistingOrders() {
+        OrderStatsProjection projection = new OrderStatsProjection(mongoTemplate);
+        givenBuyerOrders("buyer-1", List.of(deliveredOrder, confirmedOrder));
+        // Placed after the read model went live: only its delta is recorded
+        givenBuyerOrders("buyer-1", List.of(pendingOrder));
+        projection.onOrderPlaced(pendingOrder);
+
+        assertThat(projection.rebuild()).isEqualTo(3);
+        dataMigrations.markDone(DataMigrations.ORDER_STATS);
+
+        assertThat(profileStatsService.getBuyerStats("buyer-1"))
+                .isEqualTo(profileStatsService.aggregateBuyerStats("buyer-1"));
+        assertThat(mongoTemplate.getCollectionNames()).noneMatch(name -> name.contains("_rebuild_"));
+    }
+}
@@ -2,108 +2,92 @@ package ax.gritlab.buy_01.order.service;
 
 import ax.gritlab.buy_01.order.dto.BuyerProfileStatsDto;
 import ax.gritlab.buy_01.order.dto.SellerProfileStatsDto;
+import ax.gritlab.buy_01.order.model.BuyerStats;
 import ax.gritlab.buy_01.order.model.Order;
-import ax.gritlab.buy_01.order.model.OrderItem;
-import ax.gritlab.buy_01.order.model.OrderStatus;
-import ax.gritlab.buy_01.order.repository.OrderRepository;
+import ax.gritlab.buy_01.order.model.ProductTally;
+import ax.gritlab.buy_01.order.model.SellerOrderLine;
+import ax.gritlab.buy_01.order.model.SellerStats;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
 
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+/**
+ * Mapping of stats documents and aggregation results to the profile DTOs.
+ * The aggregations themselves are run against MongoDB in ProfileStatsServiceMongoTest.
+ */
 @ExtendWith(MockitoExtension.class)
 class ProfileStatsServiceTest {
 
     @Mock
-    private OrderRepository orderRepository;
+    private MongoTemplate mongoTemplate;
 
-    @InjectMocks
-    private ProfileStatsService profileStatsService;
+    @Mock
+    private DataMigrations dataMigrations;
 
-    private Order deliveredOrder;
-    private Order confirmedOrder;
-    private Order pendingOrder;
-    private Order cancelledOrder;
+    private ProfileStatsService profileStatsService;
 
     @BeforeEach
     void setUp() {
-        OrderItem item1 = OrderItem.builder()
-                .productId("prod-1")
-                .productName("Widget A")
-                .priceAtPurchase(25.0)
-                .quantity(2)
-                .subtotal(50.0)
-                .sellerId("seller-1")
-                .sellerName("Seller One")
-                .thumbnailMediaId("media-1")
-                .build();
+        profileStatsService = new ProfileStatsService(mongoTemplate, dataMigrations);
+    }
 
-        OrderItem item2 = OrderItem.builder()
-                .productId("prod-2")
-                .productName("Widget B")
-                .priceAtPurchase(10.0)
-                .quantity(3)
-                .subtotal(30.0)
-                .sellerId("seller-1")
-                .sellerName("Seller One")
-                .thumbnailMediaId("media-2")
-                .build();
+    private void givenStatsBuilt() {
+        when(dataMigrations.isDone(DataMigrations.ORDER_STATS)).thenReturn(true);
+    }
 
-        OrderItem item3 = OrderItem.builder()
-                .productId("prod-3")
-                .productName("Gadget C")
-                .priceAtPurchase(100.0)
-                .quantity(1)
-                .subtotal(100.0)
-                .sellerId("seller-2")
-                .sellerName("Seller Two")
-                .thumbnailMediaId("media-3")
+    private static ProductTally tally(String name, int quantity, double amount, int orderCount) {
+        return ProductTally.builder()
+                .name(name)
+                .thumbnailMediaId("media-" + name)
+                .quantity(quantity)
+                .amount(amount)
+                .orderCount(orderCount)
                 .build();
+    }
 
-        deliveredOrder = Order.builder()
-                .id("order-1")
-                .buyerId("buyer-1")
-                .status(OrderStatus.DELIVERED)
-                .totalAmount(50.0)
-                .items(List.of(item1))
-                .build();
+    private static Map<String, Integer> counts(Object... statusAndCount) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < statusAndCount.length; i += 2) {
+            counts.put((String) statusAndCount[i], (Integer) statusAndCount[i + 1]);
+        }
+        return counts;
+    }
 
-        confirmedOrder = Order.builder()
-                .id("order-2")
-                .buyerId("buyer-1")
-                .status(OrderStatus.CONFIRMED)
-                .totalAmount(30.0)
-                .items(List.of(item2))
-                .build();
+    private static Document statusRow(String status, int orders, double amount) {
+        return new Document("_id", status).append("orders", orders).append("amount", amount);
+    }
 
-        pendingOrder = Order.builder()
-                .id("order-3")
-                .buyerId("buyer-1")
-                .status(OrderStatus.PENDING)
-                .totalAmount(100.0)
-                .items(List.of(item3))
-                .build();
+    private static Document productRow(String productId, int quantity, double amount, int orderCount) {
+        return new Document("_id", productId)
+                .append("productName", "Product " + productId)
+                .append("thumbnailMediaId", "media-" + productId)
+                .append("totalQuantity", quantity)
+                .append("totalAmount", amount)
+                .append("orderCount", orderCount);
+    }
 
-        cancelledOrder = Order.builder()
-                .id("order-4")
-                .buyerId("buyer-1")
-                .status(OrderStatus.CANCELLED)
-                .totalAmount(25.0)
-                .items(List.of(item1))
-                .build();
+    private void givenAggregation(String collection, Document result) {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(collection), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(result != null ? List.of(result) : List.of(), new Document()));
     }
 
     // ==================== Buyer Stats Tests ====================
@@ -111,88 +95,131 @@ class ProfileStatsServiceTest {
     @Test
     @DisplayName("getBuyerStats returns correct totals for delivered and confirmed orders")
     void getBuyerStats_withMixedOrders_returnsCorrectTotals() {
-        List<Order> orders = List.of(deliveredOrder, confirmedOrder, pendingOrder, cancelledOrder);
-        when(orderRepository.findByBuyerIdAndNotRemoved(eq("buyer-1"), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(orders));
+        givenStatsBuilt();
+        when(mongoTemplate.findById("buyer-1", BuyerStats.class)).thenReturn(BuyerStats.builder()
+                .id("buyer-1")
+                .totalOrders(4)
+                .totalSpent(80.0)
+                .ordersByStatus(counts("DELIVERED", 1, "CONFIRMED", 1, "PENDING", 1, "CANCELLED", 1))
+                .build());
 
         BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-1");
 
         assertThat(stats.getUserId()).isEqualTo("buyer-1");
         assertThat(stats.getTotalOrders()).isEqualTo(4);
-        // Only DELIVERED + CONFIRMED count towards totalSpent
         assertThat(stats.getTotalSpent()).isEqualTo(80.0);
-        // PENDING counts as pending
         assertThat(stats.getPendingOrders()).isEqualTo(1);
         // DELIVERED + CONFIRMED
         assertThat(stats.getDeliveredOrders()).isEqualTo(2);
         assertThat(stats.getCancelledOrders()).isEqualTo(1);
         // Average = 80 / 2 = 40
         assertThat(stats.getAverageOrderValue()).isEqualTo(40.0);
+        verify(mongoTemplate, never()).aggregate(any(Aggregation.class), anyString(), eq(Document.class));
     }
 
     @Test
-    @DisplayName("getBuyerStats with no orders returns zero stats")
-    void getBuyerStats_withNoOrders_returnsZeroStats() {
-        when(orderRepository.findByBuyerIdAndNotRemoved(eq("buyer-empty"), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(Collections.emptyList()));
+    @DisplayName("getBuyerStats counts PROCESSING and SHIPPED as pending")
+    void getBuyerStats_countsProcessingAndShippedAsPending() {
+        givenStatsBuilt();
+        when(mongoTemplate.findById("buyer-1", BuyerStats.class)).thenReturn(BuyerStats.builder()
+                .id("buyer-1")
+                .totalOrders(3)
+                .ordersByStatus(counts("PENDING", 1, "PROCESSING", 1, "SHIPPED", 1))
+                .build());
 
-        BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-empty");
+        BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-1");
 
-        assertThat(stats.getUserId()).isEqualTo("buyer-empty");
-        assertThat(stats.getTotalOrders()).isZero();
-        assertThat(stats.getTotalSpent()).isZero();
-        assertThat(stats.getPendingOrders()).isZero();
+        assertThat(stats.getPendingOrders()).isEqualTo(3);
         assertThat(stats.getDeliveredOrders()).isZero();
-        assertThat(stats.getCancelledOrders()).isZero();
         assertThat(stats.getAverageOrderValue()).isZero();
-        assertThat(stats.getTopProductsByAmount()).isEmpty();
-        assertThat(stats.getMostBoughtProducts()).isEmpty();
     }
 
     @Test
-    @DisplayName("getBuyerStats computes product statistics correctly")
-    void getBuyerStats_computesProductStats() {
-        List<Order> orders = List.of(deliveredOrder, confirmedOrder);
-        when(orderRepository.findByBuyerIdAndNotRemoved(eq("buyer-1"), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(orders));
+    @DisplayName("getBuyerStats ranks the top 5 products and leaves out products of cancelled orders")
+    void getBuyerStats_ranksProducts() {
+        Map<String, ProductTally> products = new HashMap<>();
+        products.put("prod-1", tally("A", 2, 50.0, 1));
+        products.put("prod-2", tally("B", 3, 30.0, 1));
+        products.put("prod-3", tally("C", 1, 60.0, 1));
+        products.put("prod-4", tally("D", 1, 10.0, 1));
+        products.put("prod-5", tally("E", 1, 10.0, 1));
+        products.put("prod-6", tally("F", 1, 5.0, 1));
+        // All orders of this product were cancelled
+        products.put("prod-7", tally("G", 0, 0.0, 0));
+        givenStatsBuilt();
+        when(mongoTemplate.findById("buyer-1", BuyerStats.class)).thenReturn(BuyerStats.builder()
+                .id("buyer-1")
+                .products(products)
+                .build());
 
         BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-1");
 
-        assertThat(stats.getTopProductsByAmount()).hasSize(2);
-        assertThat(stats.getMostBoughtProducts()).hasSize(2);
-        // prod-1 has 50.0 total, prod-2 has 30.0 total - top by amount should be prod-1 first
-        assertThat(stats.getTopProductsByAmount().get(0).getProductId()).isEqualTo("prod-1");
-        // prod-2 has quantity 3, prod-1 has quantity 2 - most bought should be prod-2 first
+        // Ties fall back to product ID
+        assertThat(stats.getTopProductsByAmount()).extracting("productId")
+                .containsExactly("prod-3", "prod-1", "prod-2", "prod-4", "prod-5");
         assertThat(stats.getMostBoughtProducts().get(0).getProductId()).isEqualTo("prod-2");
+        assertThat(stats.getMostBoughtProducts()).extracting("productId").doesNotContain("prod-7");
+        assertThat(stats.getTopProductsByAmount().get(0).getThumbnailMediaId()).isEqualTo("media-C");
     }
 
     @Test
-    @DisplayName("getBuyerStats counts PROCESSING and SHIPPED as pending")
-    void getBuyerStats_countsProcessingAndShippedAsPending() {
-        Order processingOrder = Order.builder()
-                .id("order-p")
-                .buyerId("buyer-1")
-                .status(OrderStatus.PROCESSING)
-                .totalAmount(10.0)
-                .items(Collections.emptyList())
-                .build();
+    @DisplayName("getBuyerStats aggregates the orders of a buyer without a stats document")
+    void getBuyerStats_withoutReadModel_aggregates() {
+        when(mongoTemplate.getCollectionName(Order.class)).thenReturn("orders");
+        givenAggregation("orders", new Document()
+                .append("byStatus", List.of(
+                        statusRow("DELIVERED", 1, 50.0),
+                        statusRow("CONFIRMED", 1, 30.0),
+                        statusRow("PENDING", 1, 100.0),
+                        statusRow("CANCELLED", 1, 25.0)))
+                .append("topByAmount", List.of(productRow("prod-1", 2, 50.0, 1), productRow("prod-2", 3, 30.0, 1)))
+                .append("topByQuantity", List.of(productRow("prod-2", 3, 30.0, 1), productRow("prod-1", 2, 50.0, 1))));
 
-        Order shippedOrder = Order.builder()
-                .id("order-s")
-                .buyerId("buyer-1")
-                .status(OrderStatus.SHIPPED)
-                .totalAmount(20.0)
-                .items(Collections.emptyList())
-                .build();
+        BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-1");
 
-        when(orderRepository.findByBuyerIdAndNotRemoved(eq("buyer-1"), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of(pendingOrder, processingOrder, shippedOrder)));
+        assertThat(stats.getTotalOrders()).isEqualTo(4);
+        // Only DELIVERED + CONFIRMED count towards totalSpent
+        assertThat(stats.getTotalSpent()).isEqualTo(80.0);
+        assertThat(stats.getPendingOrders()).isEqualTo(1);
+        assertThat(stats.getDeliveredOrders()).isEqualTo(2);
+        assertThat(stats.getCancelledOrders()).isEqualTo(1);
+        assertThat(stats.getAverageOrderValue()).isEqualTo(40.0);
+        assertThat(stats.getTopProductsByAmount().get(0).getProductId()).isEqualTo("prod-1");
+        assertThat(stats.getMostBoughtProducts().get(0).getProductId()).isEqualTo("prod-2");
+        assertThat(stats.getMostBoughtProducts().get(0).getProductName()).isEqualTo("Product prod-2");
+    }
+
+    @Test
+    @DisplayName("getBuyerStats ignores stats documents until they were built from all orders")
+    void getBuyerStats_beforeBackfill_aggregates() {
+        when(dataMigrations.isDone(DataMigrations.ORDER_STATS)).thenReturn(false);
+        when(mongoTemplate.getCollectionName(Order.class)).thenReturn("orders");
+        givenAggregation("orders", new Document("byStatus", List.of(statusRow("DELIVERED", 2, 70.0))));
 
         BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-1");
 
-        // PENDING + PROCESSING + SHIPPED = 3 pending
-        assertThat(stats.getPendingOrders()).isEqualTo(3);
+        assertThat(stats.getTotalOrders()).isEqualTo(2);
+        assertThat(stats.getTotalSpent()).isEqualTo(70.0);
+        verify(mongoTemplate, never()).findById("buyer-1", BuyerStats.class);
+    }
+
+    @Test
+    @DisplayName("getBuyerStats with no orders returns zero stats")
+    void getBuyerStats_withNoOrders_returnsZeroStats() {
+        when(mongoTemplate.getCollectionName(Order.class)).thenReturn("orders");
+        givenAggregation("orders", null);
+
+        BuyerProfileStatsDto stats = profileStatsService.getBuyerStats("buyer-empty");
+
+        assertThat(stats.getUserId()).isEqualTo("buyer-empty");
+        assertThat(stats.getTotalOrders()).isZero();
+        assertThat(stats.getTotalSpent()).isZero();
+        assertThat(stats.getPendingOrders()).isZero();
         assertThat(stats.getDeliveredOrders()).isZero();
+        assertThat(stats.getCancelledOrders()).isZero();
+        assertThat(stats.getAverageOrderValue()).isZero();
+        assertThat(stats.getTopProductsByAmount()).isEmpty();
+        assertThat(stats.getMostBoughtProducts()).isEmpty();
     }
 
     // ==================== Seller Stats Tests ====================
@@ -200,195 +227,88 @@ class ProfileStatsServiceTest {
     @Test
     @DisplayName("getSellerStats returns correct totals for seller items")
     void getSellerStats_withMixedOrders_returnsCorrectTotals() {
-        List<Order> orders = List.of(deliveredOrder, confirmedOrder, pendingOrder, cancelledOrder);
-        when(orderRepository.findBySellerIdInSellerIds(eq("seller-1"), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(orders));
+        givenStatsBuilt();
+        when(mongoTemplate.findById("seller-1", SellerStats.class)).thenReturn(SellerStats.builder()
+                .id("seller-1")
+                .totalOrders(3)
+                .totalRevenue(80.0)
+                .totalUnitsSold(5)
+                .sellerOrdersByStatus(counts("DELIVERED", 1, "CONFIRMED", 1, "CANCELLED", 1))
+                .build());
 
         SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-1");
 
         assertThat(stats.getSellerId()).isEqualTo("seller-1");
-        assertThat(stats.getTotalOrders()).isEqualTo(4);
-        // DELIVERED item1: 50.0 + CONFIRMED item2: 30.0 = 80.0
+        assertThat(stats.getTotalOrders()).isEqualTo(3);
         assertThat(stats.getTotalEarned()).isEqualTo(80.0);
-        // Total products sold: 2 + 3 = 5
         assertThat(stats.getTotalProductsSold()).isEqualTo(5);
-        // pendingOrder has seller-2 items, so it's skipped for seller-1
         assertThat(stats.getPendingOrders()).isZero();
-        // DELIVERED + CONFIRMED
         assertThat(stats.getDeliveredOrders()).isEqualTo(2);
         assertThat(stats.getCancelledOrders()).isEqualTo(1);
-        // Average = 80 / 2 = 40
         assertThat(stats.getAverageOrderValue()).isEqualTo(40.0);
     }
 
     @Test
-    @DisplayName("getSellerStats with no orders returns zero stats")
-    void getSellerStats_withNoOrders_returnsZeroStats() {
-        when(orderRepository.findBySellerIdInSellerIds(eq("seller-empty"), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(Collections.emptyList()));
+    @DisplayName("getSellerStats counts PENDING, PROCESSING, SHIPPED as pending")
+    void getSellerStats_countsPendingStatuses() {
+        givenStatsBuilt();
+        when(mongoTemplate.findById("seller-1", SellerStats.class)).thenReturn(SellerStats.builder()
+                .id("seller-1")
+                .totalOrders(3)
+                .sellerOrdersByStatus(counts("PENDING", 1, "PROCESSING", 1, "SHIPPED", 1))
+                .build());
 
-        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-empty");
+        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-1");
 
-        assertThat(stats.getSellerId()).isEqualTo("seller-empty");
-        assertThat(stats.getTotalOrders()).isZero();
-        assertThat(stats.getTotalEarned()).isZero();
-        assertThat(stats.getTotalProductsSold()).isZero();
-        assertThat(stats.getPendingOrders()).isZero();
+        assertThat(stats.getPendingOrders()).isEqualTo(3);
         assertThat(stats.getDeliveredOrders()).isZero();
-        assertThat(stats.getCancelledOrders()).isZero();
+        assertThat(stats.getTotalEarned()).isZero();
         assertThat(stats.getAverageOrderValue()).isZero();
-        assertThat(stats.getBestSellingByAmount()).isEmpty();
-        assertThat(stats.getBestSellingByQuantity()).isEmpty();
     }
 
     @Test
-    @DisplayName("getSellerStats filters items to only seller's items")
-    void getSellerStats_filtersToSellerItems() {
-        // Order has items from both seller-1 and seller-2
-        OrderItem sellerOneItem = OrderItem.builder()
-                .productId("prod-1")
-                .productName("Widget A")
-                .priceAtPurchase(25.0)
-                .quantity(2)
-                .subtotal(50.0)
-                .sellerId("seller-1")
-                .build();
-
-        OrderItem sellerTwoItem = OrderItem.builder()
-                .productId("prod-3")
-                .productName("Gadget C")
-                .priceAtPurchase(100.0)
-                .quantity(1)
-                .subtotal(100.0)
-                .sellerId("seller-2")
-                .build();
-
-        Order mixedOrder = Order.builder()
-                .id("order-mixed")
-                .status(OrderStatus.DELIVERED)
-                .totalAmount(150.0)
-                .items(List.of(sellerOneItem, sellerTwoItem))
-                .build();
-
-        when(orderRepository.findBySellerIdInSellerIds(eq("seller-1"), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of(mixedOrder)));
+    @DisplayName("getSellerStats aggregates the order lines of a seller without a stats document")
+    void getSellerStats_withoutReadModel_aggregates() {
+        when(mongoTemplate.getCollectionName(SellerOrderLine.class)).thenReturn("seller_order_lines");
+        givenAggregation("seller_order_lines", new Document()
+                .append("byStatus", List.of(
+                        statusRow("CONFIRMED", 1, 0),
+                        statusRow("DELIVERED", 1, 0),
+                        statusRow("SHIPPED", 1, 0)))
+                .append("totals", List.of(new Document("earned", 40.0).append("sold", 2)))
+                .append("bestByAmount", List.of(productRow("prod-1", 2, 40.0, 2)))
+                .append("bestByQuantity", List.of(productRow("prod-1", 2, 40.0, 2))));
 
         SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-1");
 
-        // Only seller-1's item should count
-        assertThat(stats.getTotalEarned()).isEqualTo(50.0);
+        // CONFIRMED is handled the same as DELIVERED
+        assertThat(stats.getDeliveredOrders()).isEqualTo(2);
+        assertThat(stats.getPendingOrders()).isEqualTo(1);
+        assertThat(stats.getTotalOrders()).isEqualTo(3);
+        assertThat(stats.getTotalEarned()).isEqualTo(40.0);
         assertThat(stats.getTotalProductsSold()).isEqualTo(2);
+        assertThat(stats.getAverageOrderValue()).isEqualTo(20.0);
         assertThat(stats.getBestSellingByAmount()).hasSize(1);
-        assertThat(stats.getBestSellingByAmount().get(0).getProductId()).isEqualTo("prod-1");
+        assertThat(stats.getBestSellingByAmount().get(0).getOrderCount()).isEqualTo(2);
     }
 
     @Test
-    @DisplayName("getSellerStats skips orders where seller has no items")
-    void getSellerStats_skipsOrdersWithNoSellerItems() {
-        // An order where all items belong to a different seller
-        OrderItem otherSellerItem = OrderItem.builder()
-                .productId("prod-other")
-                .productName("Other Product")
-                .priceAtPurchase(50.0)
-                .quantity(1)
-                .subtotal(50.0)
-                .sellerId("seller-other")
-                .build();
-
-        Order otherSellerOrder = Order.builder()
-                .id("order-other")
-                .status(OrderStatus.DELIVERED)
-                .totalAmount(50.0)
-                .items(List.of(otherSellerItem))
-                .build();
-
-        when(orderRepository.findBySellerIdInSellerIds(eq("seller-1"), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of(otherSellerOrder)));
+    @DisplayName("getSellerStats with no orders returns zero stats")
+    void getSellerStats_withNoOrders_returnsZeroStats() {
+        when(mongoTemplate.getCollectionName(SellerOrderLine.class)).thenReturn("seller_order_lines");
+        givenAggregation("seller_order_lines", null);
 
-        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-1");
+        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-empty");
 
+        assertThat(stats.getSellerId()).isEqualTo("seller-empty");
+        assertThat(stats.getTotalOrders()).isZero();
         assertThat(stats.getTotalEarned()).isZero();
         assertThat(stats.getTotalProductsSold()).isZero();
-        assertThat(stats.getDeliveredOrders()).isZero();
         assertThat(stats.getPendingOrders()).isZero();
-    }
-
-    @Test
-    @DisplayName("getSellerStats counts PENDING, PROCESSING, SHIPPED as pending")
-    void getSellerStats_countsPendingStatuses() {
-        OrderItem sellerItem = OrderItem.builder()
-                .productId("prod-1")
-                .productName("Widget")
-                .priceAtPurchase(10.0)
-                .quantity(1)
-                .subtotal(10.0)
-                .sellerId("seller-1")
-                .build();
-
-        Order processing = Order.builder()
-                .id("o-proc")
-                .status(OrderStatus.PROCESSING)
-                .totalAmount(10.0)
-                .items(List.of(sellerItem))
-                .build();
-
-        Order shipped = Order.builder()
-                .id("o-ship")
-                .status(OrderStatus.SHIPPED)
-                .totalAmount(10.0)
-                .items(List.of(sellerItem))
-                .build();
-
-        Order pending = Order.builder()
-                .id("o-pend")
-                .status(OrderStatus.PENDING)
-                .totalAmount(10.0)
-                .items(List.of(sellerItem))
-                .build();
-
-        when(orderRepository.findBySellerIdInSellerIds(eq("seller-1"), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of(processing, shipped, pending)));
-
-        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-1");
-
-        assertThat(stats.getPendingOrders()).isEqualTo(3);
         assertThat(stats.getDeliveredOrders()).isZero();
-        assertThat(stats.getTotalEarned()).isZero();
-    }
-
-    @Test
-    @DisplayName("getSellerStats handles CONFIRMED same as DELIVERED (merged case)")
-    void getSellerStats_confirmedAndDeliveredMerged() {
-        OrderItem sellerItem = OrderItem.builder()
-                .productId("prod-1")
-                .productName("Widget")
-                .priceAtPurchase(20.0)
-                .quantity(1)
-                .subtotal(20.0)
-                .sellerId("seller-1")
-                .build();
-
-        Order confirmed = Order.builder()
-                .id("o-conf")
-                .status(OrderStatus.CONFIRMED)
-                .totalAmount(20.0)
-                .items(List.of(sellerItem))
-                .build();
-
-        Order delivered = Order.builder()
-                .id("o-del")
-                .status(OrderStatus.DELIVERED)
-                .totalAmount(20.0)
-                .items(List.of(sellerItem))
-                .build();
-
-        when(orderRepository.findBySellerIdInSellerIds(eq("seller-1"), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of(confirmed, delivered)));
-
-        SellerProfileStatsDto stats = profileStatsService.getSellerStats("seller-1");
-
-        assertThat(stats.getDeliveredOrders()).isEqualTo(2);
-        assertThat(stats.getTotalEarned()).isEqualTo(40.0);
-        assertThat(stats.getTotalProductsSold()).isEqualTo(2);
+        assertThat(stats.getCancelledOrders()).isZero();
+        assertThat(stats.getAverageOrderValue()).isZero();
+        assertThat(stats.getBestSellingByAmount()).isEmpty();
+        assertThat(stats.getBestSellingByQuantity()).isEmpty();
     }
 }
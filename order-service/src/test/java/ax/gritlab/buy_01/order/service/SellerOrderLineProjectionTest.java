@@ -0,0 +1,137 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderItem;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import ax.gritlab.buy_01.order.model.SellerOrderLine;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SellerOrderLineProjectionTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private SellerOrderLineProjection projection;
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        projection = new SellerOrderLineProjection(mongoTemplate);
+
+        order = Order.builder()
+                .id("order-1")
+                .orderNumber("ORD-20260214-AB123")
+                .buyerId("buyer-1")
+                .buyerEmail("buyer@example.com")
+                .status(OrderStatus.CONFIRMED)
+                .items(List.of(
+                        OrderItem.builder().productId("prod-1").quantity(2).subtotal(50.0).sellerId("seller-1").build(),
+                        OrderItem.builder().productId("prod-2").quantity(1).subtotal(100.0).sellerId("seller-2").build(),
+                        OrderItem.builder().productId("prod-3").quantity(1).subtotal(20.0).sellerId("seller-1").build()))
+                .sellerIds(Set.of("seller-1", "seller-2"))
+                .createdAt(LocalDateTime.of(2026, 2, 14, 10, 0))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Placing an order writes one line per seller with only that seller's items")
+    void onOrderPlaced_writesLinePerSeller() {
+        projection.onOrderPlaced(order);
+
+        ArgumentCaptor<SellerOrderLine> lines = ArgumentCaptor.forClass(SellerOrderLine.class);
+        verify(mongoTemplate, times(2)).save(lines.capture());
+        SellerOrderLine first = lines.getAllValues().get(0);
+        assertThat(first.getId()).isEqualTo("order-1:seller-1");
+        assertThat(first.getItems()).extracting(OrderItem::getProductId).containsExactly("prod-1", "prod-3");
+        assertThat(first.getSubtotal()).isEqualTo(70.0);
+        assertThat(first.getOrderNumber()).isEqualTo("ORD-20260214-AB123");
+        assertThat(lines.getAllValues().get(1).getSubtotal()).isEqualTo(100.0);
+    }
+
+    @Test
+    @DisplayName("A status change updates every line of the order")
+    void onStatusChanged_updatesLines() {
+        order.setStatus(OrderStatus.CANCELLED);
+
+        projection.onStatusChanged(order);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(SellerOrderLine.class));
+        assertThat(query.getValue().getQueryObject().get("orderId")).isEqualTo("order-1");
+        assertThat(update.getValue().getUpdateObject().get("$set", Document.class))
+                .containsEntry("status", OrderStatus.CANCELLED);
+    }
+
+    @Test
+    @DisplayName("A failing write does not fail the order operation")
+    void onOrderPlaced_failure_isSwallowed() {
+        when(mongoTemplate.save(any(SellerOrderLine.class))).thenThrow(new RuntimeException("down"));
+
+        assertThatCode(() -> projection.onOrderPlaced(order)).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Rebuild writes the lines of every order, archived ones included")
+    void rebuild_writesAllOrders() {
+        Order archived = Order.builder()
+                .id("order-0")
+                .status(OrderStatus.DELIVERED)
+                .items(List.of(OrderItem.builder().productId("prod-1").quantity(1).subtotal(25.0).sellerId("seller-1").build()))
+                .build();
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(order));
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class), eq(OrderArchive.COLLECTION)))
+                .thenReturn(Stream.of(archived));
+
+        assertThat(projection.rebuild()).isEqualTo(2);
+        verify(mongoTemplate, times(3)).upsert(any(Query.class), any(Update.class), eq(SellerOrderLine.class));
+        verify(mongoTemplate, never()).save(any(SellerOrderLine.class));
+    }
+
+    @Test
+    @DisplayName("Rebuild only replaces lines that are not newer than the order it read")
+    void rebuild_guardsAgainstNewerLines() {
+        order.setUpdatedAt(LocalDateTime.of(2026, 2, 15, 9, 0));
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(order));
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class), eq(OrderArchive.COLLECTION)))
+                .thenReturn(Stream.empty());
+        // seller-2's line was cancelled after the order was read
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(SellerOrderLine.class)))
+                .thenReturn(null)
+                .thenThrow(new DuplicateKeyException("dup"));
+
+        assertThat(projection.rebuild()).isEqualTo(1);
+
+        ArgumentCaptor<Query> guard = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).upsert(guard.capture(), any(Update.class), eq(SellerOrderLine.class));
+        assertThat(guard.getAllValues().get(0).getQueryObject().get("updatedAt", Document.class)
+                .get("$not", Document.class)).containsEntry("$gt", order.getUpdatedAt());
+    }
+}
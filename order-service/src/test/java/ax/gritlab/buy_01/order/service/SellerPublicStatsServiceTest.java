@@ -0,0 +1,132 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.dto.SellerProfileStatsDto;
+import ax.gritlab.buy_01.order.dto.SellerPublicStatsDto;
+import ax.gritlab.buy_01.order.model.SellerStats;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SellerPublicStatsServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private DataMigrations dataMigrations;
+
+    @Mock
+    private ProfileStatsService profileStatsService;
+
+    private SellerPublicStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SellerPublicStatsService(mongoTemplate, dataMigrations, profileStatsService);
+        ReflectionTestUtils.setField(service, "ttlMillis", 60_000L);
+    }
+
+    private void givenStatsBuilt() {
+        when(dataMigrations.isDone(DataMigrations.ORDER_STATS)).thenReturn(true);
+    }
+
+    private SellerStats counters(int orders, int units) {
+        return SellerStats.builder().id("seller-1").totalOrders(orders).totalUnitsSold(units).build();
+    }
+
+    @Test
+    @DisplayName("reads only the two counters of the seller's stats document")
+    void getPublicStats_readsCountersOnly() {
+        givenStatsBuilt();
+        when(mongoTemplate.findOne(any(Query.class), eq(SellerStats.class))).thenReturn(counters(4, 9));
+
+        SellerPublicStatsDto stats = service.getPublicStats("seller-1");
+
+        assertThat(stats.getSellerId()).isEqualTo("seller-1");
+        assertThat(stats.getTotalOrders()).isEqualTo(4);
+        assertThat(stats.getTotalProductsSold()).isEqualTo(9);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findOne(query.capture(), eq(SellerStats.class));
+        assertThat(query.getValue().getQueryObject()).containsEntry("_id", "seller-1");
+        assertThat(query.getValue().getFieldsObject())
+                .isEqualTo(new Document("totalOrders", 1).append("totalUnitsSold", 1));
+        verifyNoMoreInteractions(mongoTemplate);
+        verifyNoInteractions(profileStatsService);
+    }
+
+    @Test
+    @DisplayName("serves repeated calls from memory within the TTL")
+    void getPublicStats_withinTtl_servedFromCache() {
+        givenStatsBuilt();
+        when(mongoTemplate.findOne(any(Query.class), eq(SellerStats.class))).thenReturn(counters(4, 9));
+
+        service.getPublicStats("seller-1");
+        SellerPublicStatsDto again = service.getPublicStats("seller-1");
+
+        assertThat(again.getTotalOrders()).isEqualTo(4);
+        verify(mongoTemplate, times(1)).findOne(any(Query.class), eq(SellerStats.class));
+    }
+
+    @Test
+    @DisplayName("reads the counters again once the TTL has passed")
+    void getPublicStats_expired_reloads() {
+        ReflectionTestUtils.setField(service, "ttlMillis", 0L);
+        givenStatsBuilt();
+        when(mongoTemplate.findOne(any(Query.class), eq(SellerStats.class)))
+                .thenReturn(counters(4, 9), counters(5, 10));
+
+        service.getPublicStats("seller-1");
+        SellerPublicStatsDto again = service.getPublicStats("seller-1");
+
+        assertThat(again.getTotalOrders()).isEqualTo(5);
+        assertThat(again.getTotalProductsSold()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("sellers without a stats document show zeros")
+    void getPublicStats_noStatsDocument_returnsZeros() {
+        givenStatsBuilt();
+        when(mongoTemplate.findOne(any(Query.class), eq(SellerStats.class))).thenReturn(null);
+
+        SellerPublicStatsDto stats = service.getPublicStats("seller-new");
+
+        assertThat(stats.getTotalOrders()).isZero();
+        assertThat(stats.getTotalProductsSold()).isZero();
+    }
+
+    @Test
+    @DisplayName("aggregates the counters until the stats documents were built from all orders")
+    void getPublicStats_beforeBackfill_aggregates() {
+        when(dataMigrations.isDone(DataMigrations.ORDER_STATS)).thenReturn(false);
+        when(profileStatsService.aggregateSellerStats("seller-1")).thenReturn(SellerProfileStatsDto.builder()
+                .sellerId("seller-1")
+                .totalOrders(3)
+                .totalProductsSold(7)
+                .build());
+
+        SellerPublicStatsDto stats = service.getPublicStats("seller-1");
+
+        assertThat(stats.getTotalOrders()).isEqualTo(3);
+        assertThat(stats.getTotalProductsSold()).isEqualTo(7);
+        verifyNoInteractions(mongoTemplate);
+    }
+}
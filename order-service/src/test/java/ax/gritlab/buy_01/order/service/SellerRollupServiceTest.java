@@ -0,0 +1,244 @@
+package ax.gritlab.buy_01.order.service;
+
+import ax.gritlab.buy_01.order.dto.SellerTimeseriesDto;
+import ax.gritlab.buy_01.order.model.Order;
+import ax.gritlab.buy_01.order.model.OrderItem;
+import ax.gritlab.buy_01.order.model.OrderStatus;
+import ax.gritlab.buy_01.order.model.RollupGranularity;
+import ax.gritlab.buy_01.order.model.SellerRollup;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SellerRollupServiceTest {
+
+    // Recent enough to stay at daily resolution
+    private static final LocalDate DAY = LocalDate.now().minusDays(1);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private SellerRollupService service;
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        service = new SellerRollupService(mongoTemplate);
+        ReflectionTestUtils.setField(service, "dailyRetentionDays", 90);
+
+        order = Order.builder()
+                .id("order-1")
+                .buyerId("buyer-1")
+                .status(OrderStatus.PENDING)
+                .items(List.of(
+                        OrderItem.builder().productId("prod-1").quantity(2).subtotal(50.0).sellerId("seller-1").build(),
+                        OrderItem.builder().productId("prod-2").quantity(1).subtotal(20.0).sellerId("seller-1").build()))
+                .sellerIds(Set.of("seller-1"))
+                .createdAt(DAY.atTime(10, 0))
+                .build();
+    }
+
+    private Update capturedUpsert(String expectedId) {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(SellerRollup.class));
+        assertThat(query.getValue().getQueryObject().get("_id")).isEqualTo(expectedId);
+        return update.getValue();
+    }
+
+    @Test
+    @DisplayName("Placing an order counts it in the seller's day bucket and per product")
+    void onOrderPlaced_countsOrder() {
+        service.onOrderPlaced(order);
+
+        Document inc = (Document) capturedUpsert("seller-1:DAY:" + DAY).getUpdateObject().get("$inc");
+        assertThat(inc).containsEntry("orders", 1)
+                .containsEntry("products.prod-1.orders", 1)
+                .containsEntry("products.prod-2.orders", 1)
+                .doesNotContainKey("revenue");
+    }
+
+    @Test
+    @DisplayName("Completing an order adds its revenue and units")
+    void onStatusChanged_completed_addsRevenue() {
+        order.setStatus(OrderStatus.CONFIRMED);
+
+        service.onStatusChanged(order, OrderStatus.PENDING);
+
+        Document inc = (Document) capturedUpsert("seller-1:DAY:" + DAY).getUpdateObject().get("$inc");
+        assertThat(inc).containsEntry("revenue", 70.0)
+                .containsEntry("units", 3)
+                .containsEntry("products.prod-1.revenue", 50.0)
+                .doesNotContainKey("orders");
+    }
+
+    @Test
+    @DisplayName("Cancelling a completed order takes its revenue back and counts a cancellation")
+    void onStatusChanged_cancelled_revertsRevenue() {
+        order.setStatus(OrderStatus.CANCELLED);
+
+        service.onStatusChanged(order, OrderStatus.CONFIRMED);
+
+        Document inc = (Document) capturedUpsert("seller-1:DAY:" + DAY).getUpdateObject().get("$inc");
+        assertThat(inc).containsEntry("revenue", -70.0)
+                .containsEntry("units", -3)
+                .containsEntry("cancellations", 1)
+                .containsEntry("products.prod-2.cancellations", 1);
+    }
+
+    @Test
+    @DisplayName("Unchanged status does not touch the rollups")
+    void onStatusChanged_sameStatus_noop() {
+        service.onStatusChanged(order, OrderStatus.PENDING);
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Time series sums day and month buckets per requested granularity")
+    void getTimeseries_sumsBuckets() {
+        when(mongoTemplate.find(any(Query.class), eq(SellerRollup.class))).thenReturn(List.of(
+                rollup(RollupGranularity.MONTH, LocalDate.of(2026, 1, 1), 100.0, 5),
+                rollup(RollupGranularity.DAY, LocalDate.of(2026, 2, 3), 10.0, 1),
+                rollup(RollupGranularity.DAY, LocalDate.of(2026, 2, 20), 30.0, 2)));
+
+        SellerTimeseriesDto series = service.getTimeseries("seller-1",
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 2, 28), RollupGranularity.MONTH, null);
+
+        assertThat(series.getPoints()).extracting(SellerTimeseriesDto.Point::getBucket)
+                .containsExactly(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 2, 1));
+        assertThat(series.getPoints().get(1).getRevenue()).isEqualTo(40.0);
+        assertThat(series.getPoints().get(1).getUnits()).isEqualTo(3);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(SellerRollup.class));
+        // Days being folded would otherwise count twice once their month has them
+        assertThat(query.getValue().getQueryObject().toString()).contains("compacted=Document{{$ne=true}}");
+    }
+
+    @Test
+    @DisplayName("Time series for one product reads that product's counters only")
+    void getTimeseries_product_usesProductCounters() {
+        SellerRollup day = rollup(RollupGranularity.DAY, DAY, 70.0, 3);
+        day.setProducts(Map.of("prod-1", SellerRollup.Tally.builder().revenue(50.0).units(2).orders(1).build()));
+        when(mongoTemplate.find(any(Query.class), eq(SellerRollup.class))).thenReturn(List.of(day));
+
+        SellerTimeseriesDto series = service.getTimeseries("seller-1", DAY, DAY, RollupGranularity.DAY, "prod-1");
+
+        assertThat(series.getPoints()).hasSize(1);
+        assertThat(series.getPoints().get(0).getRevenue()).isEqualTo(50.0);
+    }
+
+    @Test
+    @DisplayName("Reversed range is rejected")
+    void getTimeseries_reversedRange_throws() {
+        assertThatThrownBy(() -> service.getTimeseries("seller-1", DAY, DAY.minusDays(1), RollupGranularity.DAY, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Compaction folds an old day into its month and removes it")
+    void compact_foldsDayIntoMonth() {
+        SellerRollup day = rollup(RollupGranularity.DAY, LocalDate.of(2025, 6, 10), 70.0, 3);
+        day.setProducts(Map.of("prod-1", SellerRollup.Tally.builder().revenue(70.0).units(3).orders(1).build()));
+        when(mongoTemplate.stream(any(Query.class), eq(SellerRollup.class)))
+                .thenReturn(Stream.of(SellerRollup.builder().id(day.getId()).build()));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(SellerRollup.class))).thenReturn(day);
+
+        int folded = service.compact(LocalDate.of(2026, 2, 14));
+
+        assertThat(folded).isEqualTo(1);
+        Document inc = (Document) capturedUpsert("seller-1:MONTH:2025-06-01").getUpdateObject().get("$inc");
+        assertThat(inc).containsEntry("revenue", 70.0).containsEntry("products.prod-1.units", 3);
+        verify(mongoTemplate).remove(any(Query.class), eq(SellerRollup.class));
+    }
+
+    @Test
+    @DisplayName("A day already in its month from an earlier, interrupted run is removed without adding it again")
+    void compact_alreadyFolded_onlyRemoves() {
+        SellerRollup day = rollup(RollupGranularity.DAY, LocalDate.of(2025, 6, 10), 70.0, 3);
+        when(mongoTemplate.stream(any(Query.class), eq(SellerRollup.class)))
+                .thenReturn(Stream.of(SellerRollup.builder().id(day.getId()).build()));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(SellerRollup.class))).thenReturn(day);
+        // The month already lists the day, so the guarded upsert tries to insert it again
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(SellerRollup.class)))
+                .thenThrow(new DuplicateKeyException("dup"));
+
+        int folded = service.compact(LocalDate.of(2026, 2, 14));
+
+        assertThat(folded).isZero();
+        ArgumentCaptor<Query> month = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).upsert(month.capture(), any(Update.class), eq(SellerRollup.class));
+        assertThat(month.getValue().getQueryObject().get("foldedDays", Document.class))
+                .containsEntry("$ne", "seller-1:DAY:2025-06-10");
+        verify(mongoTemplate).remove(any(Query.class), eq(SellerRollup.class));
+    }
+
+    @Test
+    @DisplayName("A day removed meanwhile is skipped")
+    void compact_alreadyRemoved_skips() {
+        when(mongoTemplate.stream(any(Query.class), eq(SellerRollup.class)))
+                .thenReturn(Stream.of(SellerRollup.builder().id("seller-1:DAY:2025-06-10").build()));
+
+        int folded = service.compact(LocalDate.of(2026, 2, 14));
+
+        assertThat(folded).isZero();
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(SellerRollup.class));
+    }
+
+    @Test
+    @DisplayName("A late change to an order of a compacted month goes to the month, not to a new day bucket")
+    void onStatusChanged_compactedMonth_updatesMonth() {
+        order.setCreatedAt(LocalDateTime.now().minusYears(1));
+        order.setStatus(OrderStatus.CANCELLED);
+
+        service.onStatusChanged(order, OrderStatus.PENDING);
+
+        LocalDate month = order.getCreatedAt().toLocalDate().withDayOfMonth(1);
+        Document inc = (Document) capturedUpsert("seller-1:MONTH:" + month).getUpdateObject().get("$inc");
+        assertThat(inc).containsEntry("cancellations", 1);
+    }
+
+    private static SellerRollup rollup(RollupGranularity granularity, LocalDate bucket, double revenue, int units) {
+        return SellerRollup.builder()
+                .id(SellerRollup.idOf("seller-1", granularity, bucket))
+                .sellerId("seller-1")
+                .granularity(granularity)
+                .bucket(bucket)
+                .revenue(revenue)
+                .units(units)
+                .orders(1)
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -22,4 +22,44 @@ public class KafkaTopicConfig {
                 .replicas(1)
                 .build();
     }
+
+    /**
+     * Latest state of every product, keyed by product ID. Log compaction keeps
+     * only the newest snapshot per key; deletions are published as tombstones.
+     */
+    @Bean
+    public NewTopic productSnapshotsTopic() {
+        return TopicBuilder.name("product.snapshots")
+                .partitions(1)
+                .replicas(1)
+                .compact()
+                .build();
+    }
+
+    @Bean
+    public NewTopic productStockLowTopic() {
+        return TopicBuilder.name("product.stock.low")
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic productStockOutTopic() {
+        return TopicBuilder.name("product.stock.out")
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Stock outcome of each order placed through the asynchronous checkout, keyed by order ID.
+     */
+    @Bean
+    public NewTopic orderStockTopic() {
+        return TopicBuilder.name("order.stock")
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
 }
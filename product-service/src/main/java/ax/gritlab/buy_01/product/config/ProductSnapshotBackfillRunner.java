@@ -0,0 +1,39 @@
+package ax.gritlab.buy_01.product.config;
+
+import ax.gritlab.buy_01.product.model.Product;
+import ax.gritlab.buy_01.product.service.ProductSnapshotPublisher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+/**
+ * Republishes the whole catalog to product.snapshots on startup.
+ * Enable with product.snapshots.backfill-on-startup=true to seed a new
+ * consumer or rebuild the topic; products are streamed, not loaded at once.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "product.snapshots.backfill-on-startup", havingValue = "true")
+public class ProductSnapshotBackfillRunner implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductSnapshotPublisher snapshotPublisher;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long published = 0;
+        try (Stream<Product> products = mongoTemplate.stream(new Query(), Product.class)) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                snapshotPublisher.publishUpsert(product);
+                published++;
+            }
+        }
+        System.out.println("Backfilled " + published + " product snapshots");
+    }
+}
@@ -1,13 +1,17 @@
 package ax.gritlab.buy_01.product.controller;
 
+import ax.gritlab.buy_01.product.dto.InventoryHealthResponse;
 import ax.gritlab.buy_01.product.dto.ProductRequest;
 import ax.gritlab.buy_01.product.dto.ProductResponse;
 import ax.gritlab.buy_01.product.dto.ProductSearchRequest;
 import ax.gritlab.buy_01.product.dto.ProductSearchResponse;
+import ax.gritlab.buy_01.product.dto.StockLedgerResponse;
 import ax.gritlab.buy_01.product.dto.StockUpdateRequest;
 import ax.gritlab.buy_01.product.dto.StockUpdateResponse;
 import ax.gritlab.buy_01.product.model.User;
 import ax.gritlab.buy_01.product.service.ProductService;
+import ax.gritlab.buy_01.product.service.StockAlertService;
+import ax.gritlab.buy_01.product.service.StockIdempotencyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
@@ -26,7 +30,12 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class ProductController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAY_HEADER = "Idempotent-Replayed";
+
     private final ProductService productService;
+    private final StockAlertService stockAlertService;
+    private final StockIdempotencyService stockIdempotencyService;
 
     @GetMapping
     public ResponseEntity<List<ProductResponse>> getAllProducts() {
@@ -119,9 +128,19 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductsBySeller(sellerId, pageable));
     }
 
+    /**
+     * Get the authenticated seller's low-stock and out-of-stock products.
+     */
+    @GetMapping("/inventory-health")
+    @PreAuthorize("hasAuthority('SELLER')")
+    public ResponseEntity<InventoryHealthResponse> getInventoryHealth(Authentication authentication) {
+        String userId = ((User) authentication.getPrincipal()).getId();
+        return ResponseEntity.ok(stockAlertService.getInventoryHealth(userId));
+    }
+
     /**
      * Get product by ID.
-     * NOTE: This must come AFTER all specific routes (/search, /categories, /tags, /seller)
+     * NOTE: This must come AFTER all specific routes (/search, /categories, /tags, /seller, /inventory-health)
      */
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable String id) {
@@ -156,6 +175,16 @@ public class ProductController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Stock audit trail of one of the seller's products.
+     */
+    @GetMapping("/{id}/stock-ledger")
+    @PreAuthorize("hasAuthority('SELLER')")
+    public ResponseEntity<StockLedgerResponse> getStockLedger(@PathVariable String id, Authentication authentication) {
+        String userId = ((User) authentication.getPrincipal()).getId();
+        return ResponseEntity.ok(productService.getStockLedger(id, userId));
+    }
+
     @PostMapping("/{productId}/media/{mediaId}")
     @PreAuthorize("hasAuthority('SELLER')")
     public ResponseEntity<ProductResponse> associateMedia(@PathVariable String productId, @PathVariable String mediaId,
@@ -191,29 +220,39 @@ public class ProductController {
      * Internal endpoint for stock decrement during order checkout.
      * Called by order-service after successful checkout to update inventory.
      * This is an internal service-to-service call, no auth required.
+     * Calls carrying an Idempotency-Key header (or an orderId) are applied at
+     * most once; repeats get the stored response back.
      */
     @PostMapping("/internal/decrement-stock")
-    public ResponseEntity<StockUpdateResponse> decrementStock(@Valid @RequestBody StockUpdateRequest request) {
-        StockUpdateResponse response = productService.decrementStock(request);
-        if (response.isSuccess()) {
-            return ResponseEntity.ok(response);
-        } else {
-            return ResponseEntity.badRequest().body(response);
-        }
+    public ResponseEntity<StockUpdateResponse> decrementStock(@Valid @RequestBody StockUpdateRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        String key = stockIdempotencyService.resolveKey(idempotencyKey, request, "decrement-stock");
+        return toStockResponse(stockIdempotencyService.execute(key, "decrement-stock", request,
+                () -> productService.decrementStock(request)));
     }
 
     /**
      * Internal endpoint for stock increment after order cancellation.
      * Called by order-service when an order is cancelled to restore inventory.
      * This is an internal service-to-service call, no auth required.
+     * Idempotent in the same way as decrement-stock.
      */
     @PostMapping("/internal/increment-stock")
-    public ResponseEntity<StockUpdateResponse> incrementStock(@Valid @RequestBody StockUpdateRequest request) {
-        StockUpdateResponse response = productService.incrementStock(request);
-        if (response.isSuccess()) {
-            return ResponseEntity.ok(response);
-        } else {
-            return ResponseEntity.badRequest().body(response);
+    public ResponseEntity<StockUpdateResponse> incrementStock(@Valid @RequestBody StockUpdateRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        String key = stockIdempotencyService.resolveKey(idempotencyKey, request, "increment-stock");
+        return toStockResponse(stockIdempotencyService.execute(key, "increment-stock", request,
+                () -> productService.incrementStock(request)));
+    }
+
+    private ResponseEntity<StockUpdateResponse> toStockResponse(StockIdempotencyService.IdempotentResponse result) {
+        StockUpdateResponse response = result.getResponse();
+        ResponseEntity.BodyBuilder builder = response.isSuccess()
+                ? ResponseEntity.ok()
+                : ResponseEntity.badRequest();
+        if (result.isReplayed()) {
+            builder.header(IDEMPOTENT_REPLAY_HEADER, "true");
         }
+        return builder.body(response);
     }
 }
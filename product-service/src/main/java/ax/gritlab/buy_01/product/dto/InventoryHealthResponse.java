@@ -0,0 +1,40 @@
+package ax.gritlab.buy_01.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response DTO for a seller's inventory health.
+ * Lists only products that are low on or out of stock.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryHealthResponse {
+
+    private String sellerId;
+    private int lowStockCount;
+    private int outOfStockCount;
+
+    @Builder.Default
+    private List<StockAlert> alerts = new ArrayList<>();
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class StockAlert {
+        private String productId;
+        private String productName;
+        private Integer stock;
+        private Integer lowStockThreshold;
+        private String level;
+        private String since;
+    }
+}
@@ -30,6 +30,12 @@ public class ProductRequest {
     @NotNull(message = "Quantity is required")
     @Min(value = 0, message = "Quantity must be greater than or equal to 0")
     private Integer quantity;
+
+    /**
+     * Optional low-stock threshold. When omitted the service default applies.
+     */
+    @Min(value = 0, message = "Low stock threshold must be greater than or equal to 0")
+    private Integer lowStockThreshold;
     
     /**
      * Optional category for filtering.
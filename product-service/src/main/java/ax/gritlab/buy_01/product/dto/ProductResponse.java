@@ -17,6 +17,7 @@ public class ProductResponse {
     private String description;
     private Double price;
     private Integer stock;
+    private Integer lowStockThreshold;
     private String sellerId;
     private String category;
     private List<String> tags;
@@ -24,4 +25,5 @@ public class ProductResponse {
     private List<String> imageUrls;
     private String createdAt;
     private String updatedAt;
+    private Long version;
 }
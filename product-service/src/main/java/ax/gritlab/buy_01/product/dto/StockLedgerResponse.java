@@ -0,0 +1,41 @@
+package ax.gritlab.buy_01.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response DTO for a product's stock audit trail.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockLedgerResponse {
+
+    private String productId;
+
+    /** Stock as stored on the product. */
+    private Integer stock;
+
+    /** Stock replayed from the latest snapshot plus newer ledger entries. */
+    private Integer derivedStock;
+
+    @Builder.Default
+    private List<Entry> entries = new ArrayList<>();
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Entry {
+        private String type;
+        private int delta;
+        private String orderId;
+        private String createdAt;
+    }
+}
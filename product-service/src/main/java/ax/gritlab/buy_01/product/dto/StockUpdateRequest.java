@@ -18,6 +18,12 @@ import java.util.List;
 @NoArgsConstructor
 public class StockUpdateRequest {
 
+    /**
+     * Order the movement belongs to. When present, a repeated request for the
+     * same order is acknowledged without applying the stock change again.
+     */
+    private String orderId;
+
     @NotEmpty(message = "Items list cannot be empty")
     private List<StockUpdateItem> items;
 
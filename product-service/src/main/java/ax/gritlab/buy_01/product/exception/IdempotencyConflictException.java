@@ -0,0 +1,10 @@
+package ax.gritlab.buy_01.product.exception;
+
+/**
+ * Thrown when an idempotency key is still being processed or was used for a different request.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
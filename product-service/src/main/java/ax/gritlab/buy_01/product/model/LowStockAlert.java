@@ -0,0 +1,48 @@
+package ax.gritlab.buy_01.product.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entry in a seller's low-stock set.
+ * One document per product that is currently low on or out of stock, keyed by
+ * product ID. Documents are created when a product crosses below its threshold
+ * and removed once it is restocked, so the collection only ever holds alerts.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "low_stock_alerts")
+@CompoundIndex(name = "seller_level_idx", def = "{'sellerId': 1, 'level': 1, 'quantity': 1}")
+public class LowStockAlert {
+    /**
+     * Same as the product ID.
+     */
+    @Id
+    private String id;
+
+    private String sellerId;
+
+    private String productName;
+
+    private Integer quantity;
+
+    private Integer threshold;
+
+    private StockLevel level;
+
+    /**
+     * When the product entered its current level.
+     */
+    private LocalDateTime since;
+
+    private LocalDateTime updatedAt;
+}
@@ -38,7 +38,13 @@ import java.util.List;
         // Price range queries with date sorting
         @CompoundIndex(name = "price_date_idx", def = "{'price': 1, 'createdAt': -1}"),
         // In-stock products (quantity > 0) sorted by date
-        @CompoundIndex(name = "stock_date_idx", def = "{'quantity': 1, 'createdAt': -1}")
+        @CompoundIndex(name = "stock_date_idx", def = "{'quantity': 1, 'createdAt': -1}"),
+        // Category browsing sorted or ranged by price
+        @CompoundIndex(name = "category_price_idx", def = "{'category': 1, 'price': 1}"),
+        // Category browsing sorted by date
+        @CompoundIndex(name = "category_date_idx", def = "{'category': 1, 'createdAt': -1}"),
+        // Tag browsing sorted by date
+        @CompoundIndex(name = "tags_date_idx", def = "{'tags': 1, 'createdAt': -1}")
 })
 public class Product {
     @Id
@@ -75,6 +81,12 @@ public class Product {
     @Indexed
     private Integer quantity;
 
+    /**
+     * Stock level at or below which the product counts as low on stock.
+     * Null falls back to the service-wide default threshold.
+     */
+    private Integer lowStockThreshold;
+
     /**
      * Seller ID - indexed for seller product queries.
      */
@@ -110,6 +122,13 @@ public class Product {
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    /**
+     * Change counter, incremented with $inc by every write and carried on
+     * product.snapshots events so consumers can drop stale updates.
+     * Not an optimistic-locking field.
+     */
+    private Long version;
+
     /**
      * Text search score - populated by MongoDB text search.
      * Used for relevance-based sorting.
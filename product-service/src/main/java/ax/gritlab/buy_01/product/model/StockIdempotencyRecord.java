@@ -0,0 +1,49 @@
+package ax.gritlab.buy_01.product.model;
+
+import ax.gritlab.buy_01.product.dto.StockUpdateResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Result of an internal stock call, stored under its idempotency key.
+ * Records expire through a TTL index, so keys only need to be unique for a day.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "stock_idempotency_keys")
+public class StockIdempotencyRecord {
+
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    /**
+     * The idempotency key, e.g. {@code ORD-20250101-ABCDE:decrement-stock}.
+     */
+    @Id
+    private String id;
+
+    private String operation;
+
+    /**
+     * Canonical form of the request items, to detect a key reused for a different request.
+     */
+    private String fingerprint;
+
+    private String status;
+
+    private StockUpdateResponse response;
+
+    private LocalDateTime claimedAt;
+
+    @Indexed(name = "idempotency_ttl_idx", expireAfter = "1d")
+    private LocalDateTime createdAt;
+}
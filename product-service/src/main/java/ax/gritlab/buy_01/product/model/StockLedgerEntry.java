@@ -0,0 +1,50 @@
+package ax.gritlab.buy_01.product.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only stock movement.
+ * Entries are only ever inserted; the product's quantity is a projection of
+ * its latest {@link StockSnapshot} plus the entries recorded after it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "stock_ledger")
+@CompoundIndexes({
+        // Tail reads: entries of a product after its snapshot
+        @CompoundIndex(name = "product_created_idx", def = "{'productId': 1, 'createdAt': 1}"),
+        // One entry per order, product and movement type - makes order retries safe
+        @CompoundIndex(name = "order_movement_idx", def = "{'orderId': 1, 'productId': 1, 'type': 1}",
+                unique = true, partialFilter = "{ 'orderId': { $exists: true } }")
+})
+public class StockLedgerEntry {
+    @Id
+    private String id;
+
+    private String productId;
+
+    /**
+     * Signed stock change.
+     */
+    private int delta;
+
+    private StockLedgerEntryType type;
+
+    /**
+     * Order that caused the movement. Absent for seller adjustments.
+     */
+    private String orderId;
+
+    private LocalDateTime createdAt;
+}
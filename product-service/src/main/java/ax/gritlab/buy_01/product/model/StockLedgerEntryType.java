@@ -0,0 +1,19 @@
+package ax.gritlab.buy_01.product.model;
+
+/**
+ * Reason for a stock ledger entry.
+ */
+public enum StockLedgerEntryType {
+    /** Stock reserved by a placed order. */
+    ORDER_DECREMENT,
+    /** Stock returned by a cancelled order. */
+    CANCEL_RESTORE,
+    /** Seller set or adjusted the stock level, including the initial stock of a new product. */
+    SELLER_RESTOCK,
+    /**
+     * Cancels out an order movement of the same order and product that could
+     * not be applied to the product, e.g. a decrement that lost the race for
+     * the last units.
+     */
+    REJECTED
+}
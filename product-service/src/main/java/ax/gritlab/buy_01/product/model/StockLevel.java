@@ -0,0 +1,19 @@
+package ax.gritlab.buy_01.product.model;
+
+/**
+ * Coarse inventory health of a product, derived from its quantity and
+ * low-stock threshold.
+ */
+public enum StockLevel {
+    IN_STOCK,
+    LOW_STOCK,
+    OUT_OF_STOCK;
+
+    public static StockLevel of(Integer quantity, int threshold) {
+        int qty = quantity != null ? quantity : 0;
+        if (qty <= 0) {
+            return OUT_OF_STOCK;
+        }
+        return qty <= threshold ? LOW_STOCK : IN_STOCK;
+    }
+}
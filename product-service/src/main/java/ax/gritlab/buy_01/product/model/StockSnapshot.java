@@ -0,0 +1,32 @@
+package ax.gritlab.buy_01.product.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Folded stock level of a product.
+ * Holds the sum of all ledger entries created before {@code asOf}; the current
+ * stock is this quantity plus the entries created at or after it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "stock_snapshots")
+public class StockSnapshot {
+    /**
+     * Same as the product ID.
+     */
+    @Id
+    private String id;
+
+    private int quantity;
+
+    private LocalDateTime asOf;
+}
@@ -0,0 +1,22 @@
+package ax.gritlab.buy_01.product.repository;
+
+import ax.gritlab.buy_01.product.model.LowStockAlert;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+/**
+ * Repository for the per-seller low-stock set.
+ */
+public interface LowStockAlertRepository extends MongoRepository<LowStockAlert, String> {
+
+	/**
+	 * All alerts for a seller, most depleted first.
+	 */
+	List<LowStockAlert> findBySellerIdOrderByQuantityAsc(String sellerId);
+
+	/**
+	 * Delete all alerts for a seller.
+	 */
+	void deleteBySellerId(String sellerId);
+}
@@ -0,0 +1,242 @@
+package ax.gritlab.buy_01.product.repository;
+
+import ax.gritlab.buy_01.product.dto.ProductSearchRequest;
+import ax.gritlab.buy_01.product.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Turns any product filter/sort combination into one canonical query shape.
+ *
+ * Filters are emitted as a flat document in a fixed order - equality fields
+ * (seller, category, tags), then the keyword, then ranges (price, stock) -
+ * instead of nested $and wrappers, so equal filter combinations always
+ * produce the same shape and share one cached plan. Sort fields are
+ * whitelisted, and when a compound index matches the equality prefix and the
+ * sort, it is hinted explicitly so sorts are served from the index instead
+ * of in memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductQueryPlanner {
+
+    public static final String SELLER_DATE_IDX = "seller_date_idx";
+    public static final String PRICE_DATE_IDX = "price_date_idx";
+    public static final String CATEGORY_PRICE_IDX = "category_price_idx";
+    public static final String CATEGORY_DATE_IDX = "category_date_idx";
+    public static final String TAGS_DATE_IDX = "tags_date_idx";
+
+    private static final Set<String> SORTABLE_FIELDS = Set.of("createdAt", "updatedAt", "price", "name", "quantity");
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "createdAt");
+
+    private final MongoTemplate mongoTemplate;
+
+    /** Query shapes already explained, so each shape is only checked once. */
+    private final Set<String> explainedShapes = ConcurrentHashMap.newKeySet();
+
+    private volatile Set<String> knownIndexes;
+
+    @Value("${product.query.explain-enabled:false}")
+    private boolean explainEnabled;
+
+    /**
+     * Build the canonical query for a search, paged and sorted.
+     */
+    public Query plan(ProductSearchRequest request, Pageable pageable) {
+        Sort sort = normalizeSort(pageable.getSort());
+        Query query = new Query();
+        for (Criteria criteria : canonicalCriteria(request)) {
+            query.addCriteria(criteria);
+        }
+        query.with(sort);
+
+        String hint = chooseIndex(request, sort);
+        if (hint != null && availableIndexes().contains(hint)) {
+            query.withHint(hint);
+        }
+        query.skip(pageable.getOffset()).limit(pageable.getPageSize());
+
+        if (explainEnabled) {
+            explainOnce(query);
+        }
+        return query;
+    }
+
+    /**
+     * Copy of a planned query without paging, for counting matches.
+     */
+    public Query countQuery(Query planned) {
+        return Query.of(planned).skip(-1).limit(-1);
+    }
+
+    /**
+     * Replace unknown sort properties with the default so clients cannot sort on unindexed fields.
+     */
+    Sort normalizeSort(Sort requested) {
+        if (requested == null || requested.isUnsorted()) {
+            return DEFAULT_SORT;
+        }
+        List<Sort.Order> orders = requested.stream()
+                .filter(order -> SORTABLE_FIELDS.contains(order.getProperty()))
+                .collect(Collectors.toList());
+        return orders.isEmpty() ? DEFAULT_SORT : Sort.by(orders);
+    }
+
+    /**
+     * Filters in canonical order: equality, keyword, then ranges.
+     */
+    private List<Criteria> canonicalCriteria(ProductSearchRequest request) {
+        List<Criteria> criteria = new ArrayList<>();
+
+        if (hasText(request.getSellerId())) {
+            criteria.add(Criteria.where("userId").is(request.getSellerId().trim()));
+        }
+        if (hasText(request.getCategory())) {
+            criteria.add(Criteria.where("category").is(request.getCategory().trim()));
+        }
+        if (request.getTags() != null && !request.getTags().isEmpty()) {
+            List<String> tags = request.getTags().stream().sorted().distinct().collect(Collectors.toList());
+            criteria.add(tags.size() == 1
+                    ? Criteria.where("tags").is(tags.get(0))
+                    : Criteria.where("tags").in(tags));
+        }
+        if (hasText(request.getQ())) {
+            String keyword = Pattern.quote(request.getQ().trim());
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("name").regex(keyword, "i"),
+                    Criteria.where("description").regex(keyword, "i")));
+        }
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            Criteria price = Criteria.where("price");
+            if (request.getMinPrice() != null) {
+                price.gte(request.getMinPrice());
+            }
+            if (request.getMaxPrice() != null) {
+                price.lte(request.getMaxPrice());
+            }
+            criteria.add(price);
+        }
+        if (Boolean.TRUE.equals(request.getInStock())) {
+            criteria.add(Criteria.where("quantity").gt(0));
+        }
+        return criteria;
+    }
+
+    /**
+     * Pick the compound index whose prefix matches the equality filters and whose next key serves the sort.
+     */
+    String chooseIndex(ProductSearchRequest request, Sort sort) {
+        String sortField = sort.iterator().next().getProperty();
+        boolean byDate = "createdAt".equals(sortField);
+        boolean byPrice = "price".equals(sortField);
+
+        if (hasText(request.getSellerId())) {
+            return byDate ? SELLER_DATE_IDX : null;
+        }
+        if (hasText(request.getCategory())) {
+            if (byPrice) {
+                return CATEGORY_PRICE_IDX;
+            }
+            return byDate ? CATEGORY_DATE_IDX : null;
+        }
+        if (request.getTags() != null && !request.getTags().isEmpty()) {
+            return byDate ? TAGS_DATE_IDX : null;
+        }
+        if (byPrice) {
+            return PRICE_DATE_IDX;
+        }
+        return null;
+    }
+
+    private Set<String> availableIndexes() {
+        Set<String> indexes = knownIndexes;
+        if (indexes == null) {
+            try {
+                indexes = mongoTemplate.indexOps(Product.class).getIndexInfo().stream()
+                        .map(IndexInfo::getName)
+                        .collect(Collectors.toUnmodifiableSet());
+            } catch (Exception e) {
+                // Never hint an index we could not confirm
+                System.err.println("Could not read product indexes: " + e.getMessage());
+                return Set.of();
+            }
+            knownIndexes = indexes;
+        }
+        return indexes;
+    }
+
+    /**
+     * Explain a query shape once and log plans that scan the collection or sort in memory.
+     */
+    private void explainOnce(Query query) {
+        String shape = shapeOf(query.getQueryObject()) + " sort " + query.getSortObject().keySet();
+        if (!explainedShapes.add(shape)) {
+            return;
+        }
+        try {
+            Document find = new Document("find", mongoTemplate.getCollectionName(Product.class))
+                    .append("filter", query.getQueryObject())
+                    .append("sort", query.getSortObject());
+            if (query.getHint() != null) {
+                find.append("hint", query.getHint());
+            }
+            Document explain = mongoTemplate.getDb().runCommand(
+                    new Document("explain", find).append("verbosity", "queryPlanner"));
+            Document planner = explain.get("queryPlanner", Document.class);
+            Set<String> stages = new HashSet<>();
+            collectStages(planner != null ? planner.get("winningPlan") : null, stages);
+            if (stages.contains("COLLSCAN") || stages.contains("SORT")) {
+                System.out.println("Product query plan uses " + stages + " for shape " + shape);
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to explain product query: " + e.getMessage());
+        }
+    }
+
+    private void collectStages(Object plan, Set<String> stages) {
+        if (plan instanceof Document doc) {
+            Object stage = doc.get("stage");
+            if (stage != null) {
+                stages.add(stage.toString());
+            }
+            doc.values().forEach(value -> collectStages(value, stages));
+        } else if (plan instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+
+    /**
+     * Field names and operators of a filter, without the values.
+     */
+    private String shapeOf(Object filter) {
+        if (filter instanceof Document doc) {
+            return doc.entrySet().stream()
+                    .map(e -> e.getKey() + ":" + shapeOf(e.getValue()))
+                    .collect(Collectors.joining(",", "{", "}"));
+        }
+        if (filter instanceof List<?> list) {
+            return list.stream().map(this::shapeOf).collect(Collectors.joining(",", "[", "]"));
+        }
+        return "?";
+    }
+
+    private boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
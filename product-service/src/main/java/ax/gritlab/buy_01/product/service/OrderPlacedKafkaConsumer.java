@@ -0,0 +1,20 @@
+package ax.gritlab.buy_01.product.service;
+
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Reserves stock for orders placed through the asynchronous checkout.
+ * A failure is rethrown so the listener redelivers the event.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderPlacedKafkaConsumer {
+    private final StockReservationService stockReservationService;
+
+    @KafkaListener(topics = StockReservationService.ORDER_PLACED_TOPIC, groupId = "product-service-stock")
+    public void consumeOrderPlaced(String payload) throws Exception {
+        stockReservationService.onOrderPlaced(payload);
+    }
+}
@@ -4,21 +4,26 @@ import ax.gritlab.buy_01.product.dto.ProductRequest;
 import ax.gritlab.buy_01.product.dto.ProductResponse;
 import ax.gritlab.buy_01.product.dto.ProductSearchRequest;
 import ax.gritlab.buy_01.product.dto.ProductSearchResponse;
+import ax.gritlab.buy_01.product.dto.StockLedgerResponse;
 import ax.gritlab.buy_01.product.dto.StockUpdateRequest;
 import ax.gritlab.buy_01.product.dto.StockUpdateResponse;
 import ax.gritlab.buy_01.product.exception.ResourceNotFoundException;
 import ax.gritlab.buy_01.product.exception.UnauthorizedException;
 import ax.gritlab.buy_01.product.model.Product;
+import ax.gritlab.buy_01.product.model.StockLedgerEntryType;
+import ax.gritlab.buy_01.product.repository.ProductQueryPlanner;
 import ax.gritlab.buy_01.product.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -62,7 +67,10 @@ public class ProductService {
             } catch (Exception e) {
                 kafkaTemplate.send("product.deleted", product.getId());
             }
+            stockLedgerService.onProductDeleted(product.getId());
+            snapshotPublisher.publishDelete(product.getId());
         }
+        stockAlertService.onSellerDeleted(userId);
     }
 
     private final ProductRepository productRepository;
@@ -70,6 +78,10 @@ public class ProductService {
     private final org.springframework.kafka.core.KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
     private final MongoTemplate mongoTemplate;
+    private final StockAlertService stockAlertService;
+    private final StockLedgerService stockLedgerService;
+    private final ProductQueryPlanner productQueryPlanner;
+    private final ProductSnapshotPublisher snapshotPublisher;
 
     @Value("${media.service.url:http://media-service:8083/media}")
     private String mediaServiceUrl;
@@ -90,33 +102,15 @@ public class ProductService {
             Double maxPrice,
             Pageable pageable) {
 
-        Query query = new Query().with(pageable);
-        List<Criteria> criteria = new ArrayList<>();
-
-        if (keyword != null && !keyword.isEmpty()) {
-            criteria.add(new Criteria().orOperator(
-                    Criteria.where("name").regex(keyword, "i"),
-                    Criteria.where("description").regex(keyword, "i")));
-        }
-
-        if (category != null && !category.isEmpty()) {
-            criteria.add(Criteria.where("category").is(category));
-        }
-
-        if (minPrice != null || maxPrice != null) {
-            Criteria priceCriteria = Criteria.where("price");
-            if (minPrice != null)
-                priceCriteria.gte(minPrice);
-            if (maxPrice != null)
-                priceCriteria.lte(maxPrice);
-            criteria.add(priceCriteria);
-        }
-
-        if (!criteria.isEmpty()) {
-            query.addCriteria(new Criteria().andOperator(criteria.toArray(new Criteria[0])));
-        }
+        ProductSearchRequest request = ProductSearchRequest.builder()
+                .q(keyword)
+                .category(category)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .build();
+        Query query = productQueryPlanner.plan(request, pageable);
 
-        long total = mongoTemplate.count(query.skip(-1).limit(-1), Product.class);
+        long total = mongoTemplate.count(productQueryPlanner.countQuery(query), Product.class);
         List<Product> products = mongoTemplate.find(query, Product.class);
 
         List<ProductResponse> content = products.stream()
@@ -156,13 +150,18 @@ public class ProductService {
                 .description(request.getDescription())
                 .price(request.getPrice())
                 .quantity(request.getQuantity())
+                .lowStockThreshold(request.getLowStockThreshold())
                 .category(request.getCategory())
                 .tags(request.getTags() != null ? request.getTags() : new ArrayList<>())
                 .userId(userId)
                 .createdAt(now.toLocalDateTime())
                 .updatedAt(now.toLocalDateTime())
+                .version(1L)
                 .build();
         Product saved = productRepository.save(product);
+        stockLedgerService.record(saved, saved.getQuantity());
+        stockAlertService.onStockChanged(saved, null, null);
+        snapshotPublisher.publishUpsert(saved);
         return toProductResponse(saved);
     }
 
@@ -172,19 +171,45 @@ public class ProductService {
         if (!product.getUserId().equals(userId)) {
             throw new UnauthorizedException("You do not have permission to update this product");
         }
+        Update update = new Update()
+                .set("name", request.getName())
+                .set("description", request.getDescription())
+                .set("price", request.getPrice())
+                .set("quantity", request.getQuantity());
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
         product.setQuantity(request.getQuantity());
+        if (request.getLowStockThreshold() != null) {
+            update.set("lowStockThreshold", request.getLowStockThreshold());
+            product.setLowStockThreshold(request.getLowStockThreshold());
+        }
         if (request.getCategory() != null) {
+            update.set("category", request.getCategory());
             product.setCategory(request.getCategory());
         }
         if (request.getTags() != null) {
+            update.set("tags", request.getTags());
             product.setTags(request.getTags());
         }
         product.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC).toLocalDateTime());
-        Product saved = productRepository.save(product);
-        return toProductResponse(saved);
+        update.set("updatedAt", product.getUpdatedAt());
+
+        // The document as this write found it: a stock movement may have landed since the read
+        Product previous = modify(id, update, false);
+        if (previous == null) {
+            throw new ResourceNotFoundException("Product not found with id: " + id);
+        }
+        Integer previousQuantity = previous.getQuantity();
+        Integer previousThreshold = previous.getLowStockThreshold();
+        product.setMediaIds(previous.getMediaIds());
+        product.setVersion(nextVersion(previous));
+        if (previousQuantity != null && product.getQuantity() != null) {
+            stockLedgerService.record(product, product.getQuantity() - previousQuantity);
+        }
+        stockAlertService.onStockChanged(product, previousQuantity, previousThreshold);
+        snapshotPublisher.publishUpsert(product);
+        return toProductResponse(product);
     }
 
     public void deleteProduct(String id, String userId) {
@@ -195,6 +220,9 @@ public class ProductService {
         }
         List<String> mediaIds = product.getMediaIds();
         productRepository.delete(product);
+        stockAlertService.onProductDeleted(id);
+        stockLedgerService.onProductDeleted(id);
+        snapshotPublisher.publishDelete(id);
         // Publish Kafka event for product deletion
         try {
             ObjectNode node = objectMapper.createObjectNode();
@@ -210,14 +238,29 @@ public class ProductService {
         }
     }
 
+    /**
+     * Stock audit trail of a product, visible to its seller only.
+     */
+    public StockLedgerResponse getStockLedger(String productId, String userId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        if (!product.getUserId().equals(userId)) {
+            throw new UnauthorizedException("You do not have permission to view this product's stock");
+        }
+        return stockLedgerService.getLedger(product);
+    }
+
     public ProductResponse associateMedia(String productId, String mediaId, String userId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
         if (!product.getUserId().equals(userId)) {
             throw new UnauthorizedException("You do not have permission to modify this product");
         }
-        product.getMediaIds().add(mediaId);
-        Product saved = productRepository.save(product);
+        Product saved = modify(productId, new Update().push("mediaIds", mediaId), true);
+        if (saved == null) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        snapshotPublisher.publishUpsert(saved);
 
         // Call Media Service to update the productId in the media record
         try {
@@ -236,11 +279,11 @@ public class ProductService {
      * Called by Media Service when media is deleted
      */
     public void removeMediaFromProduct(String productId, String mediaId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException(PRODUCT_NOT_FOUND));
-
-        product.getMediaIds().remove(mediaId);
-        productRepository.save(product);
+        Product product = modify(productId, new Update().pull("mediaIds", mediaId), true);
+        if (product == null) {
+            throw new RuntimeException(PRODUCT_NOT_FOUND);
+        }
+        snapshotPublisher.publishUpsert(product);
     }
 
     /**
@@ -280,9 +323,13 @@ public class ProductService {
 
             // Update product if any media IDs were removed
             if (validMediaIds.size() != product.getMediaIds().size()) {
+                List<String> removed = new ArrayList<>(product.getMediaIds());
+                removed.removeAll(validMediaIds);
                 int removedCount = product.getMediaIds().size() - validMediaIds.size();
-                product.setMediaIds(validMediaIds);
-                productRepository.save(product);
+                Product cleaned = modify(product.getId(), new Update().pullAll("mediaIds", removed.toArray()), true);
+                if (cleaned != null) {
+                    snapshotPublisher.publishUpsert(cleaned);
+                }
                 System.out.println(
                         "Cleaned product: " + product.getId() + " - Removed " + removedCount + " orphaned media IDs");
             }
@@ -306,6 +353,7 @@ public class ProductService {
                 .description(product.getDescription())
                 .price(product.getPrice())
                 .stock(product.getQuantity())
+                .lowStockThreshold(stockAlertService.thresholdFor(product))
                 .sellerId(product.getUserId())
                 .category(product.getCategory())
                 .tags(product.getTags())
@@ -315,69 +363,46 @@ public class ProductService {
                         : null)
                 .updatedAt(product.getUpdatedAt() != null ? product.getUpdatedAt().atZone(ZoneOffset.UTC).toString()
                         : null)
+                .version(product.getVersion())
                 .build();
     }
 
+    /**
+     * Apply an update to a stored product in one atomic write that also bumps
+     * its version, like the stock ledger's $inc does. A full save of a product
+     * read earlier would overwrite a stock movement made in between.
+     *
+     * @param returnNew whether to return the product after the update rather than before
+     * @return the product, or null when it does not exist
+     */
+    private Product modify(String id, Update update, boolean returnNew) {
+        if (!update.modifies("updatedAt")) {
+            update.set("updatedAt", ZonedDateTime.now(ZoneOffset.UTC).toLocalDateTime());
+        }
+        update.inc("version", 1);
+        return mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(returnNew), Product.class);
+    }
+
+    /**
+     * Version a product has after one $inc; documents written before versioning start at 1.
+     */
+    private static long nextVersion(Product product) {
+        return product.getVersion() != null ? product.getVersion() + 1 : 1L;
+    }
+
     // ==================== Search & Filter Methods ====================
 
     /**
      * Search products with advanced filtering.
      * Supports text search, category, price range, tags, and stock filtering.
+     * The query shape, sort and index hint come from {@link ProductQueryPlanner}.
      */
     public ProductSearchResponse searchProducts(ProductSearchRequest request, Pageable pageable) {
-        Query query = new Query();
-        List<Criteria> criteriaList = new ArrayList<>();
-
-        // Text search (if q is provided) - use regex for more reliable search
-        if (request.getQ() != null && !request.getQ().trim().isEmpty()) {
-            String searchTerm = request.getQ().trim();
-            // Use case-insensitive regex search on name and description
-            Criteria searchCriteria = new Criteria().orOperator(
-                Criteria.where("name").regex(searchTerm, "i"),
-                Criteria.where("description").regex(searchTerm, "i")
-            );
-            criteriaList.add(searchCriteria);
-        }
-
-        // Category filter
-        if (request.getCategory() != null && !request.getCategory().trim().isEmpty()) {
-            criteriaList.add(Criteria.where("category").is(request.getCategory().trim()));
-        }
-
-        // Price range filter
-        if (request.getMinPrice() != null && request.getMaxPrice() != null) {
-            criteriaList.add(Criteria.where("price").gte(request.getMinPrice()).lte(request.getMaxPrice()));
-        } else if (request.getMinPrice() != null) {
-            criteriaList.add(Criteria.where("price").gte(request.getMinPrice()));
-        } else if (request.getMaxPrice() != null) {
-            criteriaList.add(Criteria.where("price").lte(request.getMaxPrice()));
-        }
-
-        // Tags filter (match any)
-        if (request.getTags() != null && !request.getTags().isEmpty()) {
-            criteriaList.add(Criteria.where("tags").in(request.getTags()));
-        }
-
-        // In-stock filter
-        if (request.getInStock() != null && request.getInStock()) {
-            criteriaList.add(Criteria.where("quantity").gt(0));
-        }
-
-        // Seller filter
-        if (request.getSellerId() != null && !request.getSellerId().trim().isEmpty()) {
-            criteriaList.add(Criteria.where("userId").is(request.getSellerId().trim()));
-        }
-
-        // Combine all criteria
-        if (!criteriaList.isEmpty()) {
-            query.addCriteria(new Criteria().andOperator(criteriaList.toArray(new Criteria[0])));
-        }
+        Query query = productQueryPlanner.plan(request, pageable);
 
         // Execute count query for pagination
-        long total = mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Product.class);
-
-        // Apply pagination
-        query.with(pageable);
+        long total = mongoTemplate.count(productQueryPlanner.countQuery(query), Product.class);
 
         // Execute query
         List<Product> products = mongoTemplate.find(query, Product.class);
@@ -472,7 +497,7 @@ public class ProductService {
         boolean allSuccess = true;
 
         for (StockUpdateRequest.StockUpdateItem item : request.getItems()) {
-            StockUpdateResponse.StockUpdateResult result = processStockItem(item, increment);
+            StockUpdateResponse.StockUpdateResult result = processStockItem(item, request.getOrderId(), increment);
             if (!result.isSuccess()) {
                 allSuccess = false;
             }
@@ -489,9 +514,13 @@ public class ProductService {
                 .build();
     }
 
-    /** Processes a single stock update item. */
+    /**
+     * Processes a single stock update item.
+     * The movement is appended to the stock ledger, so a retry carrying the
+     * same order ID is acknowledged without being applied twice.
+     */
     private StockUpdateResponse.StockUpdateResult processStockItem(
-            StockUpdateRequest.StockUpdateItem item, boolean increment) {
+            StockUpdateRequest.StockUpdateItem item, String orderId, boolean increment) {
         try {
             Product product = productRepository.findById(item.getProductId()).orElse(null);
             if (product == null) {
@@ -503,24 +532,33 @@ public class ProductService {
             }
 
             int previousStock = product.getQuantity();
-            int newStock = increment
-                    ? previousStock + item.getQuantity()
-                    : previousStock - item.getQuantity();
+            int delta = increment ? item.getQuantity() : -item.getQuantity();
 
-            if (!increment && newStock < 0) {
-                return StockUpdateResponse.StockUpdateResult.builder()
-                        .productId(item.getProductId())
-                        .productName(product.getName())
-                        .success(false)
-                        .error("Insufficient stock. Available: " + previousStock
-                                + ", Requested: " + item.getQuantity())
-                        .previousStock(previousStock)
-                        .build();
+            // Tagged retries must reach the ledger to be recognised as duplicates,
+            // so only untagged requests are rejected up front
+            if (!increment && orderId == null && previousStock + delta < 0) {
+                return insufficientStock(item, product, previousStock);
             }
 
-            product.setQuantity(newStock);
-            product.setUpdatedAt(java.time.LocalDateTime.now());
-            productRepository.save(product);
+            StockLedgerService.LedgerResult ledgerResult = stockLedgerService.apply(product, delta,
+                    increment ? StockLedgerEntryType.CANCEL_RESTORE : StockLedgerEntryType.ORDER_DECREMENT,
+                    orderId);
+
+            int newStock = ledgerResult.getQuantity();
+            switch (ledgerResult.getOutcome()) {
+                case INSUFFICIENT:
+                    return insufficientStock(item, product, newStock);
+                case DUPLICATE:
+                    // Already applied for this order - acknowledge without moving stock again
+                    previousStock = newStock;
+                    break;
+                default:
+                    previousStock = newStock - delta;
+                    product.setQuantity(newStock);
+                    stockAlertService.onStockChanged(product, previousStock, product.getLowStockThreshold());
+                    snapshotPublisher.publishUpsert(
+                            ledgerResult.getProduct() != null ? ledgerResult.getProduct() : product);
+            }
 
             return StockUpdateResponse.StockUpdateResult.builder()
                     .productId(item.getProductId())
@@ -538,4 +576,16 @@ public class ProductService {
                     .build();
         }
     }
+
+    private StockUpdateResponse.StockUpdateResult insufficientStock(
+            StockUpdateRequest.StockUpdateItem item, Product product, int available) {
+        return StockUpdateResponse.StockUpdateResult.builder()
+                .productId(item.getProductId())
+                .productName(product.getName())
+                .success(false)
+                .error("Insufficient stock. Available: " + available
+                        + ", Requested: " + item.getQuantity())
+                .previousStock(available)
+                .build();
+    }
 }
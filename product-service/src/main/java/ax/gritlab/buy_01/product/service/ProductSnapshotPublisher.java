@@ -0,0 +1,86 @@
+package ax.gritlab.buy_01.product.service;
+
+import ax.gritlab.buy_01.product.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneOffset;
+
+/**
+ * Publishes full product snapshots to the log-compacted product.snapshots topic.
+ *
+ * Every message is keyed by product ID and carries the same fields as
+ * ProductResponse plus the product version, so consumers can keep a local
+ * replica and ignore snapshots older than the one they hold. Deleting a
+ * product publishes a tombstone (null value) for its key.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductSnapshotPublisher {
+
+    public static final String SNAPSHOTS_TOPIC = "product.snapshots";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${media.public.url:https://localhost:8443/api/media}")
+    private String mediaPublicUrl;
+
+    /**
+     * Publish the current state of a product.
+     */
+    public void publishUpsert(Product product) {
+        try {
+            kafkaTemplate.send(SNAPSHOTS_TOPIC, product.getId(), objectMapper.writeValueAsString(toSnapshot(product)));
+        } catch (Exception e) {
+            System.err.println("Failed to publish snapshot for product " + product.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Publish a tombstone so compaction drops the product from the topic.
+     */
+    public void publishDelete(String productId) {
+        try {
+            kafkaTemplate.send(SNAPSHOTS_TOPIC, productId, null);
+        } catch (Exception e) {
+            System.err.println("Failed to publish tombstone for product " + productId + ": " + e.getMessage());
+        }
+    }
+
+    private ObjectNode toSnapshot(Product product) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("type", "UPSERT");
+        node.put("version", product.getVersion() != null ? product.getVersion() : 0L);
+        node.put("id", product.getId());
+        node.put("name", product.getName());
+        node.put("description", product.getDescription());
+        node.put("price", product.getPrice());
+        node.put("stock", product.getQuantity());
+        node.put("lowStockThreshold", product.getLowStockThreshold());
+        node.put("sellerId", product.getUserId());
+        node.put("category", product.getCategory());
+        ArrayNode tags = node.putArray("tags");
+        if (product.getTags() != null) {
+            product.getTags().forEach(tags::add);
+        }
+        ArrayNode mediaIds = node.putArray("mediaIds");
+        ArrayNode imageUrls = node.putArray("imageUrls");
+        if (product.getMediaIds() != null) {
+            for (String mediaId : product.getMediaIds()) {
+                mediaIds.add(mediaId);
+                imageUrls.add(mediaPublicUrl + "/images/" + mediaId);
+            }
+        }
+        node.put("createdAt", product.getCreatedAt() != null
+                ? product.getCreatedAt().atZone(ZoneOffset.UTC).toString() : null);
+        node.put("updatedAt", product.getUpdatedAt() != null
+                ? product.getUpdatedAt().atZone(ZoneOffset.UTC).toString() : null);
+        return node;
+    }
+}
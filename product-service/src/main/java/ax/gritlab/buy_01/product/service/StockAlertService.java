@@ -0,0 +1,172 @@
+package ax.gritlab.buy_01.product.service;
+
+import ax.gritlab.buy_01.product.dto.InventoryHealthResponse;
+import ax.gritlab.buy_01.product.model.LowStockAlert;
+import ax.gritlab.buy_01.product.model.Product;
+import ax.gritlab.buy_01.product.model.StockLevel;
+import ax.gritlab.buy_01.product.repository.LowStockAlertRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks low-stock and out-of-stock crossings.
+ *
+ * Every stock write reports the previous and new quantity here. Only a change
+ * of {@link StockLevel} publishes an event and touches the alert set, so the
+ * seller inventory view is a lookup of that set instead of a scan over all
+ * products.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockAlertService {
+
+    public static final String STOCK_LOW_TOPIC = "product.stock.low";
+    public static final String STOCK_OUT_TOPIC = "product.stock.out";
+
+    private final LowStockAlertRepository alertRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${product.stock.low-threshold:5}")
+    private int defaultLowStockThreshold;
+
+    /**
+     * Effective threshold for a product.
+     */
+    public int thresholdFor(Product product) {
+        return thresholdFor(product.getLowStockThreshold());
+    }
+
+    private int thresholdFor(Integer threshold) {
+        return threshold != null ? threshold : defaultLowStockThreshold;
+    }
+
+    /**
+     * Record a stock change for a product.
+     *
+     * @param product           product after the write
+     * @param previousQuantity  quantity before the write, or null for a new product
+     * @param previousThreshold threshold before the write
+     */
+    public void onStockChanged(Product product, Integer previousQuantity, Integer previousThreshold) {
+        try {
+            int threshold = thresholdFor(product);
+            StockLevel before = previousQuantity == null
+                    ? StockLevel.IN_STOCK
+                    : StockLevel.of(previousQuantity, thresholdFor(previousThreshold));
+            StockLevel after = StockLevel.of(product.getQuantity(), threshold);
+
+            if (after == StockLevel.IN_STOCK) {
+                if (before != StockLevel.IN_STOCK) {
+                    alertRepository.deleteById(product.getId());
+                }
+                return;
+            }
+
+            LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+            if (before == after) {
+                // Still in the same band - keep the alert's numbers current
+                alertRepository.findById(product.getId()).ifPresentOrElse(alert -> {
+                    alert.setQuantity(product.getQuantity());
+                    alert.setThreshold(threshold);
+                    alert.setProductName(product.getName());
+                    alert.setUpdatedAt(now);
+                    alertRepository.save(alert);
+                }, () -> alertRepository.save(toAlert(product, threshold, after, now)));
+                return;
+            }
+
+            alertRepository.save(toAlert(product, threshold, after, now));
+            publish(after == StockLevel.OUT_OF_STOCK ? STOCK_OUT_TOPIC : STOCK_LOW_TOPIC,
+                    product, threshold, after);
+        } catch (Exception e) {
+            // Alerts are advisory; never fail the stock write because of them
+            System.err.println("Failed to track stock level for product " + product.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drop the alert of a deleted product.
+     */
+    public void onProductDeleted(String productId) {
+        try {
+            alertRepository.deleteById(productId);
+        } catch (Exception e) {
+            System.err.println("Failed to remove stock alert for product " + productId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drop all alerts of a deleted seller.
+     */
+    public void onSellerDeleted(String sellerId) {
+        try {
+            alertRepository.deleteBySellerId(sellerId);
+        } catch (Exception e) {
+            System.err.println("Failed to remove stock alerts for seller " + sellerId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Inventory health for a seller, read straight from the alert set.
+     */
+    public InventoryHealthResponse getInventoryHealth(String sellerId) {
+        List<LowStockAlert> alerts = alertRepository.findBySellerIdOrderByQuantityAsc(sellerId);
+        int outOfStock = (int) alerts.stream().filter(a -> a.getLevel() == StockLevel.OUT_OF_STOCK).count();
+
+        return InventoryHealthResponse.builder()
+                .sellerId(sellerId)
+                .lowStockCount(alerts.size() - outOfStock)
+                .outOfStockCount(outOfStock)
+                .alerts(alerts.stream().map(this::toResponse).collect(Collectors.toList()))
+                .build();
+    }
+
+    private LowStockAlert toAlert(Product product, int threshold, StockLevel level, LocalDateTime now) {
+        return LowStockAlert.builder()
+                .id(product.getId())
+                .sellerId(product.getUserId())
+                .productName(product.getName())
+                .quantity(product.getQuantity())
+                .threshold(threshold)
+                .level(level)
+                .since(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    private InventoryHealthResponse.StockAlert toResponse(LowStockAlert alert) {
+        return InventoryHealthResponse.StockAlert.builder()
+                .productId(alert.getId())
+                .productName(alert.getProductName())
+                .stock(alert.getQuantity())
+                .lowStockThreshold(alert.getThreshold())
+                .level(alert.getLevel() != null ? alert.getLevel().name() : null)
+                .since(alert.getSince() != null ? alert.getSince().atZone(ZoneOffset.UTC).toString() : null)
+                .build();
+    }
+
+    private void publish(String topic, Product product, int threshold, StockLevel level) {
+        try {
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put("productId", product.getId());
+            node.put("sellerId", product.getUserId());
+            node.put("productName", product.getName());
+            node.put("quantity", product.getQuantity());
+            node.put("threshold", threshold);
+            node.put("level", level.name());
+            kafkaTemplate.send(topic, product.getId(), objectMapper.writeValueAsString(node));
+        } catch (Exception e) {
+            System.err.println("Failed to publish " + topic + " for product " + product.getId() + ": " + e.getMessage());
+        }
+    }
+}
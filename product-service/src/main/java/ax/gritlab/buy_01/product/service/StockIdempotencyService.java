@@ -0,0 +1,165 @@
+package ax.gritlab.buy_01.product.service;
+
+import ax.gritlab.buy_01.product.dto.StockUpdateRequest;
+import ax.gritlab.buy_01.product.dto.StockUpdateResponse;
+import ax.gritlab.buy_01.product.exception.IdempotencyConflictException;
+import ax.gritlab.buy_01.product.model.StockIdempotencyRecord;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Idempotency for the internal stock endpoints.
+ *
+ * The first call with a key claims it, runs the stock update and stores the
+ * response; later calls with the same key get that response back without
+ * touching stock. Only successful responses are stored - a failed call
+ * releases its key so the caller can retry, which is safe because the stock
+ * ledger already de-duplicates per order and product.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockIdempotencyService {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * A claim older than this is assumed to belong to a crashed request and may be taken over.
+     */
+    @Value("${product.stock.idempotency.claim-timeout-ms:30000}")
+    private long claimTimeoutMillis;
+
+    /**
+     * Response of an idempotent call and whether it was replayed from storage.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class IdempotentResponse {
+        private final StockUpdateResponse response;
+        private final boolean replayed;
+    }
+
+    /**
+     * Key for a stock call: the explicit header if given, otherwise order ID plus operation.
+     *
+     * @return the key, or null when the call cannot be de-duplicated
+     */
+    public String resolveKey(String headerKey, StockUpdateRequest request, String operation) {
+        if (headerKey != null && !headerKey.isBlank()) {
+            return headerKey.trim();
+        }
+        if (request.getOrderId() != null && !request.getOrderId().isBlank()) {
+            return request.getOrderId() + ":" + operation;
+        }
+        return null;
+    }
+
+    /**
+     * Run a stock update at most once per key.
+     *
+     * @param key       idempotency key, or null to run unconditionally
+     * @param operation operation name stored with the record
+     * @param request   the request, fingerprinted to detect key reuse
+     * @param action    the actual stock update
+     */
+    public IdempotentResponse execute(String key, String operation, StockUpdateRequest request,
+            Supplier<StockUpdateResponse> action) {
+        if (key == null) {
+            return new IdempotentResponse(action.get(), false);
+        }
+
+        String fingerprint = fingerprint(request);
+        StockIdempotencyRecord existing = claim(key, operation, fingerprint);
+        if (existing != null) {
+            return new IdempotentResponse(existing.getResponse(), true);
+        }
+
+        StockUpdateResponse response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(key);
+            throw e;
+        }
+
+        if (response.isSuccess()) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(key)),
+                    new Update().set("status", StockIdempotencyRecord.COMPLETED).set("response", response),
+                    StockIdempotencyRecord.class);
+        } else {
+            release(key);
+        }
+        return new IdempotentResponse(response, false);
+    }
+
+    /**
+     * Claim a key for this call.
+     *
+     * @return the stored record when the key was already completed, null when the claim succeeded
+     */
+    private StockIdempotencyRecord claim(String key, String operation, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        try {
+            mongoTemplate.insert(StockIdempotencyRecord.builder()
+                    .id(key)
+                    .operation(operation)
+                    .fingerprint(fingerprint)
+                    .status(StockIdempotencyRecord.IN_PROGRESS)
+                    .claimedAt(now)
+                    .createdAt(now)
+                    .build());
+            return null;
+        } catch (DuplicateKeyException e) {
+            // Key already known - fall through
+        }
+
+        StockIdempotencyRecord existing = mongoTemplate.findById(key, StockIdempotencyRecord.class);
+        if (existing == null) {
+            // Released or expired in the meantime
+            return claim(key, operation, fingerprint);
+        }
+        if (!fingerprint.equals(existing.getFingerprint())) {
+            throw new IdempotencyConflictException("Idempotency key " + key + " was used for a different request");
+        }
+        if (StockIdempotencyRecord.COMPLETED.equals(existing.getStatus())) {
+            return existing;
+        }
+
+        // Take over a claim left behind by a crashed request
+        LocalDateTime staleBefore = now.minusNanos(claimTimeoutMillis * 1_000_000);
+        long taken = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(key)
+                        .and("status").is(StockIdempotencyRecord.IN_PROGRESS)
+                        .and("claimedAt").lt(staleBefore)),
+                new Update().set("claimedAt", now),
+                StockIdempotencyRecord.class).getModifiedCount();
+        if (taken == 0) {
+            throw new IdempotencyConflictException("Request with idempotency key " + key + " is still in progress");
+        }
+        return null;
+    }
+
+    private void release(String key) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(key)
+                .and("status").is(StockIdempotencyRecord.IN_PROGRESS)), StockIdempotencyRecord.class);
+    }
+
+    private String fingerprint(StockUpdateRequest request) {
+        return request.getItems().stream()
+                .sorted(Comparator.comparing(StockUpdateRequest.StockUpdateItem::getProductId))
+                .map(item -> item.getProductId() + "x" + item.getQuantity())
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,351 @@
+package ax.gritlab.buy_01.product.service;
+
+import ax.gritlab.buy_01.product.dto.StockLedgerResponse;
+import ax.gritlab.buy_01.product.model.Product;
+import ax.gritlab.buy_01.product.model.StockLedgerEntry;
+import ax.gritlab.buy_01.product.model.StockLedgerEntryType;
+import ax.gritlab.buy_01.product.model.StockSnapshot;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only stock ledger.
+ *
+ * Every stock movement is inserted into {@code stock_ledger}; nothing there is
+ * ever updated. The product's {@code quantity} is a projection that is moved
+ * with an atomic {@code $inc} right after the insert. A periodic job folds
+ * settled entries into {@code stock_snapshots} and repairs projections that
+ * drifted from snapshot + tail, e.g. after a crash between insert and $inc.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockLedgerService {
+
+    private static final int LEDGER_PAGE_SIZE = 50;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductSnapshotPublisher snapshotPublisher;
+
+    /**
+     * Products known to have a snapshot, so the baseline upsert runs once per product and process.
+     */
+    private final Set<String> snapshotted = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Entries younger than this are considered in flight and are neither folded nor reconciled.
+     */
+    @Value("${product.stock.snapshot.settle-ms:60000}")
+    private long settleMillis;
+
+    /**
+     * Outcome of an order-driven stock movement.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class LedgerResult {
+        public enum Outcome { APPLIED, DUPLICATE, INSUFFICIENT }
+
+        private final Outcome outcome;
+        /** Stock after the movement (or current stock for duplicates and rejections). */
+        private final int quantity;
+        /** Product as stored after an applied movement, if known. */
+        private final Product product;
+
+        public static LedgerResult applied(Product product) {
+            return new LedgerResult(Outcome.APPLIED, product.getQuantity(), product);
+        }
+
+        public static LedgerResult applied(int quantity) {
+            return new LedgerResult(Outcome.APPLIED, quantity, null);
+        }
+
+        public static LedgerResult duplicate(int quantity) {
+            return new LedgerResult(Outcome.DUPLICATE, quantity, null);
+        }
+
+        public static LedgerResult insufficient(int quantity) {
+            return new LedgerResult(Outcome.INSUFFICIENT, quantity, null);
+        }
+    }
+
+    /**
+     * Append an order movement and apply it to the product's quantity.
+     * A repeated (orderId, product, type) is rejected by the unique index and
+     * reported as {@link LedgerResult.Outcome#DUPLICATE} without touching stock.
+     *
+     * @param product product as read before the movement
+     * @param delta   signed change
+     * @param type    movement type
+     * @param orderId order that caused it, may be null for untagged callers
+     */
+    public LedgerResult apply(Product product, int delta, StockLedgerEntryType type, String orderId) {
+        LocalDateTime now = now();
+        ensureSnapshot(product.getId(), product.getQuantity(), now);
+
+        StockLedgerEntry entry = StockLedgerEntry.builder()
+                .productId(product.getId())
+                .delta(delta)
+                .type(type)
+                .orderId(orderId)
+                .createdAt(now)
+                .build();
+        try {
+            mongoTemplate.insert(entry);
+        } catch (DuplicateKeyException e) {
+            if (orderId != null && isRejected(orderId, product.getId())) {
+                // The first attempt was turned down - a retry gets the same answer
+                return LedgerResult.insufficient(product.getQuantity());
+            }
+            return LedgerResult.duplicate(product.getQuantity());
+        }
+
+        Query query = Query.query(Criteria.where("_id").is(product.getId()));
+        if (delta < 0) {
+            // Never let the projection go negative
+            query.addCriteria(Criteria.where("quantity").gte(-delta));
+        }
+        Product updated = mongoTemplate.findAndModify(query,
+                new Update().inc("quantity", delta).inc("version", 1).set("updatedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                Product.class);
+
+        if (updated == null) {
+            // Lost a race for the last units - the movement did not happen.
+            // The ledger is append-only, so the entry is cancelled out rather than deleted;
+            // both share createdAt and are always folded together.
+            mongoTemplate.insert(StockLedgerEntry.builder()
+                    .productId(product.getId())
+                    .delta(-delta)
+                    .type(StockLedgerEntryType.REJECTED)
+                    .orderId(orderId)
+                    .createdAt(now)
+                    .build());
+            Product current = mongoTemplate.findById(product.getId(), Product.class);
+            return LedgerResult.insufficient(current != null ? current.getQuantity() : 0);
+        }
+        return LedgerResult.applied(updated);
+    }
+
+    /**
+     * Record a seller adjustment whose new quantity has already been saved on the product.
+     *
+     * @param product product after the save
+     * @param delta   new quantity minus previous quantity
+     */
+    public void record(Product product, int delta) {
+        try {
+            LocalDateTime now = now();
+            ensureSnapshot(product.getId(), product.getQuantity() - delta, now);
+            if (delta == 0) {
+                return;
+            }
+            mongoTemplate.insert(StockLedgerEntry.builder()
+                    .productId(product.getId())
+                    .delta(delta)
+                    .type(StockLedgerEntryType.SELLER_RESTOCK)
+                    .createdAt(now)
+                    .build());
+        } catch (Exception e) {
+            System.err.println("Failed to record stock adjustment for product " + product.getId() + ": "
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Whether a movement of the given type was recorded and applied for an order.
+     * Movements cancelled out by a {@link StockLedgerEntryType#REJECTED} entry do not count.
+     *
+     * @param productId product to look at, or null for any product of the order
+     */
+    public boolean hasMovement(String orderId, String productId, StockLedgerEntryType type) {
+        Criteria criteria = Criteria.where("orderId").is(orderId)
+                .and("type").in(type, StockLedgerEntryType.REJECTED);
+        if (productId != null) {
+            criteria.and("productId").is(productId);
+        }
+        List<StockLedgerEntry> entries = mongoTemplate.find(Query.query(criteria), StockLedgerEntry.class);
+        Set<String> rejected = entries.stream()
+                .filter(e -> e.getType() == StockLedgerEntryType.REJECTED)
+                .map(StockLedgerEntry::getProductId)
+                .collect(Collectors.toSet());
+        return entries.stream()
+                .anyMatch(e -> e.getType() == type && !rejected.contains(e.getProductId()));
+    }
+
+    private boolean isRejected(String orderId, String productId) {
+        return mongoTemplate.exists(Query.query(Criteria.where("orderId").is(orderId)
+                .and("productId").is(productId)
+                .and("type").is(StockLedgerEntryType.REJECTED)), StockLedgerEntry.class);
+    }
+
+    /**
+     * Forget the snapshot of a deleted product. Its ledger entries stay as audit trail.
+     */
+    public void onProductDeleted(String productId) {
+        snapshotted.remove(productId);
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(productId)), StockSnapshot.class);
+    }
+
+    /**
+     * Replay current stock from the latest snapshot plus newer ledger entries.
+     *
+     * @return derived stock, or null when the product has no snapshot yet
+     */
+    public Integer replay(String productId) {
+        StockSnapshot snapshot = mongoTemplate.findById(productId, StockSnapshot.class);
+        if (snapshot == null) {
+            return null;
+        }
+        return snapshot.getQuantity() + sumDeltas(productId, snapshot.getAsOf(), null);
+    }
+
+    /**
+     * Latest ledger entries of a product alongside stored and replayed stock.
+     */
+    public StockLedgerResponse getLedger(Product product) {
+        Query query = Query.query(Criteria.where("productId").is(product.getId()))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt"))
+                .limit(LEDGER_PAGE_SIZE);
+
+        return StockLedgerResponse.builder()
+                .productId(product.getId())
+                .stock(product.getQuantity())
+                .derivedStock(replay(product.getId()))
+                .entries(mongoTemplate.find(query, StockLedgerEntry.class).stream()
+                        .map(e -> StockLedgerResponse.Entry.builder()
+                                .type(e.getType().name())
+                                .delta(e.getDelta())
+                                .orderId(e.getOrderId())
+                                .createdAt(e.getCreatedAt().atZone(ZoneOffset.UTC).toString())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    /**
+     * Fold settled ledger entries into snapshots and repair drifted projections.
+     */
+    @Scheduled(fixedDelayString = "${product.stock.snapshot.interval-ms:300000}",
+            initialDelayString = "${product.stock.snapshot.interval-ms:300000}")
+    public void compactSnapshots() {
+        LocalDateTime cutoff = now().minusNanos(settleMillis * 1_000_000);
+        Query stale = Query.query(Criteria.where("asOf").lt(cutoff));
+        int folded = 0;
+
+        try (Stream<StockSnapshot> snapshots = mongoTemplate.stream(stale, StockSnapshot.class)) {
+            for (StockSnapshot snapshot : (Iterable<StockSnapshot>) snapshots::iterator) {
+                try {
+                    if (fold(snapshot, cutoff)) {
+                        folded++;
+                    }
+                } catch (Exception e) {
+                    System.err.println("Failed to compact stock snapshot " + snapshot.getId() + ": " + e.getMessage());
+                }
+            }
+        }
+        if (folded > 0) {
+            System.out.println("Compacted stock snapshots for " + folded + " products");
+        }
+    }
+
+    private boolean fold(StockSnapshot snapshot, LocalDateTime cutoff) {
+        int sum = sumDeltas(snapshot.getId(), snapshot.getAsOf(), cutoff);
+        if (sum == 0 && !hasEntries(snapshot.getId(), snapshot.getAsOf(), cutoff)) {
+            return false;
+        }
+
+        // Guard on asOf so two compactors never fold the same tail twice
+        long modified = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(snapshot.getId()).and("asOf").is(snapshot.getAsOf())),
+                new Update().inc("quantity", sum).set("asOf", cutoff),
+                StockSnapshot.class).getModifiedCount();
+        if (modified == 0) {
+            return false;
+        }
+
+        reconcile(snapshot.getId(), snapshot.getQuantity() + sum, cutoff);
+        return true;
+    }
+
+    /**
+     * Align the product's quantity with the ledger when no movement is in flight.
+     */
+    private void reconcile(String productId, int snapshotQuantity, LocalDateTime asOf) {
+        if (hasEntries(productId, asOf, null)) {
+            // Newer movements are still settling; the next run will look again
+            return;
+        }
+        Product product = mongoTemplate.findById(productId, Product.class);
+        if (product == null || product.getQuantity() == null || product.getQuantity() == snapshotQuantity) {
+            return;
+        }
+        Product repaired = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(productId).and("quantity").is(product.getQuantity())),
+                new Update().set("quantity", snapshotQuantity).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                Product.class);
+        if (repaired != null) {
+            System.out.println("Repaired stock projection for product " + productId + ": "
+                    + product.getQuantity() + " -> " + snapshotQuantity);
+            snapshotPublisher.publishUpsert(repaired);
+        }
+    }
+
+    private void ensureSnapshot(String productId, Integer baseline, LocalDateTime asOf) {
+        if (snapshotted.contains(productId)) {
+            return;
+        }
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("_id").is(productId)),
+                new Update()
+                        .setOnInsert("quantity", baseline != null ? baseline : 0)
+                        .setOnInsert("asOf", asOf),
+                StockSnapshot.class);
+        snapshotted.add(productId);
+    }
+
+    private Criteria tailCriteria(String productId, LocalDateTime from, LocalDateTime to) {
+        Criteria createdAt = Criteria.where("createdAt").gte(from);
+        if (to != null) {
+            createdAt.lt(to);
+        }
+        return Criteria.where("productId").is(productId).andOperator(createdAt);
+    }
+
+    private int sumDeltas(String productId, LocalDateTime from, LocalDateTime to) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(tailCriteria(productId, from, to)),
+                Aggregation.group("productId").sum("delta").as("total"));
+        Document result = mongoTemplate.aggregate(aggregation, StockLedgerEntry.class, Document.class)
+                .getUniqueMappedResult();
+        return result != null ? result.get("total", Number.class).intValue() : 0;
+    }
+
+    private boolean hasEntries(String productId, LocalDateTime from, LocalDateTime to) {
+        return mongoTemplate.exists(Query.query(tailCriteria(productId, from, to)), StockLedgerEntry.class);
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+}
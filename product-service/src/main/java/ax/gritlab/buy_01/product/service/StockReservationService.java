@@ -0,0 +1,131 @@
+package ax.gritlab.buy_01.product.service;
+
+import ax.gritlab.buy_01.product.dto.StockUpdateRequest;
+import ax.gritlab.buy_01.product.dto.StockUpdateResponse;
+import ax.gritlab.buy_01.product.model.StockLedgerEntryType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Stock step of the asynchronous checkout saga.
+ *
+ * Each order.placed event decrements stock for the whole order or not at
+ * all: when some items cannot be taken, the ones that were are put back
+ * before the order is rejected. The outcome is published to order.stock,
+ * keyed by order ID, for order-service to confirm or cancel the order.
+ *
+ * Redelivered events are safe. The decrement goes through the same
+ * idempotency key as the internal HTTP endpoint, the stock ledger
+ * de-duplicates every movement per order and product, and an order whose
+ * stock was put back is never reconsidered.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    public static final String ORDER_PLACED_TOPIC = "order.placed";
+    public static final String ORDER_STOCK_TOPIC = "order.stock";
+
+    private static final String DECREMENT_OPERATION = "decrement-stock";
+
+    private final ProductService productService;
+    private final StockIdempotencyService stockIdempotencyService;
+    private final StockLedgerService stockLedgerService;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Reserve stock for a placed order and publish the outcome.
+     *
+     * @param payload order.placed message: orderId, orderNumber and items of productId and quantity
+     */
+    public void onOrderPlaced(String payload) throws Exception {
+        JsonNode event = objectMapper.readTree(payload);
+        String orderId = event.path("orderId").asText(null);
+        String orderNumber = event.path("orderNumber").asText(null);
+        if (orderId == null || orderNumber == null || !event.path("items").isArray()) {
+            System.err.println("Ignoring malformed " + ORDER_PLACED_TOPIC + " event: " + payload);
+            return;
+        }
+
+        List<StockUpdateRequest.StockUpdateItem> items = new ArrayList<>();
+        for (JsonNode item : event.get("items")) {
+            items.add(StockUpdateRequest.StockUpdateItem.builder()
+                    .productId(item.path("productId").asText())
+                    .quantity(item.path("quantity").asInt())
+                    .build());
+        }
+        StockUpdateRequest request = StockUpdateRequest.builder()
+                .orderId(orderNumber)
+                .items(items)
+                .build();
+
+        // Once a rejection started putting stock back, deciding again could confirm an order holding nothing
+        if (stockLedgerService.hasMovement(orderNumber, null, StockLedgerEntryType.CANCEL_RESTORE)) {
+            release(request);
+            publishOutcome(orderId, orderNumber, false, "Stock was already released for this order");
+            return;
+        }
+
+        StockUpdateResponse response = stockIdempotencyService.execute(orderNumber + ":" + DECREMENT_OPERATION,
+                DECREMENT_OPERATION, request, () -> productService.decrementStock(request)).getResponse();
+
+        if (response.isSuccess()) {
+            publishOutcome(orderId, orderNumber, true, null);
+            return;
+        }
+        release(request);
+        publishOutcome(orderId, orderNumber, false, rejectionReason(response));
+    }
+
+    /**
+     * Put back every item the order took. The ledger tells which ones those
+     * are, so a release interrupted halfway is finished on redelivery.
+     */
+    private void release(StockUpdateRequest request) {
+        List<StockUpdateRequest.StockUpdateItem> taken = request.getItems().stream()
+                .filter(item -> stockLedgerService.hasMovement(request.getOrderId(), item.getProductId(),
+                        StockLedgerEntryType.ORDER_DECREMENT))
+                .collect(Collectors.toList());
+        if (taken.isEmpty()) {
+            return;
+        }
+
+        StockUpdateResponse restored = productService.incrementStock(StockUpdateRequest.builder()
+                .orderId(request.getOrderId())
+                .items(taken)
+                .build());
+        if (!restored.isSuccess()) {
+            // Thrown so the event is redelivered; the ledger skips what was already put back
+            throw new IllegalStateException("Failed to release stock of rejected order " + request.getOrderId()
+                    + ": " + restored.getMessage());
+        }
+    }
+
+    private String rejectionReason(StockUpdateResponse response) {
+        return response.getResults().stream()
+                .filter(result -> !result.isSuccess())
+                .map(result -> (result.getProductName() != null ? result.getProductName() : result.getProductId())
+                        + ": " + result.getError())
+                .collect(Collectors.joining("; "));
+    }
+
+    private void publishOutcome(String orderId, String orderNumber, boolean reserved, String reason)
+            throws Exception {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("orderId", orderId);
+        node.put("orderNumber", orderNumber);
+        node.put("reserved", reserved);
+        node.put("reason", reason);
+        // Wait for the broker: a lost reply would leave the order pending, a failed send is redelivered
+        kafkaTemplate.send(ORDER_STOCK_TOPIC, orderId, objectMapper.writeValueAsString(node)).get();
+    }
+}
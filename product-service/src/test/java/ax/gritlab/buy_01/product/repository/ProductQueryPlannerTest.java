@@ -0,0 +1,127 @@
+package ax.gritlab.buy_01.product.repository;
+
+import ax.gritlab.buy_01.product.dto.ProductSearchRequest;
+import ax.gritlab.buy_01.product.model.Product;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProductQueryPlanner Unit Tests")
+class ProductQueryPlannerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private ProductQueryPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        IndexOperations indexOps = mock(IndexOperations.class);
+        List<IndexInfo> indexes = Stream.of("_id_", ProductQueryPlanner.SELLER_DATE_IDX,
+                        ProductQueryPlanner.PRICE_DATE_IDX, ProductQueryPlanner.CATEGORY_PRICE_IDX,
+                        ProductQueryPlanner.CATEGORY_DATE_IDX, ProductQueryPlanner.TAGS_DATE_IDX)
+                .map(name -> new IndexInfo(List.of(), name, false, false, null))
+                .collect(Collectors.toList());
+        lenient().when(mongoTemplate.indexOps(Product.class)).thenReturn(indexOps);
+        lenient().when(indexOps.getIndexInfo()).thenReturn(indexes);
+    }
+
+    @Test
+    @DisplayName("Should emit a flat filter in canonical field order")
+    void plan_CanonicalShape() {
+        ProductSearchRequest request = ProductSearchRequest.builder()
+                .inStock(true)
+                .maxPrice(100.0)
+                .q("lamp")
+                .category("Home")
+                .sellerId("seller1")
+                .build();
+
+        Query query = planner.plan(request, PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        Document filter = query.getQueryObject();
+        assertEquals(List.of("userId", "category", "$or", "price", "quantity"), List.copyOf(filter.keySet()));
+        assertFalse(filter.containsKey("$and"));
+    }
+
+    @Test
+    @DisplayName("Should hint category_price_idx when a category is sorted by price")
+    void plan_CategorySortedByPrice() {
+        ProductSearchRequest request = ProductSearchRequest.builder().category("Books").minPrice(5.0).build();
+
+        Query query = planner.plan(request, PageRequest.of(1, 10, Sort.by(Sort.Direction.ASC, "price")));
+
+        assertEquals(ProductQueryPlanner.CATEGORY_PRICE_IDX, query.getHint());
+        assertEquals(10, query.getSkip());
+        assertEquals(10, query.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should pick the index matching equality prefix and sort")
+    void chooseIndex_ByAccessPattern() {
+        Sort byDate = Sort.by(Sort.Direction.DESC, "createdAt");
+        Sort byPrice = Sort.by(Sort.Direction.ASC, "price");
+
+        assertEquals(ProductQueryPlanner.CATEGORY_DATE_IDX,
+                planner.chooseIndex(ProductSearchRequest.builder().category("Books").build(), byDate));
+        assertEquals(ProductQueryPlanner.TAGS_DATE_IDX,
+                planner.chooseIndex(ProductSearchRequest.builder().tags(List.of("sale")).build(), byDate));
+        assertEquals(ProductQueryPlanner.SELLER_DATE_IDX,
+                planner.chooseIndex(ProductSearchRequest.builder().sellerId("s1").category("Books").build(), byDate));
+        assertEquals(ProductQueryPlanner.PRICE_DATE_IDX,
+                planner.chooseIndex(ProductSearchRequest.builder().build(), byPrice));
+        assertNull(planner.chooseIndex(ProductSearchRequest.builder().q("lamp").build(), byDate));
+    }
+
+    @Test
+    @DisplayName("Should fall back to createdAt for unknown sort fields")
+    void plan_UnknownSortField_UsesDefault() {
+        Query query = planner.plan(new ProductSearchRequest(),
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "description")));
+
+        assertEquals(new Document("createdAt", -1), query.getSortObject());
+    }
+
+    @Test
+    @DisplayName("Should not hint an index that does not exist")
+    void plan_MissingIndex_NoHint() {
+        when(mongoTemplate.indexOps(Product.class).getIndexInfo())
+                .thenReturn(List.of(new IndexInfo(List.of(), "_id_", false, false, null)));
+
+        Query query = planner.plan(ProductSearchRequest.builder().category("Books").build(),
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        assertNull(query.getHint());
+    }
+
+    @Test
+    @DisplayName("Should escape regex characters in the keyword")
+    void plan_KeywordIsQuoted() {
+        Query query = planner.plan(ProductSearchRequest.builder().q("c++").build(), PageRequest.of(0, 20));
+
+        String json = query.getQueryObject().toJson();
+        assertTrue(json.contains("\\\\Qc++\\\\E"), json);
+    }
+}
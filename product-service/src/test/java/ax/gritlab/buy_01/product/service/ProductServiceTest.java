@@ -7,6 +7,7 @@ import ax.gritlab.buy_01.product.dto.StockUpdateResponse;
 import ax.gritlab.buy_01.product.exception.ResourceNotFoundException;
 import ax.gritlab.buy_01.product.exception.UnauthorizedException;
 import ax.gritlab.buy_01.product.model.Product;
+import ax.gritlab.buy_01.product.model.StockLedgerEntryType;
 import ax.gritlab.buy_01.product.repository.ProductRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,9 +15,15 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.bson.Document;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.web.client.RestTemplate;
 
@@ -27,6 +34,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +54,18 @@ class ProductServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private StockAlertService stockAlertService;
+
+    @Mock
+    private StockLedgerService stockLedgerService;
+
+    @Mock
+    private ProductSnapshotPublisher snapshotPublisher;
+
     @InjectMocks
     private ProductService productService;
 
@@ -127,6 +148,7 @@ class ProductServiceTest {
         assertNotNull(response);
         assertEquals("Test Product", response.getName());
         verify(productRepository, times(1)).save(any(Product.class));
+        verify(stockLedgerService, times(1)).record(testProduct, 10);
     }
 
     @Test
@@ -134,7 +156,8 @@ class ProductServiceTest {
     void testUpdateProduct() {
         // Arrange
         when(productRepository.findById("prod123")).thenReturn(Optional.of(testProduct));
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(storedProduct(10, null));
 
         // Act
         ProductResponse response = productService.updateProduct("prod123", testProductRequest, "user123");
@@ -142,7 +165,62 @@ class ProductServiceTest {
         // Assert
         assertNotNull(response);
         verify(productRepository, times(1)).findById("prod123");
-        verify(productRepository, times(1)).save(any(Product.class));
+        verify(productRepository, never()).save(any(Product.class));
+        verify(stockAlertService, times(1)).onStockChanged(testProduct, 10, null);
+        verify(stockLedgerService, times(1)).record(testProduct, 10);
+        verify(snapshotPublisher, times(1)).publishUpsert(testProduct);
+        assertEquals(1L, testProduct.getVersion());
+    }
+
+    @Test
+    @DisplayName("Should update in one atomic write and measure the stock change against the stored quantity")
+    void testUpdateProduct_ConcurrentStockMovement() {
+        // Arrange - an order took 2 units after the product was read
+        when(productRepository.findById("prod123")).thenReturn(Optional.of(testProduct));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(storedProduct(8, 3L));
+
+        // Act
+        productService.updateProduct("prod123", testProductRequest, "user123");
+
+        // Assert
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(Product.class));
+        assertEquals(1, update.getValue().getUpdateObject().get("$inc", Document.class).get("version"));
+        assertEquals(20, update.getValue().getUpdateObject().get("$set", Document.class).get("quantity"));
+        verify(stockLedgerService, times(1)).record(testProduct, 12);
+        verify(stockAlertService, times(1)).onStockChanged(testProduct, 8, null);
+        assertEquals(4L, testProduct.getVersion());
+    }
+
+    @Test
+    @DisplayName("Should remove a media ID with $pull and bump the version")
+    void testRemoveMediaFromProduct() {
+        // Arrange
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(testProduct);
+
+        // Act
+        productService.removeMediaFromProduct("prod123", "media1");
+
+        // Assert
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(Product.class));
+        assertEquals("media1", update.getValue().getUpdateObject().get("$pull", Document.class).get("mediaIds"));
+        assertEquals(1, update.getValue().getUpdateObject().get("$inc", Document.class).get("version"));
+        verify(productRepository, never()).save(any(Product.class));
+        verify(snapshotPublisher).publishUpsert(testProduct);
+    }
+
+    private Product storedProduct(int quantity, Long version) {
+        Product stored = new Product();
+        stored.setId(testProduct.getId());
+        stored.setUserId(testProduct.getUserId());
+        stored.setQuantity(quantity);
+        stored.setVersion(version);
+        return stored;
     }
 
     @Test
@@ -170,6 +248,7 @@ class ProductServiceTest {
         // Assert
         verify(productRepository, times(1)).findById("prod123");
         verify(productRepository, times(1)).delete(testProduct);
+        verify(snapshotPublisher, times(1)).publishDelete("prod123");
     }
 
     @Test
@@ -198,6 +277,7 @@ class ProductServiceTest {
         // Assert
         verify(productRepository, times(1)).findByUserId("user123");
         verify(productRepository, times(1)).delete(testProduct);
+        verify(stockLedgerService).onProductDeleted(testProduct.getId());
     }
 
     // ===================== Stock Update Tests =====================
@@ -210,7 +290,7 @@ class ProductServiceTest {
         @DisplayName("Should decrement stock successfully for single product")
         void decrementStock_SingleProduct_Success() {
             when(productRepository.findById("prod123")).thenReturn(Optional.of(testProduct));
-            when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+            stubLedgerApplies();
 
             StockUpdateRequest request = StockUpdateRequest.builder()
                     .items(List.of(StockUpdateRequest.StockUpdateItem.builder()
@@ -230,7 +310,9 @@ class ProductServiceTest {
             assertEquals("Test Product", result.getProductName());
             assertEquals(10, result.getPreviousStock());
             assertEquals(7, result.getNewStock());
-            verify(productRepository).save(any(Product.class));
+            verify(stockLedgerService).apply(testProduct, -3, StockLedgerEntryType.ORDER_DECREMENT, null);
+            verify(stockAlertService).onStockChanged(testProduct, 10, null);
+            verify(snapshotPublisher).publishUpsert(testProduct);
         }
 
         @Test
@@ -238,7 +320,7 @@ class ProductServiceTest {
         void decrementStock_ToZero_Success() {
             testProduct.setQuantity(5);
             when(productRepository.findById("prod123")).thenReturn(Optional.of(testProduct));
-            when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+            stubLedgerApplies();
 
             StockUpdateRequest request = StockUpdateRequest.builder()
                     .items(List.of(StockUpdateRequest.StockUpdateItem.builder()
@@ -279,7 +361,8 @@ class ProductServiceTest {
             assertTrue(result.getError().contains("Available: 2"));
             assertTrue(result.getError().contains("Requested: 5"));
             assertEquals(2, result.getPreviousStock());
-            verify(productRepository, never()).save(any(Product.class));
+            verify(stockLedgerService, never()).apply(any(), anyInt(), any(), any());
+            verify(stockAlertService, never()).onStockChanged(any(), any(), any());
         }
 
         @Test
@@ -314,7 +397,7 @@ class ProductServiceTest {
             when(productRepository.findById("prod123")).thenReturn(Optional.of(testProduct));
             when(productRepository.findById("prod456")).thenReturn(Optional.of(product2));
             when(productRepository.findById("missing")).thenReturn(Optional.empty());
-            when(productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+            stubLedgerApplies();
 
             StockUpdateRequest request = StockUpdateRequest.builder()
                     .items(List.of(
@@ -355,6 +438,47 @@ class ProductServiceTest {
             assertFalse(result.isSuccess());
             assertTrue(result.getError().contains("DB error"));
         }
+        @Test
+        @DisplayName("Should acknowledge a retried order without decrementing again")
+        void decrementStock_DuplicateOrder_Acknowledged() {
+            testProduct.setQuantity(0);
+            when(productRepository.findById("prod123")).thenReturn(Optional.of(testProduct));
+            when(stockLedgerService.apply(testProduct, -2, StockLedgerEntryType.ORDER_DECREMENT, "ORD-1"))
+                    .thenReturn(StockLedgerService.LedgerResult.duplicate(0));
+
+            StockUpdateRequest request = StockUpdateRequest.builder()
+                    .orderId("ORD-1")
+                    .items(List.of(StockUpdateRequest.StockUpdateItem.builder()
+                            .productId("prod123").quantity(2).build()))
+                    .build();
+
+            StockUpdateResponse response = productService.decrementStock(request);
+
+            assertTrue(response.isSuccess());
+            StockUpdateResponse.StockUpdateResult result = response.getResults().get(0);
+            assertEquals(0, result.getPreviousStock());
+            assertEquals(0, result.getNewStock());
+            verify(stockAlertService, never()).onStockChanged(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should fail when a concurrent order took the last units")
+        void decrementStock_LostRace_Fails() {
+            when(productRepository.findById("prod123")).thenReturn(Optional.of(testProduct));
+            when(stockLedgerService.apply(testProduct, -3, StockLedgerEntryType.ORDER_DECREMENT, "ORD-2"))
+                    .thenReturn(StockLedgerService.LedgerResult.insufficient(1));
+
+            StockUpdateRequest request = StockUpdateRequest.builder()
+                    .orderId("ORD-2")
+                    .items(List.of(StockUpdateRequest.StockUpdateItem.builder()
+                            .productId("prod123").quantity(3).build()))
+                    .build();
+
+            StockUpdateResponse response = productService.decrementStock(request);
+
+            assertFalse(response.isSuccess());
+            assertTrue(response.getResults().get(0).getError().contains("Available: 1"));
+        }
     }
 
     @Nested
@@ -365,7 +489,7 @@ class ProductServiceTest {
         @DisplayName("Should increment stock successfully")
         void incrementStock_Success() {
             when(productRepository.findById("prod123")).thenReturn(Optional.of(testProduct));
-            when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+            stubLedgerApplies();
 
             StockUpdateRequest request = StockUpdateRequest.builder()
                     .items(List.of(StockUpdateRequest.StockUpdateItem.builder()
@@ -383,7 +507,7 @@ class ProductServiceTest {
             assertEquals("Test Product", result.getProductName());
             assertEquals(10, result.getPreviousStock());
             assertEquals(15, result.getNewStock());
-            verify(productRepository).save(any(Product.class));
+            verify(stockLedgerService).apply(testProduct, 5, StockLedgerEntryType.CANCEL_RESTORE, null);
         }
 
         @Test
@@ -391,7 +515,7 @@ class ProductServiceTest {
         void incrementStock_FromZero_Success() {
             testProduct.setQuantity(0);
             when(productRepository.findById("prod123")).thenReturn(Optional.of(testProduct));
-            when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+            stubLedgerApplies();
 
             StockUpdateRequest request = StockUpdateRequest.builder()
                     .items(List.of(StockUpdateRequest.StockUpdateItem.builder()
@@ -435,7 +559,7 @@ class ProductServiceTest {
 
             when(productRepository.findById("prod123")).thenReturn(Optional.of(testProduct));
             when(productRepository.findById("prod456")).thenReturn(Optional.of(product2));
-            when(productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+            stubLedgerApplies();
 
             StockUpdateRequest request = StockUpdateRequest.builder()
                     .items(List.of(
@@ -451,7 +575,8 @@ class ProductServiceTest {
             assertEquals(2, response.getResults().size());
             assertEquals(12, response.getResults().get(0).getNewStock());
             assertEquals(8, response.getResults().get(1).getNewStock());
-            verify(productRepository, times(2)).save(any(Product.class));
+            verify(stockLedgerService, times(2)).apply(any(Product.class), anyInt(),
+                    eq(StockLedgerEntryType.CANCEL_RESTORE), any());
         }
 
         @Test
@@ -472,4 +597,10 @@ class ProductServiceTest {
             assertTrue(result.getError().contains("Timeout"));
         }
     }
+
+    private void stubLedgerApplies() {
+        when(stockLedgerService.apply(any(Product.class), anyInt(), any(StockLedgerEntryType.class), any()))
+                .thenAnswer(inv -> StockLedgerService.LedgerResult.applied(
+                        ((Product) inv.getArgument(0)).getQuantity() + (int) inv.getArgument(1)));
+    }
 }
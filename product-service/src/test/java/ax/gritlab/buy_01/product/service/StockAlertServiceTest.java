@@ -0,0 +1,141 @@
+package ax.gritlab.buy_01.product.service;
+
+import ax.gritlab.buy_01.product.dto.InventoryHealthResponse;
+import ax.gritlab.buy_01.product.model.LowStockAlert;
+import ax.gritlab.buy_01.product.model.Product;
+import ax.gritlab.buy_01.product.model.StockLevel;
+import ax.gritlab.buy_01.product.repository.LowStockAlertRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StockAlertService Unit Tests")
+class StockAlertServiceTest {
+
+    @Mock
+    private LowStockAlertRepository alertRepository;
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private StockAlertService stockAlertService;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        stockAlertService = new StockAlertService(alertRepository, kafkaTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(stockAlertService, "defaultLowStockThreshold", 5);
+
+        product = new Product();
+        product.setId("prod123");
+        product.setName("Test Product");
+        product.setUserId("seller1");
+    }
+
+    @Test
+    @DisplayName("Should publish low-stock event when crossing the threshold")
+    void onStockChanged_CrossesLowThreshold_PublishesLow() {
+        product.setQuantity(4);
+
+        stockAlertService.onStockChanged(product, 6, null);
+
+        ArgumentCaptor<LowStockAlert> captor = ArgumentCaptor.forClass(LowStockAlert.class);
+        verify(alertRepository).save(captor.capture());
+        assertEquals(StockLevel.LOW_STOCK, captor.getValue().getLevel());
+        assertEquals("seller1", captor.getValue().getSellerId());
+        verify(kafkaTemplate).send(eq(StockAlertService.STOCK_LOW_TOPIC), eq("prod123"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should publish out-of-stock event when reaching zero")
+    void onStockChanged_ReachesZero_PublishesOut() {
+        product.setQuantity(0);
+
+        stockAlertService.onStockChanged(product, 3, null);
+
+        verify(alertRepository).save(any(LowStockAlert.class));
+        verify(kafkaTemplate).send(eq(StockAlertService.STOCK_OUT_TOPIC), eq("prod123"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should not publish when staying within the same level")
+    void onStockChanged_SameLevel_OnlyRefreshesAlert() {
+        product.setQuantity(2);
+        LowStockAlert existing = LowStockAlert.builder()
+                .id("prod123").sellerId("seller1").quantity(3).level(StockLevel.LOW_STOCK).build();
+        when(alertRepository.findById("prod123")).thenReturn(Optional.of(existing));
+
+        stockAlertService.onStockChanged(product, 3, null);
+
+        assertEquals(2, existing.getQuantity());
+        verify(alertRepository).save(existing);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("Should clear the alert when restocked above the threshold")
+    void onStockChanged_Restocked_RemovesAlert() {
+        product.setQuantity(20);
+
+        stockAlertService.onStockChanged(product, 0, null);
+
+        verify(alertRepository).deleteById("prod123");
+        verify(alertRepository, never()).save(any());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("Should ignore changes that stay above the threshold")
+    void onStockChanged_AboveThreshold_NoOp() {
+        product.setQuantity(40);
+
+        stockAlertService.onStockChanged(product, 50, null);
+
+        verifyNoInteractions(alertRepository, kafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("Should honour a per-product threshold")
+    void onStockChanged_CustomThreshold() {
+        product.setQuantity(15);
+        product.setLowStockThreshold(20);
+
+        stockAlertService.onStockChanged(product, 30, null);
+
+        verify(kafkaTemplate).send(eq(StockAlertService.STOCK_LOW_TOPIC), eq("prod123"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should summarise inventory health from the alert set")
+    void getInventoryHealth_CountsLevels() {
+        when(alertRepository.findBySellerIdOrderByQuantityAsc("seller1")).thenReturn(List.of(
+                LowStockAlert.builder().id("a").quantity(0).level(StockLevel.OUT_OF_STOCK).build(),
+                LowStockAlert.builder().id("b").quantity(2).level(StockLevel.LOW_STOCK).build(),
+                LowStockAlert.builder().id("c").quantity(4).level(StockLevel.LOW_STOCK).build()));
+
+        InventoryHealthResponse health = stockAlertService.getInventoryHealth("seller1");
+
+        assertEquals(1, health.getOutOfStockCount());
+        assertEquals(2, health.getLowStockCount());
+        assertEquals(3, health.getAlerts().size());
+        assertEquals("OUT_OF_STOCK", health.getAlerts().get(0).getLevel());
+    }
+}
@@ -0,0 +1,137 @@
+package ax.gritlab.buy_01.product.service;
+
+import ax.gritlab.buy_01.product.dto.StockUpdateRequest;
+import ax.gritlab.buy_01.product.dto.StockUpdateResponse;
+import ax.gritlab.buy_01.product.exception.IdempotencyConflictException;
+import ax.gritlab.buy_01.product.model.StockIdempotencyRecord;
+import com.mongodb.client.result.UpdateResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StockIdempotencyService Unit Tests")
+class StockIdempotencyServiceTest {
+
+    private static final String KEY = "ORD-1:decrement-stock";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private StockIdempotencyService idempotencyService;
+
+    private StockUpdateRequest request;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(idempotencyService, "claimTimeoutMillis", 30000L);
+        request = StockUpdateRequest.builder()
+                .orderId("ORD-1")
+                .items(List.of(StockUpdateRequest.StockUpdateItem.builder().productId("p1").quantity(2).build()))
+                .build();
+        executions = new AtomicInteger();
+    }
+
+    private StockUpdateResponse run(boolean success) {
+        executions.incrementAndGet();
+        return StockUpdateResponse.builder().success(success).message(success ? "ok" : "failed").build();
+    }
+
+    @Test
+    @DisplayName("Should derive the key from order ID and operation")
+    void resolveKey_FromOrderId() {
+        assertEquals(KEY, idempotencyService.resolveKey(null, request, "decrement-stock"));
+        assertEquals("custom", idempotencyService.resolveKey("custom", request, "decrement-stock"));
+        request.setOrderId(null);
+        assertNull(idempotencyService.resolveKey(null, request, "decrement-stock"));
+    }
+
+    @Test
+    @DisplayName("Should run once and store a successful response")
+    void execute_FirstCall_RunsAndStores() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(StockIdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        StockIdempotencyService.IdempotentResponse result =
+                idempotencyService.execute(KEY, "decrement-stock", request, () -> run(true));
+
+        assertFalse(result.isReplayed());
+        assertEquals(1, executions.get());
+        verify(mongoTemplate).insert(any(StockIdempotencyRecord.class));
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(StockIdempotencyRecord.class));
+    }
+
+    @Test
+    @DisplayName("Should replay a completed key without running the update")
+    void execute_CompletedKey_Replays() {
+        StockUpdateResponse stored = StockUpdateResponse.builder().success(true).message("stored").build();
+        when(mongoTemplate.insert(any(StockIdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById(KEY, StockIdempotencyRecord.class)).thenReturn(StockIdempotencyRecord.builder()
+                .id(KEY).fingerprint("p1x2").status(StockIdempotencyRecord.COMPLETED).response(stored).build());
+
+        StockIdempotencyService.IdempotentResponse result =
+                idempotencyService.execute(KEY, "decrement-stock", request, () -> run(true));
+
+        assertTrue(result.isReplayed());
+        assertSame(stored, result.getResponse());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    @DisplayName("Should reject a key that is still in progress")
+    void execute_InProgressKey_Conflicts() {
+        when(mongoTemplate.insert(any(StockIdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById(KEY, StockIdempotencyRecord.class)).thenReturn(StockIdempotencyRecord.builder()
+                .id(KEY).fingerprint("p1x2").status(StockIdempotencyRecord.IN_PROGRESS)
+                .claimedAt(LocalDateTime.now(ZoneOffset.UTC)).build());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(StockIdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.execute(KEY, "decrement-stock", request, () -> run(true)));
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused for different items")
+    void execute_DifferentRequest_Conflicts() {
+        when(mongoTemplate.insert(any(StockIdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById(KEY, StockIdempotencyRecord.class)).thenReturn(StockIdempotencyRecord.builder()
+                .id(KEY).fingerprint("p1x5").status(StockIdempotencyRecord.COMPLETED).build());
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.execute(KEY, "decrement-stock", request, () -> run(true)));
+    }
+
+    @Test
+    @DisplayName("Should release the key when the update fails")
+    void execute_Failure_ReleasesKey() {
+        StockIdempotencyService.IdempotentResponse result =
+                idempotencyService.execute(KEY, "decrement-stock", request, () -> run(false));
+
+        assertFalse(result.getResponse().isSuccess());
+        verify(mongoTemplate).remove(any(Query.class), eq(StockIdempotencyRecord.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(StockIdempotencyRecord.class));
+    }
+}
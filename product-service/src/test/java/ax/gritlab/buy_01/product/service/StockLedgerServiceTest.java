@@ -0,0 +1,204 @@
+package ax.gritlab.buy_01.product.service;
+
+import ax.gritlab.buy_01.product.model.Product;
+import ax.gritlab.buy_01.product.model.StockLedgerEntry;
+import ax.gritlab.buy_01.product.model.StockLedgerEntryType;
+import ax.gritlab.buy_01.product.model.StockSnapshot;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StockLedgerService Unit Tests")
+class StockLedgerServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ProductSnapshotPublisher snapshotPublisher;
+
+    private StockLedgerService stockLedgerService;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        stockLedgerService = new StockLedgerService(mongoTemplate, snapshotPublisher);
+        ReflectionTestUtils.setField(stockLedgerService, "settleMillis", 60000L);
+
+        product = new Product();
+        product.setId("prod123");
+        product.setQuantity(5);
+    }
+
+    @Test
+    @DisplayName("Should append the movement and move the quantity with $inc")
+    void apply_Available_AppendsAndIncrements() {
+        Product updated = new Product();
+        updated.setId("prod123");
+        updated.setQuantity(3);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(updated);
+
+        StockLedgerService.LedgerResult result = stockLedgerService.apply(product, -2,
+                StockLedgerEntryType.ORDER_DECREMENT, "ORD-1");
+
+        assertEquals(StockLedgerService.LedgerResult.Outcome.APPLIED, result.getOutcome());
+        assertEquals(3, result.getQuantity());
+        ArgumentCaptor<StockLedgerEntry> entry = ArgumentCaptor.forClass(StockLedgerEntry.class);
+        verify(mongoTemplate).insert(entry.capture());
+        assertEquals(-2, entry.getValue().getDelta());
+        assertEquals("ORD-1", entry.getValue().getOrderId());
+        ArgumentCaptor<Query> guard = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndModify(guard.capture(), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Product.class));
+        assertEquals(2, guard.getValue().getQueryObject().get("quantity", Document.class).get("$gte"));
+    }
+
+    @Test
+    @DisplayName("Should acknowledge a repeated order movement without touching stock")
+    void apply_Duplicate_DoesNotIncrement() {
+        when(mongoTemplate.insert(any(StockLedgerEntry.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.exists(any(Query.class), eq(StockLedgerEntry.class))).thenReturn(false);
+
+        StockLedgerService.LedgerResult result = stockLedgerService.apply(product, -2,
+                StockLedgerEntryType.ORDER_DECREMENT, "ORD-1");
+
+        assertEquals(StockLedgerService.LedgerResult.Outcome.DUPLICATE, result.getOutcome());
+        assertEquals(5, result.getQuantity());
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Product.class));
+    }
+
+    @Test
+    @DisplayName("Should cancel out a movement that lost the race for the last units instead of deleting it")
+    void apply_Insufficient_AppendsRejection() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(null);
+        Product current = new Product();
+        current.setId("prod123");
+        current.setQuantity(1);
+        when(mongoTemplate.findById("prod123", Product.class)).thenReturn(current);
+
+        StockLedgerService.LedgerResult result = stockLedgerService.apply(product, -2,
+                StockLedgerEntryType.ORDER_DECREMENT, "ORD-1");
+
+        assertEquals(StockLedgerService.LedgerResult.Outcome.INSUFFICIENT, result.getOutcome());
+        assertEquals(1, result.getQuantity());
+        ArgumentCaptor<StockLedgerEntry> entries = ArgumentCaptor.forClass(StockLedgerEntry.class);
+        verify(mongoTemplate, times(2)).insert(entries.capture());
+        StockLedgerEntry movement = entries.getAllValues().get(0);
+        StockLedgerEntry rejection = entries.getAllValues().get(1);
+        assertEquals(StockLedgerEntryType.REJECTED, rejection.getType());
+        assertEquals(2, rejection.getDelta());
+        assertEquals("ORD-1", rejection.getOrderId());
+        assertEquals(movement.getCreatedAt(), rejection.getCreatedAt());
+        verify(mongoTemplate, never()).remove(any(Object.class));
+    }
+
+    @Test
+    @DisplayName("Should turn down a retry of a rejected movement again")
+    void apply_RetryOfRejected_ReportsInsufficient() {
+        when(mongoTemplate.insert(any(StockLedgerEntry.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.exists(any(Query.class), eq(StockLedgerEntry.class))).thenReturn(true);
+
+        StockLedgerService.LedgerResult result = stockLedgerService.apply(product, -2,
+                StockLedgerEntryType.ORDER_DECREMENT, "ORD-1");
+
+        assertEquals(StockLedgerService.LedgerResult.Outcome.INSUFFICIENT, result.getOutcome());
+    }
+
+    @Test
+    @DisplayName("Should not count a rejected decrement as a movement of the order")
+    void hasMovement_Rejected_IsFalse() {
+        when(mongoTemplate.find(any(Query.class), eq(StockLedgerEntry.class))).thenReturn(List.of(
+                entry("prod123", StockLedgerEntryType.ORDER_DECREMENT),
+                entry("prod123", StockLedgerEntryType.REJECTED),
+                entry("prod456", StockLedgerEntryType.ORDER_DECREMENT)));
+
+        assertTrue(stockLedgerService.hasMovement("ORD-1", null, StockLedgerEntryType.ORDER_DECREMENT));
+
+        when(mongoTemplate.find(any(Query.class), eq(StockLedgerEntry.class))).thenReturn(List.of(
+                entry("prod123", StockLedgerEntryType.ORDER_DECREMENT),
+                entry("prod123", StockLedgerEntryType.REJECTED)));
+
+        assertFalse(stockLedgerService.hasMovement("ORD-1", "prod123", StockLedgerEntryType.ORDER_DECREMENT));
+    }
+
+    @Test
+    @DisplayName("Should fold the settled tail into the snapshot and repair a drifted quantity")
+    void compactSnapshots_FoldsAndReconciles() {
+        LocalDateTime asOf = LocalDateTime.of(2026, 1, 1, 0, 0);
+        when(mongoTemplate.stream(any(Query.class), eq(StockSnapshot.class)))
+                .thenReturn(Stream.of(new StockSnapshot("prod123", 20, asOf)));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(StockLedgerEntry.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(new Document("total", -3)), new Document()));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(StockSnapshot.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        // Nothing newer is in flight
+        when(mongoTemplate.exists(any(Query.class), eq(StockLedgerEntry.class))).thenReturn(false);
+        when(mongoTemplate.findById("prod123", Product.class)).thenReturn(product);
+        Product repaired = new Product();
+        repaired.setId("prod123");
+        repaired.setQuantity(17);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(repaired);
+
+        stockLedgerService.compactSnapshots();
+
+        ArgumentCaptor<Update> folded = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), folded.capture(), eq(StockSnapshot.class));
+        assertEquals(-3, folded.getValue().getUpdateObject().get("$inc", Document.class).get("quantity"));
+        ArgumentCaptor<Update> repair = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), repair.capture(), any(FindAndModifyOptions.class),
+                eq(Product.class));
+        assertEquals(17, repair.getValue().getUpdateObject().get("$set", Document.class).get("quantity"));
+        verify(snapshotPublisher).publishUpsert(repaired);
+    }
+
+    @Test
+    @DisplayName("Should leave the quantity alone while newer movements are settling")
+    void compactSnapshots_TailInFlight_SkipsReconcile() {
+        LocalDateTime asOf = LocalDateTime.of(2026, 1, 1, 0, 0);
+        when(mongoTemplate.stream(any(Query.class), eq(StockSnapshot.class)))
+                .thenReturn(Stream.of(new StockSnapshot("prod123", 20, asOf)));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(StockLedgerEntry.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(new Document("total", -3)), new Document()));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(StockSnapshot.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(mongoTemplate.exists(any(Query.class), eq(StockLedgerEntry.class))).thenReturn(true);
+
+        stockLedgerService.compactSnapshots();
+
+        verify(mongoTemplate, never()).findById("prod123", Product.class);
+        verifyNoInteractions(snapshotPublisher);
+    }
+
+    private static StockLedgerEntry entry(String productId, StockLedgerEntryType type) {
+        return StockLedgerEntry.builder().productId(productId).orderId("ORD-1").type(type).build();
+    }
+}
@@ -0,0 +1,166 @@
+package ax.gritlab.buy_01.product.service;
+
+import ax.gritlab.buy_01.product.dto.StockUpdateRequest;
+import ax.gritlab.buy_01.product.dto.StockUpdateResponse;
+import ax.gritlab.buy_01.product.model.StockLedgerEntryType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StockReservationService Unit Tests")
+class StockReservationServiceTest {
+
+    private static final String EVENT = "{\"orderId\":\"order-1\",\"orderNumber\":\"ORD-1\",\"items\":["
+            + "{\"productId\":\"prod-1\",\"quantity\":2},{\"productId\":\"prod-2\",\"quantity\":1}]}";
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private StockIdempotencyService stockIdempotencyService;
+
+    @Mock
+    private StockLedgerService stockLedgerService;
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private StockReservationService stockReservationService;
+
+    @BeforeEach
+    void setUp() {
+        stockReservationService = new StockReservationService(productService, stockIdempotencyService,
+                stockLedgerService, kafkaTemplate, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Should decrement under the order's idempotency key and publish a reservation")
+    void onOrderPlaced_AllAvailable_PublishesReserved() throws Exception {
+        givenDecrement(StockUpdateResponse.builder().success(true).build());
+        givenPublish();
+
+        stockReservationService.onOrderPlaced(EVENT);
+
+        verify(stockIdempotencyService).execute(eq("ORD-1:decrement-stock"), eq("decrement-stock"),
+                any(StockUpdateRequest.class), any());
+        JsonNode outcome = publishedOutcome();
+        assertEquals("order-1", outcome.get("orderId").asText());
+        assertTrue(outcome.get("reserved").asBoolean());
+        verify(productService, never()).incrementStock(any());
+    }
+
+    @Test
+    @DisplayName("Should put back the items that were taken when another item is short")
+    void onOrderPlaced_PartiallyAvailable_ReleasesAndRejects() throws Exception {
+        givenDecrement(StockUpdateResponse.builder()
+                .success(false)
+                .results(List.of(
+                        StockUpdateResponse.StockUpdateResult.builder().productId("prod-1").success(true).build(),
+                        StockUpdateResponse.StockUpdateResult.builder().productId("prod-2").productName("Lamp")
+                                .success(false).error("Insufficient stock. Available: 0, Requested: 1").build()))
+                .build());
+        givenDecremented("prod-1");
+        when(productService.incrementStock(any())).thenReturn(StockUpdateResponse.builder().success(true).build());
+        givenPublish();
+
+        stockReservationService.onOrderPlaced(EVENT);
+
+        ArgumentCaptor<StockUpdateRequest> released = ArgumentCaptor.forClass(StockUpdateRequest.class);
+        verify(productService).incrementStock(released.capture());
+        assertEquals("ORD-1", released.getValue().getOrderId());
+        assertEquals(1, released.getValue().getItems().size());
+        assertEquals("prod-1", released.getValue().getItems().get(0).getProductId());
+        assertEquals(2, released.getValue().getItems().get(0).getQuantity());
+
+        JsonNode outcome = publishedOutcome();
+        assertFalse(outcome.get("reserved").asBoolean());
+        assertTrue(outcome.get("reason").asText().startsWith("Lamp: Insufficient stock"));
+    }
+
+    @Test
+    @DisplayName("Should not reconsider an order whose stock was already put back")
+    void onOrderPlaced_AlreadyReleased_RejectsWithoutDecrementing() throws Exception {
+        when(stockLedgerService.hasMovement(eq("ORD-1"), isNull(), eq(StockLedgerEntryType.CANCEL_RESTORE)))
+                .thenReturn(true);
+        givenPublish();
+
+        stockReservationService.onOrderPlaced(EVENT);
+
+        verify(stockIdempotencyService, never()).execute(any(), any(), any(), any());
+        assertFalse(publishedOutcome().get("reserved").asBoolean());
+    }
+
+    @Test
+    @DisplayName("Should fail the event when stock cannot be put back, so it is redelivered")
+    void onOrderPlaced_ReleaseFails_Throws() {
+        givenDecrement(StockUpdateResponse.builder()
+                .success(false)
+                .results(List.of(
+                        StockUpdateResponse.StockUpdateResult.builder().productId("prod-2").success(false).build()))
+                .build());
+        givenDecremented("prod-1");
+        when(productService.incrementStock(any())).thenReturn(StockUpdateResponse.builder().success(false).build());
+
+        assertThrows(IllegalStateException.class, () -> stockReservationService.onOrderPlaced(EVENT));
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should drop malformed events without publishing")
+    void onOrderPlaced_Malformed_Ignored() throws Exception {
+        stockReservationService.onOrderPlaced("{\"orderId\":\"order-1\"}");
+
+        verifyNoInteractions(stockIdempotencyService, productService);
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenDecrement(StockUpdateResponse response) {
+        when(stockIdempotencyService.execute(anyString(), anyString(), any(StockUpdateRequest.class), any()))
+                .thenAnswer(invocation -> {
+                    // Run the action like the real service would
+                    ((Supplier<StockUpdateResponse>) invocation.getArgument(3)).get();
+                    return new StockIdempotencyService.IdempotentResponse(response, false);
+                });
+        when(productService.decrementStock(any())).thenReturn(response);
+    }
+
+    private void givenDecremented(String productId) {
+        // Ledger lookups: only the given product was taken for the order
+        when(stockLedgerService.hasMovement(anyString(), any(), any())).thenAnswer(invocation ->
+                productId.equals(invocation.getArgument(1))
+                        && invocation.getArgument(2) == StockLedgerEntryType.ORDER_DECREMENT);
+    }
+
+    private void givenPublish() {
+        when(kafkaTemplate.send(eq(StockReservationService.ORDER_STOCK_TOPIC), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private JsonNode publishedOutcome() throws Exception {
+        ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate).send(eq(StockReservationService.ORDER_STOCK_TOPIC), eq("order-1"), value.capture());
+        return objectMapper.readTree(value.getValue());
+    }
+}